@@ -0,0 +1,111 @@
+package com.nobx.rocketdrive.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.nobx.rocketdrive.RocketdriveTaskManagerApplication;
+import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+import com.nobx.rocketdrive.service.CloudProvider;
+import com.nobx.rocketdrive.service.CloudService;
+
+/**
+ * The application context shared by the benchmarks of one JMH fork: the whole
+ * application on an in-memory H2 database, with OneDrive replaced by a
+ * provider whose operations complete at once, so a benchmark measures the
+ * task manager's own overhead.
+ */
+public final class BenchmarkContext {
+
+    private static ConfigurableApplicationContext context;
+
+    private BenchmarkContext() {
+    }
+
+    public static synchronized ConfigurableApplicationContext get() {
+        if (context == null) {
+            context = start("benchmarks", new Class<?>[] { InstantProvider.class });
+        }
+        return context;
+    }
+
+    /**
+     * Starts the application on its own in-memory database with the given
+     * extra configuration classes and property arguments.
+     */
+    public static ConfigurableApplicationContext start(String database, Class<?>[] sources, String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+            "--spring.datasource.url=jdbc:h2:mem:" + database + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.jpa.hibernate.ddl-auto=create-drop",
+            "--spring.jpa.show-sql=false",
+            "--spring.batch.job.enabled=false",
+            "--spring.main.allow-bean-definition-overriding=true",
+            "--tasks.archive.enabled=false",
+            "--management.tracing.enabled=false",
+            "--logging.level.root=WARN"));
+        args.addAll(Arrays.asList(properties));
+
+        List<Class<?>> classes = new ArrayList<>();
+        classes.add(RocketdriveTaskManagerApplication.class);
+        classes.addAll(Arrays.asList(sources));
+        return new SpringApplicationBuilder(classes.toArray(new Class<?>[0]))
+            .web(WebApplicationType.NONE)
+            .run(args.toArray(new String[0]));
+    }
+
+    public static <T> T bean(Class<T> type) {
+        return get().getBean(type);
+    }
+
+    /**
+     * Replaces the OneDrive service under its bean name.
+     */
+    @Configuration
+    static class InstantProvider {
+
+        @Bean
+        @CloudProvider(CloudServiceEnum.ONEDRIVE)
+        CloudService oneDriveService() {
+            return new CloudService() {
+                @Override
+                public CloudServiceEnum getCloudService() {
+                    return CloudServiceEnum.ONEDRIVE;
+                }
+
+                @Override
+                public boolean isServerSideCopy() {
+                    return true;
+                }
+
+                @Override
+                public void copyFile(Task task) {
+                }
+
+                @Override
+                public void deleteFileWithAccountId(String filePath, Long accountId) {
+                }
+
+                @Override
+                public CompletableFuture<Void> copyFileAsync(Task task) {
+                    return CompletableFuture.completedFuture(null);
+                }
+
+                @Override
+                public CompletableFuture<Void> deleteFileAsync(String filePath, Long accountId) {
+                    return CompletableFuture.completedFuture(null);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.nobx.rocketdrive.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * Runs JMH with the results written as JSON to {@code target/jmh-result.json},
+ * so runs of different builds can be compared, unless the arguments choose
+ * another result format or file.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-rf")) {
+            options.addAll(List.of("-rf", "json"));
+        }
+        if (!options.contains("-rff")) {
+            options.addAll(List.of("-rff", "target/jmh-result.json"));
+        }
+        Main.main(options.toArray(new String[0]));
+    }
+}
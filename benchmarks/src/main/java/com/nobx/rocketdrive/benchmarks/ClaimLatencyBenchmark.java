@@ -0,0 +1,138 @@
+package com.nobx.rocketdrive.benchmarks;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.Chunk;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.nobx.rocketdrive.batch.TaskWriter;
+import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.enums.TaskPriorityEnum;
+import com.nobx.rocketdrive.enums.TaskStatusEnum;
+import com.nobx.rocketdrive.repository.TaskRepository;
+
+/**
+ * Cost of the reader's queries and of claiming a chunk as the number of
+ * finished tasks grows, with the same ready queue every time. The finished
+ * tasks are either moved to the archive, as the archiver leaves them, or kept
+ * in backend_task as they piled up before it existed. Each parameter pair runs
+ * in its own fork, on its own freshly seeded database.
+ *
+ * A claim is measured as the batch step does it, a page read and
+ * {@link TaskWriter#write} flushed in one transaction, which is then rolled
+ * back so every invocation claims from the same queue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ClaimLatencyBenchmark {
+
+    private static final int USERS = 16;
+    private static final int READY_TASKS = 5_000;
+    private static final int CHUNK = 20;
+
+    private static final String TASK_COLUMNS = "task_type, source_path, destination_path, cloud_service, status, "
+        + "source_account_id, destination_account_id, user_id, priority, source_email, destination_email, "
+        + "created_at, updated_at";
+
+    // One row per value of x, spread over the same users as the ready queue
+    private static final String TASK_VALUES = "'COPY', CONCAT('/benchmark/source-', x, '.bin'), "
+        + "CONCAT('/benchmark/destination-', x, '.bin'), 'ONEDRIVE', ?, 1, 1, CONCAT('benchmark-', MOD(x, " + USERS
+        + ")), 'NORMAL', 'source@benchmark.local', 'destination@benchmark.local', ?, ?";
+
+    @Param({ "0", "250000", "1000000" })
+    private int finishedTasks;
+
+    @Param({ "archived", "hot" })
+    private String finishedIn;
+
+    private TaskRepository taskRepository;
+    private TaskWriter taskWriter;
+    private TransactionTemplate transactionTemplate;
+
+    // Later than the ready tasks' next attempt, which the scheduled job never reaches
+    private LocalDateTime readyAt;
+    private int user;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        taskRepository = BenchmarkContext.bean(TaskRepository.class);
+        taskWriter = BenchmarkContext.bean(TaskWriter.class);
+        transactionTemplate = new TransactionTemplate(BenchmarkContext.bean(PlatformTransactionManager.class));
+        JdbcTemplate jdbcTemplate = BenchmarkContext.bean(JdbcTemplate.class);
+
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp finishedAt = Timestamp.valueOf(now.minusDays(30));
+        if ("archived".equals(finishedIn)) {
+            jdbcTemplate.update("INSERT INTO backend_task_archive (id, " + TASK_COLUMNS + ", archived_at) SELECT x, "
+                + TASK_VALUES + ", ? FROM SYSTEM_RANGE(1, ?)", "COMPLETED", finishedAt, finishedAt, finishedAt,
+                finishedTasks);
+        } else {
+            jdbcTemplate.update("INSERT INTO backend_task (" + TASK_COLUMNS + ") SELECT " + TASK_VALUES
+                + " FROM SYSTEM_RANGE(1, ?)", "COMPLETED", finishedAt, finishedAt, finishedTasks);
+        }
+
+        Timestamp created = Timestamp.valueOf(now);
+        jdbcTemplate.update("INSERT INTO backend_task (" + TASK_COLUMNS + ", next_attempt_at) SELECT " + TASK_VALUES
+            + ", ? FROM SYSTEM_RANGE(1, ?)", "PENDING", created, created, Timestamp.valueOf(now.plusDays(1)),
+            READY_TASKS);
+        readyAt = now.plusDays(2);
+    }
+
+    @Benchmark
+    public int readyFlows() {
+        return taskRepository.findReadyFlows(TaskStatusEnum.PENDING, readyAt).size();
+    }
+
+    @Benchmark
+    public int readyPage() {
+        return readyPage(nextUser()).size();
+    }
+
+    @Benchmark
+    public int claimChunk() {
+        String userId = nextUser();
+        return transactionTemplate.execute(status -> {
+            List<Task> chunk = readyPage(userId);
+            try {
+                taskWriter.write(new Chunk<>(chunk));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            taskRepository.flush();
+            status.setRollbackOnly();
+            return chunk.size();
+        });
+    }
+
+    private List<Task> readyPage(String userId) {
+        return taskRepository.findReadyAfter(TaskStatusEnum.PENDING, readyAt, userId, TaskPriorityEnum.NORMAL, 0L,
+            PageRequest.of(0, CHUNK));
+    }
+
+    private String nextUser() {
+        user = (user + 1) % USERS;
+        return "benchmark-" + user;
+    }
+}
@@ -0,0 +1,234 @@
+package com.nobx.rocketdrive.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nobx.rocketdrive.transfer.ChunkSink;
+import com.nobx.rocketdrive.transfer.RangedDownloader;
+import com.nobx.rocketdrive.transfer.SpoolArena;
+import com.nobx.rocketdrive.transfer.TransferChunk;
+
+/**
+ * Copies a file between in-memory fake streams with each transfer strategy:
+ * buffering the whole file in the heap, streaming it through a small buffer,
+ * moving it through one direct buffer between channels, and the transfer
+ * engine's parallel ranges spooled in the {@link SpoolArena}. Time per copy;
+ * throughput is the size divided by it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CopyStrategyBenchmark {
+
+    private static final int BLOCK = 1024 * 1024;
+    private static final byte[] PATTERN = new byte[BLOCK];
+
+    static {
+        for (int i = 0; i < BLOCK; i++) {
+            PATTERN[i] = (byte) (i * 31);
+        }
+    }
+
+    @Param({ "67108864", "268435456" })
+    private long size;
+
+    private ExecutorService rangeExecutor;
+    private SpoolArena arena;
+    private Path spillDir;
+    private ByteBuffer directBuffer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        rangeExecutor = Executors.newFixedThreadPool(8);
+        spillDir = Files.createTempDirectory("benchmark-spill");
+        arena = new SpoolArena(256L * 1024 * 1024, spillDir);
+        directBuffer = ByteBuffer.allocateDirect(BLOCK);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        rangeExecutor.shutdownNow();
+        Files.deleteIfExists(spillDir);
+    }
+
+    @Benchmark
+    public long buffered() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        try (InputStream in = new PatternInputStream(size)) {
+            out.write(in.readAllBytes());
+        }
+        return out.count;
+    }
+
+    @Benchmark
+    public long streamed() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        try (InputStream in = new PatternInputStream(size)) {
+            in.transferTo(out);
+        }
+        return out.count;
+    }
+
+    @Benchmark
+    public long directBuffer() throws IOException {
+        CountingChannel out = new CountingChannel();
+        try (ReadableByteChannel in = new PatternChannel(size)) {
+            directBuffer.clear();
+            while (in.read(directBuffer) >= 0) {
+                directBuffer.flip();
+                while (directBuffer.hasRemaining()) {
+                    out.write(directBuffer);
+                }
+                directBuffer.clear();
+            }
+        }
+        return out.count;
+    }
+
+    @Benchmark
+    public long rangedSpooled() throws IOException {
+        long[] count = new long[1];
+        new RangedDownloader(rangeExecutor, arena, 4 * BLOCK, 4).transfer(size,
+            (offset, length) -> new PatternInputStream(length), new ChunkSink() {
+                @Override
+                public void write(TransferChunk chunk) {
+                    count[0] += chunk.getLength();
+                }
+
+                @Override
+                public void complete(long totalSize) {
+                }
+            });
+        return count[0];
+    }
+
+    /**
+     * Serves {@code size} bytes of a repeating pattern without allocating.
+     */
+    static class PatternInputStream extends InputStream {
+
+        private long remaining;
+        private int position;
+
+        PatternInputStream(long size) {
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() {
+            if (remaining == 0) {
+                return -1;
+            }
+            remaining--;
+            int value = PATTERN[position] & 0xff;
+            position = (position + 1) % BLOCK;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (remaining == 0) {
+                return -1;
+            }
+            int count = (int) Math.min(Math.min(length, remaining), BLOCK - position);
+            System.arraycopy(PATTERN, position, buffer, offset, count);
+            position = (position + count) % BLOCK;
+            remaining -= count;
+            return count;
+        }
+    }
+
+    static class PatternChannel implements ReadableByteChannel {
+
+        private long remaining;
+        private int position;
+
+        PatternChannel(long size) {
+            this.remaining = size;
+        }
+
+        @Override
+        public int read(ByteBuffer destination) {
+            if (remaining == 0) {
+                return -1;
+            }
+            int count = (int) Math.min(Math.min(destination.remaining(), remaining), BLOCK - position);
+            destination.put(PATTERN, position, count);
+            position = (position + count) % BLOCK;
+            remaining -= count;
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    static class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            count += length;
+        }
+    }
+
+    static class CountingChannel implements WritableByteChannel {
+
+        private long count;
+
+        @Override
+        public int write(ByteBuffer source) {
+            int length = source.remaining();
+            source.position(source.limit());
+            count += length;
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.nobx.rocketdrive.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+import com.nobx.rocketdrive.enums.CloudTypeEnum;
+import com.nobx.rocketdrive.enums.TaskStatusEnum;
+import com.nobx.rocketdrive.service.impl.CloudOperationService;
+
+/**
+ * Overhead of dispatching one task through {@link CloudOperationService}:
+ * circuit breaker, transfer control, lane, adaptive concurrency limit,
+ * classification of the outcome, progress, metrics and tracing, around a
+ * provider call that completes at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatchBenchmark {
+
+    private CloudOperationService cloudOperationService;
+
+    @Setup
+    public void setUp() {
+        cloudOperationService = BenchmarkContext.bean(CloudOperationService.class);
+    }
+
+    @Benchmark
+    public Task dispatch() {
+        return cloudOperationService.executeCloudOperationAsync(task()).join();
+    }
+
+    // Concurrent callers contend on the lane and the provider's limiter
+    @Benchmark
+    @Threads(8)
+    public Task dispatchConcurrently() {
+        return cloudOperationService.executeCloudOperationAsync(task()).join();
+    }
+
+    // Not persisted: without an id the task is not tracked by id anywhere
+    private static Task task() {
+        Task task = new Task();
+        task.setCloudType(CloudTypeEnum.COPY);
+        task.setCloudService(CloudServiceEnum.ONEDRIVE);
+        task.setSourcePath("/benchmark/source.bin");
+        task.setDestinationPath("/benchmark/destination.bin");
+        task.setSourceAccountId(1);
+        task.setDestinationAccountId(1);
+        task.setUserId("benchmark");
+        task.setStatus(TaskStatusEnum.PENDING);
+        task.setCreatedAt(LocalDateTime.now());
+        return task;
+    }
+}
@@ -0,0 +1,317 @@
+package com.nobx.rocketdrive.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.nobx.rocketdrive.benchmarks.emulator.EmulatorSettings;
+import com.nobx.rocketdrive.benchmarks.emulator.ProviderEmulator;
+import com.nobx.rocketdrive.entity.CloudDriveConnection;
+import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+import com.nobx.rocketdrive.enums.CloudTypeEnum;
+import com.nobx.rocketdrive.enums.TaskStatusEnum;
+import com.nobx.rocketdrive.repository.CloudDriveConnectionRepository;
+import com.nobx.rocketdrive.repository.TaskRepository;
+import com.nobx.rocketdrive.service.impl.JobSchedulerService;
+
+/**
+ * End-to-end throughput of {@code processTaskJob} against the
+ * {@link ProviderEmulator}: copy tasks between emulated accounts are seeded,
+ * released at once, and the job is run until every one has finished. Reports
+ * tasks per second, the p50 and p99 time from release to a task's final
+ * status, and the high-water mark of the used heap, sampled every 10 ms.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.nobx.rocketdrive.benchmarks.EndToEndBenchmark \
+ *     --tasks=2000 --size=1048576 --providers=DROPBOX,ONEDRIVE,GOOGLE_DRIVE \
+ *     --latency-ms=20 --jitter-ms=10 --bandwidth=0 --error-rate=0.01 --throttle-rate=0.02
+ * </pre>
+ *
+ * The summary is also written as JSON to {@code target/e2e-result.json}.
+ */
+public class EndToEndBenchmark {
+
+    private static final String SELECT_UNFINISHED = "SELECT COUNT(*) FROM backend_task "
+        + "WHERE id BETWEEN ? AND ? AND status IN ('PENDING', 'IN_PROGRESS')";
+
+    private static final String SELECT_OUTCOMES = "SELECT cloud_service, status, created_at, updated_at "
+        + "FROM backend_task WHERE id BETWEEN ? AND ?";
+
+    private static final String RELEASE = "UPDATE backend_task SET next_attempt_at = NULL, created_at = ?, "
+        + "updated_at = ? WHERE id BETWEEN ? AND ?";
+
+    private final ConfigurableApplicationContext context;
+    private final ProviderEmulator emulator;
+    private final JdbcTemplate jdbcTemplate;
+
+    EndToEndBenchmark(ConfigurableApplicationContext context, ProviderEmulator emulator) {
+        this.context = context;
+        this.emulator = emulator;
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        int tasks = Integer.parseInt(options.getOrDefault("tasks", "1000"));
+        int size = Integer.parseInt(options.getOrDefault("size", "1048576"));
+        int users = Integer.parseInt(options.getOrDefault("users", "16"));
+        long timeoutSeconds = Long.parseLong(options.getOrDefault("timeout-s", "600"));
+        List<CloudServiceEnum> providers = Arrays
+            .stream(options.getOrDefault("providers", "DROPBOX,ONEDRIVE,GOOGLE_DRIVE").split(","))
+            .map(provider -> CloudServiceEnum.valueOf(provider.trim().toUpperCase(Locale.ROOT))).toList();
+        EmulatorSettings settings = new EmulatorSettings()
+            .latencyMillis(Long.parseLong(options.getOrDefault("latency-ms", "20")))
+            .jitterMillis(Long.parseLong(options.getOrDefault("jitter-ms", "10")))
+            .bytesPerSecond(Long.parseLong(options.getOrDefault("bandwidth", "0")))
+            .errorRate(Double.parseDouble(options.getOrDefault("error-rate", "0")))
+            .throttleRate(Double.parseDouble(options.getOrDefault("throttle-rate", "0")))
+            .retryAfterSeconds(Integer.parseInt(options.getOrDefault("retry-after-s", "1")));
+
+        try (ProviderEmulator emulator = new ProviderEmulator(settings).start();
+                ConfigurableApplicationContext context = BenchmarkContext.start("end-to-end", new Class<?>[0],
+                    "--dropbox.api.endpoint=" + emulator.getDropboxEndpoint(),
+                    "--google.drive.root-url=" + emulator.getDriveRootUrl(),
+                    "--google.oauth.token-url=" + emulator.getTokenUrl(),
+                    "--onedrive.graph.endpoint=" + emulator.getGraphEndpoint(),
+                    // Backoffs sized for the emulator's faults rather than a real outage
+                    "--resilience.retry.base-delay-ms=" + options.getOrDefault("retry-delay-ms", "200"),
+                    "--resilience.retry.max-delay-ms=5000",
+                    "--resilience.circuit.open-ms=1000",
+                    "--resilience.circuit.max-open-ms=5000")) {
+            JsonObject result = new EndToEndBenchmark(context, emulator).run(tasks, size, users, providers,
+                Duration.ofSeconds(timeoutSeconds));
+            Path file = Path.of("target", "e2e-result.json");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, new GsonBuilder().setPrettyPrinting().create().toJson(result));
+        }
+    }
+
+    JsonObject run(int tasks, int size, int users, List<CloudServiceEnum> providers, Duration timeout)
+            throws InterruptedException {
+        long[] ids = seed(tasks, size, users, providers);
+        JobSchedulerService jobSchedulerService = context.getBean(JobSchedulerService.class);
+
+        System.gc();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        AtomicLong heapHighWater = new AtomicLong();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "heap-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(
+            () -> heapHighWater.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max), 0, 10,
+            TimeUnit.MILLISECONDS);
+
+        LocalDateTime releasedAt = LocalDateTime.now();
+        jdbcTemplate.update(RELEASE, Timestamp.valueOf(releasedAt), Timestamp.valueOf(releasedAt), ids[0], ids[1]);
+        long deadline = System.nanoTime() + timeout.toNanos();
+        boolean timedOut = false;
+        while (unfinished(ids) > 0) {
+            if (System.nanoTime() > deadline) {
+                timedOut = true;
+                break;
+            }
+            // Returns once the run has claimed what it can; the claimed tasks finish in the background
+            jobSchedulerService.scheduleTaskProcessing();
+            Thread.sleep(50);
+        }
+        sampler.shutdownNow();
+
+        return report(tasks, size, providers, releasedAt, ids, heapHighWater.get(), timedOut);
+    }
+
+    /**
+     * Seeds the source files in the emulator and their copy tasks, held back
+     * until their release by a next attempt a day ahead. Returns the first and
+     * last task id.
+     */
+    private long[] seed(int tasks, int size, int users, List<CloudServiceEnum> providers) {
+        byte[] content = new byte[size];
+        new Random(42).nextBytes(content);
+
+        CloudDriveConnectionRepository connections = context.getBean(CloudDriveConnectionRepository.class);
+        Map<CloudServiceEnum, CloudDriveConnection[]> accounts = new EnumMap<>(CloudServiceEnum.class);
+        for (CloudServiceEnum provider : providers) {
+            accounts.put(provider, new CloudDriveConnection[] { connections.save(connection(provider, "source")),
+                connections.save(connection(provider, "destination")) });
+        }
+
+        TaskRepository taskRepository = context.getBean(TaskRepository.class);
+        LocalDateTime now = LocalDateTime.now();
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            CloudServiceEnum provider = providers.get(i % providers.size());
+            String name = "file-" + i + ".bin";
+            Task task = new Task();
+            task.setCloudType(CloudTypeEnum.COPY);
+            task.setCloudService(provider);
+            addSource(emulator, task, name, content);
+            CloudDriveConnection[] pair = accounts.get(provider);
+            task.setSourceAccountId(pair[0].getId().intValue());
+            task.setDestinationAccountId(pair[1].getId().intValue());
+            task.setSourceEmail(pair[0].getEmail());
+            task.setDestinationEmail(pair[1].getEmail());
+            task.setUserId("benchmark-" + i % users);
+            task.setStatus(TaskStatusEnum.PENDING);
+            task.setCreatedAt(now);
+            task.setUpdatedAt(now);
+            task.setNextAttemptAt(now.plusDays(1));
+            batch.add(task);
+
+            if (batch.size() == 500 || i == tasks - 1) {
+                for (Task saved : taskRepository.saveAll(batch)) {
+                    first = Math.min(first, saved.getId());
+                    last = Math.max(last, saved.getId());
+                }
+                batch.clear();
+            }
+        }
+        return new long[] { first, last };
+    }
+
+    /**
+     * Seeds the source file of a copy task in the emulator and points the
+     * task at it, by the provider set on the task.
+     */
+    static void addSource(ProviderEmulator emulator, Task task, String name, byte[] content) {
+        switch (task.getCloudService()) {
+        case DROPBOX:
+            task.setSourcePath(emulator.addDropboxFile("/benchmark/" + name, content).getPath());
+            task.setDestinationPath("/copies");
+            break;
+        case ONEDRIVE:
+            task.setSourcePath(emulator.addGraphFile(name, content).getId());
+            task.setDestinationPath("/");
+            break;
+        case GOOGLE_DRIVE:
+            task.setSourcePath(emulator.addDriveFile(name, content).getId());
+            task.setDestinationPath("/");
+            break;
+        default:
+            throw new IllegalArgumentException("The emulator does not serve " + task.getCloudService());
+        }
+    }
+
+    private static CloudDriveConnection connection(CloudServiceEnum provider, String role) {
+        CloudDriveConnection connection = new CloudDriveConnection();
+        connection.setAccessToken("emulated-" + role);
+        connection.setRefreshToken("emulated-refresh");
+        connection.setExpiryTime(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1));
+        connection.setUserId(1);
+        connection.setCreatedAt(LocalDateTime.now());
+        connection.setEmail(role + "@" + provider.name().toLowerCase(Locale.ROOT) + ".emulator");
+        connection.setProvider(provider.name());
+        connection.setTenantId("emulated");
+        return connection;
+    }
+
+    private long unfinished(long[] ids) {
+        Long count = jdbcTemplate.queryForObject(SELECT_UNFINISHED, Long.class, ids[0], ids[1]);
+        return count != null ? count : 0;
+    }
+
+    private JsonObject report(int tasks, int size, List<CloudServiceEnum> providers, LocalDateTime releasedAt,
+            long[] ids, long heapHighWater, boolean timedOut) {
+        Map<String, Integer> outcomes = new TreeMap<>();
+        Map<String, List<Long>> latencies = new TreeMap<>();
+        LocalDateTime lastFinished = releasedAt;
+        for (Map<String, Object> row : jdbcTemplate.queryForList(SELECT_OUTCOMES, ids[0], ids[1])) {
+            String status = String.valueOf(row.get("status"));
+            outcomes.merge(status, 1, Integer::sum);
+            if (!status.equals(TaskStatusEnum.COMPLETED.name())) {
+                continue;
+            }
+            LocalDateTime finished = dateTime(row.get("updated_at"));
+            long nanos = Duration.between(dateTime(row.get("created_at")), finished).toNanos();
+            latencies.computeIfAbsent("all", k -> new ArrayList<>()).add(nanos);
+            latencies.computeIfAbsent(String.valueOf(row.get("cloud_service")), k -> new ArrayList<>()).add(nanos);
+            if (finished.isAfter(lastFinished)) {
+                lastFinished = finished;
+            }
+        }
+
+        int completed = outcomes.getOrDefault(TaskStatusEnum.COMPLETED.name(), 0);
+        double seconds = Duration.between(releasedAt, lastFinished).toNanos() / 1e9;
+        double throughput = seconds > 0 ? completed / seconds : 0;
+
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("End-to-end: %d copy tasks of %d bytes on %s%n", tasks, size, providers));
+        out.append(String.format("Emulator: %s; %d requests, %d throttled, %d failed%n", emulator.getSettings(),
+            emulator.getRequests(), emulator.getThrottled(), emulator.getFailed()));
+        out.append(String.format("Outcomes: %s%s%n", outcomes, timedOut ? " (timed out)" : ""));
+        out.append(String.format("Throughput: %.1f tasks/s over %.1f s%n", throughput, seconds));
+        JsonObject latency = new JsonObject();
+        latencies.forEach((key, values) -> {
+            long[] sorted = values.stream().mapToLong(Long::longValue).sorted().toArray();
+            JsonObject percentiles = new JsonObject();
+            percentiles.addProperty("p50Ms", percentileMillis(sorted, 50));
+            percentiles.addProperty("p99Ms", percentileMillis(sorted, 99));
+            latency.add(key, percentiles);
+            out.append(String.format("Latency from release (%s): p50 %.1f ms, p99 %.1f ms%n", key,
+                percentileMillis(sorted, 50), percentileMillis(sorted, 99)));
+        });
+        out.append(String.format("Heap high-water mark: %.1f MiB%n", heapHighWater / 1048576.0));
+        System.out.print(out);
+
+        JsonObject result = new JsonObject();
+        result.addProperty("tasks", tasks);
+        result.addProperty("sizeBytes", size);
+        result.addProperty("providers", providers.toString());
+        result.addProperty("emulator", emulator.getSettings().toString());
+        result.addProperty("timedOut", timedOut);
+        JsonObject statuses = new JsonObject();
+        outcomes.forEach(statuses::addProperty);
+        result.add("outcomes", statuses);
+        result.addProperty("tasksPerSecond", throughput);
+        result.addProperty("seconds", seconds);
+        result.add("latency", latency);
+        result.addProperty("heapHighWaterBytes", heapHighWater);
+        return result;
+    }
+
+    private static LocalDateTime dateTime(Object value) {
+        return value instanceof Timestamp ? ((Timestamp) value).toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    static double percentileMillis(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+
+    static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,161 @@
+package com.nobx.rocketdrive.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nobx.rocketdrive.scheduling.FairQueue;
+
+/**
+ * Tail wait time per user of the fair queue against plain FIFO order, on a
+ * mixed workload: one user bulk-submits a backlog while four interactive users
+ * and one normal user keep submitting single tasks. Every task takes one tick
+ * on one of the workers. The wait times, in ticks, are reported as secondary
+ * results (p50, p99 and max per user); the interactive ones are those of the
+ * worst off interactive user.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FairQueueBenchmark {
+
+    private static final int WORKERS = 10;
+    private static final int BULK_TASKS = 20_000;
+    private static final int TICKS = 4_000;
+
+    @Param({ "fifo", "fair" })
+    private String order;
+
+    @Param({ "5" })
+    private int perUserCap;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Waits {
+        public long interactiveP50;
+        public long interactiveP99;
+        public long interactiveMax;
+        public long normalP50;
+        public long normalP99;
+        public long normalMax;
+        public long bulkP50;
+        public long bulkP99;
+        public long bulkMax;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            interactiveP50 = interactiveP99 = interactiveMax = 0;
+            normalP50 = normalP99 = normalMax = 0;
+            bulkP50 = bulkP99 = bulkMax = 0;
+        }
+    }
+
+    private static class Job {
+        final String user;
+        final int weight;
+        final int arrival;
+
+        Job(String user, int weight, int arrival) {
+            this.user = user;
+            this.weight = weight;
+            this.arrival = arrival;
+        }
+    }
+
+    @Benchmark
+    public void mixedWorkload(Waits waits) {
+        Map<String, List<Integer>> byUser = simulate("fair".equals(order));
+        for (Map.Entry<String, List<Integer>> user : byUser.entrySet()) {
+            List<Integer> values = user.getValue();
+            long p50 = percentile(values, 0.5);
+            long p99 = percentile(values, 0.99);
+            long max = Collections.max(values);
+            if (user.getKey().startsWith("interactive")) {
+                waits.interactiveP50 = Math.max(waits.interactiveP50, p50);
+                waits.interactiveP99 = Math.max(waits.interactiveP99, p99);
+                waits.interactiveMax = Math.max(waits.interactiveMax, max);
+            } else if (user.getKey().equals("normal")) {
+                waits.normalP50 = p50;
+                waits.normalP99 = p99;
+                waits.normalMax = max;
+            } else {
+                waits.bulkP50 = p50;
+                waits.bulkP99 = p99;
+                waits.bulkMax = max;
+            }
+        }
+    }
+
+    // Wait times per user, in ticks, of every task of the workload
+    private Map<String, List<Integer>> simulate(boolean fair) {
+        FairQueue<Job> queue = new FairQueue<>(fair ? perUserCap : Integer.MAX_VALUE);
+        Map<String, List<Integer>> waits = new TreeMap<>();
+        List<Job> running = new ArrayList<>();
+
+        for (int i = 0; i < BULK_TASKS; i++) {
+            submit(queue, fair, new Job("bulk", 1, 0));
+        }
+        for (int tick = 0; tick < TICKS || queue.size() > 0; tick++) {
+            for (Job job : running) {
+                queue.release(fair ? job.user : "all");
+            }
+            running.clear();
+
+            if (tick < TICKS) {
+                for (int user = 1; user <= 4; user++) {
+                    if (tick % 10 == user) {
+                        submit(queue, fair, new Job("interactive-" + user, 16, tick));
+                    }
+                }
+                if (tick % 5 == 0) {
+                    submit(queue, fair, new Job("normal", 4, tick));
+                }
+            }
+
+            while (running.size() < WORKERS) {
+                Job job = queue.poll();
+                if (job == null) {
+                    break;
+                }
+                running.add(job);
+                waits.computeIfAbsent(job.user, key -> new ArrayList<>()).add(tick - job.arrival);
+            }
+        }
+        return waits;
+    }
+
+    private static void submit(FairQueue<Job> queue, boolean fair, Job job) {
+        // FIFO baseline: a single flow with equal weights is served in arrival order
+        if (fair) {
+            queue.offer(job.user, job, job.weight, 1.0);
+        } else {
+            queue.offer("all", job, 1, 1.0);
+        }
+    }
+
+    private static int percentile(List<Integer> values, double percentile) {
+        List<Integer> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(Math.max(0, (int) Math.ceil(sorted.size() * percentile) - 1));
+    }
+}
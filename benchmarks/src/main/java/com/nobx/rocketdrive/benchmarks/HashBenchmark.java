@@ -0,0 +1,75 @@
+package com.nobx.rocketdrive.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nobx.rocketdrive.transfer.ContentHasher;
+import com.nobx.rocketdrive.transfer.DigestContentHasher;
+import com.nobx.rocketdrive.transfer.DropboxContentHasher;
+import com.nobx.rocketdrive.transfer.QuickXorHasher;
+
+/**
+ * Time to hash one GiB with each provider's content hash, fed in chunks of
+ * the transfer engine's range size from heap or direct buffers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class HashBenchmark {
+
+    private static final int CHUNK = 8 * 1024 * 1024;
+    private static final int CHUNKS_PER_GIB = 1024 * 1024 * 1024 / CHUNK;
+
+    // The Dropbox block hash and OneDrive's QuickXorHash verify transfers, the digests are for reference
+    @Param({ "SHA-256", "MD5", "DROPBOX", "QUICK_XOR" })
+    private String algorithm;
+
+    @Param({ "heap", "direct" })
+    private String buffer;
+
+    private ByteBuffer chunk;
+
+    @Setup
+    public void setUp() {
+        byte[] data = new byte[CHUNK];
+        ThreadLocalRandom.current().nextBytes(data);
+        chunk = "direct".equals(buffer) ? ByteBuffer.allocateDirect(CHUNK) : ByteBuffer.allocate(CHUNK);
+        chunk.put(data).flip();
+    }
+
+    @Benchmark
+    public String hashGibibyte() {
+        ContentHasher hasher = newHasher();
+        for (int i = 0; i < CHUNKS_PER_GIB; i++) {
+            hasher.update(chunk.duplicate());
+        }
+        return hasher.digest();
+    }
+
+    private ContentHasher newHasher() {
+        switch (algorithm) {
+        case "DROPBOX":
+            return new DropboxContentHasher();
+        case "QUICK_XOR":
+            return new QuickXorHasher();
+        default:
+            return new DigestContentHasher(algorithm);
+        }
+    }
+}
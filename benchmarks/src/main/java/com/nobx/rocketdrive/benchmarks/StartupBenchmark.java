@@ -0,0 +1,355 @@
+package com.nobx.rocketdrive.benchmarks;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.nobx.rocketdrive.benchmarks.emulator.EmulatorSettings;
+import com.nobx.rocketdrive.benchmarks.emulator.ProviderEmulator;
+import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+
+/**
+ * Startup of a worker process, from launch to its health endpoint answering
+ * and to the first task it completes against the {@link ProviderEmulator}.
+ * Each run launches the application in a fresh JVM on an H2 file database
+ * holding one pending copy task; the first task is seen on
+ * {@code /actuator/prometheus}. Configurations, each measured
+ * {@code --runs} times:
+ *
+ * <ul>
+ * <li>{@code default}: the application properties as they are</li>
+ * <li>{@code production}: the production profile, with migrations instead of schema update</li>
+ * <li>{@code production+cds}: plus a class-data sharing archive, dumped by a
+ * training run through the first task</li>
+ * <li>{@code production+cds+aot}: plus the AOT-generated context, when the
+ * classpath was built with {@code mvn -Pstartup package}</li>
+ * </ul>
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.nobx.rocketdrive.benchmarks.StartupBenchmark \
+ *     --runs=5 --provider=DROPBOX --size=1048576 --jvm-options="-Xmx512m"
+ * </pre>
+ *
+ * Class-data sharing only archives classes loaded from jars, so run it from
+ * {@code benchmarks.jar}. The summary is also written as JSON to
+ * {@code target/startup-result.json}.
+ */
+public class StartupBenchmark {
+
+    private static final String APPLICATION = "com.nobx.rocketdrive.RocketdriveTaskManagerApplication";
+
+    private static final String AOT_INITIALIZER =
+        "com/nobx/rocketdrive/RocketdriveTaskManagerApplication__ApplicationContextInitializer.class";
+
+    private static final String FIRST_TASK_METRIC = "rocketdrive_task_duration_seconds_count";
+
+    private static final String INSERT_CONNECTION = "INSERT INTO backend_clouddriveconnection (access_token, "
+        + "refresh_token, expiry_time, user_id, created_at, email, provider, tenant_id) "
+        + "VALUES (?, 'emulated-refresh', ?, 1, ?, ?, ?, 'emulated')";
+
+    private static final String INSERT_TASK = "INSERT INTO backend_task (task_type, source_path, destination_path, "
+        + "cloud_service, status, source_account_id, destination_account_id, user_id, priority, source_email, "
+        + "destination_email, created_at, updated_at, attempt_count, pending_dependencies) "
+        + "VALUES ('COPY', ?, ?, ?, 'PENDING', ?, ?, 'startup', 'NORMAL', ?, ?, ?, ?, 0, 0)";
+
+    private final ProviderEmulator emulator;
+    private final Path workDir;
+    private final String database;
+    private final List<String> jvmOptions;
+    private final Duration timeout;
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+    private int launches;
+
+    StartupBenchmark(ProviderEmulator emulator, Path workDir, List<String> jvmOptions, Duration timeout) {
+        this.emulator = emulator;
+        this.workDir = workDir;
+        this.database = "jdbc:h2:file:" + workDir.resolve("startup").toAbsolutePath()
+            + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+        this.jvmOptions = jvmOptions;
+        this.timeout = timeout;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = EndToEndBenchmark.options(args);
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        int size = Integer.parseInt(options.getOrDefault("size", "1048576"));
+        long timeoutSeconds = Long.parseLong(options.getOrDefault("timeout-s", "120"));
+        CloudServiceEnum provider = CloudServiceEnum
+            .valueOf(options.getOrDefault("provider", "DROPBOX").trim().toUpperCase(Locale.ROOT));
+        String jvm = options.getOrDefault("jvm-options", "").trim();
+        List<String> jvmOptions = jvm.isEmpty() ? List.of() : Arrays.asList(jvm.split("\\s+"));
+
+        List<Configuration> configurations = new ArrayList<>();
+        configurations.add(new Configuration("default", false, false, false));
+        configurations.add(new Configuration("production", true, false, false));
+        configurations.add(new Configuration("production+cds", true, true, false));
+        if (StartupBenchmark.class.getClassLoader().getResource(AOT_INITIALIZER) != null) {
+            configurations.add(new Configuration("production+cds+aot", true, true, true));
+        } else {
+            System.out.println("No AOT-generated context on the classpath, build with mvn -Pstartup package "
+                + "to measure production+cds+aot");
+        }
+
+        Path workDir = Files.createTempDirectory("rocketdrive-startup");
+        try (ProviderEmulator emulator = new ProviderEmulator(new EmulatorSettings().latencyMillis(5).jitterMillis(0))
+                .start()) {
+            StartupBenchmark benchmark = new StartupBenchmark(emulator, workDir, jvmOptions,
+                Duration.ofSeconds(timeoutSeconds));
+            byte[] content = new byte[size];
+            new Random(42).nextBytes(content);
+
+            // The schema comes from a first start that runs the production profile's migrations
+            benchmark.reset(provider, content);
+            benchmark.launch(new Configuration("schema", true, false, false), null, false);
+
+            JsonArray results = new JsonArray();
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("Startup: %d runs per configuration, first task a %s copy of %d bytes%n", runs,
+                provider, size));
+            for (Configuration configuration : configurations) {
+                Path archive = benchmark.archive(configuration);
+                if (configuration.cds) {
+                    benchmark.reset(provider, content);
+                    benchmark.launch(configuration, "-XX:ArchiveClassesAtExit=" + archive, true);
+                }
+                long[] ready = new long[runs];
+                long[] firstTask = new long[runs];
+                for (int i = 0; i < runs; i++) {
+                    benchmark.reset(provider, content);
+                    long[] times = benchmark.launch(configuration,
+                        configuration.cds ? "-XX:SharedArchiveFile=" + archive : null, true);
+                    ready[i] = times[0];
+                    firstTask[i] = times[1];
+                }
+                Arrays.sort(ready);
+                Arrays.sort(firstTask);
+
+                JsonObject result = new JsonObject();
+                result.addProperty("configuration", configuration.name);
+                result.addProperty("readyP50Ms", EndToEndBenchmark.percentileMillis(ready, 50));
+                result.addProperty("readyMinMs", ready[0] / 1e6);
+                result.addProperty("firstTaskP50Ms", EndToEndBenchmark.percentileMillis(firstTask, 50));
+                result.addProperty("firstTaskMinMs", firstTask[0] / 1e6);
+                results.add(result);
+                out.append(String.format("%-20s ready p50 %7.0f ms (min %7.0f), first task p50 %7.0f ms (min %7.0f)%n",
+                    configuration.name, EndToEndBenchmark.percentileMillis(ready, 50), ready[0] / 1e6,
+                    EndToEndBenchmark.percentileMillis(firstTask, 50), firstTask[0] / 1e6));
+            }
+            System.out.print(out);
+
+            JsonObject summary = new JsonObject();
+            summary.addProperty("runs", runs);
+            summary.addProperty("provider", provider.name());
+            summary.addProperty("sizeBytes", size);
+            summary.addProperty("jvmOptions", String.join(" ", jvmOptions));
+            summary.add("configurations", results);
+            Path file = Path.of("target", "startup-result.json");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, new GsonBuilder().setPrettyPrinting().create().toJson(summary));
+        }
+    }
+
+    private Path archive(Configuration configuration) {
+        return workDir.resolve(configuration.name.replace('+', '-') + ".jsa").toAbsolutePath();
+    }
+
+    /**
+     * Replaces the tasks and connections with a single pending copy task
+     * between two emulated accounts. Only called while no worker is running,
+     * the embedded database belongs to one process at a time.
+     */
+    void reset(CloudServiceEnum provider, byte[] content) throws SQLException {
+        Task task = new Task();
+        task.setCloudService(provider);
+        EndToEndBenchmark.addSource(emulator, task, "startup-" + launches + ".bin", content);
+
+        try (Connection connection = DriverManager.getConnection(database, "sa", "")) {
+            if (!tableExists(connection)) {
+                return;
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM backend_task_destination");
+                statement.executeUpdate("DELETE FROM backend_task");
+                statement.executeUpdate("DELETE FROM backend_completed_operation");
+                statement.executeUpdate("DELETE FROM backend_clouddriveconnection");
+            }
+            String suffix = "@" + provider.name().toLowerCase(Locale.ROOT) + ".emulator";
+            long source = insertConnection(connection, provider, "source" + suffix);
+            long destination = insertConnection(connection, provider, "destination" + suffix);
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_TASK)) {
+                insert.setString(1, task.getSourcePath());
+                insert.setString(2, task.getDestinationPath());
+                insert.setString(3, provider.name());
+                insert.setLong(4, source);
+                insert.setLong(5, destination);
+                insert.setString(6, "source" + suffix);
+                insert.setString(7, "destination" + suffix);
+                insert.setTimestamp(8, now);
+                insert.setTimestamp(9, now);
+                insert.executeUpdate();
+            }
+        }
+    }
+
+    private static boolean tableExists(Connection connection) throws SQLException {
+        try (ResultSet tables = connection.getMetaData().getTables(null, null, "backend_task", null)) {
+            return tables.next();
+        }
+    }
+
+    private static long insertConnection(Connection connection, CloudServiceEnum provider, String email)
+            throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_CONNECTION,
+                Statement.RETURN_GENERATED_KEYS)) {
+            insert.setString(1, "emulated-" + email);
+            insert.setLong(2, System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1));
+            insert.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+            insert.setString(4, email);
+            insert.setString(5, provider.name());
+            insert.executeUpdate();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                keys.next();
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    /**
+     * Launches a worker and waits for its first completed task, or only for
+     * its health endpoint without {@code untilFirstTask}, then stops it.
+     * Returns the nanoseconds from launch to the health endpoint's first
+     * answer and to the first completed task.
+     */
+    long[] launch(Configuration configuration, String archiveOption, boolean untilFirstTask)
+            throws IOException, InterruptedException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        if (archiveOption != null) {
+            command.add(archiveOption);
+        }
+        if (configuration.aot) {
+            command.add("-Dspring.aot.enabled=true");
+        }
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), APPLICATION,
+            "--server.port=" + port,
+            "--spring.datasource.url=" + database,
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+            "--dropbox.api.endpoint=" + emulator.getDropboxEndpoint(),
+            "--google.drive.root-url=" + emulator.getDriveRootUrl(),
+            "--google.oauth.token-url=" + emulator.getTokenUrl(),
+            "--onedrive.graph.endpoint=" + emulator.getGraphEndpoint(),
+            "--logging.level.root=WARN"));
+        if (configuration.production) {
+            // H2 reports some of the migrated MySQL column types differently, so the mapping is not validated
+            command.add("--spring.profiles.active=production");
+            command.add("--spring.jpa.hibernate.ddl-auto=none");
+        }
+
+        Path log = workDir.resolve(configuration.name.replace('+', '-') + "-" + launches++ + ".log");
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        long ready = -1;
+        long firstTask = -1;
+        try {
+            while (untilFirstTask ? firstTask < 0 : ready < 0) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(configuration.name + " worker exited with "
+                        + process.exitValue() + ", see " + log);
+                }
+                if (System.nanoTime() - start > timeout.toNanos()) {
+                    throw new IllegalStateException(configuration.name + " worker did not complete a task within "
+                        + timeout + ", see " + log);
+                }
+                if (ready < 0 && get(port, "/actuator/health") != null) {
+                    ready = System.nanoTime() - start;
+                }
+                if (ready >= 0 && firstTaskCompleted(get(port, "/actuator/prometheus"))) {
+                    firstTask = System.nanoTime() - start;
+                }
+                Thread.sleep(10);
+            }
+        } finally {
+            // A clean exit, the class-data sharing archive is dumped on it
+            process.destroy();
+            if (!process.waitFor(60, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+        return new long[] { ready, firstTask };
+    }
+
+    private String get(int port, String path) throws InterruptedException {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(2)).build();
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 ? response.body() : null;
+        } catch (IOException e) {
+            // Not listening yet
+            return null;
+        }
+    }
+
+    private static boolean firstTaskCompleted(String metrics) {
+        if (metrics == null) {
+            return false;
+        }
+        for (String line : metrics.split("\n")) {
+            if (line.startsWith(FIRST_TASK_METRIC) && line.contains("outcome=\"COMPLETED\"")) {
+                double count = Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+                if (count >= 1) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    static class Configuration {
+        private final String name;
+        private final boolean production;
+        private final boolean cds;
+        private final boolean aot;
+
+        Configuration(String name, boolean production, boolean cds, boolean aot) {
+            this.name = name;
+            this.production = production;
+            this.cds = cds;
+            this.aot = aot;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.nobx.rocketdrive.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.Chunk;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.nobx.rocketdrive.batch.TaskWriter;
+import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+import com.nobx.rocketdrive.enums.CloudTypeEnum;
+import com.nobx.rocketdrive.enums.TaskStatusEnum;
+import com.nobx.rocketdrive.repository.TaskRepository;
+
+/**
+ * Time for the {@link TaskWriter} to claim and commit one chunk of tasks on
+ * the embedded database, as the batch step does it. The tasks' operations then
+ * complete at once and their outcomes are saved in the background, competing
+ * with the next chunks like in production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskWriterBenchmark {
+
+    @Param({ "20", "100" })
+    private int chunkSize;
+
+    private TaskWriter taskWriter;
+    private TaskRepository taskRepository;
+    private TransactionTemplate transactionTemplate;
+    private List<Task> chunk;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        taskWriter = BenchmarkContext.bean(TaskWriter.class);
+        taskRepository = BenchmarkContext.bean(TaskRepository.class);
+        transactionTemplate = new TransactionTemplate(BenchmarkContext.bean(PlatformTransactionManager.class));
+    }
+
+    @Setup(Level.Invocation)
+    public void insertChunk() {
+        List<Task> tasks = new ArrayList<>(chunkSize);
+        for (int i = 0; i < chunkSize; i++) {
+            tasks.add(task(sequence++));
+        }
+        chunk = taskRepository.saveAll(tasks);
+    }
+
+    @Benchmark
+    public int writeChunk() {
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                taskWriter.write(new Chunk<>(chunk));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        return chunk.size();
+    }
+
+    // Distinct paths so no task is coalesced with another; the scheduled job skips
+    // tasks whose next attempt is in the future, so it never claims these
+    private static Task task(long sequence) {
+        LocalDateTime now = LocalDateTime.now();
+        Task task = new Task();
+        task.setCloudType(CloudTypeEnum.COPY);
+        task.setCloudService(CloudServiceEnum.ONEDRIVE);
+        task.setSourcePath("/benchmark/source-" + sequence + ".bin");
+        task.setDestinationPath("/benchmark/destination-" + sequence + ".bin");
+        task.setSourceAccountId(1);
+        task.setDestinationAccountId(1);
+        task.setUserId("benchmark-" + sequence % 16);
+        task.setSourceEmail("source@benchmark.local");
+        task.setDestinationEmail("destination@benchmark.local");
+        task.setStatus(TaskStatusEnum.PENDING);
+        task.setCreatedAt(now);
+        task.setUpdatedAt(now);
+        task.setNextAttemptAt(now.plusDays(1));
+        return task;
+    }
+}
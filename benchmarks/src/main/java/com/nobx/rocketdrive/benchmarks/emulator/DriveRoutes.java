@@ -0,0 +1,168 @@
+package com.nobx.rocketdrive.benchmarks.emulator;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Google Drive v3 file routes and the OAuth token endpoint. Copies are
+ * server-side, so a copy shares the source's bytes and checksum.
+ */
+class DriveRoutes extends ProviderRoutes {
+
+    private static final String FILES = "drive/v3/files";
+
+    DriveRoutes(ProviderEmulator emulator) {
+        super(emulator);
+    }
+
+    @Override
+    void route(HttpExchange exchange, String method, String path) throws IOException {
+        if (path.equals("token") && method.equals("POST")) {
+            exchange.getRequestBody().readAllBytes();
+            JsonObject token = new JsonObject();
+            token.addProperty("access_token", "emulated-" + emulator.nextId());
+            token.addProperty("expires_in", 3600);
+            token.addProperty("token_type", "Bearer");
+            json(exchange, 200, token);
+            return;
+        }
+        if (path.equals(FILES) && method.equals("POST")) {
+            create(exchange, readJson(exchange));
+            return;
+        }
+        if (!path.startsWith(FILES + "/")) {
+            error(exchange, 404, "Unsupported route: " + path);
+            return;
+        }
+
+        String[] segments = path.substring(FILES.length() + 1).split("/");
+        EmulatedFile file = emulator.driveFiles.get(segments[0]);
+        if (file == null) {
+            exchange.getRequestBody().readAllBytes();
+            error(exchange, 404, "File not found: " + segments[0] + ".");
+            return;
+        }
+        String action = segments.length > 1 ? segments[1] : "";
+        switch (method + " " + action) {
+        case "GET ":
+            json(exchange, 200, metadata(file));
+            break;
+        case "DELETE ":
+            emulator.driveFiles.remove(file.getId());
+            empty(exchange, 204);
+            break;
+        case "PATCH ":
+            readJson(exchange);
+            move(exchange, file, query(exchange));
+            break;
+        case "POST copy":
+            copy(exchange, file, readJson(exchange));
+            break;
+        case "POST permissions":
+            readJson(exchange);
+            JsonObject permission = new JsonObject();
+            permission.addProperty("id", "permission-" + emulator.nextId());
+            json(exchange, 200, permission);
+            break;
+        default:
+            error(exchange, 404, "Unsupported route: " + method + " " + path);
+        }
+    }
+
+    private void create(HttpExchange exchange, JsonObject request) throws IOException {
+        EmulatedFile file = new EmulatedFile(emulator.nextId(), string(request, "name"), 0, null, null, null, null);
+        file.setParentId(firstParent(request));
+        emulator.driveFiles.put(file.getId(), file);
+        json(exchange, 200, metadata(file));
+    }
+
+    private void copy(HttpExchange exchange, EmulatedFile source, JsonObject request) throws IOException {
+        String name = string(request, "name");
+        EmulatedFile copy = source.copy(emulator.nextId(), name != null ? name : source.getName());
+        copy.setParentId(firstParent(request));
+        emulator.driveFiles.put(copy.getId(), copy);
+        json(exchange, 200, metadata(copy));
+    }
+
+    private void move(HttpExchange exchange, EmulatedFile file, Map<String, String> query) throws IOException {
+        if (query.containsKey("addParents")) {
+            file.setParentId(query.get("addParents"));
+        }
+        json(exchange, 200, metadata(file));
+    }
+
+    private static String firstParent(JsonObject request) {
+        JsonElement parents = request.get("parents");
+        if (parents != null && parents.isJsonArray() && parents.getAsJsonArray().size() > 0) {
+            return parents.getAsJsonArray().get(0).getAsString();
+        }
+        return "root";
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> query = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw != null) {
+            for (String pair : raw.split("&")) {
+                int equals = pair.indexOf('=');
+                if (equals > 0) {
+                    query.put(pair.substring(0, equals),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return query;
+    }
+
+    // Drive encodes 64-bit numbers as strings
+    private static JsonObject metadata(EmulatedFile file) {
+        JsonObject metadata = new JsonObject();
+        metadata.addProperty("kind", "drive#file");
+        metadata.addProperty("id", file.getId());
+        metadata.addProperty("name", file.getName());
+        metadata.addProperty("size", String.valueOf(file.getSize()));
+        if (file.getMd5() != null) {
+            metadata.addProperty("md5Checksum", file.getMd5());
+        }
+        JsonArray parents = new JsonArray();
+        parents.add(file.getParentId() != null ? file.getParentId() : "root");
+        metadata.add("parents", parents);
+        return metadata;
+    }
+
+    @Override
+    void error(HttpExchange exchange, int status, String message) throws IOException {
+        String reason;
+        switch (status) {
+        case 404:
+            reason = "notFound";
+            break;
+        case 429:
+            reason = "rateLimitExceeded";
+            break;
+        default:
+            reason = "backendError";
+        }
+        JsonObject detail = new JsonObject();
+        detail.addProperty("domain", status == 429 ? "usageLimits" : "global");
+        detail.addProperty("reason", reason);
+        detail.addProperty("message", message);
+        JsonArray errors = new JsonArray();
+        errors.add(detail);
+        JsonObject error = new JsonObject();
+        error.addProperty("code", status);
+        error.addProperty("message", message);
+        error.add("errors", errors);
+        JsonObject body = new JsonObject();
+        body.add("error", error);
+        json(exchange, status, body);
+    }
+}
@@ -0,0 +1,255 @@
+package com.nobx.rocketdrive.benchmarks.emulator;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.nobx.rocketdrive.transfer.DropboxContentHasher;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Dropbox API v2 file routes. RPC routes take their argument as the JSON body,
+ * content routes in the {@code Dropbox-API-Arg} header; both are served on the
+ * one endpoint the client's hosts are rewritten to.
+ */
+class DropboxRoutes extends ProviderRoutes {
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    DropboxRoutes(ProviderEmulator emulator) {
+        super(emulator);
+    }
+
+    @Override
+    void route(HttpExchange exchange, String method, String path) throws IOException {
+        switch (path) {
+        case "2/files/get_metadata":
+            getMetadata(exchange, readJson(exchange));
+            break;
+        case "2/files/download":
+            download(exchange, argument(exchange));
+            break;
+        case "2/files/upload":
+            upload(exchange, argument(exchange));
+            break;
+        case "2/files/upload_session/start":
+            startSession(exchange);
+            break;
+        case "2/files/upload_session/append_v2":
+            appendSession(exchange, argument(exchange));
+            break;
+        case "2/files/upload_session/finish":
+            finishSession(exchange, argument(exchange));
+            break;
+        case "2/files/delete_v2":
+            delete(exchange, readJson(exchange));
+            break;
+        case "2/files/move_v2":
+            move(exchange, readJson(exchange));
+            break;
+        case "2/files/create_folder_v2":
+            createFolder(exchange, readJson(exchange));
+            break;
+        default:
+            error(exchange, 400, "Unsupported route: " + path);
+        }
+    }
+
+    private void getMetadata(HttpExchange exchange, JsonObject arg) throws IOException {
+        EmulatedFile file = lookup(string(arg, "path"));
+        if (file == null) {
+            notFound(exchange, "path");
+            return;
+        }
+        json(exchange, 200, metadata(file));
+    }
+
+    private void download(HttpExchange exchange, JsonObject arg) throws IOException {
+        EmulatedFile file = lookup(string(arg, "path"));
+        if (file == null || file.getContent() == null) {
+            notFound(exchange, "path");
+            return;
+        }
+        long[] range = range(exchange, file.getSize());
+        exchange.getResponseHeaders().set("Dropbox-API-Result", metadata(file).toString());
+        boolean partial = exchange.getRequestHeaders().containsKey("Range");
+        sendContent(exchange, partial ? 206 : 200, file.getContent(), range[0], range[1]);
+    }
+
+    private void upload(HttpExchange exchange, JsonObject arg) throws IOException {
+        DropboxContentHasher hasher = new DropboxContentHasher();
+        long size = receive(exchange, hasher);
+        json(exchange, 200, metadata(store(string(arg, "path"), size, hasher.digest())));
+    }
+
+    private void startSession(HttpExchange exchange) throws IOException {
+        UploadSession session = new UploadSession();
+        session.size = receive(exchange, session.hasher);
+        String sessionId = "session:" + emulator.nextId();
+        sessions.put(sessionId, session);
+        JsonObject result = new JsonObject();
+        result.addProperty("session_id", sessionId);
+        json(exchange, 200, result);
+    }
+
+    private void appendSession(HttpExchange exchange, JsonObject arg) throws IOException {
+        UploadSession session = session(exchange, arg.getAsJsonObject("cursor"));
+        if (session != null) {
+            session.size += receive(exchange, session.hasher);
+            json(exchange, 200, JsonNull.INSTANCE);
+        }
+    }
+
+    private void finishSession(HttpExchange exchange, JsonObject arg) throws IOException {
+        UploadSession session = session(exchange, arg.getAsJsonObject("cursor"));
+        if (session != null) {
+            session.size += receive(exchange, session.hasher);
+            sessions.remove(string(arg.getAsJsonObject("cursor"), "session_id"));
+            String path = string(arg.getAsJsonObject("commit"), "path");
+            json(exchange, 200, metadata(store(path, session.size, session.hasher.digest())));
+        }
+    }
+
+    /**
+     * The cursor's session, if its offset is where the session's bytes end;
+     * otherwise the request is answered with Dropbox's lookup error.
+     */
+    private UploadSession session(HttpExchange exchange, JsonObject cursor) throws IOException {
+        UploadSession session = sessions.get(string(cursor, "session_id"));
+        if (session == null) {
+            exchange.getRequestBody().readAllBytes();
+            lookupError(exchange, tag("not_found"));
+            return null;
+        }
+        long offset = cursor.get("offset").getAsLong();
+        if (offset != session.size) {
+            exchange.getRequestBody().readAllBytes();
+            JsonObject error = tag("incorrect_offset");
+            error.addProperty("correct_offset", session.size);
+            lookupError(exchange, error);
+            return null;
+        }
+        return session;
+    }
+
+    private void delete(HttpExchange exchange, JsonObject arg) throws IOException {
+        String path = string(arg, "path");
+        EmulatedFile file = path != null ? emulator.dropboxFiles.remove(path.toLowerCase(Locale.ROOT)) : null;
+        if (file == null) {
+            notFound(exchange, "path_lookup");
+            return;
+        }
+        json(exchange, 200, wrapped(file));
+    }
+
+    private void move(HttpExchange exchange, JsonObject arg) throws IOException {
+        String from = string(arg, "from_path");
+        EmulatedFile file = from != null ? emulator.dropboxFiles.remove(from.toLowerCase(Locale.ROOT)) : null;
+        if (file == null) {
+            notFound(exchange, "from_lookup");
+            return;
+        }
+        String to = string(arg, "to_path");
+        file.setPath(to);
+        file.setName(to.substring(to.lastIndexOf('/') + 1));
+        emulator.dropboxFiles.put(to.toLowerCase(Locale.ROOT), file);
+        json(exchange, 200, wrapped(file));
+    }
+
+    private void createFolder(HttpExchange exchange, JsonObject arg) throws IOException {
+        String path = string(arg, "path");
+        JsonObject folder = tag("folder");
+        folder.addProperty("name", path.substring(path.lastIndexOf('/') + 1));
+        folder.addProperty("id", "id:" + emulator.nextId());
+        folder.addProperty("path_lower", path.toLowerCase(Locale.ROOT));
+        folder.addProperty("path_display", path);
+        JsonObject result = new JsonObject();
+        result.add("metadata", folder);
+        json(exchange, 200, result);
+    }
+
+    private EmulatedFile lookup(String path) {
+        return path != null ? emulator.dropboxFiles.get(path.toLowerCase(Locale.ROOT)) : null;
+    }
+
+    private EmulatedFile store(String path, long size, String contentHash) {
+        EmulatedFile file = new EmulatedFile("id:" + emulator.nextId(), path.substring(path.lastIndexOf('/') + 1),
+            size, null, contentHash, null, null);
+        file.setPath(path);
+        emulator.dropboxFiles.put(path.toLowerCase(Locale.ROOT), file);
+        return file;
+    }
+
+    private static JsonObject argument(HttpExchange exchange) {
+        return parseJson(exchange.getRequestHeaders().getFirst("Dropbox-API-Arg"));
+    }
+
+    private static JsonObject metadata(EmulatedFile file) {
+        JsonObject metadata = tag("file");
+        metadata.addProperty("name", file.getName());
+        metadata.addProperty("id", file.getId());
+        metadata.addProperty("client_modified", file.getModified().toString());
+        metadata.addProperty("server_modified", file.getModified().toString());
+        metadata.addProperty("rev", file.getRev());
+        metadata.addProperty("size", file.getSize());
+        metadata.addProperty("path_lower", file.getPath().toLowerCase(Locale.ROOT));
+        metadata.addProperty("path_display", file.getPath());
+        metadata.addProperty("content_hash", file.getDropboxHash());
+        return metadata;
+    }
+
+    private static JsonObject wrapped(EmulatedFile file) {
+        JsonObject result = new JsonObject();
+        result.add("metadata", metadata(file));
+        return result;
+    }
+
+    private static JsonObject tag(String tag) {
+        JsonObject object = new JsonObject();
+        object.addProperty(".tag", tag);
+        return object;
+    }
+
+    private void notFound(HttpExchange exchange, String errorTag) throws IOException {
+        JsonObject error = tag(errorTag);
+        error.add(errorTag, tag("not_found"));
+        endpointError(exchange, errorTag + "/not_found/", error);
+    }
+
+    private void lookupError(HttpExchange exchange, JsonObject lookup) throws IOException {
+        JsonObject error = tag("lookup_failed");
+        error.add("lookup_failed", lookup);
+        endpointError(exchange, "lookup_failed/" + lookup.get(".tag").getAsString() + "/", error);
+    }
+
+    // Route-specific errors are 409s, decoded by the SDK into the route's exception
+    private static void endpointError(HttpExchange exchange, String summary, JsonObject error) throws IOException {
+        JsonObject body = new JsonObject();
+        body.addProperty("error_summary", summary);
+        body.add("error", error);
+        json(exchange, 409, body);
+    }
+
+    @Override
+    void error(HttpExchange exchange, int status, String message) throws IOException {
+        JsonObject body = new JsonObject();
+        if (status == 429) {
+            JsonObject reason = new JsonObject();
+            reason.add("reason", tag("too_many_requests"));
+            reason.addProperty("retry_after", emulator.getSettings().getRetryAfterSeconds());
+            body.addProperty("error_summary", "too_many_requests/");
+            body.add("error", reason);
+        } else {
+            body.addProperty("error_summary", message);
+        }
+        json(exchange, status, body);
+    }
+
+    private static class UploadSession {
+        private final DropboxContentHasher hasher = new DropboxContentHasher();
+        private long size;
+    }
+}
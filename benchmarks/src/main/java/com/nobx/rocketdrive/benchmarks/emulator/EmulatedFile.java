@@ -0,0 +1,120 @@
+package com.nobx.rocketdrive.benchmarks.emulator;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.nobx.rocketdrive.transfer.ContentHasher;
+import com.nobx.rocketdrive.transfer.DigestContentHasher;
+import com.nobx.rocketdrive.transfer.DropboxContentHasher;
+import com.nobx.rocketdrive.transfer.QuickXorHasher;
+
+/**
+ * A file held by an emulated provider. Seeded files keep their bytes so they
+ * can be downloaded; uploaded files only keep their size and hashes, so a long
+ * run does not fill the heap the benchmark measures.
+ */
+public class EmulatedFile {
+
+    private static final AtomicLong REVISIONS = new AtomicLong(0x100000000L);
+
+    private final String id;
+    private volatile String name;
+    private volatile String path;
+    private volatile String parentId;
+    private final long size;
+    private final byte[] content;
+    private final String dropboxHash;
+    private final String quickXorHash;
+    private final String md5;
+    private final String rev = Long.toHexString(REVISIONS.incrementAndGet());
+    private final Instant modified = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    EmulatedFile(String id, String name, long size, byte[] content, String dropboxHash, String quickXorHash,
+            String md5) {
+        this.id = id;
+        this.name = name;
+        this.size = size;
+        this.content = content;
+        this.dropboxHash = dropboxHash;
+        this.quickXorHash = quickXorHash;
+        this.md5 = md5;
+    }
+
+    /**
+     * A file with the given bytes, hashed in the format of every provider.
+     */
+    static EmulatedFile of(String id, String name, byte[] content) {
+        return new EmulatedFile(id, name, content.length, content, hash(new DropboxContentHasher(), content),
+            hash(new QuickXorHasher(), content), hash(new DigestContentHasher("MD5"), content));
+    }
+
+    /**
+     * A metadata-only copy under another id, as a server-side copy makes it.
+     */
+    EmulatedFile copy(String id, String name) {
+        return new EmulatedFile(id, name, size, content, dropboxHash, quickXorHash, md5);
+    }
+
+    private static String hash(ContentHasher hasher, byte[] content) {
+        hasher.update(ByteBuffer.wrap(content));
+        return hasher.digest();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    void setName(String name) {
+        this.name = name;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    void setPath(String path) {
+        this.path = path;
+    }
+
+    public String getParentId() {
+        return parentId;
+    }
+
+    void setParentId(String parentId) {
+        this.parentId = parentId;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    byte[] getContent() {
+        return content;
+    }
+
+    public String getDropboxHash() {
+        return dropboxHash;
+    }
+
+    public String getQuickXorHash() {
+        return quickXorHash;
+    }
+
+    public String getMd5() {
+        return md5;
+    }
+
+    public String getRev() {
+        return rev;
+    }
+
+    public Instant getModified() {
+        return modified;
+    }
+}
@@ -0,0 +1,80 @@
+package com.nobx.rocketdrive.benchmarks.emulator;
+
+/**
+ * How the emulated providers behave: the latency added to every request, the
+ * bandwidth of each request and response body, and the share of requests
+ * answered with a server error or with a 429 and a {@code Retry-After}.
+ */
+public class EmulatorSettings {
+
+    private long latencyMillis = 20;
+    private long jitterMillis = 10;
+    private long bytesPerSecond = 0;
+    private double errorRate = 0;
+    private double throttleRate = 0;
+    private int retryAfterSeconds = 1;
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public EmulatorSettings latencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+
+    public long getJitterMillis() {
+        return jitterMillis;
+    }
+
+    public EmulatorSettings jitterMillis(long jitterMillis) {
+        this.jitterMillis = jitterMillis;
+        return this;
+    }
+
+    /**
+     * Bandwidth of a single request or response body, 0 for unlimited.
+     */
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public EmulatorSettings bytesPerSecond(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public EmulatorSettings errorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    public double getThrottleRate() {
+        return throttleRate;
+    }
+
+    public EmulatorSettings throttleRate(double throttleRate) {
+        this.throttleRate = throttleRate;
+        return this;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public EmulatorSettings retryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "latency " + latencyMillis + " ms + up to " + jitterMillis + " ms, "
+            + (bytesPerSecond > 0 ? bytesPerSecond + " B/s per stream" : "unlimited bandwidth") + ", errors "
+            + errorRate + ", 429s " + throttleRate;
+    }
+}
@@ -0,0 +1,237 @@
+package com.nobx.rocketdrive.benchmarks.emulator;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.nobx.rocketdrive.transfer.QuickXorHasher;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Microsoft Graph drive item routes of the signed-in user's drive, and the
+ * upload session URLs they hand out. Items are addressed by id, with
+ * {@code root} for the root folder, or by name under a parent as in
+ * {@code items/{parent-id}:/{name}:/content}.
+ */
+class GraphRoutes extends ProviderRoutes {
+
+    private static final String DRIVE = "v1.0/me/drive/";
+    private static final String UPLOADS = "upload/";
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    GraphRoutes(ProviderEmulator emulator) {
+        super(emulator);
+    }
+
+    @Override
+    void route(HttpExchange exchange, String method, String path) throws IOException {
+        if (path.startsWith(UPLOADS) && method.equals("PUT")) {
+            upload(exchange, path.substring(UPLOADS.length()));
+            return;
+        }
+        if (!path.startsWith(DRIVE)) {
+            error(exchange, 400, "Unsupported route: " + path);
+            return;
+        }
+
+        // root[...] or items/{id}[...], then /content, or :/{name}:/{action} for a child by name
+        String rest = path.substring(DRIVE.length());
+        String itemId;
+        if (rest.startsWith("root")) {
+            itemId = "root";
+            rest = rest.substring("root".length());
+        } else if (rest.startsWith("items/")) {
+            rest = rest.substring("items/".length());
+            int end = indexOfAny(rest, '/', ':');
+            itemId = rest.substring(0, end);
+            rest = rest.substring(end);
+        } else {
+            error(exchange, 400, "Unsupported route: " + path);
+            return;
+        }
+
+        if (rest.startsWith(":/")) {
+            int end = rest.indexOf(':', 2);
+            String name = rest.substring(2, end);
+            String action = rest.substring(end + 1);
+            if (action.equals("/createUploadSession") && method.equals("POST")) {
+                createSession(exchange, itemId, name);
+            } else if (action.equals("/content") && method.equals("PUT")) {
+                QuickXorHasher hasher = new QuickXorHasher();
+                long size = receive(exchange, hasher);
+                json(exchange, 201, driveItem(store(itemId, name, size, hasher.digest())));
+            } else {
+                error(exchange, 400, "Unsupported route: " + method + " " + path);
+            }
+            return;
+        }
+
+        if (itemId.equals("root") && rest.isEmpty() && method.equals("GET")) {
+            JsonObject root = new JsonObject();
+            root.addProperty("id", "root");
+            root.addProperty("name", "root");
+            root.add("folder", new JsonObject());
+            json(exchange, 200, root);
+            return;
+        }
+
+        EmulatedFile item = emulator.graphFiles.get(itemId);
+        if (item == null) {
+            exchange.getRequestBody().readAllBytes();
+            error(exchange, 404, "Item not found: " + itemId);
+            return;
+        }
+        switch (method + " " + rest) {
+        case "GET ":
+            json(exchange, 200, driveItem(item));
+            break;
+        case "DELETE ":
+            emulator.graphFiles.remove(itemId);
+            empty(exchange, 204);
+            break;
+        case "PATCH ":
+            JsonObject parent = readJson(exchange).getAsJsonObject("parentReference");
+            if (parent != null && string(parent, "id") != null) {
+                item.setParentId(string(parent, "id"));
+            }
+            json(exchange, 200, driveItem(item));
+            break;
+        case "GET /content":
+            if (item.getContent() == null) {
+                error(exchange, 404, "Item has no downloadable content: " + itemId);
+                break;
+            }
+            long[] range = range(exchange, item.getSize());
+            boolean partial = exchange.getRequestHeaders().containsKey("Range");
+            sendContent(exchange, partial ? 206 : 200, item.getContent(), range[0], range[1]);
+            break;
+        default:
+            error(exchange, 400, "Unsupported route: " + method + " " + path);
+        }
+    }
+
+    private void createSession(HttpExchange exchange, String parentId, String name) throws IOException {
+        readJson(exchange);
+        String sessionId = emulator.nextId();
+        sessions.put(sessionId, new UploadSession(parentId, name));
+        JsonObject session = new JsonObject();
+        session.addProperty("uploadUrl", emulator.getBaseUrl() + "/graph/" + UPLOADS + sessionId);
+        session.addProperty("expirationDateTime", Instant.now().plus(1, ChronoUnit.DAYS).toString());
+        json(exchange, 200, session);
+    }
+
+    /**
+     * Takes the next byte range of a session. Ranges must arrive in order;
+     * the last one commits the item and is answered with it.
+     */
+    private void upload(HttpExchange exchange, String sessionId) throws IOException {
+        UploadSession session = sessions.get(sessionId);
+        String contentRange = exchange.getRequestHeaders().getFirst("Content-Range");
+        if (session == null || contentRange == null || !contentRange.startsWith("bytes ")) {
+            exchange.getRequestBody().readAllBytes();
+            error(exchange, 404, "Upload session not found: " + sessionId);
+            return;
+        }
+        String[] parts = contentRange.substring("bytes ".length()).split("[-/]");
+        long first = Long.parseLong(parts[0]);
+        long total = Long.parseLong(parts[2]);
+        if (first != session.size) {
+            exchange.getRequestBody().readAllBytes();
+            error(exchange, 416, "Expected the range starting at " + session.size);
+            return;
+        }
+
+        session.size += receive(exchange, session.hasher);
+        if (session.size < total) {
+            JsonObject next = new JsonObject();
+            JsonArray ranges = new JsonArray();
+            ranges.add(session.size + "-");
+            next.add("nextExpectedRanges", ranges);
+            json(exchange, 202, next);
+            return;
+        }
+        sessions.remove(sessionId);
+        json(exchange, 201, driveItem(store(session.parentId, session.name, session.size, session.hasher.digest())));
+    }
+
+    private EmulatedFile store(String parentId, String name, long size, String quickXorHash) {
+        EmulatedFile file = new EmulatedFile(emulator.nextId(), name, size, null, null, quickXorHash, null);
+        file.setParentId(parentId);
+        emulator.graphFiles.put(file.getId(), file);
+        return file;
+    }
+
+    private static JsonObject driveItem(EmulatedFile file) {
+        JsonObject hashes = new JsonObject();
+        hashes.addProperty("quickXorHash", file.getQuickXorHash());
+        JsonObject facet = new JsonObject();
+        facet.addProperty("mimeType", "application/octet-stream");
+        facet.add("hashes", hashes);
+        JsonObject parent = new JsonObject();
+        parent.addProperty("id", file.getParentId());
+
+        JsonObject item = new JsonObject();
+        item.addProperty("id", file.getId());
+        item.addProperty("name", file.getName());
+        item.addProperty("size", file.getSize());
+        item.addProperty("cTag", "\"c:{" + file.getId() + "},1\"");
+        item.addProperty("eTag", "\"{" + file.getId() + "}," + file.getRev() + "\"");
+        item.addProperty("lastModifiedDateTime", file.getModified().toString());
+        item.add("file", facet);
+        item.add("parentReference", parent);
+        return item;
+    }
+
+    private static int indexOfAny(String text, char first, char second) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == first || text.charAt(i) == second) {
+                return i;
+            }
+        }
+        return text.length();
+    }
+
+    @Override
+    void error(HttpExchange exchange, int status, String message) throws IOException {
+        String code;
+        switch (status) {
+        case 404:
+            code = "itemNotFound";
+            break;
+        case 416:
+            code = "invalidRange";
+            break;
+        case 429:
+            code = "TooManyRequests";
+            break;
+        case 503:
+            code = "serviceNotAvailable";
+            break;
+        default:
+            code = "invalidRequest";
+        }
+        JsonObject error = new JsonObject();
+        error.addProperty("code", code);
+        error.addProperty("message", message);
+        JsonObject body = new JsonObject();
+        body.add("error", error);
+        json(exchange, status, body);
+    }
+
+    private static class UploadSession {
+        private final String parentId;
+        private final String name;
+        private final QuickXorHasher hasher = new QuickXorHasher();
+        private long size;
+
+        UploadSession(String parentId, String name) {
+            this.parentId = parentId;
+            this.name = name;
+        }
+    }
+}
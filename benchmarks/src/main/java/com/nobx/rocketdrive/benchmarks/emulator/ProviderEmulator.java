@@ -0,0 +1,158 @@
+package com.nobx.rocketdrive.benchmarks.emulator;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An in-process HTTP server standing in for the Dropbox, Google Drive and
+ * Microsoft Graph endpoints the provider services call, so the task pipeline
+ * can be load-tested without real accounts. Point the application at it with
+ * the endpoint properties:
+ *
+ * <pre>
+ * dropbox.api.endpoint    = {@link #getDropboxEndpoint()}
+ * google.drive.root-url   = {@link #getDriveRootUrl()}
+ * google.oauth.token-url  = {@link #getTokenUrl()}
+ * onedrive.graph.endpoint = {@link #getGraphEndpoint()}
+ * </pre>
+ *
+ * Only the routes used by the task operations are served: metadata, ranged
+ * downloads, uploads and upload sessions, server-side copy, move and delete.
+ * Source files are seeded with {@code add...File}; access tokens are accepted
+ * without being checked.
+ */
+public class ProviderEmulator implements AutoCloseable {
+
+    private final EmulatorSettings settings;
+
+    // Dropbox files by lower-cased path, Drive and Graph files by id
+    final Map<String, EmulatedFile> dropboxFiles = new ConcurrentHashMap<>();
+    final Map<String, EmulatedFile> driveFiles = new ConcurrentHashMap<>();
+    final Map<String, EmulatedFile> graphFiles = new ConcurrentHashMap<>();
+
+    // Seeded contents already hashed, so many files can share one array
+    private final Map<byte[], EmulatedFile> hashedContents = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public ProviderEmulator(EmulatorSettings settings) {
+        this.settings = settings;
+    }
+
+    public ProviderEmulator start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/dropbox", new DropboxRoutes(this));
+        server.createContext("/google", new DriveRoutes(this));
+        server.createContext("/graph", new GraphRoutes(this));
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "provider-emulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    public String getDropboxEndpoint() {
+        return getBaseUrl() + "/dropbox";
+    }
+
+    public String getDriveRootUrl() {
+        return getBaseUrl() + "/google/";
+    }
+
+    public String getTokenUrl() {
+        return getBaseUrl() + "/google/token";
+    }
+
+    public String getGraphEndpoint() {
+        return getBaseUrl() + "/graph/v1.0";
+    }
+
+    public EmulatorSettings getSettings() {
+        return settings;
+    }
+
+    public EmulatedFile addDropboxFile(String path, byte[] content) {
+        EmulatedFile file = seeded("id:" + nextId(), path.substring(path.lastIndexOf('/') + 1), content);
+        file.setPath(path);
+        dropboxFiles.put(path.toLowerCase(Locale.ROOT), file);
+        return file;
+    }
+
+    public EmulatedFile addDriveFile(String name, byte[] content) {
+        EmulatedFile file = seeded(nextId(), name, content);
+        file.setParentId("root");
+        driveFiles.put(file.getId(), file);
+        return file;
+    }
+
+    public EmulatedFile addGraphFile(String name, byte[] content) {
+        EmulatedFile file = seeded(nextId(), name, content);
+        file.setParentId("root");
+        graphFiles.put(file.getId(), file);
+        return file;
+    }
+
+    private EmulatedFile seeded(String id, String name, byte[] content) {
+        return hashedContents.computeIfAbsent(content, c -> EmulatedFile.of(null, null, c)).copy(id, name);
+    }
+
+    String nextId() {
+        return String.format("%016X", ids.incrementAndGet());
+    }
+
+    void requestReceived() {
+        requests.incrementAndGet();
+    }
+
+    void requestThrottled() {
+        throttled.incrementAndGet();
+    }
+
+    void requestFailed() {
+        failed.incrementAndGet();
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+}
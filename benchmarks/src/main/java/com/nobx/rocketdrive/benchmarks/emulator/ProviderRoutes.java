@@ -0,0 +1,183 @@
+package com.nobx.rocketdrive.benchmarks.emulator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.nobx.rocketdrive.transfer.ContentHasher;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * The routes of one emulated provider. Every request first waits out the
+ * configured latency and may then be answered with a 429 or a server error in
+ * the provider's own error format; request and response bodies move at the
+ * configured bandwidth.
+ */
+abstract class ProviderRoutes implements HttpHandler {
+
+    private static final int BLOCK = 64 * 1024;
+
+    protected final ProviderEmulator emulator;
+
+    ProviderRoutes(ProviderEmulator emulator) {
+        this.emulator = emulator;
+    }
+
+    @Override
+    public final void handle(HttpExchange exchange) throws IOException {
+        EmulatorSettings settings = emulator.getSettings();
+        try {
+            emulator.requestReceived();
+            long latency = settings.getLatencyMillis()
+                + (settings.getJitterMillis() > 0 ? ThreadLocalRandom.current().nextLong(settings.getJitterMillis() + 1) : 0);
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < settings.getThrottleRate()) {
+                emulator.requestThrottled();
+                exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(settings.getRetryAfterSeconds()));
+                error(exchange, 429, "Too many requests");
+            } else if (roll < settings.getThrottleRate() + settings.getErrorRate()) {
+                emulator.requestFailed();
+                exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+                error(exchange, 503, "Service unavailable");
+            } else {
+                String path = exchange.getRequestURI().getPath().substring(exchange.getHttpContext().getPath().length());
+                route(exchange, method(exchange), path.startsWith("/") ? path.substring(1) : path);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // Only reaches the client if the response has not started yet
+            error(exchange, 500, e.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Answers a request that passed the fault injection. The path is relative
+     * to the provider's context, without a leading slash.
+     */
+    abstract void route(HttpExchange exchange, String method, String path) throws IOException;
+
+    /**
+     * Answers with an error body in the provider's format.
+     */
+    abstract void error(HttpExchange exchange, int status, String message) throws IOException;
+
+    // The Google client sends PATCH as a POST with an override header
+    private static String method(HttpExchange exchange) {
+        String override = exchange.getRequestHeaders().getFirst("X-HTTP-Method-Override");
+        return override != null ? override : exchange.getRequestMethod();
+    }
+
+    static JsonObject readJson(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        return parseJson(body);
+    }
+
+    static JsonObject parseJson(String json) {
+        if (json == null || json.isBlank()) {
+            return new JsonObject();
+        }
+        JsonElement element = JsonParser.parseString(json);
+        return element.isJsonObject() ? element.getAsJsonObject() : new JsonObject();
+    }
+
+    static void json(HttpExchange exchange, int status, JsonElement body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    static void empty(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    static String string(JsonObject object, String member) {
+        JsonElement value = object.get(member);
+        return value != null && !value.isJsonNull() ? value.getAsString() : null;
+    }
+
+    /**
+     * Byte range of a {@code Range: bytes=first-last} header as offset and
+     * length, or the whole file without one.
+     */
+    static long[] range(HttpExchange exchange, long size) {
+        String header = exchange.getRequestHeaders().getFirst("Range");
+        if (header == null || !header.startsWith("bytes=")) {
+            return new long[] { 0, size };
+        }
+        String[] bounds = header.substring("bytes=".length()).split("-", 2);
+        long first = Long.parseLong(bounds[0].trim());
+        long last = bounds.length > 1 && !bounds[1].isBlank() ? Long.parseLong(bounds[1].trim()) : size - 1;
+        last = Math.min(last, size - 1);
+        return new long[] { first, Math.max(0, last - first + 1) };
+    }
+
+    /**
+     * Sends part of a seeded file at the configured bandwidth.
+     */
+    void sendContent(HttpExchange exchange, int status, byte[] content, long offset, long length)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        if (length == 0) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, length);
+        long start = System.nanoTime();
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (long sent = 0; sent < length;) {
+                int block = (int) Math.min(BLOCK, length - sent);
+                out.write(content, (int) (offset + sent), block);
+                sent += block;
+                pace(start, sent);
+            }
+        }
+    }
+
+    /**
+     * Reads an upload body at the configured bandwidth, feeding it to the
+     * hasher, and returns its length. The bytes themselves are dropped.
+     */
+    long receive(HttpExchange exchange, ContentHasher hasher) throws IOException {
+        byte[] buffer = new byte[BLOCK];
+        long start = System.nanoTime();
+        long received = 0;
+        try (InputStream in = exchange.getRequestBody()) {
+            for (int read; (read = in.read(buffer)) > 0;) {
+                hasher.update(ByteBuffer.wrap(buffer, 0, read));
+                received += read;
+                pace(start, received);
+            }
+        }
+        return received;
+    }
+
+    private void pace(long startNanos, long bytes) {
+        long bytesPerSecond = emulator.getSettings().getBytesPerSecond();
+        if (bytesPerSecond <= 0) {
+            return;
+        }
+        long wait = startNanos + bytes * 1_000_000_000L / bytesPerSecond - System.nanoTime();
+        if (wait > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.nobx.rocketdrive.batch;
+
+import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.enums.TaskPriorityEnum;
+import com.nobx.rocketdrive.enums.TaskStatusEnum;
+import com.nobx.rocketdrive.repository.TaskRepository;
+import com.nobx.rocketdrive.scheduling.FairQueue;
+import com.nobx.rocketdrive.service.impl.DependencyService;
+import com.nobx.rocketdrive.service.impl.LaneService;
+import com.nobx.rocketdrive.service.impl.SchedulingConfigService;
+import com.nobx.rocketdrive.service.impl.TracingService;
+
+import io.micrometer.tracing.Span;
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads ready tasks in weighted fair order across users instead of by id, so one
+ * user's bulk backlog cannot hold up everyone else.
+ *
+ * Each (user, priority) pair is read through its own keyset cursor a page at a
+ * time, and the pages feed a {@link FairQueue}. Tasks count against their user's
+ * cap until {@link #release(Task)} is called when their operation finishes; a
+ * run ends once every user with ready tasks is at the cap, and the next one is
+ * started as soon as one of them gets a slot back.
+ */
+@Component
+public class FairTaskReader implements ItemStreamReader<Task> {
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private SchedulingConfigService schedulingConfigService;
+
+    @Autowired
+    private LaneService laneService;
+
+    @Autowired
+    private TracingService tracingService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private FairQueue<Task> queue;
+
+    private final Map<String, Map<TaskPriorityEnum, Cursor>> cursors = new HashMap<>();
+
+    private LocalDateTime readyAt;
+
+    @PostConstruct
+    public void init() {
+        queue = new FairQueue<>(schedulingConfigService.getPerUserCap());
+    }
+
+    @Override
+    public synchronized void open(ExecutionContext executionContext) {
+        // Tasks parked until after the run starts are left for a later run
+        readyAt = LocalDateTime.now();
+        queue.clear();
+        cursors.clear();
+        for (Object[] flow : taskRepository.findReadyFlows(TaskStatusEnum.PENDING, readyAt)) {
+            Cursor cursor = new Cursor((String) flow[0], (TaskPriorityEnum) flow[1]);
+            cursors.computeIfAbsent(cursor.userId, key -> new HashMap<>()).put(cursor.priority, cursor);
+            fill(cursor);
+        }
+    }
+
+    @Override
+    public synchronized Task read() {
+        Task task;
+        while ((task = queue.poll()) != null) {
+            Cursor cursor = cursors.get(task.getUserId()).get(task.getPriority());
+            cursor.buffered--;
+
+            // A task whose lane is backed up stays PENDING for a later run, and so
+            // does the rest of its flow, which mostly goes to the same lane
+            if (!laneService.hasCapacity(task)) {
+                queue.release(task.getUserId());
+                cursor.exhausted = true;
+                continue;
+            }
+
+            // Top up before the user's queue runs dry, so its fair share is not lost
+            if (!cursor.exhausted && cursor.buffered <= schedulingConfigService.getPageSize() / 2) {
+                fill(cursor);
+            }
+            return task;
+        }
+        return null;
+    }
+
+    /**
+     * Frees the task's slot under its user's cap once its operation has finished.
+     */
+    public void release(Task task) {
+        if (queue.release(task.getUserId())) {
+            // The user's remaining tasks may be admitted again, without waiting for the next tick
+            eventPublisher.publishEvent(new DependencyService.TasksReadyEvent(1));
+        }
+    }
+
+    private void fill(Cursor cursor) {
+        int pageSize = schedulingConfigService.getPageSize();
+        Span span = tracingService.start("task.read").tag("user.id", String.valueOf(cursor.userId));
+        List<Task> page;
+        try {
+            page = taskRepository.findReadyAfter(TaskStatusEnum.PENDING, readyAt, cursor.userId,
+                cursor.priority, cursor.afterId, PageRequest.of(0, pageSize));
+        } catch (RuntimeException e) {
+            tracingService.end(span, e);
+            throw e;
+        }
+        span.tag("tasks", page.size());
+        span.end();
+        int weight = (cursor.priority != null ? cursor.priority : TaskPriorityEnum.NORMAL).getWeight();
+        for (Task task : page) {
+            queue.offer(cursor.userId, task, weight, 1.0);
+            cursor.afterId = task.getId();
+        }
+        cursor.buffered += page.size();
+        cursor.exhausted = page.size() < pageSize;
+    }
+
+    private static class Cursor {
+        final String userId;
+        final TaskPriorityEnum priority;
+        long afterId;
+        int buffered;
+        boolean exhausted;
+
+        Cursor(String userId, TaskPriorityEnum priority) {
+            this.userId = userId;
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.nobx.rocketdrive.batch;
+
+import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.enums.CloudTypeEnum;
+import com.nobx.rocketdrive.enums.TaskStatusEnum;
+import com.nobx.rocketdrive.repository.TaskRepository;
+import com.nobx.rocketdrive.service.impl.IdempotencyService;
+import com.nobx.rocketdrive.service.impl.SchedulingConfigService;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides which claimed tasks actually need to run. Tasks whose submitted key
+ * completed recently per the ledger are completed directly, identical tasks
+ * ride along with the one that runs, and a COPY followed by a DELETE of the
+ * same source becomes a single move. A delete of a source that is still being
+ * copied waits for the copy.
+ */
+@Component
+@Slf4j
+public class TaskCoalescer {
+
+    private static final Set<TaskStatusEnum> SETTLED = EnumSet.of(TaskStatusEnum.COMPLETED, TaskStatusEnum.FAILED,
+            TaskStatusEnum.DEAD_LETTER, TaskStatusEnum.CANCELLED, TaskStatusEnum.PAUSED);
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private SchedulingConfigService schedulingConfigService;
+
+    // Operations running on this instance, completed with their task once its outcome is saved
+    private final Map<String, CompletableFuture<Task>> runningByKey = new ConcurrentHashMap<>();
+    private final Map<Long, CompletableFuture<Task>> runningById = new ConcurrentHashMap<>();
+
+    // Copies and moves running per source, deletes of those sources wait for them
+    private final Map<String, Integer> runningSources = new ConcurrentHashMap<>();
+
+    /**
+     * What to do with a claimed chunk.
+     */
+    public static class Plan {
+
+        // Tasks to run, already registered as running
+        private final List<Task> dispatch = new ArrayList<>();
+
+        // Tasks that take on the outcome of a running task
+        private final Map<Task, CompletableFuture<Task>> followers = new LinkedHashMap<>();
+
+        // Tasks whose new status is already decided, nothing runs for them
+        private final List<Task> settled = new ArrayList<>();
+
+        public List<Task> getDispatch() {
+            return dispatch;
+        }
+
+        public Map<Task, CompletableFuture<Task>> getFollowers() {
+            return followers;
+        }
+
+        public List<Task> getSettled() {
+            return settled;
+        }
+    }
+
+    public synchronized Plan plan(List<Task> claimed) {
+        List<Task> tasks = new ArrayList<>(claimed);
+        // Oldest first, so a COPY is seen before the DELETE submitted after it
+        tasks.sort(Comparator.comparing(Task::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        Set<String> submittedKeys = new HashSet<>();
+        Set<Long> primaryIds = new HashSet<>();
+        for (Task task : tasks) {
+            if (IdempotencyService.hasSubmittedKey(task)) {
+                submittedKeys.add(task.getIdempotencyKey());
+            }
+            if (task.getDuplicateOf() != null) {
+                primaryIds.add(task.getDuplicateOf());
+            }
+        }
+        Map<String, Long> completed = idempotencyService.findCompleted(submittedKeys);
+        Map<Long, Task> storedPrimaries = new HashMap<>();
+        taskRepository.findAllById(primaryIds).forEach(primary -> storedPrimaries.put(primary.getId(), primary));
+
+        Plan plan = new Plan();
+        Map<String, Task> chunkCopies = new HashMap<>();
+        for (Task task : tasks) {
+            if (task.getDuplicateOf() != null && followEarlierPrimary(task, storedPrimaries, plan)) {
+                continue;
+            }
+
+            String key = idempotencyService.keyOf(task);
+            Long completedBy = IdempotencyService.hasSubmittedKey(task) ? completed.get(key) : null;
+            if (completedBy != null && !completedBy.equals(task.getId())) {
+                task.setStatus(TaskStatusEnum.COMPLETED);
+                task.setErrorMessage(null);
+                task.setDuplicateOf(completedBy);
+                task.setUpdatedAt(LocalDateTime.now());
+                plan.settled.add(task);
+                continue;
+            }
+
+            CompletableFuture<Task> identical = runningByKey.get(key);
+            if (identical != null) {
+                plan.followers.put(task, identical);
+                continue;
+            }
+
+            if (task.getCloudType() == CloudTypeEnum.DELETE) {
+                Task copy = chunkCopies.remove(sourceOf(task));
+                if (copy != null) {
+                    // Copy then delete the same source: one move does both, the delete follows it
+                    copy.setRunAs(CloudTypeEnum.CUT);
+                    plan.followers.put(task, runningById.get(copy.getId()));
+                    continue;
+                }
+                if (runningSources.containsKey(sourceOf(task))) {
+                    defer(task, null);
+                    plan.settled.add(task);
+                    continue;
+                }
+            }
+
+            register(task, key);
+            plan.dispatch.add(task);
+            if (task.getCloudType() == CloudTypeEnum.COPY && task.getDestinations().isEmpty()) {
+                chunkCopies.put(sourceOf(task), task);
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Reports the saved outcome of a task from {@link Plan#getDispatch()}. Its
+     * followers take it on and a completed operation goes into the ledger.
+     */
+    public void finished(Task task) {
+        if (task.getStatus() == TaskStatusEnum.COMPLETED) {
+            try {
+                idempotencyService.record(task);
+            } catch (RuntimeException e) {
+                log.error("Could not record task {} in the ledger", task.getId(), e);
+            }
+        }
+        unregister(task).complete(task);
+    }
+
+    /**
+     * Forgets tasks of a plan that will not run after all, e.g. because the claim
+     * was rolled back. Their followers go back to the queue.
+     */
+    public void abandoned(Task task) {
+        unregister(task).completeExceptionally(new IllegalStateException("Task " + task.getId() + " was not started"));
+    }
+
+    /**
+     * Gives a follower the outcome of the task that did its work.
+     */
+    public static void takeOutcome(Task follower, Task primary) {
+        follower.setStatus(primary.getStatus());
+        follower.setErrorMessage(primary.getErrorMessage());
+        follower.setNextAttemptAt(primary.getNextAttemptAt());
+        follower.setBytesTransferred(primary.getBytesTransferred());
+        follower.setDuplicateOf(primary.getId());
+        follower.setUpdatedAt(LocalDateTime.now());
+    }
+
+    /**
+     * Handles a task that was attached to another one on an earlier run.
+     *
+     * @return false if that task is gone and this one has to run on its own
+     */
+    private boolean followEarlierPrimary(Task task, Map<Long, Task> storedPrimaries, Plan plan) {
+        CompletableFuture<Task> running = runningById.get(task.getDuplicateOf());
+        if (running != null) {
+            plan.followers.put(task, running);
+            return true;
+        }
+        Task primary = storedPrimaries.get(task.getDuplicateOf());
+        if (primary == null) {
+            task.setDuplicateOf(null);
+            return false;
+        }
+        if (SETTLED.contains(primary.getStatus())) {
+            takeOutcome(task, primary);
+        } else {
+            // Waiting for a retry or running elsewhere, check again after it
+            defer(task, primary.getNextAttemptAt());
+        }
+        plan.settled.add(task);
+        return true;
+    }
+
+    private void defer(Task task, LocalDateTime notBefore) {
+        LocalDateTime earliest = LocalDateTime.now().plus(schedulingConfigService.getDeferMillis(), ChronoUnit.MILLIS);
+        task.setStatus(TaskStatusEnum.PENDING);
+        task.setNextAttemptAt(notBefore != null && notBefore.isAfter(earliest) ? notBefore : earliest);
+        task.setUpdatedAt(LocalDateTime.now());
+    }
+
+    private void register(Task task, String key) {
+        CompletableFuture<Task> outcome = new CompletableFuture<>();
+        runningByKey.put(key, outcome);
+        runningById.put(task.getId(), outcome);
+        if (task.getCloudType() != CloudTypeEnum.DELETE) {
+            runningSources.merge(sourceOf(task), 1, Integer::sum);
+        }
+    }
+
+    private synchronized CompletableFuture<Task> unregister(Task task) {
+        runningByKey.remove(idempotencyService.keyOf(task));
+        CompletableFuture<Task> outcome = runningById.remove(task.getId());
+        if (task.getCloudType() != CloudTypeEnum.DELETE) {
+            runningSources.computeIfPresent(sourceOf(task), (source, count) -> count > 1 ? count - 1 : null);
+        }
+        return outcome != null ? outcome : new CompletableFuture<>();
+    }
+
+    private static String sourceOf(Task task) {
+        return task.getCloudService() + ":" + task.getSourceAccountId() + ":" + task.getSourcePath();
+    }
+}
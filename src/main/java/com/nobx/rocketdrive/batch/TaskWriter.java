@@ -0,0 +1,257 @@
+package com.nobx.rocketdrive.batch;
+
+import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.enums.TaskStatusEnum;
+import com.nobx.rocketdrive.jfr.TaskClaimedEvent;
+import com.nobx.rocketdrive.repository.TaskRepository;
+import com.nobx.rocketdrive.service.impl.CloudOperationService;
+import com.nobx.rocketdrive.service.impl.DependencyService;
+import com.nobx.rocketdrive.service.impl.TaskLeaseService;
+import com.nobx.rocketdrive.service.impl.TaskMetricsService;
+import com.nobx.rocketdrive.service.impl.TracingService;
+
+import io.micrometer.tracing.Span;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Claims a chunk of tasks that are still PENDING by saving them as IN_PROGRESS,
+ * then hands them to the async provider API once the chunk is committed. Each
+ * task is saved again when its own operation finishes, so a worker thread never
+ * waits for a transfer and a large copy cannot hold up the small tasks read
+ * after it.
+ *
+ * Redundant tasks are coalesced by the {@link TaskCoalescer} first: only the
+ * tasks that need to run are started, the others are settled directly or take
+ * on the outcome of the task that does their work.
+ */
+@Component
+@Slf4j
+public class TaskWriter implements ItemWriter<Task> {
+
+    @Autowired
+    private CloudOperationService cloudOperationService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private FairTaskReader fairTaskReader;
+
+    @Autowired
+    private TaskCoalescer taskCoalescer;
+
+    @Autowired
+    private DependencyService dependencyService;
+
+    @Autowired
+    private TaskLeaseService taskLeaseService;
+
+    @Autowired
+    private TaskMetricsService taskMetricsService;
+
+    @Autowired
+    private TracingService tracingService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Outcomes may be saved from the chunk's afterCommit callback, where the committed
+    // transaction is still bound; joining it would silently drop the update
+    private TransactionTemplate outcomeTransaction;
+
+    @PostConstruct
+    public void init() {
+        outcomeTransaction = new TransactionTemplate(transactionManager);
+        outcomeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void write(Chunk<? extends Task> chunk) throws Exception {
+        long startNanos = System.nanoTime();
+        List<Task> tasks = lockPending(chunk.getItems());
+        Span span = tracingService.start("task.write").tag("chunk.size", tasks.size());
+        TaskCoalescer.Plan planned = null;
+        try {
+            planned = taskCoalescer.plan(tasks);
+            for (Task task : planned.getDispatch()) {
+                claim(task);
+            }
+            for (Task task : planned.getFollowers().keySet()) {
+                claim(task);
+            }
+            taskRepository.saveAll(tasks);
+        } catch (RuntimeException e) {
+            tracingService.end(span, e);
+            abandon(tasks, planned);
+            throw e;
+        }
+        TaskCoalescer.Plan plan = planned;
+
+        // Started after commit, so a fast operation's outcome is never overwritten by the claim
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (Task task : plan.getSettled()) {
+                    fairTaskReader.release(task);
+                    dependencyService.onFinished(task.getId(), task.getStatus());
+                }
+                plan.getFollowers().forEach(TaskWriter.this::follow);
+                plan.getDispatch().forEach(TaskWriter.this::dispatch);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                taskMetricsService.chunkCommitted(startNanos, tasks.size(), status == STATUS_COMMITTED);
+                span.tag("chunk.outcome", status == STATUS_COMMITTED ? "committed" : "rolled_back");
+                span.end();
+                if (status != STATUS_COMMITTED) {
+                    abandon(tasks, plan);
+                }
+            }
+        });
+    }
+
+    /**
+     * Undoes a claim that did not commit: none of the tasks will run, so their
+     * slots under the user caps are freed and the planned operations forgotten.
+     */
+    private void abandon(List<Task> tasks, TaskCoalescer.Plan plan) {
+        tasks.forEach(fairTaskReader::release);
+        if (plan != null) {
+            plan.getDispatch().forEach(taskCoalescer::abandoned);
+        }
+    }
+
+    /**
+     * Locks the rows of the chunk's tasks that are still PENDING until the chunk
+     * commits. A task cancelled or paused since it was read, or claimed by
+     * another worker, is left out, so saving the claim cannot overwrite that
+     * change; a stop request arriving later finds the task IN_PROGRESS and
+     * reaches its attempt instead.
+     */
+    private List<Task> lockPending(List<? extends Task> items) {
+        List<Task> tasks = new ArrayList<>();
+        if (items.isEmpty()) {
+            return tasks;
+        }
+        Object[] ids = items.stream().map(Task::getId).toArray();
+        Set<Long> pending = new HashSet<>(jdbcTemplate.queryForList(
+            "SELECT id FROM backend_task WHERE id IN (" + String.join(", ", Collections.nCopies(ids.length, "?"))
+                + ") AND status = 'PENDING' FOR UPDATE SKIP LOCKED", Long.class, ids));
+        for (Task task : items) {
+            if (pending.contains(task.getId())) {
+                tasks.add(task);
+            } else {
+                fairTaskReader.release(task);
+            }
+        }
+        return tasks;
+    }
+
+    private void claim(Task task) {
+        task.setStatus(TaskStatusEnum.IN_PROGRESS);
+        task.setUpdatedAt(LocalDateTime.now());
+        taskLeaseService.claim(task);
+
+        TaskClaimedEvent event = new TaskClaimedEvent();
+        if (event.isEnabled()) {
+            event.describe(task.getId(), task.getCloudService(), task.getCloudType());
+            event.userId = task.getUserId();
+            event.attempt = task.getAttemptCount() != null ? task.getAttemptCount() : 0;
+            event.commit();
+        }
+    }
+
+    private void dispatch(Task task) {
+        // Root of the task's trace: its operation, provider requests and the write-back
+        Span span = tracingService.startTask("task", task);
+        cloudOperationService.executeCloudOperationAsync(task).whenComplete((result, e) -> {
+            fairTaskReader.release(task);
+            Span saveSpan = tracingService.start("task.save", task);
+            boolean saved = save(task);
+            saveSpan.end();
+            if (saved) {
+                taskCoalescer.finished(task);
+                dependencyService.onFinished(task.getId(), task.getStatus());
+            } else {
+                // The attempt holding the lease now reports the outcome, followers wait for that one
+                taskCoalescer.abandoned(task);
+            }
+            tracingService.endTask(task, span, e);
+        });
+    }
+
+    private void follow(Task task, CompletableFuture<Task> primary) {
+        primary.whenComplete((outcome, e) -> {
+            fairTaskReader.release(task);
+            if (outcome != null) {
+                TaskCoalescer.takeOutcome(task, outcome);
+            } else {
+                // The task it was waiting for never started, run it on its own later
+                task.setStatus(TaskStatusEnum.PENDING);
+                task.setDuplicateOf(null);
+                task.setUpdatedAt(LocalDateTime.now());
+            }
+            if (save(task)) {
+                dependencyService.onFinished(task.getId(), task.getStatus());
+            }
+        });
+    }
+
+    /**
+     * Saves the outcome of the task's attempt, unless the attempt's lease ran
+     * out and the task was requeued meanwhile; another attempt then owns the
+     * task and this outcome is dropped.
+     *
+     * @return false if the outcome was dropped
+     */
+    private boolean save(Task task) {
+        String leaseToken = task.getLeaseToken();
+        if (task.getStatus() != TaskStatusEnum.IN_PROGRESS) {
+            TaskLeaseService.release(task);
+            // The attempt ended, a stop request that did not reach it no longer applies
+            task.setStopRequested(null);
+        }
+        try {
+            Boolean saved = outcomeTransaction.execute(status -> {
+                if (!taskLeaseService.holds(task.getId(), leaseToken)) {
+                    return false;
+                }
+                taskRepository.save(task);
+                return true;
+            });
+            if (!Boolean.TRUE.equals(saved)) {
+                log.warn("Dropped {} outcome of task {}, its lease was taken over by another attempt", task.getStatus(),
+                    task.getId());
+                return false;
+            }
+        } catch (RuntimeException saveError) {
+            log.error("Could not save outcome of task {}", task.getId(), saveError);
+        }
+        return true;
+    }
+}
@@ -1,29 +1,29 @@
 package com.nobx.rocketdrive.config;
 
 import com.nobx.rocketdrive.entity.Task;
-import com.nobx.rocketdrive.enums.TaskStatusEnum;
-import com.nobx.rocketdrive.repository.TaskRepository;
 
 import jakarta.annotation.PreDestroy;
 
-import com.nobx.rocketdrive.batch.TaskProcessor;
+import com.nobx.rocketdrive.batch.FairTaskReader;
+import com.nobx.rocketdrive.batch.TaskWriter;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
-import org.springframework.batch.item.data.RepositoryItemReader;
-import org.springframework.batch.item.data.RepositoryItemWriter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
-import org.springframework.data.domain.Sort;
 import org.springframework.transaction.PlatformTransactionManager;
 
-import java.util.HashMap;
-import java.util.Map;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -34,16 +34,28 @@ import java.util.concurrent.ThreadFactory;
 @Configuration
 public class BatchConfig {
     
-    @Autowired
-    private TaskRepository taskRepository;
-    
     private ExecutorService executorService;
+
+    // Only bounds how many chunks run at once, provider concurrency is limited adaptively per provider
+    @Value("${batch.executor.core-pool-size:2}")
+    private int corePoolSize;
+
+    @Value("${batch.executor.max-pool-size:10}")
+    private int maxPoolSize;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
     
     @Bean
     public ExecutorService executorService() {
+        // Rejected chunks run on the submitting thread, counted to show when the pool is saturated
+        Counter rejected = Counter.builder("executor.rejected").tag("name", "batch")
+            .description("Tasks the executor could not queue").register(meterRegistry);
+        ThreadPoolExecutor.CallerRunsPolicy callerRuns = new ThreadPoolExecutor.CallerRunsPolicy();
+
         ThreadPoolExecutor executor = new ThreadPoolExecutor(
-            2,                         // core pool size
-            6,                         // max pool size 
+            corePoolSize,              // core pool size
+            maxPoolSize,               // max pool size
             60L, TimeUnit.SECONDS,      // thread keep-alive time
             new LinkedBlockingQueue<>(10), // queue capacity
             new ThreadFactory() {
@@ -56,12 +68,14 @@ public class BatchConfig {
                     return thread;
                 }
             },
-            new ThreadPoolExecutor.CallerRunsPolicy()
+            (r, pool) -> {
+                rejected.increment();
+                callerRuns.rejectedExecution(r, pool);
+            }
         );
         
-        // Set the maximum number of concurrent executions
-        executor.setMaximumPoolSize(10);
-        
+        // Active threads, queued and completed chunks, pool size
+        new ExecutorServiceMetrics(executor, "batch", Tags.empty()).bindTo(meterRegistry);
         this.executorService = executor;
         return executor;
     }
@@ -72,29 +86,6 @@ public class BatchConfig {
         return taskExecutor;
     }
     
-    @Bean
-    public RepositoryItemReader<Task> reader() {
-        RepositoryItemReader<Task> reader = new RepositoryItemReader<>();
-        reader.setRepository(taskRepository);
-        reader.setMethodName("findByStatus");
-        reader.setArguments(java.util.Arrays.asList(TaskStatusEnum.PENDING));
-        
-        Map<String, Sort.Direction> sorts = new HashMap<>();
-        sorts.put("id", Sort.Direction.ASC);
-        reader.setSort(sorts);
-        
-        reader.setPageSize(20);
-        return reader;
-    }
-    
-    @Bean
-    public RepositoryItemWriter<Task> writer() {
-        RepositoryItemWriter<Task> writer = new RepositoryItemWriter<>();
-        writer.setRepository(taskRepository);
-        writer.setMethodName("save");
-        return writer;
-    }
-    
     @Bean
     public Job processTaskJob(JobRepository jobRepository, Step taskStep) {
         return new JobBuilder("processTaskJob", jobRepository)
@@ -106,12 +97,12 @@ public class BatchConfig {
     @Bean
     public Step taskStep(JobRepository jobRepository,
                         PlatformTransactionManager transactionManager,
-                        TaskProcessor processor) {
+                        FairTaskReader reader,
+                        TaskWriter writer) {
         return new StepBuilder("taskStep", jobRepository)
             .<Task, Task>chunk(20, transactionManager)
-            .reader(reader())
-            .processor(processor)
-            .writer(writer())
+            .reader(reader)
+            .writer(writer)
             .taskExecutor(taskExecutor())
             .build();
     }
@@ -0,0 +1,114 @@
+package com.nobx.rocketdrive.config;
+
+import com.nobx.rocketdrive.service.impl.TransferConfigService;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class TransferConfig {
+
+    @Autowired
+    private TransferConfigService transferConfigService;
+
+    private ExecutorService rangeExecutorService;
+
+    private ExecutorService uploadExecutorService;
+
+    private ExecutorService cloudIoExecutorService;
+
+    /**
+     * Pool that downloads file ranges. Kept separate from the batch executor so a
+     * worker waiting on its ranges can never starve the threads fetching them.
+     */
+    @Bean
+    public ExecutorService rangeExecutorService() {
+        AtomicInteger threadCount = new AtomicInteger(1);
+        int poolSize = transferConfigService.getRangePoolSize();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            r -> {
+                Thread thread = new Thread(r);
+                thread.setName("RangeThread-" + threadCount.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        executor.allowCoreThreadTimeOut(true);
+
+        this.rangeExecutorService = executor;
+        return executor;
+    }
+
+    /**
+     * Pool that drains fan-out destinations. Each destination holds a thread for
+     * the length of its upload, so the pool grows with the number of destinations.
+     */
+    @Bean
+    public ExecutorService uploadExecutorService() {
+        AtomicInteger threadCount = new AtomicInteger(1);
+        ExecutorService executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r);
+            thread.setName("UploadThread-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.uploadExecutorService = executor;
+        return executor;
+    }
+
+    /**
+     * Pool that runs the byte transfers of copies and archives, which block on the
+     * transfer engine, so callers of the async provider API are never blocked by
+     * them. Bounded, because each transfer holds a thread until it ends. Metadata,
+     * move and delete calls are non-blocking requests and never use it.
+     */
+    @Bean
+    public ExecutorService cloudIoExecutorService() {
+        AtomicInteger threadCount = new AtomicInteger(1);
+        int poolSize = transferConfigService.getIoPoolSize();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            r -> {
+                Thread thread = new Thread(r);
+                thread.setName("CloudIoThread-" + threadCount.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        executor.allowCoreThreadTimeOut(true);
+
+        this.cloudIoExecutorService = executor;
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdownTransferExecutors() {
+        if (rangeExecutorService != null) {
+            rangeExecutorService.shutdownNow();
+        }
+        if (uploadExecutorService != null) {
+            uploadExecutorService.shutdownNow();
+        }
+        if (cloudIoExecutorService != null) {
+            cloudIoExecutorService.shutdownNow();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.nobx.rocketdrive.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -15,10 +16,13 @@ import java.util.*;
 @RequestMapping("/api")
 @Slf4j
 public class FileUploadController {
+	// Resolved on first upload, the provider services are lazy
 	@Autowired
+	@Lazy
 	private GoogleDriveServiceImpl googleDriveService;
 
 	@Autowired
+	@Lazy
 	private DropboxServiceImpl dropboxService;
 
 	@PostMapping("/upload-file/{accountId}")
@@ -0,0 +1,54 @@
+package com.nobx.rocketdrive.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.nobx.rocketdrive.enums.TaskStatusEnum;
+import com.nobx.rocketdrive.service.impl.TaskControlService;
+
+import java.util.*;
+
+@RestController
+@RequestMapping("/api/tasks")
+public class TaskControlController {
+	@Autowired
+	private TaskControlService taskControlService;
+
+	@PostMapping("/{taskId}/cancel")
+	public ResponseEntity<?> cancelTask(@PathVariable Long taskId) {
+		return respond(taskId, taskControlService.cancel(taskId), TaskStatusEnum.CANCELLED);
+	}
+
+	@PostMapping("/{taskId}/pause")
+	public ResponseEntity<?> pauseTask(@PathVariable Long taskId) {
+		return respond(taskId, taskControlService.pause(taskId), TaskStatusEnum.PAUSED);
+	}
+
+	@PostMapping("/{taskId}/resume")
+	public ResponseEntity<?> resumeTask(@PathVariable Long taskId) {
+		return respond(taskId, taskControlService.resume(taskId), TaskStatusEnum.PENDING);
+	}
+
+	/**
+	 * 200 once the task is in the requested state, 202 while a running attempt
+	 * is stopping, 409 if the task's state does not allow the request.
+	 */
+	private ResponseEntity<?> respond(Long taskId, Optional<TaskStatusEnum> status, TaskStatusEnum requested) {
+		if (status.isEmpty()) {
+			return ResponseEntity.notFound().build();
+		}
+		Map<String, Object> response = new HashMap<>();
+		response.put("taskId", taskId);
+		response.put("status", status.get());
+		if (status.get() == requested) {
+			return ResponseEntity.ok(response);
+		}
+		if (status.get() == TaskStatusEnum.IN_PROGRESS && requested != TaskStatusEnum.PENDING) {
+			return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+		}
+		response.put("error", "Task is " + status.get());
+		return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+	}
+}
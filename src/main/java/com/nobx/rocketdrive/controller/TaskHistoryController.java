@@ -0,0 +1,42 @@
+package com.nobx.rocketdrive.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.nobx.rocketdrive.dto.TaskHistoryEntry;
+import com.nobx.rocketdrive.service.impl.TaskHistoryService;
+
+import java.util.*;
+
+@RestController
+@RequestMapping("/api/tasks")
+public class TaskHistoryController {
+	@Autowired
+	private TaskHistoryService taskHistoryService;
+
+	@GetMapping("/{taskId}")
+	public ResponseEntity<?> getTask(@PathVariable Long taskId) {
+		return taskHistoryService.find(taskId).<ResponseEntity<?>>map(ResponseEntity::ok)
+				.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+
+	/**
+	 * Pages through the user's tasks, newest first, including archived ones.
+	 * Pass the smallest id of a page as beforeId to get the next one.
+	 */
+	@GetMapping("/history/{userId}")
+	public ResponseEntity<?> getHistory(@PathVariable String userId, @RequestParam(required = false) Long beforeId,
+			@RequestParam(defaultValue = "50") int size) {
+		if (size < 1 || size > 500) {
+			return ResponseEntity.badRequest().body(Map.of("error", "size must be between 1 and 500"));
+		}
+		List<TaskHistoryEntry> entries = taskHistoryService.history(userId, beforeId, size);
+		Map<String, Object> response = new HashMap<>();
+		response.put("tasks", entries);
+		if (entries.size() == size) {
+			response.put("nextBeforeId", entries.get(entries.size() - 1).getId());
+		}
+		return ResponseEntity.ok(response);
+	}
+}
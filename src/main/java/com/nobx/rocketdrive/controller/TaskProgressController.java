@@ -0,0 +1,25 @@
+package com.nobx.rocketdrive.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.nobx.rocketdrive.service.impl.ProgressService;
+
+@RestController
+@RequestMapping("/api/tasks")
+public class TaskProgressController {
+	@Autowired
+	private ProgressService progressService;
+
+	/**
+	 * Streams progress events for the user's tasks: the running tasks when the
+	 * stream opens, then the byte count of each task that moved since the last
+	 * flush, and the final status of each attempt as it ends.
+	 */
+	@GetMapping(value = "/progress/{userId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamProgress(@PathVariable String userId) {
+		return progressService.subscribe(userId);
+	}
+}
@@ -0,0 +1,50 @@
+package com.nobx.rocketdrive.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.nobx.rocketdrive.dto.BulkSubmissionResult;
+import com.nobx.rocketdrive.service.impl.TaskSubmissionService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.*;
+
+@RestController
+@RequestMapping("/api/tasks")
+@Slf4j
+public class TaskSubmissionController {
+	@Autowired
+	private TaskSubmissionService taskSubmissionService;
+
+	/**
+	 * Enqueues tasks from a JSON array or newline-delimited JSON body. The body
+	 * is read as a stream rather than bound as a request body, so its size is
+	 * not limited by memory.
+	 */
+	@PostMapping(value = "/bulk", consumes = { "application/json", "application/x-ndjson" })
+	public ResponseEntity<?> submitTasks(HttpServletRequest request) {
+		BulkSubmissionResult result = taskSubmissionService.newBatch();
+		try {
+			taskSubmissionService.submit(request.getInputStream(), result);
+			return ResponseEntity.ok(response(result));
+		} catch (IOException e) {
+			log.warn("Bulk submission {} stopped on malformed input: {}", result.getBatchId(), e.getMessage());
+			Map<String, Object> response = response(result);
+			response.put("error", "Malformed input after " + result.getAccepted() + " accepted tasks: " + e.getMessage());
+			return ResponseEntity.badRequest().body(response);
+		}
+	}
+
+	private static Map<String, Object> response(BulkSubmissionResult result) {
+		Map<String, Object> response = new LinkedHashMap<>();
+		response.put("batchId", result.getBatchId());
+		response.put("accepted", result.getAccepted());
+		response.put("rejected", result.getRejected());
+		response.put("errors", result.getErrors());
+		return response;
+	}
+}
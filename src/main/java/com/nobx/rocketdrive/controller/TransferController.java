@@ -0,0 +1,167 @@
+package com.nobx.rocketdrive.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+import com.nobx.rocketdrive.resilience.AdaptiveLimiter;
+import com.nobx.rocketdrive.resilience.CircuitBreaker;
+import com.nobx.rocketdrive.scheduling.ExecutionLane;
+import com.nobx.rocketdrive.service.impl.BandwidthService;
+import com.nobx.rocketdrive.service.impl.CircuitBreakerService;
+import com.nobx.rocketdrive.service.impl.LaneService;
+import com.nobx.rocketdrive.service.impl.ConcurrencyLimitService;
+import com.nobx.rocketdrive.service.impl.TransferEngine;
+import com.nobx.rocketdrive.transfer.ContentCache;
+import com.nobx.rocketdrive.transfer.SpoolArena;
+
+import lombok.extern.slf4j.Slf4j;
+import java.util.*;
+
+@RestController
+@RequestMapping("/api/transfer")
+@Slf4j
+public class TransferController {
+	@Autowired
+	private TransferEngine transferEngine;
+
+	@Autowired
+	private ConcurrencyLimitService concurrencyLimitService;
+
+	@Autowired
+	private CircuitBreakerService circuitBreakerService;
+
+	@Autowired
+	private LaneService laneService;
+
+	@Autowired
+	private BandwidthService bandwidthService;
+
+	@GetMapping("/cache")
+	public ResponseEntity<?> cacheStats() {
+		ContentCache cache = transferEngine.getContentCache();
+		Map<String, Object> response = new HashMap<>();
+		response.put("enabled", cache != null);
+		if (cache != null) {
+			response.put("hits", cache.getHits());
+			response.put("misses", cache.getMisses());
+			response.put("bytesSaved", cache.getBytesSaved());
+			response.put("evictions", cache.getEvictions());
+			response.put("totalBytes", cache.getTotalBytes());
+		}
+		return ResponseEntity.ok(response);
+	}
+
+	@GetMapping("/spool")
+	public ResponseEntity<?> spoolStats() {
+		SpoolArena arena = transferEngine.getSpoolArena();
+		Map<String, Object> response = new HashMap<>();
+		response.put("memoryBudget", arena.getMemoryBudget());
+		response.put("reservedBytes", arena.getReservedBytes());
+		response.put("inUseBytes", arena.getInUseBytes());
+		response.put("spilledAllocations", arena.getSpilledAllocations());
+		return ResponseEntity.ok(response);
+	}
+
+	@GetMapping("/limits")
+	public ResponseEntity<?> concurrencyLimits() {
+		Map<String, Object> response = new LinkedHashMap<>();
+		for (CloudServiceEnum cloudService : CloudServiceEnum.values()) {
+			AdaptiveLimiter limiter = concurrencyLimitService.getLimiter(cloudService);
+			Map<String, Object> stats = new HashMap<>();
+			stats.put("limit", limiter.getLimit());
+			stats.put("inFlight", limiter.getInFlight());
+			stats.put("waiting", limiter.getWaiting());
+			stats.put("p99Millis", limiter.getLastP99Nanos() / 1_000_000);
+			stats.put("history", limiter.getHistory());
+			response.put(cloudService.name(), stats);
+		}
+		return ResponseEntity.ok(response);
+	}
+
+	@GetMapping("/circuits")
+	public ResponseEntity<?> circuitBreakers() {
+		Map<String, Object> response = new LinkedHashMap<>();
+		circuitBreakerService.getBreakers().forEach((key, breaker) -> {
+			Map<String, Object> stats = new HashMap<>();
+			stats.put("state", breaker.getState());
+			if (breaker.getState() != CircuitBreaker.State.CLOSED) {
+				stats.put("retryAt", breaker.getRetryAt());
+			}
+			response.put(key, stats);
+		});
+		return ResponseEntity.ok(response);
+	}
+
+	@GetMapping("/lanes")
+	public ResponseEntity<?> executionLanes() {
+		Map<String, Object> response = new LinkedHashMap<>();
+		for (ExecutionLane lane : laneService.getLanes().values()) {
+			Map<String, Object> stats = new HashMap<>();
+			stats.put("concurrency", lane.getConcurrency());
+			stats.put("running", lane.getRunning());
+			stats.put("queueDepth", lane.getQueueDepth());
+			stats.put("completed", lane.getCompleted());
+			stats.put("waitP50Millis", lane.getWaitMillis(0.5));
+			stats.put("waitP99Millis", lane.getWaitMillis(0.99));
+			stats.put("runP50Millis", lane.getRunMillis(0.5));
+			stats.put("runP99Millis", lane.getRunMillis(0.99));
+			response.put(lane.getName(), stats);
+		}
+		return ResponseEntity.ok(response);
+	}
+
+	@GetMapping("/bandwidth")
+	public ResponseEntity<?> bandwidthLimits() {
+		Map<String, Object> response = new LinkedHashMap<>();
+		response.put("global", bandwidthService.getGlobalRate());
+		Map<String, Object> providers = new LinkedHashMap<>();
+		for (CloudServiceEnum cloudService : CloudServiceEnum.values()) {
+			providers.put(cloudService.name(), bandwidthService.getProviderRate(cloudService));
+		}
+		response.put("providers", providers);
+		response.put("defaultUser", bandwidthService.getDefaultUserRate());
+		Map<String, Object> users = new TreeMap<>();
+		bandwidthService.getUserLimiters().forEach((userId, limiter) -> users.put(userId, limiter.getBytesPerSecond()));
+		response.put("users", users);
+		return ResponseEntity.ok(response);
+	}
+
+	/**
+	 * Changes a bandwidth limit in bytes per second (0 = unlimited). Running
+	 * transfers pick up the new rate with their next read.
+	 */
+	@PutMapping("/bandwidth")
+	public ResponseEntity<?> updateBandwidthLimit(@RequestParam String scope,
+			@RequestParam(required = false) String id, @RequestParam long bytesPerSecond) {
+		if (bytesPerSecond < 0) {
+			return ResponseEntity.badRequest().body("bytesPerSecond must not be negative");
+		}
+		if (("provider".equals(scope) || "user".equals(scope)) && (id == null || id.isBlank())) {
+			return ResponseEntity.badRequest().body("id is required for " + scope + " limits");
+		}
+		try {
+			switch (scope) {
+			case "global":
+				bandwidthService.setGlobalRate(bytesPerSecond);
+				break;
+			case "provider":
+				bandwidthService.setProviderRate(CloudServiceEnum.valueOf(id), bytesPerSecond);
+				break;
+			case "user":
+				bandwidthService.setUserRate(id, bytesPerSecond);
+				break;
+			case "default-user":
+				bandwidthService.setDefaultUserRate(bytesPerSecond);
+				break;
+			default:
+				return ResponseEntity.badRequest().body("Unknown scope: " + scope);
+			}
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body("Unknown provider: " + id);
+		}
+		log.info("Bandwidth limit {} {} set to {} bytes/s", scope, id != null ? id : "", bytesPerSecond);
+		return bandwidthLimits();
+	}
+}
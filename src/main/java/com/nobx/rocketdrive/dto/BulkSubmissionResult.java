@@ -0,0 +1,37 @@
+package com.nobx.rocketdrive.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * Outcome of a bulk submission. All accepted tasks carry the batch id.
+ */
+@Getter
+public class BulkSubmissionResult {
+
+	private final String batchId;
+
+	private long accepted;
+
+	private long rejected;
+
+	// Reasons for the first rejected tasks, by position in the submitted stream
+	private final List<String> errors = new ArrayList<>();
+
+	public BulkSubmissionResult(String batchId) {
+		this.batchId = batchId;
+	}
+
+	public void accept(int count) {
+		accepted += count;
+	}
+
+	public void reject(long index, String reason, int maxErrors) {
+		rejected++;
+		if (errors.size() < maxErrors) {
+			errors.add("#" + index + ": " + reason);
+		}
+	}
+}
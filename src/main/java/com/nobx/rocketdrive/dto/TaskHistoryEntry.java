@@ -0,0 +1,156 @@
+package com.nobx.rocketdrive.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.nobx.rocketdrive.entity.ArchivedTask;
+import com.nobx.rocketdrive.entity.ArchivedTaskDestination;
+import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.entity.TaskDestination;
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+import com.nobx.rocketdrive.enums.CloudTypeEnum;
+import com.nobx.rocketdrive.enums.TaskPriorityEnum;
+import com.nobx.rocketdrive.enums.TaskStatusEnum;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A task as shown in its history, the same whether it is still in the task
+ * table or was archived. Access tokens are never included.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class TaskHistoryEntry {
+
+	private Long id;
+
+	private CloudTypeEnum cloudType;
+
+	private CloudServiceEnum cloudService;
+
+	private TaskStatusEnum status;
+
+	private String sourcePath;
+
+	private String destinationPath;
+
+	private Integer sourceAccountId;
+
+	private Integer destinationAccountId;
+
+	private String userId;
+
+	private TaskPriorityEnum priority;
+
+	private String errorMessage;
+
+	private Long sizeBytes;
+
+	private Long bytesTransferred;
+
+	private Integer attemptCount;
+
+	private Long duplicateOf;
+
+	// Operation that ran instead of the task's own after another task was merged into it
+	private CloudTypeEnum runAs;
+
+	// Unfinished tasks a BLOCKED task is waiting for, 0 for archived tasks
+	private Integer pendingDependencies;
+
+	private String batchId;
+
+	private LocalDateTime createdAt;
+
+	private LocalDateTime updatedAt;
+
+	private boolean archived;
+
+	private List<Destination> destinations = new ArrayList<>();
+
+	@Getter
+	@Setter
+	@NoArgsConstructor
+	public static class Destination {
+
+		private Integer destinationAccountId;
+
+		private String destinationPath;
+
+		private TaskStatusEnum status;
+
+		private String errorMessage;
+	}
+
+	public static TaskHistoryEntry of(Task task) {
+		TaskHistoryEntry entry = new TaskHistoryEntry();
+		entry.setId(task.getId());
+		entry.setCloudType(task.getCloudType());
+		entry.setCloudService(task.getCloudService());
+		entry.setStatus(task.getStatus());
+		entry.setSourcePath(task.getSourcePath());
+		entry.setDestinationPath(task.getDestinationPath());
+		entry.setSourceAccountId(task.getSourceAccountId());
+		entry.setDestinationAccountId(task.getDestinationAccountId());
+		entry.setUserId(task.getUserId());
+		entry.setPriority(task.getPriority());
+		entry.setErrorMessage(task.getErrorMessage());
+		entry.setSizeBytes(task.getSizeBytes());
+		entry.setBytesTransferred(task.getBytesTransferred());
+		entry.setAttemptCount(task.getAttemptCount());
+		entry.setDuplicateOf(task.getDuplicateOf());
+		entry.setRunAs(task.getRunAs());
+		entry.setPendingDependencies(task.getPendingDependencies());
+		entry.setBatchId(task.getBatchId());
+		entry.setCreatedAt(task.getCreatedAt());
+		entry.setUpdatedAt(task.getUpdatedAt());
+		for (TaskDestination destination : task.getDestinations()) {
+			entry.getDestinations().add(destination(destination.getDestinationAccountId(),
+					destination.getDestinationPath(), destination.getStatus(), destination.getErrorMessage()));
+		}
+		return entry;
+	}
+
+	public static TaskHistoryEntry of(ArchivedTask task) {
+		TaskHistoryEntry entry = new TaskHistoryEntry();
+		entry.setId(task.getId());
+		entry.setCloudType(task.getCloudType());
+		entry.setCloudService(task.getCloudService());
+		entry.setStatus(task.getStatus());
+		entry.setSourcePath(task.getSourcePath());
+		entry.setDestinationPath(task.getDestinationPath());
+		entry.setSourceAccountId(task.getSourceAccountId());
+		entry.setDestinationAccountId(task.getDestinationAccountId());
+		entry.setUserId(task.getUserId());
+		entry.setPriority(task.getPriority());
+		entry.setErrorMessage(task.getErrorMessage());
+		entry.setSizeBytes(task.getSizeBytes());
+		entry.setBytesTransferred(task.getBytesTransferred());
+		entry.setAttemptCount(task.getAttemptCount());
+		entry.setDuplicateOf(task.getDuplicateOf());
+		entry.setRunAs(task.getRunAs());
+		entry.setBatchId(task.getBatchId());
+		entry.setCreatedAt(task.getCreatedAt());
+		entry.setUpdatedAt(task.getUpdatedAt());
+		entry.setPendingDependencies(0);
+		entry.setArchived(true);
+		for (ArchivedTaskDestination destination : task.getDestinations()) {
+			entry.getDestinations().add(destination(destination.getDestinationAccountId(),
+					destination.getDestinationPath(), destination.getStatus(), destination.getErrorMessage()));
+		}
+		return entry;
+	}
+
+	private static Destination destination(Integer accountId, String path, TaskStatusEnum status, String errorMessage) {
+		Destination destination = new Destination();
+		destination.setDestinationAccountId(accountId);
+		destination.setDestinationPath(path);
+		destination.setStatus(status);
+		destination.setErrorMessage(errorMessage);
+		return destination;
+	}
+}
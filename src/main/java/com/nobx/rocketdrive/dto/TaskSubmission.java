@@ -0,0 +1,53 @@
+package com.nobx.rocketdrive.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One task in a bulk submission. Enum values are kept as strings so a bad value
+ * rejects only its own task instead of aborting the whole stream.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class TaskSubmission {
+
+	private String cloudType;
+
+	private String cloudService;
+
+	private String sourcePath;
+
+	private String destinationPath;
+
+	private Integer sourceAccountId;
+
+	private Integer destinationAccountId;
+
+	private String sourceEmail;
+
+	private String destinationEmail;
+
+	private String userId;
+
+	private String priority;
+
+	private String sourceAccessToken;
+
+	private String destinationAccessToken;
+
+	// Optional, tasks with the key of a recently completed operation are not run again
+	private String idempotencyKey;
+
+	// Optional name other tasks of the same submission use to depend on this one
+	private String ref;
+
+	// Refs of earlier tasks in the submission that must complete before this one runs
+	private List<String> dependsOn;
+
+	// Ids of already queued tasks that must complete before this one runs
+	private List<Long> dependsOnTaskIds;
+}
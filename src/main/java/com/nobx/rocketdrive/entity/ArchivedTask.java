@@ -0,0 +1,121 @@
+package com.nobx.rocketdrive.entity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Immutable;
+
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+import com.nobx.rocketdrive.enums.CloudTypeEnum;
+import com.nobx.rocketdrive.enums.TaskPriorityEnum;
+import com.nobx.rocketdrive.enums.TaskStatusEnum;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A finished task moved out of backend_task by the archiver, keeping its id.
+ * Access tokens and upload session state are not carried over. Rows are only
+ * written by the archiver and read for task history.
+ */
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor
+@Table(name = "backend_task_archive", indexes = {
+    @Index(name = "idx_task_archive_user", columnList = "user_id, id"),
+    @Index(name = "idx_task_archive_batch", columnList = "batch_id"),
+    @Index(name = "idx_task_archive_archived", columnList = "archived_at")
+})
+public class ArchivedTask {
+
+    @Id
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "task_type", nullable = false)
+    private CloudTypeEnum cloudType;
+
+    @Column(name = "source_path", nullable = false)
+    private String sourcePath;
+
+    @Column(name = "destination_path")
+    private String destinationPath;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "cloud_service", nullable = false)
+    private CloudServiceEnum cloudService;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private TaskStatusEnum status;
+
+    @Column(name = "error_message")
+    private String errorMessage;
+
+    @Column(name = "source_account_id", nullable = false)
+    private Integer sourceAccountId;
+
+    @Column(name = "destination_account_id", nullable = false)
+    private Integer destinationAccountId;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "priority")
+    private TaskPriorityEnum priority;
+
+    @Column(name = "source_email", nullable = false)
+    private String sourceEmail;
+
+    @Column(name = "destination_email", nullable = false)
+    private String destinationEmail;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+
+    @Column(name = "bytes_transferred")
+    private Long bytesTransferred;
+
+    @Column(name = "attempt_count")
+    private Integer attemptCount;
+
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey;
+
+    @Column(name = "duplicate_of")
+    private Long duplicateOf;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "run_as")
+    private CloudTypeEnum runAs;
+
+    @Column(name = "batch_id", length = 36)
+    private String batchId;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @OneToMany(mappedBy = "task", fetch = FetchType.EAGER)
+    @BatchSize(size = 20)
+    private List<ArchivedTaskDestination> destinations = new ArrayList<>();
+
+}
@@ -0,0 +1,61 @@
+package com.nobx.rocketdrive.entity;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.Immutable;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.nobx.rocketdrive.enums.TaskStatusEnum;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fan-out destination of an {@link ArchivedTask}, archived along with it.
+ */
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor
+@Table(name = "backend_task_destination_archive", indexes = {
+    @Index(name = "idx_task_destination_archive_task", columnList = "task_id")
+})
+public class ArchivedTaskDestination {
+
+    @Id
+    private Long id;
+
+    @JsonIgnore
+    @ManyToOne
+    @JoinColumn(name = "task_id", nullable = false)
+    private ArchivedTask task;
+
+    @Column(name = "destination_account_id", nullable = false)
+    private Integer destinationAccountId;
+
+    @Column(name = "destination_path")
+    private String destinationPath;
+
+    @Column(name = "destination_email")
+    private String destinationEmail;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private TaskStatusEnum status;
+
+    @Column(name = "error_message")
+    private String errorMessage;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+}
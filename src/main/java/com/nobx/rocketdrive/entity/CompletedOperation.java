@@ -0,0 +1,43 @@
+package com.nobx.rocketdrive.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Ledger entry for an operation that completed, by idempotency key. A task
+ * claimed with the key of a recent entry is completed without running again.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "backend_completed_operation", indexes = {
+    @Index(name = "idx_completed_operation_at", columnList = "completed_at")
+})
+public class CompletedOperation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "idempotency_key", length = 64, nullable = false, unique = true)
+    private String idempotencyKey;
+
+    // Task that did the work
+    @Column(name = "task_id", nullable = false)
+    private Long taskId;
+
+    @Column(name = "completed_at", nullable = false)
+    private LocalDateTime completedAt;
+
+}
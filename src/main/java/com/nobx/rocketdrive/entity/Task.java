@@ -1,18 +1,28 @@
 package com.nobx.rocketdrive.entity;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.annotations.BatchSize;
 
 import com.nobx.rocketdrive.enums.CloudServiceEnum;
 import com.nobx.rocketdrive.enums.CloudTypeEnum;
+import com.nobx.rocketdrive.enums.TaskPriorityEnum;
 import com.nobx.rocketdrive.enums.TaskStatusEnum;
+import com.nobx.rocketdrive.transfer.TransferControl;
 
+import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -24,7 +34,17 @@ import lombok.Setter;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "backend_task")
+@Table(name = "backend_task", indexes = {
+    // Per-user, per-priority cursors of the fair scheduler
+    @Index(name = "idx_task_ready", columnList = "status, user_id, priority, id"),
+    // Finished tasks due for archival, see TaskArchiveService
+    @Index(name = "idx_task_finished", columnList = "status, updated_at"),
+    @Index(name = "idx_task_user", columnList = "user_id, id"),
+    @Index(name = "idx_task_batch", columnList = "batch_id"),
+    @Index(name = "idx_task_idempotency", columnList = "idempotency_key"),
+    // Running tasks whose worker stopped renewing their lease, see TaskLeaseService
+    @Index(name = "idx_task_lease", columnList = "status, lease_expires_at")
+})
 public class Task {
 
     @Id
@@ -66,6 +86,11 @@ public class Task {
 
     @Column(name = "user_id", nullable = false)
     private String userId;
+
+    // Tasks without a priority are scheduled as NORMAL
+    @Enumerated(EnumType.STRING)
+    @Column(name = "priority")
+    private TaskPriorityEnum priority = TaskPriorityEnum.NORMAL;
     
     @Column(name = "source_email", nullable = false)
     private String sourceEmail;
@@ -80,5 +105,81 @@ public class Task {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    // Not picked up before this time, e.g. while the provider's circuit breaker is open
+    // or until the backoff after a retryable failure has passed
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    // Source file size, recorded when a copy reads the file's metadata and used to
+    // pick the task's execution lane on later attempts
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+
+    // Bytes uploaded by the running attempt, flushed periodically while the task is IN_PROGRESS
+    @Column(name = "bytes_transferred")
+    private Long bytesTransferred;
+
+    // Upload session of a paused task and the bytes it had committed, so resuming
+    // continues the upload instead of starting over
+    @Column(name = "upload_session", length = 2000)
+    private String uploadSession;
+
+    @Column(name = "committed_bytes")
+    private Long committedBytes;
+
+    // Attempts that reached the provider, parked tasks are not counted
+    @Column(name = "attempt_count")
+    private Integer attemptCount = 0;
+
+    // Set by the submitter to identify the operation, so a repeated submission within the
+    // ledger window is not run twice; tasks without one are only coalesced while running
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey;
+
+    // Task whose run also did this task's work: an identical task, or the move a
+    // COPY + DELETE pair was merged into. This task takes on its outcome.
+    @Column(name = "duplicate_of")
+    private Long duplicateOf;
+
+    // Operation run in place of the task's own when another task was merged into it, e.g. CUT
+    // for a COPY whose source a DELETE follower removes; the submitted type stays as it was
+    @Enumerated(EnumType.STRING)
+    @Column(name = "run_as")
+    private CloudTypeEnum runAs;
+
+    // Tasks this one depends on that have not completed yet, see TaskDependency; the task
+    // stays BLOCKED until it drops to zero
+    @Column(name = "pending_dependencies")
+    private Integer pendingDependencies = 0;
+
+    // Bulk submission the task arrived in, null for tasks inserted elsewhere
+    @Column(name = "batch_id", length = 36)
+    private String batchId;
+
+    // Worker running the task and until when it holds it; set on claim, renewed by the
+    // worker's heartbeat and cleared with the outcome
+    @Column(name = "lease_owner", length = 64)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    // New for every claim; an attempt only saves its outcome while the row still holds its token
+    @Column(name = "lease_token", length = 36)
+    private String leaseToken;
+
+    // Cancel or pause asked for while the task runs, possibly on another worker; the
+    // worker holding the lease picks it up with its heartbeat, see TaskControlService
+    @Enumerated(EnumType.STRING)
+    @Column(name = "stop_requested")
+    private TransferControl.Signal stopRequested;
+
+    // Fan-out copies: when present, the file is downloaded once and uploaded to
+    // every destination listed here. The single destination columns above then
+    // mirror the first entry.
+    @OneToMany(mappedBy = "task", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @BatchSize(size = 20)
+    private List<TaskDestination> destinations = new ArrayList<>();
+
 
 }
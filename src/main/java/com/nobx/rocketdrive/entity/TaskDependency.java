@@ -0,0 +1,43 @@
+package com.nobx.rocketdrive.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * An unresolved edge of the task graph: the task cannot run before the task it
+ * depends on has completed. Edges are deleted as their parent finishes, so
+ * only the open part of a graph is stored, and the child's
+ * {@code pendingDependencies} counts its remaining edges.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "backend_task_dependency", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_task_dependency", columnNames = { "task_id", "depends_on_id" })
+}, indexes = {
+    // Children of a finishing task
+    @Index(name = "idx_task_dependency_parent", columnList = "depends_on_id, task_id")
+})
+public class TaskDependency {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "task_id", nullable = false)
+    private Long taskId;
+
+    @Column(name = "depends_on_id", nullable = false)
+    private Long dependsOnId;
+
+}
@@ -0,0 +1,61 @@
+package com.nobx.rocketdrive.entity;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.nobx.rocketdrive.enums.TaskStatusEnum;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One target of a fan-out copy. Each destination reports its own status, so a
+ * slow or failing account does not hide the outcome of the others.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "backend_task_destination")
+public class TaskDestination {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @JsonIgnore
+    @ManyToOne
+    @JoinColumn(name = "task_id", nullable = false)
+    private Task task;
+
+    @Column(name = "destination_account_id", nullable = false)
+    private Integer destinationAccountId;
+
+    @Column(name = "destination_path")
+    private String destinationPath;
+
+    @Column(name = "destination_email")
+    private String destinationEmail;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private TaskStatusEnum status;
+
+    @Column(name = "error_message")
+    private String errorMessage;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+}
@@ -2,6 +2,6 @@ package com.nobx.rocketdrive.enums;
 
 public enum CloudTypeEnum {
 		
-	COPY, CUT, DELETE
+	COPY, CUT, DELETE, ARCHIVE
 	
 }
@@ -0,0 +1,12 @@
+package com.nobx.rocketdrive.enums;
+
+public enum TaskLaneEnum {
+
+	// Deletes and server-side copies, no file content moves through us
+	METADATA,
+
+	// Copies up to the small file threshold, or of unknown size
+	SMALL,
+
+	LARGE
+}
@@ -0,0 +1,17 @@
+package com.nobx.rocketdrive.enums;
+
+public enum TaskPriorityEnum {
+
+	// Share of the scheduler a task's user gets, relative to the other priorities
+	BULK(1), NORMAL(4), INTERACTIVE(16);
+
+	private final int weight;
+
+	TaskPriorityEnum(int weight) {
+		this.weight = weight;
+	}
+
+	public int getWeight() {
+		return weight;
+	}
+}
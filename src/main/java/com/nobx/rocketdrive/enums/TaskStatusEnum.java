@@ -2,5 +2,14 @@ package com.nobx.rocketdrive.enums;
 
 public enum TaskStatusEnum {
 	
-	PENDING, IN_PROGRESS, COMPLETED, FAILED
+	PENDING, IN_PROGRESS, COMPLETED, FAILED,
+
+	// Failed with a retryable error on every allowed attempt, needs a human to look at it
+	DEAD_LETTER,
+
+	// Stopped on request; a paused task can be resumed from its last committed chunk
+	CANCELLED, PAUSED,
+
+	// Waiting for the tasks it depends on to complete, becomes PENDING after the last one
+	BLOCKED
 }
@@ -0,0 +1,138 @@
+package com.nobx.rocketdrive.jfr;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Summarizes the RocketDrive events of a JFR recording into latency tables per
+ * provider: task attempts per operation and outcome, transfer chunks per
+ * direction, token refreshes and time spent throttled.
+ *
+ * <pre>
+ * java -cp target/classes com.nobx.rocketdrive.jfr.RecordingSummary recording.jfr
+ * </pre>
+ */
+public class RecordingSummary {
+
+    private final Map<String, Stats> tasks = new TreeMap<>();
+    private final Map<String, Stats> chunks = new TreeMap<>();
+    private final Map<String, Stats> tokenRefreshes = new TreeMap<>();
+    private final Map<String, Stats> throttles = new TreeMap<>();
+    private final Map<String, Stats> backoffs = new TreeMap<>();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: RecordingSummary <recording.jfr>");
+            System.exit(2);
+        }
+        System.out.print(summarize(Path.of(args[0])));
+    }
+
+    public static String summarize(Path recording) throws IOException {
+        RecordingSummary summary = new RecordingSummary();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                summary.add(file.readEvent());
+            }
+        }
+        return summary.format();
+    }
+
+    void add(RecordedEvent event) {
+        String provider = text(event, "provider");
+        switch (event.getEventType().getName()) {
+        case "rocketdrive.TaskFinished":
+            stats(tasks, provider, text(event, "operation"), text(event, "status"))
+                .add(event.getDuration(), event.getLong("bytes"));
+            break;
+        case "rocketdrive.TransferChunk":
+            stats(chunks, provider, text(event, "direction")).add(event.getDuration(), event.getLong("bytes"));
+            break;
+        case "rocketdrive.TokenRefresh":
+            stats(tokenRefreshes, provider, event.getBoolean("succeeded") ? "ok" : "failed")
+                .add(event.getDuration(), 0);
+            break;
+        case "rocketdrive.Throttle":
+            stats(throttles, provider).add(event.getDuration(), event.getLong("bytes"));
+            break;
+        case "rocketdrive.RetryBackoff":
+            stats(backoffs, provider, text(event, "operation")).add(event.getDuration("delay"), 0);
+            break;
+        default:
+            break;
+        }
+    }
+
+    String format() {
+        StringBuilder out = new StringBuilder();
+        table(out, "Task attempts (provider / operation / outcome)", tasks);
+        table(out, "Transfer chunks (provider / direction)", chunks);
+        table(out, "Token refreshes (provider / outcome)", tokenRefreshes);
+        table(out, "Throttle waits (provider)", throttles);
+        table(out, "Retry backoffs, delay before the next attempt (provider / operation)", backoffs);
+        return out.toString();
+    }
+
+    private static String text(RecordedEvent event, String field) {
+        Object value = event.hasField(field) ? event.getValue(field) : null;
+        return value != null ? value.toString() : "-";
+    }
+
+    private static Stats stats(Map<String, Stats> table, String... key) {
+        return table.computeIfAbsent(String.join(" / ", key), k -> new Stats());
+    }
+
+    private static void table(StringBuilder out, String title, Map<String, Stats> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        out.append(title).append('\n');
+        out.append(String.format("%-40s %8s %10s %10s %10s %10s %12s %10s%n", "", "count", "p50 ms", "p95 ms",
+            "p99 ms", "max ms", "MiB", "MiB/s"));
+        rows.forEach((key, stats) -> out.append(stats.format(key)));
+        out.append('\n');
+    }
+
+    static class Stats {
+
+        private long[] nanos = new long[64];
+        private int count;
+        private long bytes;
+        private long totalNanos;
+
+        void add(Duration duration, long bytes) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            long value = duration.toNanos();
+            nanos[count++] = value;
+            this.bytes += bytes;
+            totalNanos += value;
+        }
+
+        String format(String key) {
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            List<Object> values = new ArrayList<>(List.of(key, count, percentileMillis(sorted, 50),
+                percentileMillis(sorted, 95), percentileMillis(sorted, 99), percentileMillis(sorted, 100),
+                bytes / 1048576.0));
+            // Throughput of the time spent in these events, not of the wall clock
+            values.add(totalNanos > 0 ? bytes / 1048576.0 / (totalNanos / 1e9) : 0.0);
+            return String.format("%-40s %8d %10.1f %10.1f %10.1f %10.1f %12.1f %10.1f%n", values.toArray());
+        }
+
+        private static double percentileMillis(long[] sorted, double percentile) {
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+        }
+    }
+}
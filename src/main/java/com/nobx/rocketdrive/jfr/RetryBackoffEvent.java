@@ -0,0 +1,28 @@
+package com.nobx.rocketdrive.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A failed attempt was put back in the queue to be retried after a delay,
+ * typically after a provider's rate limit or outage.
+ */
+@Name("rocketdrive.RetryBackoff")
+@Label("Retry Backoff")
+@Category({ "RocketDrive", "Tasks" })
+@StackTrace(false)
+public class RetryBackoffEvent extends TaskEvent {
+
+    @Label("Attempt")
+    public int attempt;
+
+    @Label("Delay")
+    @Timespan(Timespan.MILLISECONDS)
+    public long delay;
+
+    @Label("Error")
+    public String error;
+}
@@ -0,0 +1,24 @@
+package com.nobx.rocketdrive.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A task was claimed as IN_PROGRESS by a batch chunk.
+ */
+@Name("rocketdrive.TaskClaimed")
+@Label("Task Claimed")
+@Category({ "RocketDrive", "Tasks" })
+@StackTrace(false)
+public class TaskClaimedEvent extends TaskEvent {
+
+    @Label("User")
+    public String userId;
+
+    @Label("Attempt")
+    @Description("Attempts made before this one")
+    public int attempt;
+}
@@ -0,0 +1,30 @@
+package com.nobx.rocketdrive.jfr;
+
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Fields shared by the events about one task. Events are plain field writes
+ * and an intrinsic check of whether a recording wants them, so they cost next
+ * to nothing while no recording is running.
+ */
+public abstract class TaskEvent extends Event {
+
+    @Label("Task Id")
+    public long taskId;
+
+    @Label("Provider")
+    public String provider;
+
+    @Label("Operation")
+    public String operation;
+
+    /**
+     * Sets the task's id, provider and operation, any of which may be {@code null}.
+     */
+    public void describe(Long taskId, Enum<?> provider, Enum<?> operation) {
+        this.taskId = taskId != null ? taskId : 0;
+        this.provider = provider != null ? provider.name() : null;
+        this.operation = operation != null ? operation.name() : null;
+    }
+}
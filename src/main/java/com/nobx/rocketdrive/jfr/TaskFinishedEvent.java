@@ -0,0 +1,30 @@
+package com.nobx.rocketdrive.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * An attempt of a task's operation, lasting from its dispatch until its
+ * outcome is known. Committed on the thread that completed the operation.
+ */
+@Name("rocketdrive.TaskFinished")
+@Label("Task Finished")
+@Category({ "RocketDrive", "Tasks" })
+@StackTrace(false)
+public class TaskFinishedEvent extends TaskEvent {
+
+    @Label("Status")
+    @Description("Status the task moved to after the attempt")
+    public String status;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Error")
+    public String error;
+}
@@ -0,0 +1,21 @@
+package com.nobx.rocketdrive.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A task's operation left its lane's queue and started calling the provider.
+ */
+@Name("rocketdrive.TaskStarted")
+@Label("Task Started")
+@Category({ "RocketDrive", "Tasks" })
+@StackTrace(false)
+public class TaskStartedEvent extends TaskEvent {
+
+    @Label("Lane")
+    @Description("Execution lane the task ran in")
+    public String lane;
+}
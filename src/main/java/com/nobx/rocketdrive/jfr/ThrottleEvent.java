@@ -0,0 +1,26 @@
+package com.nobx.rocketdrive.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Time a transfer waited for the bandwidth limits before sending bytes. Only
+ * committed when it actually had to wait.
+ */
+@Name("rocketdrive.Throttle")
+@Label("Bandwidth Throttle")
+@Category({ "RocketDrive", "Transfers" })
+@StackTrace(false)
+public class ThrottleEvent extends Event {
+
+    @Label("Provider")
+    public String provider;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,26 @@
+package com.nobx.rocketdrive.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A request to a provider for a new OAuth access token.
+ */
+@Name("rocketdrive.TokenRefresh")
+@Label("Token Refresh")
+@Category({ "RocketDrive", "Providers" })
+@StackTrace(false)
+public class TokenRefreshEvent extends Event {
+
+    @Label("Provider")
+    public String provider;
+
+    @Label("Account Id")
+    public long accountId;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,104 @@
+package com.nobx.rocketdrive.jfr;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.nobx.rocketdrive.transfer.ChunkSink;
+import com.nobx.rocketdrive.transfer.RangeFetcher;
+import com.nobx.rocketdrive.transfer.TransferChunk;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One range downloaded from the source, from its request until its stream is
+ * closed, or one chunk uploaded to the destination.
+ */
+@Name("rocketdrive.TransferChunk")
+@Label("Transfer Chunk")
+@Category({ "RocketDrive", "Transfers" })
+@StackTrace(false)
+public class TransferChunkEvent extends TaskEvent {
+
+    public static final String DOWNLOAD = "download";
+    public static final String UPLOAD = "upload";
+
+    @Label("Direction")
+    public String direction;
+
+    @Label("Offset")
+    public long offset;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    // Transient fields are not recorded
+    private transient boolean committed;
+
+    /**
+     * Wraps a destination so each chunk written to it is recorded, with the
+     * task, provider and operation of the given event.
+     */
+    public static ChunkSink recording(TaskEvent context, ChunkSink sink) {
+        return new ChunkSink() {
+            @Override
+            public void write(TransferChunk chunk) throws IOException {
+                TransferChunkEvent event = of(context, UPLOAD, chunk.getOffset(), chunk.getLength());
+                event.begin();
+                sink.write(chunk);
+                event.commit();
+            }
+
+            @Override
+            public void complete(long totalSize) throws IOException {
+                sink.complete(totalSize);
+            }
+
+            @Override
+            public String getCommittedHash() {
+                return sink.getCommittedHash();
+            }
+        };
+    }
+
+    /**
+     * Wraps a source so each range read from it is recorded, with the task,
+     * provider and operation of the given event.
+     */
+    public static RangeFetcher recording(TaskEvent context, RangeFetcher fetcher) {
+        return (offset, length) -> {
+            TransferChunkEvent event = of(context, DOWNLOAD, offset, length);
+            event.begin();
+            return new FilterInputStream(fetcher.open(offset, length)) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        // Streams may be closed more than once
+                        if (!event.committed) {
+                            event.committed = true;
+                            event.commit();
+                        }
+                    }
+                }
+            };
+        };
+    }
+
+    private static TransferChunkEvent of(TaskEvent context, String direction, long offset, long bytes) {
+        TransferChunkEvent event = new TransferChunkEvent();
+        event.taskId = context.taskId;
+        event.provider = context.provider;
+        event.operation = context.operation;
+        event.direction = direction;
+        event.offset = offset;
+        event.bytes = bytes;
+        return event;
+    }
+}
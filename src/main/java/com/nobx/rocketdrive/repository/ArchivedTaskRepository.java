@@ -0,0 +1,14 @@
+package com.nobx.rocketdrive.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.nobx.rocketdrive.entity.ArchivedTask;
+
+public interface ArchivedTaskRepository extends JpaRepository<ArchivedTask, Long> {
+
+    // Keyset page of one user's archived tasks, newest first
+    List<ArchivedTask> findByUserIdAndIdLessThanOrderByIdDesc(String userId, Long beforeId, Pageable pageable);
+}
@@ -0,0 +1,18 @@
+package com.nobx.rocketdrive.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.nobx.rocketdrive.entity.CompletedOperation;
+
+public interface CompletedOperationRepository extends JpaRepository<CompletedOperation, Long> {
+
+    Optional<CompletedOperation> findByIdempotencyKey(String idempotencyKey);
+
+    List<CompletedOperation> findByIdempotencyKeyInAndCompletedAtAfter(Collection<String> idempotencyKeys,
+            LocalDateTime completedAfter);
+}
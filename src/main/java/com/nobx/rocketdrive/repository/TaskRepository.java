@@ -1,11 +1,71 @@
 package com.nobx.rocketdrive.repository;
 import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.enums.TaskPriorityEnum;
 import com.nobx.rocketdrive.enums.TaskStatusEnum;
+import com.nobx.rocketdrive.transfer.TransferControl;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface TaskRepository extends JpaRepository<Task, Long> {
     Page<Task> findByStatus(TaskStatusEnum status, Pageable pageable);
-}
\ No newline at end of file
+
+    // Every (userId, priority) pair with ready tasks, one fair scheduler cursor each
+    @Query("select distinct t.userId, t.priority from Task t where t.status = :status"
+        + " and (t.nextAttemptAt is null or t.nextAttemptAt <= :now)")
+    List<Object[]> findReadyFlows(@Param("status") TaskStatusEnum status, @Param("now") LocalDateTime now);
+
+    // Keyset page of one user's ready tasks at one priority, after the given id
+    @Query("select t from Task t where t.status = :status and (t.nextAttemptAt is null or t.nextAttemptAt <= :now)"
+        + " and t.userId = :userId and ((:priority is null and t.priority is null) or t.priority = :priority)"
+        + " and t.id > :afterId order by t.id")
+    List<Task> findReadyAfter(@Param("status") TaskStatusEnum status, @Param("now") LocalDateTime now,
+        @Param("userId") String userId, @Param("priority") TaskPriorityEnum priority, @Param("afterId") Long afterId,
+        Pageable pageable);
+
+    // Keyset page of one user's tasks in the hot table, newest first
+    List<Task> findByUserIdAndIdLessThanOrderByIdDesc(String userId, Long beforeId, Pageable pageable);
+
+    /**
+     * Changes one task's status only if it is still in one of the expected states,
+     * so a request cannot overwrite a transition made by the scheduler meanwhile.
+     * A stop request left from a running attempt no longer applies once the task
+     * moves on.
+     */
+    @Modifying
+    @Transactional
+    @Query("update Task t set t.status = :to, t.updatedAt = :now, t.stopRequested = null"
+        + " where t.id = :id and t.status in :from")
+    int updateStatus(@Param("id") Long id, @Param("from") Collection<TaskStatusEnum> from,
+            @Param("to") TaskStatusEnum to, @Param("now") LocalDateTime now);
+
+    /**
+     * Records a stop request for a running task, unless one was made already; as
+     * with the transfer control, the first request wins.
+     */
+    @Modifying
+    @Transactional
+    @Query("update Task t set t.stopRequested = :signal where t.id = :id and t.status = :status"
+        + " and t.stopRequested is null")
+    int requestStop(@Param("id") Long id, @Param("signal") TransferControl.Signal signal,
+            @Param("status") TaskStatusEnum status);
+
+    @Modifying
+    @Transactional
+    @Query("update Task t set t.stopRequested = null where t.id = :id and t.stopRequested = :signal")
+    int clearStop(@Param("id") Long id, @Param("signal") TransferControl.Signal signal);
+
+    // Ids and signals of the stop requests for tasks leased to the worker
+    @Query("select t.id, t.stopRequested from Task t where t.leaseOwner = :owner and t.status = :status"
+        + " and t.stopRequested is not null")
+    List<Object[]> findStopRequests(@Param("owner") String owner, @Param("status") TaskStatusEnum status);
+}
@@ -0,0 +1,275 @@
+package com.nobx.rocketdrive.resilience;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Concurrency limit for one provider that adapts to how the provider behaves
+ * (additive increase, multiplicative decrease).
+ *
+ * Latency is sampled per provider request, from when the request is sent
+ * until its response, not per admitted operation: an operation can wait for a
+ * pool thread and span many requests, neither of which says anything about
+ * the provider. Samples are evaluated in windows. A window whose p99 stays within
+ * {@code latencyTolerance} of the baseline, while the limit was actually used,
+ * raises the limit by one. A window with throttling errors, or whose p99 rose
+ * beyond the tolerance, cuts the limit by {@code backoffRatio}. The baseline is
+ * the lowest p99 of recent windows, so it follows a provider whose latency
+ * shifts for good.
+ */
+public class AdaptiveLimiter {
+
+    private static final int HISTORY_SIZE = 100;
+    private static final int BASELINE_WINDOWS = 50;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int windowSize;
+    private final double latencyTolerance;
+    private final double backoffRatio;
+    private final Predicate<Throwable> overloaded;
+
+    private int limit;
+    private int inFlight;
+    private final Deque<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+
+    private final long[] window;
+    private int windowFill;
+    private int windowMaxInFlight;
+    private boolean windowOverloaded;
+    private final Deque<Long> recentP99s = new ArrayDeque<>();
+    private long lastP99;
+    private int staleSamples;
+
+    private final Deque<LimitChange> history = new ArrayDeque<>();
+
+    /**
+     * @param overloaded recognises failures that mean the provider is throttling
+     */
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, int windowSize, double latencyTolerance,
+            double backoffRatio, Predicate<Throwable> overloaded) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.windowSize = Math.max(1, windowSize);
+        this.latencyTolerance = latencyTolerance;
+        this.backoffRatio = backoffRatio;
+        this.overloaded = overloaded;
+        this.window = new long[this.windowSize];
+    }
+
+    /**
+     * Runs an operation once a permit is free. Its provider requests report
+     * their latency through {@link #sample(long)} while it runs.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> operation) {
+        return acquire().thenCompose(permit -> {
+            CompletableFuture<T> result;
+            try {
+                result = operation.get();
+            } catch (RuntimeException e) {
+                result = CompletableFuture.failedFuture(e);
+            }
+            return result.whenComplete((value, e) -> release(e != null && overloaded.test(unwrap(e))));
+        });
+    }
+
+    /**
+     * Completes once a permit is free. Waiters are served in order.
+     */
+    public CompletableFuture<Void> acquire() {
+        synchronized (this) {
+            if (waiting.isEmpty() && tryAcquire()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiting.add(waiter);
+            return waiter;
+        }
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= limit) {
+            return false;
+        }
+        inFlight++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+        return true;
+    }
+
+    /**
+     * Returns a permit, noting whether the provider throttled the operation.
+     */
+    public void release(boolean overloadedSample) {
+        release(-1, overloadedSample);
+    }
+
+    /**
+     * Returns the permit of an operation that was a single provider request,
+     * recording its latency along with how it went.
+     *
+     * @param latencyNanos the request's latency, or a negative value when its
+     *        requests were sampled on their own
+     * @param overloadedSample whether the provider throttled the operation
+     */
+    public void release(long latencyNanos, boolean overloadedSample) {
+        List<CompletableFuture<Void>> granted = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            if (staleSamples == 0) {
+                windowOverloaded |= overloadedSample;
+            }
+            if (latencyNanos >= 0) {
+                record(latencyNanos);
+            }
+            while (!waiting.isEmpty() && tryAcquire()) {
+                granted.add(waiting.poll());
+            }
+        }
+        // Waiters run their operations, so they are completed outside the lock
+        for (CompletableFuture<Void> waiter : granted) {
+            waiter.complete(null);
+        }
+    }
+
+    /**
+     * Records the latency of one provider request made by an admitted operation.
+     */
+    public synchronized void sample(long latencyNanos) {
+        record(latencyNanos);
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getWaiting() {
+        return waiting.size();
+    }
+
+    /**
+     * p99 latency of the last complete window, in nanoseconds.
+     */
+    public synchronized long getLastP99Nanos() {
+        return lastP99;
+    }
+
+    /**
+     * The most recent limit changes, oldest first.
+     */
+    public synchronized List<LimitChange> getHistory() {
+        return new ArrayList<>(history);
+    }
+
+    private void record(long latencyNanos) {
+        // Requests started under the old limit say nothing about the new one
+        if (staleSamples > 0) {
+            staleSamples--;
+            return;
+        }
+        window[windowFill++] = latencyNanos;
+        if (windowFill < windowSize) {
+            return;
+        }
+
+        long[] sorted = Arrays.copyOf(window, windowFill);
+        Arrays.sort(sorted);
+        long p99 = sorted[Math.max(0, (int) Math.ceil(sorted.length * 0.99) - 1)];
+        lastP99 = p99;
+
+        if (windowOverloaded) {
+            decrease(p99, "throttled");
+        } else {
+            long baseline = baseline(p99);
+            if (p99 > baseline * latencyTolerance) {
+                decrease(p99, "latency");
+            } else if (windowMaxInFlight >= limit && limit < maxLimit) {
+                change(limit + 1, p99, "increase");
+            }
+        }
+
+        windowFill = 0;
+        windowOverloaded = false;
+        windowMaxInFlight = inFlight;
+    }
+
+    private long baseline(long p99) {
+        recentP99s.add(p99);
+        if (recentP99s.size() > BASELINE_WINDOWS) {
+            recentP99s.poll();
+        }
+        long baseline = Long.MAX_VALUE;
+        for (long value : recentP99s) {
+            baseline = Math.min(baseline, value);
+        }
+        return baseline;
+    }
+
+    private void decrease(long p99, String reason) {
+        int reduced = Math.max(minLimit, (int) (limit * backoffRatio));
+        if (reduced < limit) {
+            change(reduced, p99, reason);
+            staleSamples = inFlight;
+        }
+    }
+
+    private void change(int newLimit, long p99, String reason) {
+        limit = newLimit;
+        history.add(new LimitChange(System.currentTimeMillis(), newLimit, p99 / 1_000_000, reason));
+        if (history.size() > HISTORY_SIZE) {
+            history.poll();
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        while (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+
+    /**
+     * One adjustment of the limit, with the p99 latency that caused it.
+     */
+    public static class LimitChange {
+
+        private final long timestamp;
+        private final int limit;
+        private final long p99Millis;
+        private final String reason;
+
+        LimitChange(long timestamp, int limit, long p99Millis, String reason) {
+            this.timestamp = timestamp;
+            this.limit = limit;
+            this.p99Millis = p99Millis;
+            this.reason = reason;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public long getP99Millis() {
+            return p99Millis;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.nobx.rocketdrive.resilience;
+
+/**
+ * Stops calls to a provider that is having an outage.
+ *
+ * After {@code failureThreshold} consecutive outage failures the circuit opens
+ * and calls are refused until the open period ends. The circuit then half-opens
+ * and lets {@code halfOpenProbes} calls through. A successful probe closes it.
+ * A failed probe opens it again for twice as long, up to {@code maxOpenMillis}.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final long maxOpenMillis;
+    private final int halfOpenProbes;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long currentOpenMillis;
+    private long openUntil;
+    private int probesStarted;
+
+    public CircuitBreaker(int failureThreshold, long openMillis, long maxOpenMillis, int halfOpenProbes) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+        this.maxOpenMillis = Math.max(openMillis, maxOpenMillis);
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+        this.currentOpenMillis = openMillis;
+    }
+
+    /**
+     * Whether a call may go ahead now. A permitted call must be followed by
+     * {@link #onSuccess()}, {@link #onFailure(boolean)} or {@link #onAbandoned()}.
+     */
+    public synchronized boolean allowRequest() {
+        return allowRequest(System.currentTimeMillis());
+    }
+
+    synchronized boolean allowRequest(long now) {
+        if (state == State.OPEN && now >= openUntil) {
+            state = State.HALF_OPEN;
+            probesStarted = 0;
+        }
+        switch (state) {
+        case CLOSED:
+            return true;
+        case HALF_OPEN:
+            if (probesStarted < halfOpenProbes) {
+                probesStarted++;
+                return true;
+            }
+            return false;
+        default:
+            return false;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        currentOpenMillis = openMillis;
+    }
+
+    /**
+     * Reports a call that was stopped by the caller before the provider answered.
+     * It says nothing about the provider, but frees its probe slot if it was one.
+     */
+    public synchronized void onAbandoned() {
+        if (state == State.HALF_OPEN && probesStarted > 0) {
+            probesStarted--;
+        }
+    }
+
+    /**
+     * @param outage whether the failure means the provider is unavailable, as
+     *               opposed to a problem with this particular request
+     */
+    public synchronized void onFailure(boolean outage) {
+        onFailure(outage, System.currentTimeMillis());
+    }
+
+    synchronized void onFailure(boolean outage, long now) {
+        if (!outage) {
+            // The provider answered, so it is up
+            onSuccess();
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            currentOpenMillis = Math.min(maxOpenMillis, currentOpenMillis * 2);
+            open(now);
+            return;
+        }
+        // Calls started before the circuit opened still report back
+        if (state == State.OPEN) {
+            return;
+        }
+        if (++consecutiveFailures >= failureThreshold) {
+            open(now);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * When calls will be let through again, in epoch milliseconds. Only
+     * meaningful while the circuit is not closed.
+     */
+    public synchronized long getRetryAt() {
+        return openUntil;
+    }
+
+    private void open(long now) {
+        state = State.OPEN;
+        openUntil = now + currentOpenMillis;
+        consecutiveFailures = 0;
+    }
+}
@@ -0,0 +1,41 @@
+package com.nobx.rocketdrive.resilience;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with full jitter: the delay before a retry is drawn
+ * uniformly between zero and an exponentially growing cap, so tasks that failed
+ * together do not all come back at the same moment.
+ */
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = Math.max(baseDelayMillis, maxDelayMillis);
+    }
+
+    /**
+     * Whether a task that has made {@code attempts} attempts may try again.
+     */
+    public boolean canRetry(int attempts) {
+        return attempts < maxAttempts;
+    }
+
+    /**
+     * Delay before the attempt following the given number of failed attempts.
+     */
+    public long delayMillis(int attempts) {
+        int exponent = Math.min(30, Math.max(0, attempts - 1));
+        long cap = Math.min(maxDelayMillis, baseDelayMillis << exponent);
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+}
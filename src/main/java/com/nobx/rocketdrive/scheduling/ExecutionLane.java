@@ -0,0 +1,136 @@
+package com.nobx.rocketdrive.scheduling;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Runs operations of one cost class with its own concurrency, so a burst in one
+ * lane cannot take the slots of another. Operations beyond the concurrency wait
+ * in order. Keeps the queue depth and recent latencies for monitoring.
+ */
+public class ExecutionLane {
+
+    private static final int LATENCY_SAMPLES = 1000;
+
+    private final String name;
+    private final int concurrency;
+    private final int maxQueued;
+
+    private int running;
+    private final Deque<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+    private long completed;
+
+    private final long[] waitMillis = new long[LATENCY_SAMPLES];
+    private final long[] runMillis = new long[LATENCY_SAMPLES];
+    private int samples;
+    private int nextSample;
+
+    public ExecutionLane(String name, int concurrency, int maxQueued) {
+        this.name = name;
+        this.concurrency = Math.max(1, concurrency);
+        this.maxQueued = Math.max(0, maxQueued);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> operation) {
+        long queuedAt = System.nanoTime();
+        return acquire().thenCompose(permit -> {
+            long startedAt = System.nanoTime();
+            CompletableFuture<T> result;
+            try {
+                result = operation.get();
+            } catch (RuntimeException e) {
+                result = CompletableFuture.failedFuture(e);
+            }
+            return result.whenComplete((value, e) -> release(startedAt - queuedAt, System.nanoTime() - startedAt));
+        });
+    }
+
+    /**
+     * Whether more work should be admitted, i.e. the lane's backlog is below its
+     * limit. Admission is the caller's decision, {@link #submit} always accepts.
+     */
+    public synchronized boolean hasCapacity() {
+        return waiting.size() < maxQueued || running < concurrency;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public synchronized int getRunning() {
+        return running;
+    }
+
+    public synchronized int getQueueDepth() {
+        return waiting.size();
+    }
+
+    public synchronized long getCompleted() {
+        return completed;
+    }
+
+    /**
+     * Time operations spent queued for a slot, at the given percentile of the
+     * recent samples.
+     */
+    public synchronized long getWaitMillis(double percentile) {
+        return percentile(waitMillis, percentile);
+    }
+
+    /**
+     * Time operations took once started, at the given percentile of the recent
+     * samples.
+     */
+    public synchronized long getRunMillis(double percentile) {
+        return percentile(runMillis, percentile);
+    }
+
+    private CompletableFuture<Void> acquire() {
+        synchronized (this) {
+            if (waiting.isEmpty() && running < concurrency) {
+                running++;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiting.add(waiter);
+            return waiter;
+        }
+    }
+
+    private void release(long waitNanos, long runNanos) {
+        List<CompletableFuture<Void>> granted = new ArrayList<>();
+        synchronized (this) {
+            running--;
+            completed++;
+            waitMillis[nextSample] = waitNanos / 1_000_000;
+            runMillis[nextSample] = runNanos / 1_000_000;
+            nextSample = (nextSample + 1) % LATENCY_SAMPLES;
+            samples = Math.min(LATENCY_SAMPLES, samples + 1);
+            while (!waiting.isEmpty() && running < concurrency) {
+                running++;
+                granted.add(waiting.poll());
+            }
+        }
+        for (CompletableFuture<Void> waiter : granted) {
+            waiter.complete(null);
+        }
+    }
+
+    private long percentile(long[] values, double percentile) {
+        if (samples == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(values, samples);
+        Arrays.sort(sorted);
+        return sorted[Math.max(0, (int) Math.ceil(samples * percentile) - 1)];
+    }
+}
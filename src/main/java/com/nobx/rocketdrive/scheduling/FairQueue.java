@@ -0,0 +1,143 @@
+package com.nobx.rocketdrive.scheduling;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Weighted fair queue across users (start-time fair queuing).
+ *
+ * Each user has a virtual clock that advances by {@code cost / weight} for every
+ * item taken from the user's queue. The next item always comes from the user
+ * whose clock is furthest behind, so a user with a huge backlog gets the same
+ * share as everyone else instead of blocking them, and high-weight items cost
+ * their user less of that share. Within a user, higher weights go first, then
+ * arrival order.
+ *
+ * Users with {@code perUserCap} items in flight are not served until one of
+ * them is released, even when nobody else has work, so no user ever has more
+ * than {@code perUserCap} items in flight. Since only that many of a user's
+ * items get past the queue, a bulk backlog can only hold up later stages, e.g.
+ * the execution lanes, by that many items either.
+ */
+public class FairQueue<T> {
+
+    private final int perUserCap;
+
+    private final Map<String, Flow<T>> flows = new HashMap<>();
+    private final Map<String, Integer> inFlight = new HashMap<>();
+    private double virtualTime;
+    private long sequence;
+    private int size;
+
+    public FairQueue(int perUserCap) {
+        this.perUserCap = Math.max(1, perUserCap);
+    }
+
+    public synchronized void offer(String user, T item, int weight, double cost) {
+        flows.computeIfAbsent(user, key -> new Flow<>())
+            .queue.add(new Entry<>(item, Math.max(1, weight), cost, sequence++));
+        size++;
+    }
+
+    /**
+     * Takes the next item and counts it as in flight for its user until
+     * {@link #release(String)} is called.
+     *
+     * @return the next item, or {@code null} when the queue is empty or every
+     *         user with queued items is at the cap
+     */
+    public synchronized T poll() {
+        String user = pick();
+        if (user == null) {
+            return null;
+        }
+
+        Flow<T> flow = flows.get(user);
+        Entry<T> entry = flow.queue.poll();
+        double start = Math.max(virtualTime, flow.finish);
+        flow.finish = start + entry.cost / entry.weight;
+        virtualTime = start;
+        size--;
+        if (flow.queue.isEmpty()) {
+            // An idle user does not bank credit, it restarts from the current virtual time
+            flows.remove(user);
+        }
+        inFlight.merge(user, 1, Integer::sum);
+        return entry.item;
+    }
+
+    /**
+     * @return true if the user was at the cap, so more of its items may be
+     *         served now
+     */
+    public synchronized boolean release(String user) {
+        int count = inFlight.getOrDefault(user, 0);
+        if (count > 1) {
+            inFlight.put(user, count - 1);
+        } else {
+            inFlight.remove(user);
+        }
+        return count >= perUserCap;
+    }
+
+    /**
+     * Drops every queued item. In-flight counts are kept.
+     */
+    public synchronized void clear() {
+        flows.clear();
+        size = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized int size(String user) {
+        Flow<T> flow = flows.get(user);
+        return flow == null ? 0 : flow.queue.size();
+    }
+
+    public synchronized int getInFlight(String user) {
+        return inFlight.getOrDefault(user, 0);
+    }
+
+    private String pick() {
+        String best = null;
+        double bestTag = Double.MAX_VALUE;
+        for (Map.Entry<String, Flow<T>> candidate : flows.entrySet()) {
+            if (inFlight.getOrDefault(candidate.getKey(), 0) >= perUserCap) {
+                continue;
+            }
+            Flow<T> flow = candidate.getValue();
+            Entry<T> head = flow.queue.peek();
+            double tag = Math.max(virtualTime, flow.finish) + head.cost / head.weight;
+            if (tag < bestTag) {
+                bestTag = tag;
+                best = candidate.getKey();
+            }
+        }
+        return best;
+    }
+
+    private static class Flow<T> {
+        final PriorityQueue<Entry<T>> queue = new PriorityQueue<>((a, b) -> a.weight != b.weight
+            ? Integer.compare(b.weight, a.weight)
+            : Long.compare(a.sequence, b.sequence));
+        double finish;
+    }
+
+    private static class Entry<T> {
+        final T item;
+        final int weight;
+        final double cost;
+        final long sequence;
+
+        Entry(T item, int weight, double cost, long sequence) {
+            this.item = item;
+            this.weight = weight;
+            this.cost = cost;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.nobx.rocketdrive.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+
+/**
+ * Declares the provider a {@link CloudService} bean handles, so the
+ * {@link com.nobx.rocketdrive.service.impl.CloudServiceRegistry} can find it
+ * without creating it. Provider services are lazy: a worker only loads the SDK
+ * of a provider once it gets a task for it.
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CloudProvider {
+
+	CloudServiceEnum value();
+}
@@ -1,13 +1,66 @@
 package com.nobx.rocketdrive.service;
 
+import java.util.concurrent.CompletableFuture;
+
 import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
 
 public interface CloudService {
-	
-	
-	 void copyFile(Task task);
 
-	 void deleteFileWithAccountId(String filePath, Long accountId);
-	 
+	/**
+	 * The provider this service handles, used as its key in the
+	 * {@link com.nobx.rocketdrive.service.impl.CloudServiceRegistry}.
+	 */
+	CloudServiceEnum getCloudService();
+
+	/**
+	 * Whether copies are done by the provider without the content passing
+	 * through this service, making them as cheap as a metadata call.
+	 */
+	default boolean isServerSideCopy() {
+		return false;
+	}
+
+	/**
+	 * Whether the task's source can be moved to its destination with a single
+	 * provider call, which is only possible within one account.
+	 */
+	default boolean canMove(Task task) {
+		return false;
+	}
+
+	void copyFile(Task task);
+
+	void deleteFileWithAccountId(String filePath, Long accountId);
+
+	/**
+	 * Starts a copy without blocking the caller. The future completes
+	 * exceptionally if the copy fails.
+	 */
+	CompletableFuture<Void> copyFileAsync(Task task);
+
+	/**
+	 * Starts a delete without blocking the caller. The future completes
+	 * exceptionally if the delete fails.
+	 */
+	CompletableFuture<Void> deleteFileAsync(String filePath, Long accountId);
+
+	/**
+	 * Starts writing the files under the task's source folder into one ZIP
+	 * archive in the destination folder, for ARCHIVE tasks.
+	 */
+	default CompletableFuture<Void> archiveFilesAsync(Task task) {
+		return CompletableFuture.failedFuture(
+				new IllegalArgumentException("Archive tasks are not supported for: " + getCloudService()));
+	}
+
+	/**
+	 * Starts a provider-side move of the task's source to its destination, for
+	 * tasks where {@link #canMove(Task)} holds.
+	 */
+	default CompletableFuture<Void> moveFileAsync(Task task) {
+		return CompletableFuture.failedFuture(
+				new UnsupportedOperationException("Moves are not supported for: " + getCloudService()));
+	}
 
 }
@@ -32,6 +32,26 @@ public class ApiConfigService {
     @Value("$(onedrive.tenant.id)")
     private String tenantId;
 
+    // Provider endpoints, overridden to run against a local emulator
+    @Value("${dropbox.api.endpoint:}")
+    private String dropboxEndpoint;
+
+    @Value("${google.drive.root-url:https://www.googleapis.com/}")
+    private String googleDriveRootUrl;
+
+    @Value("${google.oauth.token-url:https://oauth2.googleapis.com/token}")
+    private String googleTokenUrl;
+
+    @Value("${onedrive.graph.endpoint:}")
+    private String graphEndpoint;
+
+    // Dropbox and Google Drive REST calls sent with the non-blocking HTTP client
+    @Value("${provider.http.connect-timeout-ms:10000}")
+    private long httpConnectTimeoutMillis;
+
+    @Value("${provider.http.request-timeout-ms:60000}")
+    private long httpRequestTimeoutMillis;
+
 
 }
 
@@ -0,0 +1,26 @@
+package com.nobx.rocketdrive.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+
+@Component
+@Getter
+public class ArchiveConfigService {
+
+	@Value("${tasks.archive.enabled:true}")
+	private boolean enabled;
+
+	// Finished tasks stay in the hot table this long, e.g. for tasks that follow their outcome
+	@Value("${tasks.archive.after-minutes:60}")
+	private long afterMinutes;
+
+	// Tasks moved per transaction, keeps row locks and undo log small
+	@Value("${tasks.archive.batch-size:1000}")
+	private int batchSize;
+
+	// Pause between batches, so a large backlog is moved without starving the claim queries
+	@Value("${tasks.archive.batch-pause-ms:100}")
+	private long batchPauseMillis;
+}
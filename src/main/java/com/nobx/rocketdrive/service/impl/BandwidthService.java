@@ -0,0 +1,128 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+import com.nobx.rocketdrive.transfer.BandwidthThrottle;
+import com.nobx.rocketdrive.transfer.ByteRateLimiter;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Holds the upload bandwidth limits: one global, one per provider and one per
+ * user. A transfer is throttled by all three, so a single user cannot take the
+ * whole global budget. Rates can be changed while transfers are running.
+ */
+@Service
+public class BandwidthService {
+
+	@Autowired
+	private TransferConfigService transferConfigService;
+
+	private ByteRateLimiter globalLimiter;
+
+	private final Map<CloudServiceEnum, ByteRateLimiter> providerLimiters = new EnumMap<>(CloudServiceEnum.class);
+
+	private final Map<String, ByteRateLimiter> userLimiters = new ConcurrentHashMap<>();
+
+	// Users whose rate was set explicitly and does not follow the default
+	private final Set<String> userOverrides = ConcurrentHashMap.newKeySet();
+
+	// Per-user rate for users without an explicit override
+	private volatile long defaultUserRate;
+
+	@PostConstruct
+	public void init() {
+		long burst = transferConfigService.getBandwidthBurstBytes();
+		globalLimiter = new ByteRateLimiter(transferConfigService.getBandwidthGlobal(), burst);
+		for (CloudServiceEnum cloudService : CloudServiceEnum.values()) {
+			providerLimiters.put(cloudService, new ByteRateLimiter(transferConfigService.getBandwidthPerProvider(), burst));
+		}
+		defaultUserRate = transferConfigService.getBandwidthPerUser();
+	}
+
+	/**
+	 * Returns the throttle for one transfer of the given user to the given provider.
+	 */
+	public BandwidthThrottle throttle(CloudServiceEnum cloudService, String userId) {
+		ByteRateLimiter userLimiter = userId == null ? null : userLimiters.compute(userId, (id, limiter) -> {
+			// Marked as used within compute, so an eviction cannot drop it before the transfer starts
+			ByteRateLimiter used = limiter != null ? limiter
+					: new ByteRateLimiter(defaultUserRate, transferConfigService.getBandwidthBurstBytes());
+			used.touch();
+			return used;
+		});
+		if (userLimiter == null) {
+			return new BandwidthThrottle(List.of(globalLimiter, providerLimiters.get(cloudService)), cloudService.name());
+		}
+		return new BandwidthThrottle(List.of(globalLimiter, providerLimiters.get(cloudService), userLimiter),
+				cloudService.name());
+	}
+
+	/**
+	 * Drops the limits of users without an explicit rate that were not used for
+	 * a while, so the map does not keep an entry for every user ever seen. A
+	 * transfer stalled for that long keeps its limiter, while the user's next
+	 * transfer gets a fresh one.
+	 */
+	@Scheduled(fixedDelayString = "${transfer.bandwidth.user-idle-ms:600000}")
+	public void evictIdleUsers() {
+		long idleNanos = TimeUnit.MILLISECONDS.toNanos(transferConfigService.getBandwidthUserIdleMillis());
+		for (String userId : userLimiters.keySet()) {
+			userLimiters.computeIfPresent(userId, (id, limiter) -> !userOverrides.contains(id)
+					&& limiter.getIdleNanos() > idleNanos ? null : limiter);
+		}
+	}
+
+	public void setGlobalRate(long bytesPerSecond) {
+		globalLimiter.setBytesPerSecond(bytesPerSecond);
+	}
+
+	public void setProviderRate(CloudServiceEnum cloudService, long bytesPerSecond) {
+		providerLimiters.get(cloudService).setBytesPerSecond(bytesPerSecond);
+	}
+
+	public void setUserRate(String userId, long bytesPerSecond) {
+		userOverrides.add(userId);
+		userLimiters.computeIfAbsent(userId,
+				id -> new ByteRateLimiter(bytesPerSecond, transferConfigService.getBandwidthBurstBytes()))
+				.setBytesPerSecond(bytesPerSecond);
+	}
+
+	/**
+	 * Changes the rate of every user that has no override yet, and of users seen later.
+	 */
+	public void setDefaultUserRate(long bytesPerSecond) {
+		defaultUserRate = bytesPerSecond;
+		userLimiters.forEach((userId, limiter) -> {
+			if (!userOverrides.contains(userId)) {
+				limiter.setBytesPerSecond(bytesPerSecond);
+			}
+		});
+	}
+
+	public long getGlobalRate() {
+		return globalLimiter.getBytesPerSecond();
+	}
+
+	public long getProviderRate(CloudServiceEnum cloudService) {
+		return providerLimiters.get(cloudService).getBytesPerSecond();
+	}
+
+	public long getDefaultUserRate() {
+		return defaultUserRate;
+	}
+
+	public Map<String, ByteRateLimiter> getUserLimiters() {
+		return userLimiters;
+	}
+}
@@ -0,0 +1,62 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+import com.nobx.rocketdrive.resilience.CircuitBreaker;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Keeps a circuit breaker for each provider, or for each provider account when
+ * configured, so tasks for a provider that is down are parked instead of tying
+ * up workers until they time out.
+ */
+@Service
+public class CircuitBreakerService {
+
+	@Autowired
+	private ResilienceConfigService resilienceConfigService;
+
+	private final Map<CloudServiceEnum, CircuitBreaker> providerBreakers = new EnumMap<>(CloudServiceEnum.class);
+
+	private final Map<String, CircuitBreaker> accountBreakers = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void init() {
+		for (CloudServiceEnum cloudService : CloudServiceEnum.values()) {
+			providerBreakers.put(cloudService, newBreaker());
+		}
+	}
+
+	public CircuitBreaker get(Task task) {
+		if (!resilienceConfigService.isCircuitPerAccount() || task.getSourceAccountId() == null) {
+			return providerBreakers.get(task.getCloudService());
+		}
+		return accountBreakers.computeIfAbsent(task.getCloudService() + ":" + task.getSourceAccountId(),
+				key -> newBreaker());
+	}
+
+	/**
+	 * Current state of every circuit, keyed by provider or provider:account.
+	 */
+	public Map<String, CircuitBreaker> getBreakers() {
+		Map<String, CircuitBreaker> breakers = new TreeMap<>(accountBreakers);
+		providerBreakers.forEach((cloudService, breaker) -> breakers.put(cloudService.name(), breaker));
+		return Collections.unmodifiableMap(breakers);
+	}
+
+	private CircuitBreaker newBreaker() {
+		return new CircuitBreaker(resilienceConfigService.getCircuitFailureThreshold(),
+				resilienceConfigService.getCircuitOpenMillis(), resilienceConfigService.getCircuitMaxOpenMillis(),
+				resilienceConfigService.getCircuitHalfOpenProbes());
+	}
+}
@@ -1,97 +1,251 @@
 package com.nobx.rocketdrive.service.impl;
 
 import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.enums.CloudTypeEnum;
 import com.nobx.rocketdrive.enums.TaskStatusEnum;
+import com.nobx.rocketdrive.jfr.RetryBackoffEvent;
+import com.nobx.rocketdrive.jfr.TaskFinishedEvent;
+import com.nobx.rocketdrive.jfr.TaskStartedEvent;
+import com.nobx.rocketdrive.resilience.CircuitBreaker;
+import com.nobx.rocketdrive.resilience.RetryPolicy;
 import com.nobx.rocketdrive.service.CloudService;
+import com.nobx.rocketdrive.transfer.TransferControl;
+import com.nobx.rocketdrive.transfer.TransferStoppedException;
+
+import io.micrometer.tracing.Span;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 public class CloudOperationService {
 
 	@Autowired
-	private DropboxServiceImpl dropboxService;
+	private CloudServiceRegistry cloudServiceRegistry;
+
+	@Autowired
+	private ConcurrencyLimitService concurrencyLimitService;
+
+	@Autowired
+	private CircuitBreakerService circuitBreakerService;
+
+	@Autowired
+	private FailureClassifier failureClassifier;
+
+	@Autowired
+	private ResilienceConfigService resilienceConfigService;
+
+	@Autowired
+	private LaneService laneService;
+
+	@Autowired
+	private ProgressService progressService;
+
+	@Autowired
+	private TaskControlService taskControlService;
 
 	@Autowired
-	private GoogleDriveServiceImpl googleDriveService;
+	private TaskMetricsService taskMetricsService;
 
 	@Autowired
-	private OneDriveService oneDriveService;
+	private TracingService tracingService;
+
+	private RetryPolicy retryPolicy;
+
+	@PostConstruct
+	public void init() {
+		retryPolicy = new RetryPolicy(resilienceConfigService.getRetryMaxAttempts(),
+				resilienceConfigService.getRetryBaseDelayMillis(), resilienceConfigService.getRetryMaxDelayMillis());
+	}
 
 	public Task executeCloudOperation(Task task) {
-		try {
-			task.setStatus(TaskStatusEnum.IN_PROGRESS);
+		return executeCloudOperationAsync(task).join();
+	}
+
+	/**
+	 * Starts the task's operation without blocking the caller. The returned future
+	 * always completes normally, with the task in its next status: COMPLETED,
+	 * FAILED for permanent errors, PENDING with a not-before time to be retried
+	 * by a later run, or DEAD_LETTER once retries are used up. A task stopped
+	 * through {@link TaskControlService} ends as CANCELLED or PAUSED instead.
+	 */
+	public CompletableFuture<Task> executeCloudOperationAsync(Task task) {
+		CircuitBreaker circuitBreaker = circuitBreakerService.get(task);
+		if (!circuitBreaker.allowRequest()) {
+			task.setStatus(TaskStatusEnum.PENDING);
+			task.setNextAttemptAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(circuitBreaker.getRetryAt()),
+					ZoneId.systemDefault()));
 			task.setUpdatedAt(LocalDateTime.now());
+			return CompletableFuture.completedFuture(task);
+		}
 
-			// Execute cloud operation based on cloudType and cloudService
-			switch (task.getCloudType()) {
-			case COPY:
-				handleCopyOperation(task);
-				break;
-			case CUT:
-				handleMoveOperation(task);
-				break;
-			case DELETE:
-				handleDeleteOperation(task);
-				break;
-			default:
-				throw new IllegalArgumentException("Unsupported operation type: " + task.getCloudType());
+		long startNanos = System.nanoTime();
+		TaskFinishedEvent finished = new TaskFinishedEvent();
+		finished.begin();
+		Span span = tracingService.startTask("task.operation", task);
+		task.setStatus(TaskStatusEnum.IN_PROGRESS);
+		task.setUpdatedAt(LocalDateTime.now());
+		TransferControl control = taskControlService.start(task);
+
+		CompletableFuture<Void> operation;
+		try {
+			// Runs in the lane for its estimated cost, behind other tasks of that lane only
+			operation = laneService.submit(task, () -> {
+				// Stopped while waiting in the lane
+				if (control.getSignal() != null) {
+					return CompletableFuture.failedFuture(new TransferStoppedException(control.getSignal()));
+				}
+				started(task);
+				return startOperation(task);
+			});
+		} catch (Exception e) {
+			operation = CompletableFuture.failedFuture(e);
+		}
+
+		return operation.handle((result, e) -> {
+			if (e != null && control.getSignal() != null) {
+				// Stopped on request, neither the provider nor the task failed
+				circuitBreaker.onAbandoned();
+				task.setUpdatedAt(LocalDateTime.now());
+			} else {
+				next(task, circuitBreaker, e);
 			}
+			taskControlService.finish(task);
+			progressService.finish(task);
+			taskMetricsService.operationFinished(task, startNanos);
+			tracingService.endTask(task, span, e);
+			finished(finished, task, e);
+			return task;
+		});
+	}
 
+	/**
+	 * Moves the task to its next status after an attempt, see
+	 * {@link #executeCloudOperationAsync(Task)}.
+	 */
+	private void next(Task task, CircuitBreaker circuitBreaker, Throwable e) {
+		int attempts = task.getAttemptCount() == null ? 1 : task.getAttemptCount() + 1;
+		task.setAttemptCount(attempts);
+		task.setNextAttemptAt(null);
+		task.setUpdatedAt(LocalDateTime.now());
+
+		if (e == null) {
+			circuitBreaker.onSuccess();
 			task.setStatus(TaskStatusEnum.COMPLETED);
-		} catch (Exception e) {
+			task.setErrorMessage(null);
+			return;
+		}
+
+		circuitBreaker.onFailure(failureClassifier.isOutage(e));
+		task.setErrorMessage(truncate(rootMessage(e)));
+		if (!failureClassifier.isRetryable(e)) {
 			task.setStatus(TaskStatusEnum.FAILED);
+		} else if (retryPolicy.canRetry(attempts)) {
+			// Picked up again by a later scheduler run, no worker waits for the backoff
+			long delayMillis = retryPolicy.delayMillis(attempts);
+			task.setStatus(TaskStatusEnum.PENDING);
+			task.setNextAttemptAt(LocalDateTime.now().plus(delayMillis, ChronoUnit.MILLIS));
+			RetryBackoffEvent backoff = new RetryBackoffEvent();
+			if (backoff.isEnabled()) {
+				backoff.describe(task.getId(), task.getCloudService(), task.getCloudType());
+				backoff.attempt = attempts;
+				backoff.delay = delayMillis;
+				backoff.error = task.getErrorMessage();
+				backoff.commit();
+			}
+		} else {
+			task.setStatus(TaskStatusEnum.DEAD_LETTER);
 		}
+	}
 
-		task.setUpdatedAt(LocalDateTime.now());
-		return task;
+	private void started(Task task) {
+		TaskStartedEvent event = new TaskStartedEvent();
+		if (event.isEnabled()) {
+			event.describe(task.getId(), task.getCloudService(), task.getCloudType());
+			event.lane = laneService.laneOf(task).name();
+			event.commit();
+		}
 	}
 
-	private void handleCopyOperation(Task task) {
-		switch (task.getCloudService()) {
-		case GOOGLE_DRIVE:
-			// Google Drive copy logic
-			System.out.println("google drive copy method() executed.");
-			googleDriveService.copyFile(task);
-			break;
-		case DROPBOX:
-			// Dropbox copy logic
-			dropboxService.copyFile(task);
-			break;
-		case ONEDRIVE:
-			// OneDrive copy logic
-			oneDriveService.copyFile(task);
-			break;
+	// Spans the attempt from dispatch to outcome, fields are only filled when a recording wants it
+	private static void finished(TaskFinishedEvent event, Task task, Throwable e) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.describe(task.getId(), task.getCloudService(), task.getCloudType());
+			event.status = task.getStatus() != null ? task.getStatus().name() : null;
+			event.bytes = task.getBytesTransferred() != null ? task.getBytesTransferred() : 0;
+			event.error = e != null ? task.getErrorMessage() : null;
+			event.commit();
+		}
+	}
+
+	private CompletableFuture<Void> startOperation(Task task) {
+		CloudService cloudService = cloudServiceRegistry.get(task.getCloudService());
+
+		// Execute cloud operation based on cloudType, or the operation it was merged into
+		switch (operationOf(task)) {
+		case COPY:
+			return copy(cloudService, task);
+		case CUT:
+			if (cloudService.canMove(task)) {
+				return move(cloudService, task);
+			}
+			return copy(cloudService, task).thenCompose(copied -> deleteSource(cloudService, task));
+		case DELETE:
+			return deleteSource(cloudService, task);
+		case ARCHIVE:
+			return concurrencyLimitService.submit(cloudService.getCloudService(),
+					() -> tracingService.trace("provider.archive", task, () -> cloudService.archiveFilesAsync(task)));
 		default:
-			throw new IllegalArgumentException("Unsupported cloud service: " + task.getCloudService());
+			throw new IllegalArgumentException("Unsupported operation type: " + task.getCloudType());
 		}
 	}
 
-	private void handleMoveOperation(Task task) {
-		handleCopyOperation(task);
-		handleDeleteOperation(task);
+	/**
+	 * The operation to run for a task: its own type, unless the coalescer
+	 * merged another task into it.
+	 */
+	public static CloudTypeEnum operationOf(Task task) {
+		return task.getRunAs() != null ? task.getRunAs() : task.getCloudType();
 	}
 
-	private void handleDeleteOperation(Task task) {
-		switch (task.getCloudService()) {
-		case GOOGLE_DRIVE:
-			// Implementation Google Drive delete logic
-			googleDriveService.deleteFileWithAccountId(task.getSourcePath(), task.getSourceAccountId().longValue());
-			break;
-		case DROPBOX:
-			// Implemention Dropbox delete logic
-
-			dropboxService.deleteFileWithAccountId(task.getSourcePath(), task.getSourceAccountId().longValue());
-			break;
-		case ONEDRIVE:
-			// Implemention OneDrive delete logic
-			oneDriveService.deleteFile(task.getSourcePath(), task.getSourceAccountId().longValue());
-
-			break;
-		default:
-			throw new IllegalArgumentException("Unsupported cloud service: " + task.getCloudService());
+	private static String rootMessage(Throwable e) {
+		while (e instanceof CompletionException && e.getCause() != null) {
+			e = e.getCause();
+		}
+		return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+	}
+
+	private static String truncate(String message) {
+		if (message == null || message.length() <= 255) {
+			return message;
 		}
+		return message.substring(0, 255);
+	}
+
+	// Provider calls run within the provider's adaptive concurrency limit, their spans start once admitted
+	private CompletableFuture<Void> copy(CloudService cloudService, Task task) {
+		return concurrencyLimitService.submit(cloudService.getCloudService(),
+				() -> tracingService.trace("provider.copy", task, () -> cloudService.copyFileAsync(task)));
+	}
+
+	private CompletableFuture<Void> move(CloudService cloudService, Task task) {
+		return concurrencyLimitService.submit(cloudService.getCloudService(),
+				() -> tracingService.trace("provider.move", task, () -> cloudService.moveFileAsync(task)));
+	}
+
+	private CompletableFuture<Void> deleteSource(CloudService cloudService, Task task) {
+		return concurrencyLimitService.submit(cloudService.getCloudService(), () -> tracingService.trace(
+				"provider.delete", task,
+				() -> cloudService.deleteFileAsync(task.getSourcePath(), task.getSourceAccountId().longValue())));
 	}
-}
\ No newline at end of file
+}
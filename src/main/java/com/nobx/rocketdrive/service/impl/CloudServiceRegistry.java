@@ -0,0 +1,71 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.target.LazyInitTargetSource;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+import com.nobx.rocketdrive.service.CloudProvider;
+import com.nobx.rocketdrive.service.CloudService;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Looks up the {@link CloudService} implementation for a provider. Providers
+ * are registered by their {@link CloudProvider} annotation as proxies that only
+ * create the service on its first call, so startup does not pay for SDKs a
+ * worker never uses.
+ */
+@Component
+public class CloudServiceRegistry {
+
+	@Autowired
+	private ListableBeanFactory beanFactory;
+
+	// Filled once at startup and only read afterwards
+	private final Map<CloudServiceEnum, CloudService> registry = new EnumMap<>(CloudServiceEnum.class);
+
+	@PostConstruct
+	public void init() {
+		for (String beanName : beanFactory.getBeanNamesForType(CloudService.class, true, false)) {
+			CloudProvider provider = beanFactory.findAnnotationOnBean(beanName, CloudProvider.class);
+			if (provider == null) {
+				throw new IllegalStateException("Cloud service " + beanName + " does not declare its @CloudProvider");
+			}
+			CloudService previous = registry.put(provider.value(), lazy(beanName, provider.value()));
+			if (previous != null) {
+				throw new IllegalStateException("More than one service registered for: " + provider.value());
+			}
+		}
+	}
+
+	public CloudService get(CloudServiceEnum cloudServiceEnum) {
+		CloudService cloudService = cloudServiceEnum != null ? registry.get(cloudServiceEnum) : null;
+		if (cloudService == null) {
+			throw new IllegalArgumentException("Unsupported cloud service: " + cloudServiceEnum);
+		}
+		return cloudService;
+	}
+
+	private CloudService lazy(String beanName, CloudServiceEnum declared) {
+		LazyInitTargetSource targetSource = new LazyInitTargetSource() {
+			@Override
+			protected void postProcessTargetObject(Object targetObject) {
+				CloudServiceEnum handled = ((CloudService) targetObject).getCloudService();
+				if (handled != declared) {
+					throw new IllegalStateException(
+							"Cloud service " + beanName + " declares " + declared + " but handles " + handled);
+				}
+			}
+		};
+		targetSource.setTargetBeanName(beanName);
+		targetSource.setTargetClass(CloudService.class);
+		targetSource.setBeanFactory(beanFactory);
+		return ProxyFactory.getProxy(CloudService.class, targetSource);
+	}
+}
@@ -0,0 +1,72 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+import com.nobx.rocketdrive.resilience.AdaptiveLimiter;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Holds an adaptive concurrency limit for each provider, so a degraded provider
+ * gets fewer operations at once without slowing down the healthy ones.
+ */
+@Service
+public class ConcurrencyLimitService {
+
+	@Autowired
+	private ResilienceConfigService resilienceConfigService;
+
+	@Autowired
+	private TransferConfigService transferConfigService;
+
+	@Autowired
+	private FailureClassifier failureClassifier;
+
+	private final Map<CloudServiceEnum, AdaptiveLimiter> limiters = new EnumMap<>(CloudServiceEnum.class);
+
+	@PostConstruct
+	public void init() {
+		// A byte transfer holds an IO pool thread, permits beyond the pool would only queue for one
+		int maxLimit = Math.min(resilienceConfigService.getLimitMax(), transferConfigService.getIoPoolSize());
+		for (CloudServiceEnum cloudService : CloudServiceEnum.values()) {
+			limiters.put(cloudService, new AdaptiveLimiter(resilienceConfigService.getLimitInitial(),
+					resilienceConfigService.getLimitMin(), maxLimit,
+					resilienceConfigService.getLimitWindow(), resilienceConfigService.getLimitLatencyTolerance(),
+					resilienceConfigService.getLimitBackoffRatio(), failureClassifier::isThrottling));
+		}
+	}
+
+	/**
+	 * Runs a provider operation within that provider's concurrency limit.
+	 */
+	public <T> CompletableFuture<T> submit(CloudServiceEnum cloudService, Supplier<CompletableFuture<T>> operation) {
+		return limiters.get(cloudService).submit(operation);
+	}
+
+	/**
+	 * Records the latency of one request to the provider, timed from when it was
+	 * sent, after any wait for a thread, until its response.
+	 */
+	public void sample(CloudServiceEnum cloudService, long latencyNanos) {
+		limiters.get(cloudService).sample(latencyNanos);
+	}
+
+	/**
+	 * Sends a non-blocking provider request, sampling its latency for the limit.
+	 */
+	public <T> CompletableFuture<T> timed(CloudServiceEnum cloudService, Supplier<CompletableFuture<T>> request) {
+		long start = System.nanoTime();
+		return request.get().whenComplete((value, e) -> sample(cloudService, System.nanoTime() - start));
+	}
+
+	public AdaptiveLimiter getLimiter(CloudServiceEnum cloudService) {
+		return limiters.get(cloudService);
+	}
+}
@@ -0,0 +1,234 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.nobx.rocketdrive.enums.TaskStatusEnum;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resolves the task graph as tasks finish. A completed task decrements the
+ * pending count of its children and releases those that reach zero from
+ * BLOCKED to PENDING; a task that failed or was cancelled cancels everything
+ * below it, breadth first. Both work set-based on pages of edges in short
+ * transactions and delete the edges they resolved, so a repeated call does
+ * nothing and the work for a graph of any size is proportional to its nodes
+ * and edges.
+ */
+@Service
+@Slf4j
+public class DependencyService {
+
+	// Outcomes that cancel the tasks depending on them
+	public static final Set<TaskStatusEnum> FAILED = EnumSet.of(TaskStatusEnum.FAILED, TaskStatusEnum.DEAD_LETTER,
+			TaskStatusEnum.CANCELLED);
+
+	private static final String HAS_CHILDREN = "SELECT task_id FROM backend_task_dependency WHERE depends_on_id = ? LIMIT 1";
+
+	private static final String SELECT_CHILDREN = "SELECT task_id FROM backend_task_dependency WHERE depends_on_id = ? "
+			+ "ORDER BY task_id LIMIT ? FOR UPDATE";
+
+	private static final String SELECT_UNRESOLVED_PARENTS = "SELECT DISTINCT d.depends_on_id, t.status "
+			+ "FROM backend_task_dependency d JOIN backend_task t ON t.id = d.depends_on_id "
+			+ "WHERE t.status IN ('COMPLETED', 'FAILED', 'DEAD_LETTER', 'CANCELLED')";
+
+	/**
+	 * Published when tasks became ready to run, released to PENDING here or let
+	 * through again by their user's cap, so a scheduler run picks them up
+	 * without waiting for the next tick.
+	 */
+	public static class TasksReadyEvent {
+
+		private final int count;
+
+		public TasksReadyEvent(int count) {
+			this.count = count;
+		}
+
+		public int getCount() {
+			return count;
+		}
+	}
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private SchedulingConfigService schedulingConfigService;
+
+	private TransactionTemplate transactionTemplate;
+
+	@PostConstruct
+	public void init() {
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		// Also called from transaction synchronization callbacks, see TaskWriter
+		transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	/**
+	 * Propagates the final status of a task to the tasks depending on it. Does
+	 * nothing for other statuses or tasks without dependents. Never throws, a
+	 * propagation that failed part way is finished by {@link #repair()}.
+	 */
+	public void onFinished(Long taskId, TaskStatusEnum status) {
+		if (taskId == null || (status != TaskStatusEnum.COMPLETED && !FAILED.contains(status))) {
+			return;
+		}
+		try {
+			if (jdbcTemplate.queryForList(HAS_CHILDREN, Long.class, taskId).isEmpty()) {
+				return;
+			}
+			if (status == TaskStatusEnum.COMPLETED) {
+				resolve(taskId);
+			} else {
+				cancelDescendants(taskId, status);
+			}
+		} catch (RuntimeException e) {
+			log.error("Could not propagate {} of task {} to its dependents", status, taskId, e);
+		}
+	}
+
+	/**
+	 * Finishes propagations that were interrupted, e.g. by a restart: edges
+	 * whose parent already completed, failed or was cancelled.
+	 */
+	@Scheduled(fixedDelayString = "${scheduling.dependencies.repair-interval-ms:300000}")
+	public void repair() {
+		try {
+			List<Object[]> parents = jdbcTemplate.query(SELECT_UNRESOLVED_PARENTS,
+					(rs, row) -> new Object[] { rs.getLong(1), TaskStatusEnum.valueOf(rs.getString(2)) });
+			for (Object[] parent : parents) {
+				onFinished((Long) parent[0], (TaskStatusEnum) parent[1]);
+			}
+			if (!parents.isEmpty()) {
+				log.info("Repaired dependency propagation of {} finished tasks", parents.size());
+			}
+		} catch (RuntimeException e) {
+			log.error("Dependency repair failed, retried on the next run", e);
+		}
+	}
+
+	/**
+	 * Resolves the edges of a completed task, a page of children per transaction.
+	 */
+	private void resolve(Long taskId) {
+		int batchSize = schedulingConfigService.getDependencyBatchSize();
+		int released = 0;
+		int page;
+		do {
+			int[] outcome = transactionTemplate.execute(status -> {
+				List<Long> children = jdbcTemplate.queryForList(SELECT_CHILDREN, Long.class, taskId, batchSize);
+				if (children.isEmpty()) {
+					return new int[] { 0, 0 };
+				}
+				String in = placeholders(children.size());
+				Object[] args = prepend(taskId, children);
+				jdbcTemplate.update("UPDATE backend_task SET pending_dependencies = pending_dependencies - 1 WHERE id IN ("
+						+ in + ")", children.toArray());
+				int ready = jdbcTemplate.update("UPDATE backend_task SET status = 'PENDING', updated_at = ? WHERE id IN ("
+						+ in + ") AND status = 'BLOCKED' AND pending_dependencies <= 0",
+						prepend(Timestamp.valueOf(LocalDateTime.now()), children));
+				jdbcTemplate.update("DELETE FROM backend_task_dependency WHERE depends_on_id = ? AND task_id IN (" + in
+						+ ")", args);
+				return new int[] { children.size(), ready };
+			});
+			page = outcome[0];
+			released += outcome[1];
+		} while (page == batchSize);
+
+		if (released > 0) {
+			log.info("Task {} completed, {} dependent tasks are ready", taskId, released);
+			eventPublisher.publishEvent(new TasksReadyEvent(released));
+		}
+	}
+
+	/**
+	 * Cancels every task that depends on the failed one, directly or not,
+	 * level by level. Each level is read and updated in pages of the configured
+	 * batch size, one transaction per page of parents.
+	 */
+	private void cancelDescendants(Long taskId, TaskStatusEnum status) {
+		int batchSize = schedulingConfigService.getDependencyBatchSize();
+		String reason = "Cancelled: depends on task " + taskId + " which is " + status;
+		Deque<Long> frontier = new ArrayDeque<>();
+		Set<Long> visited = new HashSet<>();
+		frontier.add(taskId);
+		visited.add(taskId);
+		int cancelled = 0;
+
+		while (!frontier.isEmpty()) {
+			List<Long> parents = new ArrayList<>();
+			while (parents.size() < batchSize && !frontier.isEmpty()) {
+				parents.add(frontier.poll());
+			}
+			List<Long> children = new ArrayList<>();
+			cancelled += transactionTemplate.execute(tx -> {
+				String parentsIn = placeholders(parents.size());
+				children.addAll(jdbcTemplate.queryForList("SELECT DISTINCT task_id FROM backend_task_dependency "
+						+ "WHERE depends_on_id IN (" + parentsIn + ") FOR UPDATE", Long.class, parents.toArray()));
+				int updated = 0;
+				Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+				for (int from = 0; from < children.size(); from += batchSize) {
+					List<Long> page = children.subList(from, Math.min(children.size(), from + batchSize));
+					List<Object> args = new ArrayList<>();
+					args.add(reason);
+					args.add(now);
+					args.addAll(page);
+					updated += jdbcTemplate.update("UPDATE backend_task SET status = 'CANCELLED', error_message = ?, "
+							+ "updated_at = ?, pending_dependencies = 0 WHERE id IN (" + placeholders(page.size())
+							+ ") AND status = 'BLOCKED'", args.toArray());
+				}
+				jdbcTemplate.update("DELETE FROM backend_task_dependency WHERE depends_on_id IN (" + parentsIn + ")",
+						parents.toArray());
+				return updated;
+			});
+			for (Long child : children) {
+				if (visited.add(child)) {
+					frontier.add(child);
+				}
+			}
+		}
+
+		if (cancelled > 0) {
+			log.info("Task {} is {}, cancelled {} tasks depending on it", taskId, status, cancelled);
+		}
+	}
+
+	private static String placeholders(int count) {
+		return String.join(", ", Collections.nCopies(count, "?"));
+	}
+
+	private static Object[] prepend(Object first, List<Long> rest) {
+		Object[] args = new Object[rest.size() + 1];
+		args[0] = first;
+		for (int i = 0; i < rest.size(); i++) {
+			args[i + 1] = rest.get(i);
+		}
+		return args;
+	}
+}
@@ -0,0 +1,46 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.io.IOException;
+
+import com.dropbox.core.http.HttpRequestor;
+import com.dropbox.core.http.StandardHttpRequestor;
+
+/**
+ * Sends Dropbox requests to another endpoint. The SDK builds every URL as
+ * {@code https://<api or content host>/2/...}; the host part is replaced by the
+ * endpoint, which serves both the RPC and the content routes.
+ */
+class DropboxEndpointRequestor extends HttpRequestor {
+
+	private final HttpRequestor delegate = new StandardHttpRequestor(StandardHttpRequestor.Config.DEFAULT_INSTANCE);
+	private final String endpoint;
+
+	DropboxEndpointRequestor(String endpoint) {
+		this.endpoint = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+	}
+
+	@Override
+	public Response doGet(String url, Iterable<Header> headers) throws IOException {
+		return delegate.doGet(rewrite(url), headers);
+	}
+
+	@Override
+	public Uploader startPost(String url, Iterable<Header> headers) throws IOException {
+		return delegate.startPost(rewrite(url), headers);
+	}
+
+	@Override
+	public Uploader startPostInStreamingMode(String url, Iterable<Header> headers) throws IOException {
+		return delegate.startPostInStreamingMode(rewrite(url), headers);
+	}
+
+	@Override
+	public Uploader startPut(String url, Iterable<Header> headers) throws IOException {
+		return delegate.startPut(rewrite(url), headers);
+	}
+
+	private String rewrite(String url) {
+		int path = url.indexOf('/', url.indexOf("://") + 3);
+		return endpoint + (path < 0 ? "" : url.substring(path));
+	}
+}
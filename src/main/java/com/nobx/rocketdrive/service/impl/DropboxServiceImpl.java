@@ -1,38 +1,84 @@
 package com.nobx.rocketdrive.service.impl;
 
+import com.dropbox.core.DbxDownloader;
 import com.dropbox.core.DbxException;
 import com.dropbox.core.DbxRequestConfig;
 import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.ListFolderResult;
+import com.dropbox.core.v2.files.Metadata;
 import com.dropbox.core.v2.files.WriteMode;
 import com.dropbox.core.v2.files.UploadErrorException;
 import com.dropbox.core.v2.files.DownloadErrorException;
-import com.dropbox.core.v2.files.DeleteErrorException;
+import com.google.gson.JsonObject;
 
 import com.nobx.rocketdrive.entity.Task;
 import com.nobx.rocketdrive.entity.CloudDriveConnection;
+import com.nobx.rocketdrive.entity.TaskDestination;
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
 import com.nobx.rocketdrive.repository.CloudDriveConnectionRepository;
+import com.nobx.rocketdrive.service.CloudProvider;
 import com.nobx.rocketdrive.service.CloudService;
+import com.nobx.rocketdrive.transfer.ArchiveEntry;
+import com.nobx.rocketdrive.transfer.ByteBufferInputStream;
+import com.nobx.rocketdrive.transfer.ByteBufferOutputStream;
+import com.nobx.rocketdrive.transfer.ContentHasher;
+import com.nobx.rocketdrive.transfer.IntegrityException;
+import com.nobx.rocketdrive.transfer.SpoolBuffer;
+import com.nobx.rocketdrive.transfer.TransferSource;
 
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 
 @Service
+@Lazy
+@CloudProvider(CloudServiceEnum.DROPBOX)
 @Slf4j
 public class DropboxServiceImpl implements CloudService{
 
 	@Autowired
 	private CloudDriveConnectionRepository cloudDriveConnectionRepository;
 
+	private static final String RPC_URL = "https://api.dropboxapi.com";
+
+	// Moves and deletes are REST requests that hold no thread while in flight
+	@Autowired
+	private ProviderHttpClient providerHttpClient;
+
+	// Byte transfers block on the transfer engine and the SDK's content calls, so they hold a thread of this pool
+	@Autowired
+	@Qualifier("cloudIoExecutorService")
+	private ExecutorService cloudIoExecutorService;
+
+	@Autowired
+	private TransferConfigService transferConfigService;
+
+	@Autowired
+	private ApiConfigService apiConfigService;
+
+	@Autowired
+	private TransferEngine transferEngine;
+
+	// Metadata requests made outside the transfer engine are timed for the provider's concurrency limit
+	@Autowired
+	private ConcurrencyLimitService concurrencyLimitService;
+
 	/**
 	 * Copies a file from one Dropbox account to another.
 	 *
@@ -41,6 +87,11 @@ public class DropboxServiceImpl implements CloudService{
 	
 	@Override
 	public void copyFile(Task task) {
+		if (!task.getDestinations().isEmpty()) {
+			copyToDestinations(task);
+			return;
+		}
+
 		System.out.println("Starting file copy operation...");
 		System.out.println("Source account ID: " + task.getSourceAccountId());
 		System.out.println("Destination account ID: " + task.getDestinationAccountId());
@@ -56,24 +107,62 @@ public class DropboxServiceImpl implements CloudService{
 		String sourcePath = task.getSourcePath();
 		String destinationPath = task.getDestinationPath();
 
+		String filename = sourcePath.substring(sourcePath.lastIndexOf("/") + 1);
+		String destinationFullPath = destinationPath.endsWith("/") ? destinationPath + filename
+				: destinationPath + "/" + filename;
+
 		try {
-			// Download file from source Dropbox
-			System.out.println("Attempting to download from source...");
-			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-			var metadata = sourceClient.files().download(sourcePath).download(outputStream);
-			System.out.println("Download successful. File size: " + metadata.getSize());
-			byte[] fileContent = outputStream.toByteArray();
-
-			// Upload file to destination Dropbox
-			String filename = sourcePath.substring(sourcePath.lastIndexOf("/") + 1);
-			String destinationFullPath = destinationPath.endsWith("/") ? destinationPath + filename
-					: destinationPath + "/" + filename;
-
-			System.out.println("Attempting to upload to destination: " + destinationFullPath);
-			var uploadResult = destinationClient.files().uploadBuilder(destinationFullPath)
-					.withMode(WriteMode.OVERWRITE).uploadAndFinish(new ByteArrayInputStream(fileContent));
-
-			System.out.println("Upload successful. New file ID: " + uploadResult.getId());
+			// Size and hash come from the metadata, the content is only downloaded when it is needed
+			long requestStart = System.nanoTime();
+			Metadata sourceMetadata = sourceClient.files().getMetadata(sourcePath);
+			concurrencyLimitService.sample(CloudServiceEnum.DROPBOX, System.nanoTime() - requestStart);
+			if (!(sourceMetadata instanceof FileMetadata)) {
+				throw new IllegalArgumentException("Source path is not a file: " + sourcePath);
+			}
+			FileMetadata fileMetadata = (FileMetadata) sourceMetadata;
+			TransferSource source = toTransferSource(sourceClient, fileMetadata);
+			long fileSize = source.getSize();
+			task.setSizeBytes(fileSize);
+
+			// Large or already cached files go through the transfer engine into an upload session
+			if (fileSize > transferConfigService.getDropboxRangeSize()
+					|| transferEngine.isCached(CloudServiceEnum.DROPBOX, source)) {
+				System.out.println("Using transfer engine for " + fileSize + " bytes to: " + destinationFullPath);
+				transferEngine.transfer(CloudServiceEnum.DROPBOX, task, source,
+						new DropboxUploadSink(destinationClient, destinationFullPath, transferEngine.checkpoint(task)));
+				System.out.println("Upload successful: " + destinationFullPath);
+				return;
+			}
+
+			// Spool the file off-heap so a failed upload can be replayed without downloading again
+			SpoolBuffer spool = transferEngine.getSpoolArena().allocate((int) fileSize);
+			try {
+				ByteBuffer fileContent = spool.buffer();
+				fileContent.limit((int) fileSize);
+				// Pinned to the revision the size was read from
+				System.out.println("Attempting to download from source...");
+				DbxDownloader<FileMetadata> downloader = sourceClient.files().downloadBuilder(sourcePath)
+						.withRev(fileMetadata.getRev()).start();
+				var metadata = downloader.download(new ByteBufferOutputStream(fileContent));
+				fileContent.flip();
+				System.out.println("Download successful. File size: " + metadata.getSize());
+
+				// Hash the spooled bytes once and check them against both ends of the copy
+				ContentHasher hasher = transferEngine.newHasher(CloudServiceEnum.DROPBOX);
+				hasher.update(fileContent);
+				String contentHash = hasher.digest();
+				verifyContentHash("source", metadata.getContentHash(), contentHash);
+				transferEngine.cache(CloudServiceEnum.DROPBOX, source, fileContent.duplicate());
+
+				// Upload file to destination Dropbox
+				System.out.println("Attempting to upload to destination: " + destinationFullPath);
+				var uploadResult = uploadWithReplay(task, destinationClient, destinationFullPath, fileContent);
+				verifyContentHash("destination", uploadResult.getContentHash(), contentHash);
+
+				System.out.println("Upload successful. New file ID: " + uploadResult.getId());
+			} finally {
+				spool.release();
+			}
 		} catch (DownloadErrorException e) {
 			System.err.println("Download error: " + e.getMessage());
 			throw new RuntimeException("Dropbox download error: " + e.getMessage(), e);
@@ -87,36 +176,149 @@ public class DropboxServiceImpl implements CloudService{
 	}
 
 	/**
-	 * Deletes a file from Dropbox.
+	 * Uploads a spooled file, replaying it from the spool when an attempt fails.
+	 * Upload errors reported by Dropbox itself (e.g. path conflicts) are not retried.
+	 */
+	private FileMetadata uploadWithReplay(Task task, DbxClientV2 client, String path, ByteBuffer content)
+			throws DbxException, IOException {
+		for (int attempt = 1;; attempt++) {
+			ByteBuffer attemptContent = content.duplicate();
+			try {
+				return client.files().uploadBuilder(path).withMode(WriteMode.OVERWRITE)
+						.uploadAndFinish(transferEngine.uploadStream(CloudServiceEnum.DROPBOX, task,
+								new ByteBufferInputStream(attemptContent)));
+			} catch (UploadErrorException e) {
+				throw e;
+			} catch (DbxException | IOException e) {
+				if (attempt >= transferEngine.getUploadMaxAttempts()) {
+					throw e;
+				}
+				// The next attempt sends these bytes again and counts them then
+				transferEngine.discardProgress(task, attemptContent.position() - content.position());
+				System.err.println("Upload attempt " + attempt + " failed, replaying from spool: " + e.getMessage());
+			}
+		}
+	}
+
+	private void verifyContentHash(String side, String reported, String computed) throws IntegrityException {
+		if (reported != null && !reported.equalsIgnoreCase(computed)) {
+			throw new IntegrityException("Integrity check failed: " + side + " reported hash " + reported
+					+ " but the transferred bytes hash to " + computed);
+		}
+	}
+
+	/**
+	 * Copies a file to several Dropbox destinations, downloading it only once.
 	 *
-	 * @param filePath The path of the file to delete.
+	 * @param task The task whose destinations list holds the targets.
 	 */
-	public void deleteFile(String filePath, String sourceAccessToken) {
-		// Add more robust logging
-		System.err.println("Attempting to delete file: " + filePath);
-		System.err.println("Using access token: " + (sourceAccessToken != null ? "Present" : "NULL"));
+	private void copyToDestinations(Task task) {
+		List<TaskDestination> destinations = TaskDestinationResults.pending(task);
+		if (destinations.isEmpty()) {
+			System.out.println("All destinations already received the file");
+			return;
+		}
+		System.out.println("Starting fan-out copy to " + destinations.size() + " destinations...");
+		DbxClientV2 sourceClient = getClient(getAccessTokenByAccountId(task.getSourceAccountId().longValue()));
+		String sourcePath = task.getSourcePath();
+		String filename = sourcePath.substring(sourcePath.lastIndexOf("/") + 1);
+
+		List<DropboxUploadSink> sinks = new ArrayList<>();
+		for (TaskDestination destination : destinations) {
+			String accessToken = getAccessTokenByAccountId(destination.getDestinationAccountId().longValue());
+			sinks.add(new DropboxUploadSink(getClient(accessToken), buildPath(destination.getDestinationPath(), filename)));
+		}
 
-		if (filePath == null || filePath.isEmpty()) {
-			throw new IllegalArgumentException("File path cannot be null or empty");
+		try {
+			long requestStart = System.nanoTime();
+			Metadata metadata = sourceClient.files().getMetadata(sourcePath);
+			concurrencyLimitService.sample(CloudServiceEnum.DROPBOX, System.nanoTime() - requestStart);
+			if (!(metadata instanceof FileMetadata)) {
+				throw new IllegalArgumentException("Source path is not a file: " + sourcePath);
+			}
+
+			task.setSizeBytes(((FileMetadata) metadata).getSize());
+			List<IOException> failures = transferEngine.transferToAll(CloudServiceEnum.DROPBOX, task,
+					toTransferSource(sourceClient, (FileMetadata) metadata), sinks);
+			TaskDestinationResults.record(task, destinations, failures);
+			System.out.println("Fan-out copy finished for " + sinks.size() + " destinations");
+		} catch (DbxException | IOException e) {
+			System.err.println("Fan-out copy error: " + e.getMessage());
+			throw new RuntimeException("Error during Dropbox fan-out copy: " + e.getMessage(), e);
 		}
+	}
 
-		DbxClientV2 client = getClient(sourceAccessToken);
+	/**
+	 * Describes a Dropbox file for the transfer engine. The content hash and
+	 * revision identify the bytes in the transfer cache.
+	 */
+	private TransferSource toTransferSource(DbxClientV2 client, FileMetadata metadata) {
+		String path = metadata.getPathLower() != null ? metadata.getPathLower() : metadata.getId();
+		return new TransferSource(metadata.getSize(), metadata.getContentHash(), metadata.getRev(),
+				(offset, length) -> openRange(client, path, offset, length));
+	}
 
+	/**
+	 * Opens a byte range of a Dropbox file for the transfer engine.
+	 */
+	private InputStream openRange(DbxClientV2 client, String path, long offset, long length) throws IOException {
 		try {
-			System.err.println("Executing Dropbox delete operation...");
-			var metadata = client.files().deleteV2(filePath);
-			System.err.println("File deleted successfully. Metadata: " + metadata.getMetadata().getName());
-		} catch (DeleteErrorException e) {
-			System.err.println("Dropbox Delete Error: " + e.getMessage());
-			e.printStackTrace(); // Print full stack trace
-			throw new RuntimeException("Dropbox delete error: " + e.getMessage(), e);
+			return client.files().downloadBuilder(path).range(offset, length).start().getInputStream();
 		} catch (DbxException e) {
-			System.err.println("Dropbox General Error: " + e.getMessage());
-			e.printStackTrace(); // Print full stack trace
-			throw new RuntimeException("Error during Dropbox delete operation: " + e.getMessage(), e);
+			throw new IOException("Dropbox range download failed at offset " + offset + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Deletes a file from Dropbox.
+	 *
+	 * @param filePath The path of the file to delete.
+	 */
+	public void deleteFile(String filePath, String sourceAccessToken) {
+		join(deleteFileAsync(filePath, () -> sourceAccessToken));
+	}
+
+	private CompletableFuture<Void> deleteFileAsync(String filePath, Supplier<String> accessToken) {
+		JsonObject arg = new JsonObject();
+		try {
+			// Add more robust logging
+			System.err.println("Attempting to delete file: " + filePath);
+			if (filePath == null || filePath.isEmpty()) {
+				throw new IllegalArgumentException("File path cannot be null or empty");
+			}
+			arg.addProperty("path", filePath);
+			String token = accessToken.get();
+			System.err.println("Using access token: " + (token != null ? "Present" : "NULL"));
+
+			System.err.println("Executing Dropbox delete operation...");
+			return rpc(token, "files/delete_v2", arg).handle((result, e) -> {
+				if (e != null) {
+					throw deleteFailure(unwrap(e));
+				}
+				System.err.println("File deleted successfully: " + filePath);
+				return null;
+			});
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
 		}
 	}
 
+	private RuntimeException deleteFailure(Throwable e) {
+		System.err.println("Dropbox Delete Error: " + e.getMessage());
+		return new RuntimeException("Dropbox delete error: " + e.getMessage(), e);
+	}
+
+	/**
+	 * Sends a Dropbox RPC request with the non-blocking HTTP client; the future
+	 * completes with the route's JSON result.
+	 */
+	private CompletableFuture<JsonObject> rpc(String accessToken, String route, JsonObject arg) {
+		String endpoint = apiConfigService.getDropboxEndpoint();
+		String baseUrl = endpoint != null && !endpoint.isEmpty() ? endpoint.replaceAll("/+$", "") : RPC_URL;
+		return providerHttpClient.send(CloudServiceEnum.DROPBOX,
+				providerHttpClient.request(baseUrl + "/2/" + route, accessToken), "POST", arg);
+	}
+
 	/**
 	 * Uploads multiple files to Dropbox and returns their paths
 	 */
@@ -198,8 +400,12 @@ public class DropboxServiceImpl implements CloudService{
 	 * @return The initialized Dropbox client.
 	 */
 	private DbxClientV2 getClient(String accessToken) {
-		DbxRequestConfig config = DbxRequestConfig.newBuilder("rocketdrive-app").build();
-		return new DbxClientV2(config, accessToken);
+		DbxRequestConfig.Builder config = DbxRequestConfig.newBuilder("rocketdrive-app");
+		String endpoint = apiConfigService.getDropboxEndpoint();
+		if (endpoint != null && !endpoint.isEmpty()) {
+			config.withHttpRequestor(new DropboxEndpointRequestor(endpoint));
+		}
+		return new DbxClientV2(config.build(), accessToken);
 	}
 
 	/**
@@ -220,8 +426,126 @@ public class DropboxServiceImpl implements CloudService{
 	 */
 	@Override
 	public void deleteFileWithAccountId(String filePath, Long accountId) {
-		String accessToken = getAccessTokenByAccountId(accountId);
-		deleteFile(filePath, accessToken);
+		join(deleteFileAsync(filePath, accountId));
+	}
+
+	@Override
+	public CloudServiceEnum getCloudService() {
+		return CloudServiceEnum.DROPBOX;
+	}
+
+	@Override
+	public CompletableFuture<Void> copyFileAsync(Task task) {
+		return CompletableFuture.runAsync(() -> copyFile(task), cloudIoExecutorService);
+	}
+
+	@Override
+	public CompletableFuture<Void> deleteFileAsync(String filePath, Long accountId) {
+		return deleteFileAsync(filePath, () -> getAccessTokenByAccountId(accountId));
+	}
+
+	@Override
+	public CompletableFuture<Void> archiveFilesAsync(Task task) {
+		return CompletableFuture.runAsync(() -> archiveFolder(task), cloudIoExecutorService);
+	}
+
+	/**
+	 * Writes every file under the source folder into one ZIP archive in the
+	 * destination account, named after the folder. Paths inside the archive are
+	 * relative to the source folder.
+	 */
+	private void archiveFolder(Task task) {
+		if (!task.getDestinations().isEmpty()) {
+			throw new IllegalArgumentException("Archive tasks have a single destination");
+		}
+		DbxClientV2 sourceClient = getClient(getAccessTokenByAccountId(task.getSourceAccountId().longValue()));
+		DbxClientV2 destinationClient = getClient(getAccessTokenByAccountId(task.getDestinationAccountId().longValue()));
+
+		String folderPath = task.getSourcePath().equals("/") ? "" : task.getSourcePath().replaceAll("/+$", "");
+		String folderName = folderPath.isEmpty() ? "archive" : folderPath.substring(folderPath.lastIndexOf("/") + 1);
+		String destinationFullPath = buildPath(task.getDestinationPath(), folderName + ".zip");
+
+		try {
+			List<ArchiveEntry> entries = new ArrayList<>();
+			long totalSize = 0;
+			ListFolderResult page = sourceClient.files().listFolderBuilder(folderPath).withRecursive(true).start();
+			while (true) {
+				for (Metadata metadata : page.getEntries()) {
+					if (metadata instanceof FileMetadata) {
+						FileMetadata file = (FileMetadata) metadata;
+						String name = file.getPathDisplay().substring(folderPath.length() + 1);
+						entries.add(new ArchiveEntry(name, file.getSize(), file.getServerModified().getTime(),
+								(offset, length) -> openRange(sourceClient, file.getPathLower(), offset, length)));
+						totalSize += file.getSize();
+					}
+				}
+				if (!page.getHasMore()) {
+					break;
+				}
+				page = sourceClient.files().listFolderContinue(page.getCursor());
+			}
+			entries.sort(Comparator.comparing(ArchiveEntry::getName));
+			task.setSizeBytes(totalSize);
+
+			System.out.println("Archiving " + entries.size() + " files (" + totalSize + " bytes) to: " + destinationFullPath);
+			// No checkpoint for the sink, a paused archive is written again from the start
+			long archiveSize = transferEngine.archive(CloudServiceEnum.DROPBOX, task, entries,
+					new DropboxUploadSink(destinationClient, destinationFullPath));
+			System.out.println("Archive uploaded: " + destinationFullPath + " (" + archiveSize + " bytes)");
+		} catch (DbxException | IOException e) {
+			System.err.println("Archive error: " + e.getMessage());
+			throw new RuntimeException("Error during Dropbox archive: " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public boolean canMove(Task task) {
+		return task.getDestinations().isEmpty() && task.getSourceAccountId().equals(task.getDestinationAccountId());
+	}
+
+	/**
+	 * Moves a file within one Dropbox account, without transferring its content.
+	 */
+	@Override
+	public CompletableFuture<Void> moveFileAsync(Task task) {
+		String sourcePath = task.getSourcePath();
+		String destinationFullPath = buildPath(task.getDestinationPath(), sourcePath.substring(sourcePath.lastIndexOf("/") + 1));
+		JsonObject arg = new JsonObject();
+		arg.addProperty("from_path", sourcePath);
+		arg.addProperty("to_path", destinationFullPath);
+		try {
+			System.out.println("Moving " + sourcePath + " to " + destinationFullPath);
+			return rpc(getAccessTokenByAccountId(task.getSourceAccountId().longValue()), "files/move_v2", arg)
+					.handle((result, e) -> {
+						if (e != null) {
+							Throwable cause = unwrap(e);
+							System.err.println("Move error: " + cause.getMessage());
+							throw new RuntimeException("Error during Dropbox move: " + cause.getMessage(), cause);
+						}
+						System.out.println("Move successful: " + destinationFullPath);
+						return null;
+					});
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
 	}
 
+	/**
+	 * Waits for an async operation, rethrowing its failure as-is.
+	 */
+	private static void join(CompletableFuture<Void> operation) {
+		try {
+			operation.join();
+		} catch (CompletionException e) {
+			Throwable cause = unwrap(e);
+			throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+		}
+	}
+
+	private static Throwable unwrap(Throwable e) {
+		while (e instanceof CompletionException && e.getCause() != null) {
+			e = e.getCause();
+		}
+		return e;
+	}
 }
@@ -0,0 +1,80 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.CommitInfo;
+import com.dropbox.core.v2.files.FileMetadata;
+import com.dropbox.core.v2.files.UploadSessionCursor;
+import com.dropbox.core.v2.files.WriteMode;
+import com.nobx.rocketdrive.transfer.ChunkSink;
+import com.nobx.rocketdrive.transfer.TransferCheckpoint;
+import com.nobx.rocketdrive.transfer.TransferChunk;
+
+/**
+ * Writes chunks to a Dropbox upload session and commits the file on completion.
+ * The session and its committed offset are recorded in the checkpoint after
+ * each chunk, and a checkpoint with a session continues it.
+ */
+class DropboxUploadSink implements ChunkSink {
+
+	private final DbxClientV2 client;
+	private final String path;
+	private final TransferCheckpoint checkpoint;
+	private String sessionId;
+	private String committedHash;
+
+	DropboxUploadSink(DbxClientV2 client, String path) {
+		this(client, path, new TransferCheckpoint());
+	}
+
+	DropboxUploadSink(DbxClientV2 client, String path, TransferCheckpoint checkpoint) {
+		this.client = client;
+		this.path = path;
+		this.checkpoint = checkpoint;
+		this.sessionId = checkpoint.getSessionId();
+	}
+
+	@Override
+	public void write(TransferChunk chunk) throws IOException {
+		try (InputStream in = chunk.openStream()) {
+			if (sessionId == null) {
+				sessionId = client.files().uploadSessionStart().uploadAndFinish(in, chunk.getLength()).getSessionId();
+			} else {
+				client.files().uploadSessionAppendV2(new UploadSessionCursor(sessionId, chunk.getOffset()))
+						.uploadAndFinish(in, chunk.getLength());
+			}
+			checkpoint.commit(sessionId, chunk.getOffset() + chunk.getLength());
+		} catch (DbxException e) {
+			throw new IOException("Dropbox upload session failed at offset " + chunk.getOffset() + ": " + e.getMessage(),
+					e);
+		}
+	}
+
+	@Override
+	public void complete(long totalSize) throws IOException {
+		CommitInfo commitInfo = CommitInfo.newBuilder(path).withMode(WriteMode.OVERWRITE).build();
+		try {
+			FileMetadata metadata;
+			// No chunks were written for an empty file, so there is no session to finish
+			if (sessionId == null) {
+				metadata = client.files().uploadBuilder(path).withMode(WriteMode.OVERWRITE)
+						.uploadAndFinish(new ByteArrayInputStream(new byte[0]));
+			} else {
+				metadata = client.files().uploadSessionFinish(new UploadSessionCursor(sessionId, totalSize), commitInfo)
+						.uploadAndFinish(new ByteArrayInputStream(new byte[0]));
+			}
+			committedHash = metadata.getContentHash();
+		} catch (DbxException e) {
+			throw new IOException("Dropbox upload session commit failed: " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public String getCommittedHash() {
+		return committedHash;
+	}
+}
@@ -0,0 +1,145 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+
+import org.springframework.stereotype.Component;
+
+import com.dropbox.core.DbxApiException;
+import com.dropbox.core.InvalidAccessTokenException;
+import com.dropbox.core.NetworkIOException;
+import com.dropbox.core.RateLimitException;
+import com.dropbox.core.RetryException;
+import com.dropbox.core.ServerException;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.microsoft.graph.http.GraphServiceException;
+
+/**
+ * Recognises provider SDK and REST failures by what they mean for the task,
+ * whatever wrapper exceptions they arrive in.
+ */
+@Component
+public class FailureClassifier {
+
+	/**
+	 * Whether the provider rejected the request because it is throttling us.
+	 */
+	public boolean isThrottling(Throwable failure) {
+		for (Throwable e = failure; e != null; e = e.getCause()) {
+			if (e instanceof RateLimitException) {
+				return true;
+			}
+			if (e instanceof GoogleJsonResponseException) {
+				GoogleJsonResponseException response = (GoogleJsonResponseException) e;
+				if (response.getStatusCode() == 429 || isGoogleRateLimit(response.getDetails())) {
+					return true;
+				}
+			}
+			if (e instanceof GraphServiceException) {
+				int status = ((GraphServiceException) e).getResponseCode();
+				if (status == 429 || status == 503) {
+					return true;
+				}
+			}
+			if (e instanceof ProviderHttpException) {
+				ProviderHttpException response = (ProviderHttpException) e;
+				if (response.getStatusCode() == 429 || isGoogleRateLimit(response.getReason())) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Whether the failure means the provider is unavailable, rather than
+	 * something being wrong with this particular request.
+	 */
+	public boolean isOutage(Throwable failure) {
+		for (Throwable e = failure; e != null; e = e.getCause()) {
+			// Timeouts and unreachable hosts
+			if (e instanceof InterruptedIOException || e instanceof ConnectException
+					|| e instanceof UnknownHostException || e instanceof NetworkIOException) {
+				return true;
+			}
+			// Dropbox 5xx and "retry later" responses
+			if (e instanceof ServerException || e instanceof RetryException) {
+				return true;
+			}
+			if (e instanceof GoogleJsonResponseException
+					&& ((GoogleJsonResponseException) e).getStatusCode() >= 500) {
+				return true;
+			}
+			if (e instanceof GraphServiceException && ((GraphServiceException) e).getResponseCode() >= 500) {
+				return true;
+			}
+			if (e instanceof ProviderHttpException && ((ProviderHttpException) e).getStatusCode() >= 500) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Whether trying the same request again later may succeed. Errors the
+	 * provider reports about the request itself (missing files, bad paths,
+	 * revoked tokens, other 4xx responses) are permanent, even when they
+	 * arrive wrapped in an IOException by the transfer code.
+	 */
+	public boolean isRetryable(Throwable failure) {
+		if (isOutage(failure) || isThrottling(failure)) {
+			return true;
+		}
+		if (isPermanent(failure)) {
+			return false;
+		}
+		for (Throwable e = failure; e != null; e = e.getCause()) {
+			// Anything else that went wrong on the wire, including integrity mismatches
+			if (e instanceof IOException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Anywhere in the chain, an error the provider reported about the request
+	private boolean isPermanent(Throwable failure) {
+		for (Throwable e = failure; e != null; e = e.getCause()) {
+			if (e instanceof DbxApiException || e instanceof InvalidAccessTokenException
+					|| e instanceof IllegalArgumentException) {
+				return true;
+			}
+			if (e instanceof GoogleJsonResponseException
+					&& ((GoogleJsonResponseException) e).getStatusCode() != 408) {
+				return true;
+			}
+			if (e instanceof GraphServiceException && ((GraphServiceException) e).getResponseCode() != 408) {
+				return true;
+			}
+			if (e instanceof ProviderHttpException && ((ProviderHttpException) e).getStatusCode() != 408) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Drive reports quota errors as 403 with a rate limit reason
+	private boolean isGoogleRateLimit(GoogleJsonError details) {
+		if (details == null || details.getErrors() == null) {
+			return false;
+		}
+		for (GoogleJsonError.ErrorInfo error : details.getErrors()) {
+			if (isGoogleRateLimit(error.getReason())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isGoogleRateLimit(String reason) {
+		return "rateLimitExceeded".equals(reason) || "userRateLimitExceeded".equals(reason);
+	}
+}
@@ -10,17 +10,25 @@ import com.google.api.client.auth.oauth2.BearerToken;
 import com.google.api.client.auth.oauth2.Credential;
 import com.google.api.services.drive.Drive;
 import com.google.api.services.drive.model.File;
-import com.google.api.services.drive.model.Permission;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.nobx.rocketdrive.entity.CloudDriveConnection;
 import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.entity.TaskDestination;
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+import com.nobx.rocketdrive.jfr.TokenRefreshEvent;
 import com.nobx.rocketdrive.repository.CloudDriveConnectionRepository;
+import com.nobx.rocketdrive.service.CloudProvider;
 import com.nobx.rocketdrive.service.CloudService;
+import com.nobx.rocketdrive.transfer.ContentHasher;
+import com.nobx.rocketdrive.transfer.HashingInputStream;
 
+import io.micrometer.tracing.Span;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -32,9 +40,15 @@ import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.security.GeneralSecurityException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
+@Lazy
+@CloudProvider(CloudServiceEnum.GOOGLE_DRIVE)
 @Slf4j
 public class GoogleDriveServiceImpl implements CloudService{
 
@@ -44,86 +58,153 @@ public class GoogleDriveServiceImpl implements CloudService{
 	@Autowired
 	private CloudDriveConnectionRepository cloudDriveConnectionRepository;
 
+	@Autowired
+	private TaskMetricsService taskMetricsService;
+
+	@Autowired
+	private TracingService tracingService;
+
+	@Autowired
+	private TransferEngine transferEngine;
+
+	// Copies, moves and deletes are REST requests that hold no thread while in flight
+	@Autowired
+	private ProviderHttpClient providerHttpClient;
+
 	private static final String APPLICATION_NAME = "RocketDrive";
 	private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
 
 	/**
 	 * Copies a file from one Google Drive account to another using Google Drive's
-	 * native copy method.
+	 * native copy method. Fan-out tasks are copied to each of their destinations,
+	 * and each destination records its own outcome.
 	 *
 	 * @param task The task containing file operation details.
 	 */
 	
 	@Override
 	public void copyFile(Task task) {
+		join(copyFileAsync(task));
+	}
+
+	/**
+	 * Looks up the source file, then shares it with and copies it into each
+	 * destination. Copies are server-side, so every step is a non-blocking REST
+	 * request and no thread waits for Google Drive.
+	 */
+	@Override
+	public CompletableFuture<Void> copyFileAsync(Task task) {
 		System.out.println("Starting Google Drive file copy operation...");
 		System.out.println("Task details: " + task);
 
-		String sourceAccessToken = getAccessTokenByAccountId(task.getSourceAccountId().longValue());
-		String destinationAccessToken = getAccessTokenByAccountId(task.getDestinationAccountId().longValue());
-
-		Drive sourceClient = getClient(sourceAccessToken, task.getSourceAccountId().longValue());
-		Drive destinationClient = getClient(destinationAccessToken, task.getDestinationAccountId().longValue());
-
+		String sourceAccessToken;
+		try {
+			sourceAccessToken = getAccessTokenByAccountId(task.getSourceAccountId().longValue());
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(copyFailure(e));
+		}
 		String sourceFileId = task.getSourcePath();
-		String destinationFolderId = task.getDestinationPath();
 
-		try {
-			File sourceFile = sourceClient.files().get(sourceFileId).setFields("name").setSupportsAllDrives(true)
-					.execute();
-			String fileName = sourceFile.getName();
-			System.out.println("Source file name: " + fileName);
+		return providerHttpClient.send(CloudServiceEnum.GOOGLE_DRIVE, providerHttpClient.request(
+				filesUrl(sourceFileId) + "?fields=name,md5Checksum,size&supportsAllDrives=true", sourceAccessToken)
+				.GET().build())
+				.thenCompose(sourceFile -> {
+					String fileName = sourceFile.get("name").getAsString();
+					task.setSizeBytes(sourceFile.has("size") ? sourceFile.get("size").getAsLong() : null);
+					String md5Checksum = sourceFile.has("md5Checksum") ? sourceFile.get("md5Checksum").getAsString() : null;
+					System.out.println("Source file name: " + fileName);
+
+					if (task.getDestinations().isEmpty()) {
+						return copyToDestination(sourceAccessToken, sourceFileId, fileName, md5Checksum,
+								task.getDestinationAccountId(), task.getDestinationPath(), task.getDestinationEmail());
+					}
+
+					// Copies are server-side, so all destinations are copied at once
+					List<TaskDestination> destinations = TaskDestinationResults.pending(task);
+					List<CompletableFuture<Exception>> copies = new ArrayList<>();
+					for (TaskDestination destination : destinations) {
+						copies.add(copyToDestination(sourceAccessToken, sourceFileId, fileName, md5Checksum,
+								destination.getDestinationAccountId(), destination.getDestinationPath(),
+								destination.getDestinationEmail())
+								.handle((copied, e) -> e != null ? copyFailure(unwrap(e)) : null));
+					}
+					return CompletableFuture.allOf(copies.toArray(CompletableFuture[]::new))
+							.thenRun(() -> TaskDestinationResults.record(task, destinations,
+									copies.stream().map(CompletableFuture::join).toList()));
+				})
+				.exceptionallyCompose(e -> CompletableFuture.failedFuture(copyFailure(unwrap(e))));
+	}
 
-			if (task.getDestinationEmail() == null || task.getDestinationEmail().isEmpty()) {
+	private CompletableFuture<Void> copyToDestination(String sourceAccessToken, String sourceFileId, String fileName,
+			String md5Checksum, Integer destinationAccountId, String destinationFolderId, String destinationEmail) {
+		String destinationAccessToken;
+		try {
+			destinationAccessToken = getAccessTokenByAccountId(destinationAccountId.longValue());
+			if (destinationEmail == null || destinationEmail.isEmpty()) {
 				throw new IllegalArgumentException("Destination email is required for file sharing.");
 			}
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
 
-			Permission permission = new Permission().setType("user").setRole("writer")
-					.setEmailAddress(task.getDestinationEmail());
-
-			sourceClient.permissions().create(sourceFileId, permission).setFields("id").setSupportsAllDrives(true)
-					.execute();
-			System.out.println("Permission granted to destination email: " + task.getDestinationEmail());
-
-			if (destinationFolderId == null || destinationFolderId.equals("/")) {
-				destinationFolderId = "root";
-			}
-
-			File fileMetadata = new File();
-			fileMetadata.setName(fileName);
-			fileMetadata.setParents(Collections.singletonList(destinationFolderId));
-
-			File copiedFile = destinationClient.files().copy(sourceFileId, fileMetadata).setFields("id, name, parents")
-					.execute();
-
-			System.out.println("File copied successfully: " + copiedFile);
+		JsonObject permission = new JsonObject();
+		permission.addProperty("type", "user");
+		permission.addProperty("role", "writer");
+		permission.addProperty("emailAddress", destinationEmail);
+
+		JsonObject fileMetadata = new JsonObject();
+		fileMetadata.addProperty("name", fileName);
+		JsonArray parents = new JsonArray();
+		parents.add(destinationFolderId == null || destinationFolderId.equals("/") ? "root" : destinationFolderId);
+		fileMetadata.add("parents", parents);
+
+		return providerHttpClient.send(CloudServiceEnum.GOOGLE_DRIVE, providerHttpClient.request(
+				filesUrl(sourceFileId) + "/permissions?fields=id&supportsAllDrives=true", sourceAccessToken),
+				"POST", permission)
+				.thenCompose(granted -> {
+					System.out.println("Permission granted to destination email: " + destinationEmail);
+					return providerHttpClient.send(CloudServiceEnum.GOOGLE_DRIVE, providerHttpClient.request(
+							filesUrl(sourceFileId) + "/copy?fields=id,name,parents,md5Checksum", destinationAccessToken),
+							"POST", fileMetadata);
+				})
+				.thenAccept(copiedFile -> {
+					// Google-native documents have no checksum, binary files must match the source
+					verifyMd5Checksum(md5Checksum,
+							copiedFile.has("md5Checksum") ? copiedFile.get("md5Checksum").getAsString() : null);
+					System.out.println("File copied successfully: " + copiedFile);
+				});
+	}
 
-		} catch (GoogleJsonResponseException e) {
-			System.err.println("Google Drive API error: " + e.getDetails().getMessage());
-			throw new RuntimeException("Google Drive API error: " + e.getDetails().getMessage(), e);
-		} catch (IOException e) {
-			System.err.println("Error during Google Drive operation: " + e.getMessage());
-			throw new RuntimeException("Error during Google Drive operation: " + e.getMessage(), e);
+	private void verifyMd5Checksum(String expected, String reported) {
+		if (expected != null && reported != null && !expected.equalsIgnoreCase(reported)) {
+			throw new RuntimeException(
+					"Integrity check failed: expected MD5 " + expected + " but Google Drive reported " + reported);
 		}
 	}
 
 	
 	public void deleteFile(String fileId, String accessToken, Long accountId) {
+		join(deleteFile(fileId, accessToken));
+	}
+
+	private CompletableFuture<Void> deleteFile(String fileId, String accessToken) {
 		System.out.println("Starting Google Drive file delete operation...");
 		System.out.println("File ID: " + fileId);
 
-		Drive client = getClient(accessToken, accountId);
+		return providerHttpClient.send(CloudServiceEnum.GOOGLE_DRIVE,
+				providerHttpClient.request(filesUrl(fileId), accessToken).DELETE().build())
+				.handle((deleted, e) -> {
+					if (e != null) {
+						throw deleteFailure(unwrap(e));
+					}
+					System.out.println("File deleted successfully");
+					return null;
+				});
+	}
 
-		try {
-			client.files().delete(fileId).execute();
-			System.out.println("File deleted successfully");
-		} catch (GoogleJsonResponseException e) {
-			System.err.println("Delete error: " + e.getDetails().getMessage());
-			throw new RuntimeException("Google Drive delete error: " + e.getDetails().getMessage(), e);
-		} catch (IOException e) {
-			System.err.println("Error during delete operation: " + e.getMessage());
-			throw new RuntimeException("Error during Google Drive delete operation: " + e.getMessage(), e);
-		}
+	private String filesUrl(String fileId) {
+		String rootUrl = apiConfigService.getGoogleDriveRootUrl();
+		return rootUrl + (rootUrl.endsWith("/") ? "" : "/") + "drive/v3/files/" + ProviderHttpClient.encode(fileId);
 	}
 
 	private Drive getClient(String accessToken, Long accountId) {
@@ -138,7 +219,7 @@ public class GoogleDriveServiceImpl implements CloudService{
 					.setAccessToken(accessToken);
 
 			return new Drive.Builder(HTTP_TRANSPORT, JSON_FACTORY, credential).setApplicationName(APPLICATION_NAME)
-					.build();
+					.setRootUrl(apiConfigService.getGoogleDriveRootUrl()).build();
 
 		} catch (GoogleJsonResponseException e) {
 			if (e.getStatusCode() == 401 && retryCount == 0) {
@@ -155,20 +236,31 @@ public class GoogleDriveServiceImpl implements CloudService{
 	}
 
 	private String getAccessTokenByAccountId(Long accountId) {
-		CloudDriveConnection connection = cloudDriveConnectionRepository.findById(accountId)
-				.orElseThrow(() -> new RuntimeException("Account not found for ID: " + accountId));
+		Span span = tracingService.start("provider.token").tag("account", accountId);
+		try {
+			CloudDriveConnection connection = cloudDriveConnectionRepository.findById(accountId)
+					.orElseThrow(() -> new RuntimeException("Account not found for ID: " + accountId));
 
-		if (connection.getExpiryTime() != null && System.currentTimeMillis() > connection.getExpiryTime()) {
-			System.out.println("Access token expired, refreshing...");
-			return refreshAccessToken(connection);
-		}
+			if (connection.getExpiryTime() != null && System.currentTimeMillis() > connection.getExpiryTime()) {
+				System.out.println("Access token expired, refreshing...");
+				span.tag("refreshed", true);
+				return refreshAccessToken(connection);
+			}
 
-		return connection.getAccessToken();
+			return connection.getAccessToken();
+		} catch (RuntimeException e) {
+			span.error(e);
+			throw e;
+		} finally {
+			span.end();
+		}
 	}
 
 	private String refreshAccessToken(CloudDriveConnection connection) {
+		TokenRefreshEvent event = new TokenRefreshEvent();
+		event.begin();
 		try {
-			String tokenEndpoint = "https://oauth2.googleapis.com/token";
+			String tokenEndpoint = apiConfigService.getGoogleTokenUrl();
 
 			URL url = new URL(tokenEndpoint);
 			HttpURLConnection connectionRequest = (HttpURLConnection) url.openConnection();
@@ -197,21 +289,31 @@ public class GoogleDriveServiceImpl implements CloudService{
 					connection.setExpiryTime(System.currentTimeMillis() + (expiresIn * 1000));
 					cloudDriveConnectionRepository.save(connection);
 
+					taskMetricsService.tokenRefreshed(CloudServiceEnum.GOOGLE_DRIVE, true);
+					event.succeeded = true;
 					return newAccessToken;
 				}
 			} else {
+				taskMetricsService.tokenRefreshed(CloudServiceEnum.GOOGLE_DRIVE, false);
 				throw new RuntimeException("Failed to refresh token: HTTP " + connectionRequest.getResponseCode());
 			}
 
 		} catch (IOException e) {
+			taskMetricsService.tokenRefreshed(CloudServiceEnum.GOOGLE_DRIVE, false);
 			throw new RuntimeException("Error refreshing access token: " + e.getMessage(), e);
+		} finally {
+			event.end();
+			if (event.shouldCommit()) {
+				event.provider = CloudServiceEnum.GOOGLE_DRIVE.name();
+				event.accountId = connection.getId() != null ? connection.getId() : 0;
+				event.commit();
+			}
 		}
 	}
 
 	@Override
 	public void deleteFileWithAccountId(String filePath, Long accountId) {
-		String accessToken = getAccessTokenByAccountId(accountId);
-		deleteFile(filePath, accessToken, accountId);
+		join(deleteFileAsync(filePath, accountId));
 	}
 
 	public String uploadFile(MultipartFile file, String destinationPath, Long accountId) {
@@ -229,12 +331,15 @@ public class GoogleDriveServiceImpl implements CloudService{
 				fileMetadata.setParents(Collections.singletonList(destinationPath));
 			}
 
-			// Prepare file content
-			InputStreamContent mediaContent = new InputStreamContent(file.getContentType(), file.getInputStream());
+			// Prepare file content, hashing it as it is streamed
+			ContentHasher hasher = transferEngine.newHasher(CloudServiceEnum.GOOGLE_DRIVE);
+			InputStreamContent mediaContent = new InputStreamContent(file.getContentType(),
+					new HashingInputStream(file.getInputStream(), hasher));
 
 			// Upload file
 			File uploadedFile = driveService.files().create(fileMetadata, mediaContent)
-					.setFields("id, name, webViewLink").setSupportsAllDrives(true).execute();
+					.setFields("id, name, webViewLink, md5Checksum").setSupportsAllDrives(true).execute();
+			verifyMd5Checksum(hasher.digest(), uploadedFile.getMd5Checksum());
 
 			log.info("File uploaded successfully. File ID: {}", uploadedFile.getId());
 			return uploadedFile.getId();
@@ -271,4 +376,105 @@ public class GoogleDriveServiceImpl implements CloudService{
 			throw new RuntimeException("Failed to create folder: " + e.getMessage(), e);
 		}
 	}
+
+	@Override
+	public CloudServiceEnum getCloudService() {
+		return CloudServiceEnum.GOOGLE_DRIVE;
+	}
+
+	@Override
+	public boolean isServerSideCopy() {
+		return true;
+	}
+
+	@Override
+	public CompletableFuture<Void> deleteFileAsync(String filePath, Long accountId) {
+		try {
+			return deleteFile(filePath, getAccessTokenByAccountId(accountId));
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(deleteFailure(e));
+		}
+	}
+
+	@Override
+	public boolean canMove(Task task) {
+		return task.getDestinations().isEmpty() && task.getSourceAccountId().equals(task.getDestinationAccountId());
+	}
+
+	/**
+	 * Moves a file within one Google Drive account by changing its parent folder.
+	 */
+	@Override
+	public CompletableFuture<Void> moveFileAsync(Task task) {
+		String accessToken;
+		try {
+			accessToken = getAccessTokenByAccountId(task.getSourceAccountId().longValue());
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(moveFailure(e));
+		}
+		String fileId = task.getSourcePath();
+		String destinationFolderId = task.getDestinationPath();
+		if (destinationFolderId == null || destinationFolderId.equals("/")) {
+			destinationFolderId = "root";
+		}
+		String addParents = destinationFolderId;
+
+		return providerHttpClient.send(CloudServiceEnum.GOOGLE_DRIVE, providerHttpClient.request(
+				filesUrl(fileId) + "?fields=parents&supportsAllDrives=true", accessToken).GET().build())
+				.thenCompose(file -> {
+					String url = filesUrl(fileId) + "?addParents=" + ProviderHttpClient.encode(addParents)
+							+ "&fields=id,parents&supportsAllDrives=true";
+					if (file.has("parents")) {
+						List<String> previousParents = new ArrayList<>();
+						file.getAsJsonArray("parents").forEach(parent -> previousParents.add(parent.getAsString()));
+						url += "&removeParents=" + ProviderHttpClient.encode(String.join(",", previousParents));
+					}
+					return providerHttpClient.send(CloudServiceEnum.GOOGLE_DRIVE,
+							providerHttpClient.request(url, accessToken), "PATCH", new JsonObject());
+				})
+				.handle((moved, e) -> {
+					if (e != null) {
+						throw moveFailure(unwrap(e));
+					}
+					System.out.println("File moved successfully: " + moved);
+					return null;
+				});
+	}
+
+	private RuntimeException copyFailure(Throwable e) {
+		if (e instanceof RuntimeException && !(e instanceof CompletionException)) {
+			return (RuntimeException) e;
+		}
+		System.err.println("Error during Google Drive operation: " + e.getMessage());
+		return new RuntimeException("Error during Google Drive operation: " + e.getMessage(), e);
+	}
+
+	private RuntimeException deleteFailure(Throwable e) {
+		System.err.println("Delete error: " + e.getMessage());
+		return new RuntimeException("Google Drive delete error: " + e.getMessage(), e);
+	}
+
+	private RuntimeException moveFailure(Throwable e) {
+		System.err.println("Error during Google Drive move: " + e.getMessage());
+		return new RuntimeException("Error during Google Drive move: " + e.getMessage(), e);
+	}
+
+	/**
+	 * Waits for an async operation, rethrowing its failure as-is.
+	 */
+	private static void join(CompletableFuture<Void> operation) {
+		try {
+			operation.join();
+		} catch (CompletionException e) {
+			Throwable cause = unwrap(e);
+			throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+		}
+	}
+
+	private static Throwable unwrap(Throwable e) {
+		while (e instanceof CompletionException && e.getCause() != null) {
+			e = e.getCause();
+		}
+		return e;
+	}
 }
@@ -0,0 +1,131 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.nobx.rocketdrive.entity.CompletedOperation;
+import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.entity.TaskDestination;
+import com.nobx.rocketdrive.repository.CompletedOperationRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Idempotency keys and the ledger of completed operations. Only keys set by
+ * the submitter are recorded in the ledger.
+ */
+@Service
+public class IdempotencyService {
+
+	@Autowired
+	private CompletedOperationRepository completedOperationRepository;
+
+	@Autowired
+	private SchedulingConfigService schedulingConfigService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	// Entries are recorded as tasks finish, possibly from a callback of an already committed transaction
+	private TransactionTemplate ledgerTransaction;
+
+	@PostConstruct
+	public void init() {
+		ledgerTransaction = new TransactionTemplate(transactionManager);
+		ledgerTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	/**
+	 * Returns the task's idempotency key: the submitter's, or one derived from
+	 * what the task does. A derived key is not stored and never goes into the
+	 * ledger. It only matches identical tasks running at the same time, since
+	 * the same operation on a file that changed in between is new work.
+	 */
+	public String keyOf(Task task) {
+		if (hasSubmittedKey(task)) {
+			return task.getIdempotencyKey();
+		}
+		StringBuilder operation = new StringBuilder()
+				.append(task.getCloudService()).append('\0')
+				.append(task.getCloudType()).append('\0')
+				.append(task.getSourceAccountId()).append('\0')
+				.append(task.getSourcePath());
+		if (task.getDestinations().isEmpty()) {
+			operation.append('\0').append(task.getDestinationAccountId()).append('\0').append(task.getDestinationPath());
+		} else {
+			for (TaskDestination destination : task.getDestinations()) {
+				operation.append('\0').append(destination.getDestinationAccountId()).append('\0')
+						.append(destination.getDestinationPath());
+			}
+		}
+		return sha256(operation.toString());
+	}
+
+	/**
+	 * Whether the submitter set the task's key, so that a repeated submission
+	 * within the ledger window is recognised as the same operation.
+	 */
+	public static boolean hasSubmittedKey(Task task) {
+		return task.getIdempotencyKey() != null;
+	}
+
+	/**
+	 * Looks up which of the keys completed within the ledger window.
+	 *
+	 * @return the task that completed each key found
+	 */
+	public Map<String, Long> findCompleted(Collection<String> keys) {
+		Map<String, Long> completed = new HashMap<>();
+		if (keys.isEmpty()) {
+			return completed;
+		}
+		LocalDateTime cutoff = LocalDateTime.now().minusMinutes(schedulingConfigService.getLedgerTtlMinutes());
+		for (CompletedOperation operation : completedOperationRepository.findByIdempotencyKeyInAndCompletedAtAfter(keys,
+				cutoff)) {
+			completed.put(operation.getIdempotencyKey(), operation.getTaskId());
+		}
+		return completed;
+	}
+
+	/**
+	 * Records a completed task in the ledger, if the submitter set its key.
+	 */
+	public void record(Task task) {
+		if (!hasSubmittedKey(task)) {
+			return;
+		}
+		String key = task.getIdempotencyKey();
+		CompletedOperation operation = completedOperationRepository.findByIdempotencyKey(key)
+				.orElseGet(CompletedOperation::new);
+		operation.setIdempotencyKey(key);
+		operation.setTaskId(task.getId());
+		operation.setCompletedAt(LocalDateTime.now());
+		try {
+			ledgerTransaction.executeWithoutResult(status -> completedOperationRepository.save(operation));
+		} catch (DataIntegrityViolationException e) {
+			// Recorded concurrently by another instance
+		}
+	}
+
+	private static String sha256(String value) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+}
@@ -6,12 +6,14 @@ import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.JobParametersBuilder;
 import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.TimeUnit;
 
 @Service
 @EnableScheduling
@@ -23,27 +25,44 @@ public class JobSchedulerService {
     @Autowired
     private Job processTaskJob;
     
+    @Autowired
+    private TaskScheduler taskScheduler;
+    
     private AtomicBoolean isJobRunning = new AtomicBoolean(false);
     
+    private AtomicBoolean rerunRequested = new AtomicBoolean(false);
+    
+    /**
+     * Tasks released by a finished dependency are picked up by another run right
+     * after the current one, or by a new run started now, instead of waiting for
+     * the next tick.
+     */
+    @EventListener
+    public void onTasksReady(DependencyService.TasksReadyEvent event) {
+        rerunRequested.set(true);
+        if (!isJobRunning.get()) {
+            taskScheduler.schedule(this::scheduleTaskProcessing, Instant.now());
+        }
+    }
+    
     @Scheduled(fixedRate = 10000)
     public void scheduleTaskProcessing() {
         if (isJobRunning.compareAndSet(false, true)) {
             try {
-                JobParameters jobParameters = new JobParametersBuilder()
-                    .addLong("time", System.currentTimeMillis())
-                    .toJobParameters();
-                
-                JobExecution jobExecution = jobLauncher.run(processTaskJob, jobParameters);
-                
-                // Wait for job completion with timeout
-                long startTime = System.currentTimeMillis();
-                while (jobExecution.isRunning()) {
-                    if (System.currentTimeMillis() - startTime > TimeUnit.SECONDS.toMillis(55)) {
-                        // If job is running for too long, break to prevent overlap with next scheduled run
-                        break;
+                do {
+                    rerunRequested.set(false);
+                    JobParameters jobParameters = new JobParametersBuilder()
+                        .addLong("time", System.currentTimeMillis())
+                        .toJobParameters();
+                    
+                    JobExecution jobExecution = jobLauncher.run(processTaskJob, jobParameters);
+                    
+                    // Wait for job completion, a run started while this one still claims
+                    // tasks could pick up the same pending tasks twice
+                    while (jobExecution.isRunning()) {
+                        Thread.sleep(1000);
                     }
-                    Thread.sleep(1000);
-                }
+                } while (rerunRequested.get());
                 
             } catch (Exception e) {
                 e.printStackTrace();
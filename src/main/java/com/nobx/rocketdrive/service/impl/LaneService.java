@@ -0,0 +1,84 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.enums.CloudTypeEnum;
+import com.nobx.rocketdrive.enums.TaskLaneEnum;
+import com.nobx.rocketdrive.scheduling.ExecutionLane;
+import com.nobx.rocketdrive.service.CloudService;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Routes tasks to execution lanes by estimated cost, so a burst of large copies
+ * cannot hold up deletes and small copies.
+ */
+@Service
+public class LaneService {
+
+	@Autowired
+	private SchedulingConfigService schedulingConfigService;
+
+	@Autowired
+	private CloudServiceRegistry cloudServiceRegistry;
+
+	private final Map<TaskLaneEnum, ExecutionLane> lanes = new EnumMap<>(TaskLaneEnum.class);
+
+	@PostConstruct
+	public void init() {
+		lanes.put(TaskLaneEnum.METADATA, new ExecutionLane(TaskLaneEnum.METADATA.name(),
+				schedulingConfigService.getMetadataLaneConcurrency(), schedulingConfigService.getMetadataLaneMaxQueued()));
+		lanes.put(TaskLaneEnum.SMALL, new ExecutionLane(TaskLaneEnum.SMALL.name(),
+				schedulingConfigService.getSmallLaneConcurrency(), schedulingConfigService.getSmallLaneMaxQueued()));
+		lanes.put(TaskLaneEnum.LARGE, new ExecutionLane(TaskLaneEnum.LARGE.name(),
+				schedulingConfigService.getLargeLaneConcurrency(), schedulingConfigService.getLargeLaneMaxQueued()));
+	}
+
+	/**
+	 * Estimates the task's cost from its operation type and the size recorded on
+	 * an earlier attempt. Copies of unknown size go to the small lane, since most
+	 * files are small and the size is known from the next attempt on. Archives
+	 * always take the large lane.
+	 */
+	public TaskLaneEnum laneOf(Task task) {
+		// Archives read a whole folder, whatever its files' sizes
+		if (task.getCloudType() == CloudTypeEnum.ARCHIVE) {
+			return TaskLaneEnum.LARGE;
+		}
+		CloudService cloudService = cloudServiceRegistry.get(task.getCloudService());
+		CloudTypeEnum operation = CloudOperationService.operationOf(task);
+		if (operation == CloudTypeEnum.DELETE || cloudService.isServerSideCopy()
+				|| (operation == CloudTypeEnum.CUT && cloudService.canMove(task))) {
+			return TaskLaneEnum.METADATA;
+		}
+		Long sizeBytes = task.getSizeBytes();
+		if (sizeBytes == null || sizeBytes <= schedulingConfigService.getSmallMaxBytes()) {
+			return TaskLaneEnum.SMALL;
+		}
+		return TaskLaneEnum.LARGE;
+	}
+
+	/**
+	 * Whether the task's lane can take more work without growing its backlog past
+	 * the configured limit.
+	 */
+	public boolean hasCapacity(Task task) {
+		return lanes.get(laneOf(task)).hasCapacity();
+	}
+
+	public <T> CompletableFuture<T> submit(Task task, Supplier<CompletableFuture<T>> operation) {
+		return lanes.get(laneOf(task)).submit(operation);
+	}
+
+	public Map<TaskLaneEnum, ExecutionLane> getLanes() {
+		return Collections.unmodifiableMap(lanes);
+	}
+}
@@ -4,19 +4,36 @@ import com.azure.identity.ClientSecretCredential;
 import com.azure.identity.ClientSecretCredentialBuilder;
 import com.microsoft.graph.authentication.TokenCredentialAuthProvider;
 import com.microsoft.graph.models.*;
+import com.microsoft.graph.options.HeaderOption;
 import com.microsoft.graph.requests.GraphServiceClient;
 import com.nobx.rocketdrive.entity.CloudDriveConnection;
 import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.entity.TaskDestination;
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
 import com.nobx.rocketdrive.repository.CloudDriveConnectionRepository;
+import com.nobx.rocketdrive.service.CloudProvider;
+import com.nobx.rocketdrive.service.CloudService;
+import com.nobx.rocketdrive.transfer.TransferSource;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 
 @Service
-public class OneDriveService {
+@Lazy
+@CloudProvider(CloudServiceEnum.ONEDRIVE)
+public class OneDriveService implements CloudService {
 
     @Autowired
     private ApiConfigService apiConfigService;
@@ -24,21 +41,50 @@ public class OneDriveService {
     @Autowired
     private CloudDriveConnectionRepository cloudDriveConnectionRepository;
 
+    @Autowired
+    private TransferEngine transferEngine;
+
+    // Graph requests are timed for the provider's concurrency limit
+    @Autowired
+    private ConcurrencyLimitService concurrencyLimitService;
+
+    // Graph requests are non-blocking, only the byte transfer itself runs on this pool
+    @Autowired
+    @Qualifier("cloudIoExecutorService")
+    private ExecutorService cloudIoExecutorService;
+
     private static final String AUTHORITY = "https://login.microsoftonline.com/";
     private static final List<String> SCOPES = Arrays.asList(
         "https://graph.microsoft.com/.default"
     );
 
+    @Override
+    public CloudServiceEnum getCloudService() {
+        return CloudServiceEnum.ONEDRIVE;
+    }
+
     /**
-     * Copies a file from one OneDrive account to another using OneDrive's
-     * sharing and copy mechanisms with Entra ID authentication.
+     * Copies a file from one OneDrive account to another by streaming its content
+     * into an upload session on the destination, with Entra ID authentication.
      *
      * @param task The task containing file operation details.
      */
+    @Override
     public void copyFile(Task task) {
+        join(copyFileAsync(task));
+    }
+
+    /**
+     * Looks up the source file with a non-blocking Graph request, then streams its
+     * content on the IO pool, since the transfer engine blocks on its uploads.
+     */
+    @Override
+    public CompletableFuture<Void> copyFileAsync(Task task) {
         System.out.println("Starting OneDrive file copy operation...");
         System.out.println("Task details: " + task);
-        
+
+        GraphServiceClient<?> sourceClient;
+        GraphServiceClient<?> destinationClient;
         try {
             // Validate task data
             if (task.getSourceAccountId() == null || task.getDestinationAccountId() == null) {
@@ -59,86 +105,120 @@ public class OneDriveService {
             }
             System.out.println("Destination connection found: " + destConnection.get().getEmail());
 
-            GraphServiceClient<?> sourceClient = getClientForAccount(sourceConnection.get());
-            GraphServiceClient<?> destinationClient = getClientForAccount(destConnection.get());
+            sourceClient = getClientForAccount(sourceConnection.get());
+            destinationClient = getClientForAccount(destConnection.get());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(copyFailure(e));
+        }
 
-            // Get the source file
-            System.out.println("Fetching source file: " + task.getSourcePath());
-            DriveItem sourceItem = sourceClient.me()
-                .drive()
-                .items(task.getSourcePath())
-                .buildRequest()
-                .get();
+        // Get the source file
+        System.out.println("Fetching source file: " + task.getSourcePath());
+        return concurrencyLimitService.timed(CloudServiceEnum.ONEDRIVE, () -> sourceClient.me()
+            .drive()
+            .items(task.getSourcePath())
+            .buildRequest()
+            .futureGet())
+            .thenAcceptAsync(sourceItem -> copyItem(task, sourceClient, destinationClient, sourceItem), cloudIoExecutorService)
+            .exceptionallyCompose(e -> CompletableFuture.failedFuture(copyFailure(unwrap(e))));
+    }
 
+    private void copyItem(Task task, GraphServiceClient<?> sourceClient, GraphServiceClient<?> destinationClient,
+            DriveItem sourceItem) {
+        try {
             if (sourceItem == null) {
                 throw new RuntimeException("Source file not found: " + task.getSourcePath());
             }
             System.out.println("Source file found: " + sourceItem.name);
 
-            // Create sharing link
-            System.out.println("Creating sharing link...");
-            DriveItemCreateLinkParameterSet parameters = DriveItemCreateLinkParameterSet.newBuilder()
-                .withType("view")
-                .withScope("organization")
-                .build();
-
-            Permission createdPermission = sourceClient.me()
-                .drive()
-                .items(task.getSourcePath())
-                .createLink(parameters)
-                .buildRequest()
-                .post();
+            if (sourceItem.file == null || sourceItem.size == null) {
+                throw new RuntimeException("Source item is not a file: " + task.getSourcePath());
+            }
+            task.setSizeBytes(sourceItem.size);
 
-            String sharingUrl = createdPermission.link.webUrl;
-            System.out.println("Sharing link created: " + sharingUrl);
+            if (!task.getDestinations().isEmpty()) {
+                copyToDestinations(task, sourceClient, sourceItem);
+                return;
+            }
 
             // Prepare destination path
-            String destinationPath = task.getDestinationPath();
-            if (destinationPath == null || destinationPath.equals("/")) {
-                destinationPath = "root";
-            }
+            String destinationPath = toParentId(task.getDestinationPath());
             System.out.println("Using destination path: " + destinationPath);
 
-            // Create copy reference
-            DriveItem newItem = new DriveItem();
-            newItem.name = sourceItem.name;
+            // Stream the content as parallel ranges into an upload session on the destination
+            System.out.println("Executing copy operation...");
+            long fileSize = sourceItem.size;
+            OneDriveUploadSink sink = new OneDriveUploadSink(destinationClient, destinationPath, sourceItem.name, fileSize,
+                transferEngine.checkpoint(task));
+            transferEngine.transfer(CloudServiceEnum.ONEDRIVE, task, toTransferSource(sourceClient, sourceItem), sink);
 
-            ItemReference parentReference = new ItemReference();
-            if (destinationPath.equals("root")) {
-                parentReference.driveId = "me";
-                parentReference.id = "root";
-            } else {
-                parentReference.id = destinationPath;
-            }
-            newItem.parentReference = parentReference;
+            System.out.println("File copied successfully. Size: " + fileSize);
 
-            // Perform copy operation
-            System.out.println("Executing copy operation...");
-            DriveItem copiedItem;
-            if (destinationPath.equals("root")) {
-                copiedItem = destinationClient.me()
-                    .drive()
-                    .root()
-                    .children()
-                    .buildRequest()
-                    .post(newItem);
-            } else {
-                copiedItem = destinationClient.me()
-                    .drive()
-                    .items(destinationPath)
-                    .children()
-                    .buildRequest()
-                    .post(newItem);
-            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e.getMessage(), e);
+        }
+    }
 
-            System.out.println("File copied successfully. New file ID: " + copiedItem.id);
+    private RuntimeException copyFailure(Throwable e) {
+        String errorMsg = "Failed to copy file in OneDrive: " + e.getMessage();
+        System.err.println(errorMsg);
+        e.printStackTrace();
+        return new RuntimeException(errorMsg, e);
+    }
 
-        } catch (Exception e) {
-            String errorMsg = "Failed to copy file in OneDrive: " + e.getMessage();
-            System.err.println(errorMsg);
-            e.printStackTrace();
-            throw new RuntimeException(errorMsg, e);
+    /**
+     * Copies a file to several OneDrive destinations, downloading it only once.
+     */
+    private void copyToDestinations(Task task, GraphServiceClient<?> sourceClient, DriveItem sourceItem) throws IOException {
+        List<TaskDestination> destinations = TaskDestinationResults.pending(task);
+        if (destinations.isEmpty()) {
+            System.out.println("All destinations already received the file");
+            return;
+        }
+        System.out.println("Starting fan-out copy to " + destinations.size() + " destinations...");
+
+        List<OneDriveUploadSink> sinks = new ArrayList<>();
+        for (TaskDestination destination : destinations) {
+            CloudDriveConnection connection = cloudDriveConnectionRepository
+                .findById(destination.getDestinationAccountId().longValue())
+                .orElseThrow(() -> new RuntimeException("Destination account not found. ID: " + destination.getDestinationAccountId()));
+            sinks.add(new OneDriveUploadSink(getClientForAccount(connection), toParentId(destination.getDestinationPath()),
+                sourceItem.name, sourceItem.size));
+        }
+
+        List<IOException> failures = transferEngine.transferToAll(CloudServiceEnum.ONEDRIVE, task,
+            toTransferSource(sourceClient, sourceItem), sinks);
+        TaskDestinationResults.record(task, destinations, failures);
+        System.out.println("Fan-out copy finished for " + sinks.size() + " destinations");
+    }
+
+    private String toParentId(String destinationPath) {
+        if (destinationPath == null || destinationPath.equals("/")) {
+            return "root";
         }
+        return destinationPath;
+    }
+
+    /**
+     * Describes a OneDrive file for the transfer engine. The QuickXorHash and
+     * content tag identify the bytes in the transfer cache.
+     */
+    private TransferSource toTransferSource(GraphServiceClient<?> client, DriveItem item) {
+        String contentHash = item.file.hashes != null ? item.file.hashes.quickXorHash : null;
+        return new TransferSource(item.size, contentHash, item.cTag,
+            (offset, length) -> openRange(client, item.id, offset, length));
+    }
+
+    /**
+     * Opens a byte range of a OneDrive file for the transfer engine.
+     */
+    private InputStream openRange(GraphServiceClient<?> client, String itemId, long offset, long length) {
+        HeaderOption range = new HeaderOption("Range", "bytes=" + offset + "-" + (offset + length - 1));
+        return client.me()
+            .drive()
+            .items(itemId)
+            .content()
+            .buildRequest(range)
+            .get();
     }
 
     private GraphServiceClient<?> getClientForAccount(CloudDriveConnection connection) {
@@ -149,6 +229,18 @@ public class OneDriveService {
                 throw new RuntimeException("TenantId is missing for account: " + connection.getEmail());
             }
 
+            // Entra ID only issues tokens for the real Graph hosts, so another endpoint gets the stored token
+            String endpoint = apiConfigService.getGraphEndpoint();
+            if (endpoint != null && !endpoint.isEmpty()) {
+                String accessToken = connection.getAccessToken();
+                GraphServiceClient<?> client = GraphServiceClient
+                    .builder()
+                    .authenticationProvider(requestUrl -> CompletableFuture.completedFuture(accessToken))
+                    .buildClient();
+                client.setServiceRoot(endpoint);
+                return client;
+            }
+
             ClientSecretCredential credential = new ClientSecretCredentialBuilder()
                 .clientId(apiConfigService.getOneDriveApiKey())
                 .clientSecret(apiConfigService.getOneDriveAppSecret())
@@ -170,32 +262,121 @@ public class OneDriveService {
     }
 
     public void deleteFile(String fileId, Long accountId) {
+        join(deleteFileAsync(fileId, accountId));
+    }
+
+    @Override
+    public void deleteFileWithAccountId(String filePath, Long accountId) {
+        deleteFile(filePath, accountId);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteFileAsync(String fileId, Long accountId) {
         System.out.println("Starting OneDrive file delete operation...");
         System.out.println("File ID: " + fileId + ", Account ID: " + accountId);
 
+        GraphServiceClient<?> client;
         try {
             Optional<CloudDriveConnection> connection = cloudDriveConnectionRepository.findById(accountId);
             if (!connection.isPresent()) {
                 throw new RuntimeException("Account not found. ID: " + accountId);
             }
             
-            GraphServiceClient<?> client = getClientForAccount(connection.get());
+            client = getClientForAccount(connection.get());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(deleteFailure(e));
+        }
 
-            System.out.println("Executing delete operation...");
-            client.me()
-                .drive()
-                .items(fileId)
-                .buildRequest()
-                .delete();
-            
-            System.out.println("File deleted successfully");
-            
+        System.out.println("Executing delete operation...");
+        return concurrencyLimitService.timed(CloudServiceEnum.ONEDRIVE, () -> client.me()
+            .drive()
+            .items(fileId)
+            .buildRequest()
+            .futureDelete())
+            .handle((deleted, e) -> {
+                if (e != null) {
+                    throw deleteFailure(unwrap(e));
+                }
+                System.out.println("File deleted successfully");
+                return null;
+            });
+    }
+
+    @Override
+    public boolean canMove(Task task) {
+        return task.getDestinations().isEmpty() && task.getSourceAccountId().equals(task.getDestinationAccountId());
+    }
+
+    /**
+     * Moves an item within one OneDrive by changing its parent reference.
+     */
+    @Override
+    public CompletableFuture<Void> moveFileAsync(Task task) {
+        System.out.println("Starting OneDrive move operation...");
+        GraphServiceClient<?> client;
+        try {
+            CloudDriveConnection connection = cloudDriveConnectionRepository.findById(task.getSourceAccountId().longValue())
+                .orElseThrow(() -> new RuntimeException("Account not found. ID: " + task.getSourceAccountId()));
+            client = getClientForAccount(connection);
         } catch (Exception e) {
-            String errorMsg = "OneDrive delete error: " + e.getMessage();
-            System.err.println(errorMsg);
-            e.printStackTrace();
-            throw new RuntimeException(errorMsg, e);
+            return CompletableFuture.failedFuture(moveFailure(e));
+        }
+
+        String parentId = toParentId(task.getDestinationPath());
+        // The root folder has to be addressed by its item ID in a parent reference
+        CompletableFuture<String> destinationId = parentId.equals("root")
+            ? concurrencyLimitService.timed(CloudServiceEnum.ONEDRIVE,
+                () -> client.me().drive().root().buildRequest().futureGet()).thenApply(root -> root.id)
+            : CompletableFuture.completedFuture(parentId);
+
+        return destinationId
+            .thenCompose(id -> {
+                DriveItem update = new DriveItem();
+                update.parentReference = new ItemReference();
+                update.parentReference.id = id;
+                return concurrencyLimitService.timed(CloudServiceEnum.ONEDRIVE,
+                    () -> client.me().drive().items(task.getSourcePath()).buildRequest().futurePatch(update));
+            })
+            .handle((moved, e) -> {
+                if (e != null) {
+                    throw moveFailure(unwrap(e));
+                }
+                System.out.println("Item moved successfully");
+                return null;
+            });
+    }
+
+    private RuntimeException moveFailure(Throwable e) {
+        String errorMsg = "OneDrive move error: " + e.getMessage();
+        System.err.println(errorMsg);
+        e.printStackTrace();
+        return new RuntimeException(errorMsg, e);
+    }
+
+    private RuntimeException deleteFailure(Throwable e) {
+        String errorMsg = "OneDrive delete error: " + e.getMessage();
+        System.err.println(errorMsg);
+        e.printStackTrace();
+        return new RuntimeException(errorMsg, e);
+    }
+
+    /**
+     * Waits for an async operation, rethrowing its failure as-is.
+     */
+    private static void join(CompletableFuture<Void> operation) {
+        try {
+            operation.join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        while (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
         }
+        return e;
     }
 
     public DriveItem getFileMetadata(String fileId, Long accountId) {
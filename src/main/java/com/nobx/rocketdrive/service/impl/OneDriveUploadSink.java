@@ -0,0 +1,139 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.microsoft.graph.models.DriveItem;
+import com.microsoft.graph.models.DriveItemCreateUploadSessionParameterSet;
+import com.microsoft.graph.models.DriveItemUploadableProperties;
+import com.microsoft.graph.models.UploadSession;
+import com.microsoft.graph.requests.DriveItemRequestBuilder;
+import com.microsoft.graph.requests.GraphServiceClient;
+import com.nobx.rocketdrive.transfer.ChunkSink;
+import com.nobx.rocketdrive.transfer.TransferCheckpoint;
+import com.nobx.rocketdrive.transfer.TransferChunk;
+
+/**
+ * Writes chunks to a Microsoft Graph upload session. Graph commits the file when
+ * the last byte range is received, so completion only has to handle empty files.
+ * The session URL and acknowledged offset are recorded in the checkpoint, and a
+ * checkpoint with a session URL continues it.
+ */
+class OneDriveUploadSink implements ChunkSink {
+
+    private final GraphServiceClient<?> client;
+    private final String parentId;
+    private final String fileName;
+    private final long totalSize;
+    private final TransferCheckpoint checkpoint;
+    private String uploadUrl;
+    private String committedHash;
+
+    OneDriveUploadSink(GraphServiceClient<?> client, String parentId, String fileName, long totalSize) {
+        this(client, parentId, fileName, totalSize, new TransferCheckpoint());
+    }
+
+    OneDriveUploadSink(GraphServiceClient<?> client, String parentId, String fileName, long totalSize,
+            TransferCheckpoint checkpoint) {
+        this.client = client;
+        this.parentId = parentId;
+        this.fileName = fileName;
+        this.totalSize = totalSize;
+        this.checkpoint = checkpoint;
+        this.uploadUrl = checkpoint.getSessionId();
+    }
+
+    @Override
+    public void write(TransferChunk chunk) throws IOException {
+        if (uploadUrl == null) {
+            uploadUrl = createUploadSession().uploadUrl;
+        }
+
+        long start = chunk.getOffset();
+        long end = start + chunk.getLength() - 1;
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(uploadUrl).openConnection();
+        try {
+            connection.setRequestMethod("PUT");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(chunk.getLength());
+            connection.setRequestProperty("Content-Range", "bytes " + start + "-" + end + "/" + totalSize);
+
+            try (OutputStream os = connection.getOutputStream(); InputStream in = chunk.openStream()) {
+                in.transferTo(os);
+            }
+
+            int status = connection.getResponseCode();
+            if (status != 200 && status != 201 && status != 202) {
+                throw new IOException("OneDrive upload session rejected bytes " + start + "-" + end + ": HTTP " + status);
+            }
+            if (status == 202) {
+                checkpoint.commit(uploadUrl, end + 1);
+            } else {
+                // The response to the last range is the committed item
+                try (InputStream in = connection.getInputStream()) {
+                    String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                    committedHash = quickXorHash(JsonParser.parseString(body));
+                }
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public void complete(long totalSize) throws IOException {
+        // Upload sessions cannot carry zero bytes, so empty files are written directly
+        if (totalSize == 0) {
+            DriveItem item = parent().itemWithPath(fileName).content().buildRequest().put(new byte[0]);
+            if (item != null && item.file != null && item.file.hashes != null) {
+                committedHash = item.file.hashes.quickXorHash;
+            }
+        }
+    }
+
+    @Override
+    public String getCommittedHash() {
+        return committedHash;
+    }
+
+    private static String quickXorHash(JsonElement item) {
+        if (!item.isJsonObject()) {
+            return null;
+        }
+        JsonObject file = item.getAsJsonObject().getAsJsonObject("file");
+        JsonObject hashes = file != null ? file.getAsJsonObject("hashes") : null;
+        JsonElement hash = hashes != null ? hashes.get("quickXorHash") : null;
+        return hash != null && !hash.isJsonNull() ? hash.getAsString() : null;
+    }
+
+    private UploadSession createUploadSession() {
+        DriveItemUploadableProperties properties = new DriveItemUploadableProperties();
+        properties.additionalDataManager().put("@microsoft.graph.conflictBehavior", new JsonPrimitive("replace"));
+
+        DriveItemCreateUploadSessionParameterSet parameters = DriveItemCreateUploadSessionParameterSet.newBuilder()
+            .withItem(properties)
+            .build();
+
+        return parent()
+            .itemWithPath(fileName)
+            .createUploadSession(parameters)
+            .buildRequest()
+            .post();
+    }
+
+    private DriveItemRequestBuilder parent() {
+        if (parentId.equals("root")) {
+            return client.me().drive().root();
+        }
+        return client.me().drive().items(parentId);
+    }
+}
@@ -0,0 +1,158 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.enums.TaskStatusEnum;
+import com.nobx.rocketdrive.transfer.TransferProgress;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tracks byte progress of running tasks. Transfers only bump an in-memory
+ * counter; a scheduled flush writes the counters that changed to the task
+ * table in one batch and pushes them to the owning user's event streams, so
+ * progress costs at most one write per task per flush interval.
+ */
+@Service
+@Slf4j
+public class ProgressService {
+
+	private static final String UPDATE_PROGRESS = "UPDATE backend_task SET bytes_transferred = ? WHERE id = ? AND status = ?";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransferConfigService transferConfigService;
+
+	private final Map<Long, TrackedTask> running = new ConcurrentHashMap<>();
+
+	private final Map<String, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the progress counter of a running task, starting one if needed.
+	 */
+	public TransferProgress track(Task task) {
+		if (task.getId() == null) {
+			return new TransferProgress();
+		}
+		return running.computeIfAbsent(task.getId(), id -> new TrackedTask(task)).progress;
+	}
+
+	/**
+	 * Stops tracking a task whose attempt ended, records its final byte count on
+	 * the entity and tells the user's streams right away.
+	 */
+	public void finish(Task task) {
+		TrackedTask tracked = task.getId() != null ? running.remove(task.getId()) : null;
+		long bytes = tracked != null ? tracked.progress.getBytes() : 0;
+		if (task.getStatus() == TaskStatusEnum.COMPLETED && task.getSizeBytes() != null) {
+			bytes = task.getSizeBytes();
+		}
+		task.setBytesTransferred(bytes);
+		publish(task.getUserId(), event(task, bytes));
+	}
+
+	/**
+	 * Writes changed counters in one batch. Only rows still IN_PROGRESS are
+	 * updated, so a late flush cannot overwrite the final state.
+	 */
+	@Scheduled(fixedDelayString = "${transfer.progress.flush-interval-ms:2000}")
+	public void flush() {
+		List<Object[]> updates = new ArrayList<>();
+		List<TrackedTask> changed = new ArrayList<>();
+		for (TrackedTask tracked : running.values()) {
+			long bytes = tracked.progress.getBytes();
+			if (bytes != tracked.flushedBytes) {
+				tracked.flushedBytes = bytes;
+				updates.add(new Object[] { bytes, tracked.task.getId(), TaskStatusEnum.IN_PROGRESS.name() });
+				changed.add(tracked);
+			}
+		}
+		if (updates.isEmpty()) {
+			return;
+		}
+
+		try {
+			jdbcTemplate.batchUpdate(UPDATE_PROGRESS, updates);
+		} catch (RuntimeException e) {
+			log.warn("Could not flush progress of {} tasks: {}", updates.size(), e.getMessage());
+		}
+		for (TrackedTask tracked : changed) {
+			publish(tracked.task.getUserId(), event(tracked.task, tracked.flushedBytes));
+		}
+	}
+
+	/**
+	 * Opens an event stream for a user. It starts with the progress of the
+	 * user's running tasks and then receives an event per change.
+	 */
+	public SseEmitter subscribe(String userId) {
+		SseEmitter emitter = new SseEmitter(transferConfigService.getProgressStreamTimeoutMillis());
+		List<SseEmitter> userEmitters = emitters.computeIfAbsent(userId, id -> new CopyOnWriteArrayList<>());
+		userEmitters.add(emitter);
+		emitter.onCompletion(() -> userEmitters.remove(emitter));
+		emitter.onTimeout(() -> userEmitters.remove(emitter));
+		emitter.onError(e -> userEmitters.remove(emitter));
+
+		for (TrackedTask tracked : running.values()) {
+			if (userId.equals(tracked.task.getUserId())) {
+				send(userEmitters, emitter, event(tracked.task, tracked.progress.getBytes()));
+			}
+		}
+		return emitter;
+	}
+
+	private void publish(String userId, Map<String, Object> event) {
+		List<SseEmitter> userEmitters = userId != null ? emitters.get(userId) : null;
+		if (userEmitters == null) {
+			return;
+		}
+		for (SseEmitter emitter : userEmitters) {
+			send(userEmitters, emitter, event);
+		}
+	}
+
+	private void send(List<SseEmitter> userEmitters, SseEmitter emitter, Map<String, Object> event) {
+		try {
+			emitter.send(SseEmitter.event().name("progress").data(event));
+		} catch (IOException | IllegalStateException e) {
+			// Client went away
+			userEmitters.remove(emitter);
+		}
+	}
+
+	private static Map<String, Object> event(Task task, long bytes) {
+		Map<String, Object> event = new LinkedHashMap<>();
+		event.put("taskId", task.getId());
+		event.put("status", task.getStatus());
+		event.put("bytesTransferred", bytes);
+		event.put("sizeBytes", task.getSizeBytes());
+		return event;
+	}
+
+	private static class TrackedTask {
+
+		private final Task task;
+		private final TransferProgress progress = new TransferProgress();
+		// Only read and written by the flush
+		private long flushedBytes;
+
+		TrackedTask(Task task) {
+			this.task = task;
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Sends provider REST requests with the JDK's non-blocking HTTP client, so a
+ * request waiting for its response holds no thread. Error responses fail the
+ * future with a {@link ProviderHttpException}.
+ */
+@Service
+public class ProviderHttpClient {
+
+	@Autowired
+	private ApiConfigService apiConfigService;
+
+	@Autowired
+	private ConcurrencyLimitService concurrencyLimitService;
+
+	private HttpClient httpClient;
+
+	@PostConstruct
+	public void init() {
+		httpClient = HttpClient.newBuilder()
+				.connectTimeout(Duration.ofMillis(apiConfigService.getHttpConnectTimeoutMillis())).build();
+	}
+
+	/**
+	 * Starts a request to the URL, authorized with the account's access token.
+	 */
+	public HttpRequest.Builder request(String url, String accessToken) {
+		return HttpRequest.newBuilder(URI.create(url))
+				.timeout(Duration.ofMillis(apiConfigService.getHttpRequestTimeoutMillis()))
+				.header("Authorization", "Bearer " + accessToken);
+	}
+
+	/**
+	 * Sends a request whose body is the JSON object.
+	 */
+	public CompletableFuture<JsonObject> send(CloudServiceEnum cloudService, HttpRequest.Builder request,
+			String method, JsonObject body) {
+		return send(cloudService, request.header("Content-Type", "application/json")
+				.method(method, HttpRequest.BodyPublishers.ofString(body.toString())).build());
+	}
+
+	/**
+	 * Sends the request, its latency sampled for the provider's concurrency
+	 * limit. The future completes with the JSON response, which is empty for a
+	 * response without a body.
+	 */
+	public CompletableFuture<JsonObject> send(CloudServiceEnum cloudService, HttpRequest request) {
+		return concurrencyLimitService.timed(cloudService,
+				() -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())).thenApply(response -> {
+			if (response.statusCode() / 100 != 2) {
+				throw new CompletionException(failure(cloudService, response));
+			}
+			JsonObject json = parse(response.body());
+			return json != null ? json : new JsonObject();
+		});
+	}
+
+	public static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8);
+	}
+
+	// Dropbox reports an error_summary, Drive an error object with a message and reasons
+	private static ProviderHttpException failure(CloudServiceEnum cloudService, HttpResponse<String> response) {
+		String message = null;
+		String reason = null;
+		JsonObject body = parse(response.body());
+		if (body != null && body.has("error_summary")) {
+			message = body.get("error_summary").getAsString();
+			reason = message;
+		} else if (body != null && body.has("error") && body.get("error").isJsonObject()) {
+			JsonObject error = body.getAsJsonObject("error");
+			message = error.has("message") ? error.get("message").getAsString() : null;
+			JsonArray errors = error.has("errors") ? error.getAsJsonArray("errors") : null;
+			if (errors != null && !errors.isEmpty() && errors.get(0).getAsJsonObject().has("reason")) {
+				reason = errors.get(0).getAsJsonObject().get("reason").getAsString();
+			}
+		}
+		return new ProviderHttpException(cloudService, response.statusCode(), reason, cloudService
+				+ " request failed with HTTP " + response.statusCode() + (message != null ? ": " + message : ""));
+	}
+
+	private static JsonObject parse(String body) {
+		if (body == null || body.isBlank()) {
+			return null;
+		}
+		try {
+			JsonElement json = JsonParser.parseString(body);
+			return json.isJsonObject() ? json.getAsJsonObject() : null;
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+}
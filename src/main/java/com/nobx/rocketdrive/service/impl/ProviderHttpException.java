@@ -0,0 +1,40 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.io.IOException;
+
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+
+/**
+ * Error response to a provider REST request, with its HTTP status and the
+ * reason the provider gave.
+ */
+public class ProviderHttpException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final CloudServiceEnum cloudService;
+	private final int statusCode;
+	private final String reason;
+
+	/**
+	 * @param reason the provider's error reason or summary, or {@code null}
+	 */
+	public ProviderHttpException(CloudServiceEnum cloudService, int statusCode, String reason, String message) {
+		super(message);
+		this.cloudService = cloudService;
+		this.statusCode = statusCode;
+		this.reason = reason;
+	}
+
+	public CloudServiceEnum getCloudService() {
+		return cloudService;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	public String getReason() {
+		return reason;
+	}
+}
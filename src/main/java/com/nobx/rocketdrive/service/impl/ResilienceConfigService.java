@@ -0,0 +1,61 @@
+package com.nobx.rocketdrive.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+
+@Component
+@Getter
+public class ResilienceConfigService {
+
+	// Adaptive concurrency limit per provider, raised while latency stays flat
+	@Value("${resilience.limit.initial:10}")
+	private int limitInitial;
+
+	@Value("${resilience.limit.min:1}")
+	private int limitMin;
+
+	// Capped at transfer.io.pool-size
+	@Value("${resilience.limit.max:32}")
+	private int limitMax;
+
+	// Number of provider request latencies evaluated together
+	@Value("${resilience.limit.window:20}")
+	private int limitWindow;
+
+	// The limit is cut when a window's p99 latency exceeds the baseline by this factor
+	@Value("${resilience.limit.latency-tolerance:1.5}")
+	private double limitLatencyTolerance;
+
+	@Value("${resilience.limit.backoff-ratio:0.75}")
+	private double limitBackoffRatio;
+
+	// Circuit breaker per provider, opened by consecutive outage failures (timeouts, 5xx)
+	@Value("${resilience.circuit.failure-threshold:5}")
+	private int circuitFailureThreshold;
+
+	// First open period, doubled each time a half-open probe fails
+	@Value("${resilience.circuit.open-ms:30000}")
+	private long circuitOpenMillis;
+
+	@Value("${resilience.circuit.max-open-ms:600000}")
+	private long circuitMaxOpenMillis;
+
+	@Value("${resilience.circuit.half-open-probes:1}")
+	private int circuitHalfOpenProbes;
+
+	// Keep a separate circuit for each source account, so one broken account does not park the others
+	@Value("${resilience.circuit.per-account:false}")
+	private boolean circuitPerAccount;
+
+	// Retryable failures are retried by the scheduler with jittered exponential backoff
+	@Value("${resilience.retry.max-attempts:5}")
+	private int retryMaxAttempts;
+
+	@Value("${resilience.retry.base-delay-ms:5000}")
+	private long retryBaseDelayMillis;
+
+	@Value("${resilience.retry.max-delay-ms:600000}")
+	private long retryMaxDelayMillis;
+}
@@ -0,0 +1,63 @@
+package com.nobx.rocketdrive.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+
+@Component
+@Getter
+public class SchedulingConfigService {
+
+	// Tasks one user may have in flight, a hard cap: a lone user is held to it too
+	@Value("${scheduling.per-user-cap:5}")
+	private int perUserCap;
+
+	// Tasks fetched at a time for each user and priority
+	@Value("${scheduling.page-size:20}")
+	private int pageSize;
+
+	// Completed operations are remembered this long; a task with the same submitted idempotency key is then not run again
+	@Value("${scheduling.ledger-ttl-minutes:60}")
+	private long ledgerTtlMinutes;
+
+	// A delete claimed while a copy of the same source is running waits this long before it is picked up again
+	@Value("${scheduling.defer-ms:5000}")
+	private long deferMillis;
+
+	// Owner of the tasks this worker claims; defaults to host name and process id, which stays the same
+	// when a container restarts, so a restarted worker takes its own tasks back right away
+	@Value("${scheduling.worker-id:}")
+	private String workerId;
+
+	// A running task whose worker has not renewed its lease for this long is put back to PENDING
+	@Value("${scheduling.lease.duration-ms:120000}")
+	private long leaseDurationMillis;
+
+	// Task graph edges resolved per transaction when a task with dependents finishes
+	@Value("${scheduling.dependencies.batch-size:1000}")
+	private int dependencyBatchSize;
+
+	// Copies of files up to this size run in the small lane, larger ones in the large lane
+	@Value("${scheduling.lanes.small-max-bytes:16777216}")
+	private long smallMaxBytes;
+
+	// Concurrency and admitted backlog per execution lane
+	@Value("${scheduling.lanes.metadata.concurrency:32}")
+	private int metadataLaneConcurrency;
+
+	@Value("${scheduling.lanes.metadata.max-queued:500}")
+	private int metadataLaneMaxQueued;
+
+	@Value("${scheduling.lanes.small.concurrency:16}")
+	private int smallLaneConcurrency;
+
+	@Value("${scheduling.lanes.small.max-queued:200}")
+	private int smallLaneMaxQueued;
+
+	@Value("${scheduling.lanes.large.concurrency:4}")
+	private int largeLaneConcurrency;
+
+	@Value("${scheduling.lanes.large.max-queued:8}")
+	private int largeLaneMaxQueued;
+}
@@ -0,0 +1,23 @@
+package com.nobx.rocketdrive.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+
+@Component
+@Getter
+public class SubmissionConfigService {
+
+	// Rows per JDBC batch, sent as multi-row inserts with rewriteBatchedStatements
+	@Value("${tasks.bulk.batch-size:1000}")
+	private int batchSize;
+
+	// Rejected tasks reported individually in the response, the rest are only counted
+	@Value("${tasks.bulk.max-errors:100}")
+	private int maxErrors;
+
+	// Tasks of one submission that may declare a ref, whose ids are kept until the body is read
+	@Value("${tasks.bulk.max-refs:100000}")
+	private int maxRefs;
+}
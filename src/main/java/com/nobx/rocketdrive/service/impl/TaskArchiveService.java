@@ -0,0 +1,138 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves finished tasks out of backend_task into backend_task_archive, so the
+ * hot table only holds tasks that can still run and the claim queries keep
+ * scanning a small table. Tasks are moved in short transactions of one batch
+ * each; rows locked by a concurrent claim or update are skipped and picked up
+ * on a later run, so the archiver never waits on the hot path.
+ */
+@Service
+@Slf4j
+public class TaskArchiveService {
+
+	// Finished for good: nothing moves these tasks out of their status anymore, except a cancel of a failed task
+	private static final String FINISHED = "'COMPLETED', 'FAILED', 'DEAD_LETTER', 'CANCELLED'";
+
+	// Tasks whose outcome was not yet propagated to their dependents stay until DependencyService has done so
+	private static final String SELECT_FINISHED = "SELECT id FROM backend_task WHERE status IN (" + FINISHED
+			+ ") AND updated_at < ? AND NOT EXISTS (SELECT 1 FROM backend_task_dependency d "
+			+ "WHERE d.depends_on_id = backend_task.id) LIMIT ? FOR UPDATE SKIP LOCKED";
+
+	private static final String TASK_COLUMNS = "id, task_type, source_path, destination_path, cloud_service, status, "
+			+ "error_message, source_account_id, destination_account_id, user_id, priority, source_email, "
+			+ "destination_email, created_at, updated_at, size_bytes, bytes_transferred, attempt_count, "
+			+ "idempotency_key, duplicate_of, run_as, batch_id";
+
+	private static final String DESTINATION_COLUMNS = "id, task_id, destination_account_id, destination_path, "
+			+ "destination_email, status, error_message, updated_at";
+
+	private static final String DELETE_EXPIRED_LEDGER = "DELETE FROM backend_completed_operation WHERE completed_at < ? LIMIT ?";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ArchiveConfigService archiveConfigService;
+
+	@Autowired
+	private SchedulingConfigService schedulingConfigService;
+
+	private TransactionTemplate transactionTemplate;
+
+	@PostConstruct
+	public void init() {
+		transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	@Scheduled(fixedDelayString = "${tasks.archive.interval-ms:60000}", initialDelayString = "${tasks.archive.interval-ms:60000}")
+	public void archiveFinishedTasks() {
+		if (!archiveConfigService.isEnabled()) {
+			return;
+		}
+		int batchSize = archiveConfigService.getBatchSize();
+		LocalDateTime cutoff = LocalDateTime.now().minusMinutes(archiveConfigService.getAfterMinutes());
+		try {
+			long archived = 0;
+			int moved;
+			do {
+				moved = transactionTemplate.execute(status -> archiveBatch(cutoff, batchSize));
+				archived += moved;
+				if (moved == batchSize) {
+					Thread.sleep(archiveConfigService.getBatchPauseMillis());
+				}
+			} while (moved == batchSize);
+
+			long purged = purgeExpiredLedger(batchSize);
+			if (archived > 0 || purged > 0) {
+				log.info("Archived {} finished tasks, purged {} expired ledger entries", archived, purged);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (RuntimeException e) {
+			log.error("Archiving finished tasks failed, retried on the next run", e);
+		}
+	}
+
+	/**
+	 * Copies one batch of finished tasks and their destinations to the archive
+	 * tables and deletes them from the hot tables, in the caller's transaction.
+	 *
+	 * @return number of tasks moved
+	 */
+	private int archiveBatch(LocalDateTime cutoff, int batchSize) {
+		List<Long> ids = jdbcTemplate.queryForList(SELECT_FINISHED, Long.class, Timestamp.valueOf(cutoff), batchSize);
+		if (ids.isEmpty()) {
+			return 0;
+		}
+		String in = String.join(", ", Collections.nCopies(ids.size(), "?"));
+		Object[] idArgs = ids.toArray();
+
+		Object[] taskArgs = new Object[ids.size() + 1];
+		taskArgs[0] = Timestamp.valueOf(LocalDateTime.now());
+		System.arraycopy(idArgs, 0, taskArgs, 1, idArgs.length);
+		jdbcTemplate.update("INSERT INTO backend_task_archive (" + TASK_COLUMNS + ", archived_at) SELECT " + TASK_COLUMNS
+				+ ", ? FROM backend_task WHERE id IN (" + in + ")", taskArgs);
+		jdbcTemplate.update("INSERT INTO backend_task_destination_archive (" + DESTINATION_COLUMNS + ") SELECT "
+				+ DESTINATION_COLUMNS + " FROM backend_task_destination WHERE task_id IN (" + in + ")", idArgs);
+		jdbcTemplate.update("DELETE FROM backend_task_destination WHERE task_id IN (" + in + ")", idArgs);
+		jdbcTemplate.update("DELETE FROM backend_task WHERE id IN (" + in + ")", idArgs);
+		return ids.size();
+	}
+
+	/**
+	 * The completed-operation ledger is only consulted within its TTL, older
+	 * entries are deleted in batches as well.
+	 */
+	private long purgeExpiredLedger(int batchSize) throws InterruptedException {
+		Timestamp expired = Timestamp.valueOf(LocalDateTime.now().minusMinutes(schedulingConfigService.getLedgerTtlMinutes()));
+		long purged = 0;
+		int deleted;
+		do {
+			deleted = jdbcTemplate.update(DELETE_EXPIRED_LEDGER, expired, batchSize);
+			purged += deleted;
+			if (deleted == batchSize) {
+				Thread.sleep(archiveConfigService.getBatchPauseMillis());
+			}
+		} while (deleted == batchSize);
+		return purged;
+	}
+}
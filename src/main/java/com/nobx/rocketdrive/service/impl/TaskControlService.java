@@ -0,0 +1,187 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.nobx.rocketdrive.entity.ArchivedTask;
+import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.enums.TaskStatusEnum;
+import com.nobx.rocketdrive.repository.ArchivedTaskRepository;
+import com.nobx.rocketdrive.repository.TaskRepository;
+import com.nobx.rocketdrive.transfer.TransferCheckpoint;
+import com.nobx.rocketdrive.transfer.TransferControl;
+
+/**
+ * Cancels, pauses and resumes tasks. Queued tasks change status directly;
+ * running tasks are signalled through their transfer control and get their new
+ * status when the attempt stops at its next checkpoint. The request is stored
+ * on the task, so the worker running it receives the request with its next
+ * lease heartbeat when the request was sent to another worker.
+ */
+@Service
+public class TaskControlService {
+
+	@Autowired
+	private TaskRepository taskRepository;
+
+	@Autowired
+	private ArchivedTaskRepository archivedTaskRepository;
+
+	@Autowired
+	private DependencyService dependencyService;
+
+	private final Map<Long, TransferControl> running = new ConcurrentHashMap<>();
+
+	/**
+	 * Cancels a task that has not completed, and every task depending on it.
+	 *
+	 * @return the task's status after the request, IN_PROGRESS while a running
+	 *         attempt is stopping, or empty if there is no such task, not even
+	 *         in the archive
+	 */
+	public Optional<TaskStatusEnum> cancel(Long taskId) {
+		return request(taskId, List.of(TaskStatusEnum.PENDING, TaskStatusEnum.BLOCKED, TaskStatusEnum.PAUSED,
+				TaskStatusEnum.FAILED, TaskStatusEnum.DEAD_LETTER), TaskStatusEnum.CANCELLED,
+				TransferControl.Signal.CANCEL);
+	}
+
+	/**
+	 * Pauses a queued or running task. A running transfer keeps its upload session.
+	 */
+	public Optional<TaskStatusEnum> pause(Long taskId) {
+		return request(taskId, List.of(TaskStatusEnum.PENDING), TaskStatusEnum.PAUSED, TransferControl.Signal.PAUSE);
+	}
+
+	/**
+	 * Puts a paused task back in the queue.
+	 */
+	public Optional<TaskStatusEnum> resume(Long taskId) {
+		clear(taskId);
+		if (taskRepository.updateStatus(taskId, List.of(TaskStatusEnum.PAUSED), TaskStatusEnum.PENDING,
+				LocalDateTime.now()) > 0) {
+			return Optional.of(TaskStatusEnum.PENDING);
+		}
+		return statusOf(taskId, taskRepository.findById(taskId));
+	}
+
+	private Optional<TaskStatusEnum> request(Long taskId, List<TaskStatusEnum> from, TaskStatusEnum to,
+			TransferControl.Signal signal) {
+		if (taskRepository.updateStatus(taskId, from, to, LocalDateTime.now()) > 0) {
+			// A running task's new status is propagated once its attempt stops
+			dependencyService.onFinished(taskId, to);
+			return Optional.of(to);
+		}
+		Optional<Task> task = taskRepository.findById(taskId);
+		if (task.isPresent() && task.get().getStatus() == TaskStatusEnum.IN_PROGRESS) {
+			stop(taskId, signal);
+		}
+		return statusOf(taskId, task);
+	}
+
+	// Archived tasks are finished and cannot change anymore, but still exist
+	private Optional<TaskStatusEnum> statusOf(Long taskId, Optional<Task> task) {
+		if (task.isPresent()) {
+			return task.map(Task::getStatus);
+		}
+		return archivedTaskRepository.findById(taskId).map(ArchivedTask::getStatus);
+	}
+
+	/**
+	 * Registers a task whose attempt is starting. The control resumes from the
+	 * upload session saved when the task was paused, if any, and is stopped at
+	 * once if a request reached the task before a worker that stopped renewing
+	 * its lease could act on it.
+	 */
+	public TransferControl start(Task task) {
+		TransferControl control = new TransferControl(new TransferCheckpoint(task.getUploadSession(),
+				task.getCommittedBytes() != null ? task.getCommittedBytes() : 0));
+		if (task.getId() == null) {
+			return control;
+		}
+		running.put(task.getId(), control);
+		if (task.getStopRequested() != null) {
+			control.stop(task.getStopRequested());
+		}
+		return control;
+	}
+
+	/**
+	 * The control of a running task, or a detached one for tasks run outside
+	 * the scheduler.
+	 */
+	public TransferControl control(Task task) {
+		TransferControl control = task.getId() != null ? running.get(task.getId()) : null;
+		return control != null ? control : new TransferControl(new TransferCheckpoint());
+	}
+
+	/**
+	 * Asks a running task to stop. The request is stored on the task for the
+	 * worker holding its lease, which may be another one, and applied here
+	 * directly if the task runs on this worker.
+	 *
+	 * @return true if the task is running here and will stop at its next checkpoint
+	 */
+	public boolean stop(Long taskId, TransferControl.Signal signal) {
+		taskRepository.requestStop(taskId, signal, TaskStatusEnum.IN_PROGRESS);
+		TransferControl control = running.get(taskId);
+		if (control == null) {
+			return false;
+		}
+		control.stop(signal);
+		return true;
+	}
+
+	/**
+	 * Applies the stop requests stored for the tasks leased to this worker, both
+	 * those sent to other workers and those that arrived while the task was
+	 * claimed but had not started yet.
+	 */
+	public void deliverStopRequests(String workerId) {
+		for (Object[] request : taskRepository.findStopRequests(workerId, TaskStatusEnum.IN_PROGRESS)) {
+			TransferControl control = running.get((Long) request[0]);
+			if (control != null) {
+				control.stop((TransferControl.Signal) request[1]);
+			}
+		}
+	}
+
+	/**
+	 * Withdraws a pause that has not reached the running task yet, when the task
+	 * is resumed again.
+	 */
+	public void clear(Long taskId) {
+		taskRepository.clearStop(taskId, TransferControl.Signal.PAUSE);
+	}
+
+	/**
+	 * Unregisters a task whose attempt ended. A stopped task gets its CANCELLED or
+	 * PAUSED status; only a paused task keeps its upload session for resuming.
+	 *
+	 * @return true if the attempt ended because the task was stopped
+	 */
+	public boolean finish(Task task) {
+		TransferControl control = task.getId() != null ? running.remove(task.getId()) : null;
+		TransferControl.Signal signal = control != null ? control.getSignal() : null;
+
+		if (signal == TransferControl.Signal.PAUSE && task.getStatus() != TaskStatusEnum.COMPLETED) {
+			TransferCheckpoint checkpoint = control.getCheckpoint();
+			task.setStatus(TaskStatusEnum.PAUSED);
+			task.setUploadSession(checkpoint.getSessionId());
+			task.setCommittedBytes(checkpoint.getCommittedBytes());
+			return true;
+		}
+		task.setUploadSession(null);
+		task.setCommittedBytes(null);
+		if (signal == TransferControl.Signal.CANCEL && task.getStatus() != TaskStatusEnum.COMPLETED) {
+			task.setStatus(TaskStatusEnum.CANCELLED);
+			return true;
+		}
+		return false;
+	}
+}
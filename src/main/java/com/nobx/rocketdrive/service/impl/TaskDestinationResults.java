@@ -0,0 +1,74 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.entity.TaskDestination;
+import com.nobx.rocketdrive.enums.TaskStatusEnum;
+
+/**
+ * Records the outcome of a fan-out copy on each destination of the task.
+ */
+final class TaskDestinationResults {
+
+	private TaskDestinationResults() {
+	}
+
+	/**
+	 * Destinations a fan-out copy still has to deliver to. Those a previous
+	 * attempt completed are skipped, so a retry neither copies the file into
+	 * them again nor uploads it to them twice.
+	 */
+	static List<TaskDestination> pending(Task task) {
+		List<TaskDestination> pending = new ArrayList<>();
+		for (TaskDestination destination : task.getDestinations()) {
+			if (destination.getStatus() != TaskStatusEnum.COMPLETED) {
+				pending.add(destination);
+			}
+		}
+		return pending;
+	}
+
+	/**
+	 * @param destinations the destinations copied to, as returned by
+	 *                     {@link #pending(Task)}
+	 * @param failures     one entry per destination, in order; {@code null} for
+	 *                     success
+	 * @throws RuntimeException if any destination failed, so the task itself is
+	 *                          marked as failed
+	 */
+	static void record(Task task, List<TaskDestination> destinations, List<? extends Exception> failures) {
+		int failed = 0;
+		Exception firstFailure = null;
+		for (int i = 0; i < destinations.size(); i++) {
+			TaskDestination destination = destinations.get(i);
+			Exception failure = failures.get(i);
+			destination.setUpdatedAt(LocalDateTime.now());
+			if (failure == null) {
+				destination.setStatus(TaskStatusEnum.COMPLETED);
+				destination.setErrorMessage(null);
+			} else {
+				failed++;
+				if (firstFailure == null) {
+					firstFailure = failure;
+				}
+				destination.setStatus(TaskStatusEnum.FAILED);
+				destination.setErrorMessage(truncate(failure.getMessage()));
+			}
+		}
+		if (failed > 0) {
+			// The cause lets the failure be classified as retryable or permanent
+			throw new RuntimeException("Copy failed for " + failed + " of " + task.getDestinations().size()
+					+ " destinations: " + firstFailure.getMessage(), firstFailure);
+		}
+	}
+
+	private static String truncate(String message) {
+		if (message == null || message.length() <= 255) {
+			return message;
+		}
+		return message.substring(0, 255);
+	}
+}
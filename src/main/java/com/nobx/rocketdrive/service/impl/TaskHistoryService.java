@@ -0,0 +1,55 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import com.nobx.rocketdrive.dto.TaskHistoryEntry;
+import com.nobx.rocketdrive.repository.ArchivedTaskRepository;
+import com.nobx.rocketdrive.repository.TaskRepository;
+
+/**
+ * Reads tasks regardless of whether they were archived. Archived tasks keep
+ * their ids, so both tables are read by id and merged.
+ */
+@Service
+public class TaskHistoryService {
+
+	@Autowired
+	private TaskRepository taskRepository;
+
+	@Autowired
+	private ArchivedTaskRepository archivedTaskRepository;
+
+	public Optional<TaskHistoryEntry> find(Long taskId) {
+		Optional<TaskHistoryEntry> task = taskRepository.findById(taskId).map(TaskHistoryEntry::of);
+		if (task.isPresent()) {
+			return task;
+		}
+		return archivedTaskRepository.findById(taskId).map(TaskHistoryEntry::of);
+	}
+
+	/**
+	 * Returns one page of the user's tasks, newest first. The next page starts
+	 * before the smallest id returned.
+	 */
+	public List<TaskHistoryEntry> history(String userId, Long beforeId, int size) {
+		Long before = beforeId != null ? beforeId : Long.MAX_VALUE;
+		Pageable page = Pageable.ofSize(size);
+
+		List<TaskHistoryEntry> entries = new ArrayList<>();
+		taskRepository.findByUserIdAndIdLessThanOrderByIdDesc(userId, before, page)
+				.forEach(task -> entries.add(TaskHistoryEntry.of(task)));
+		archivedTaskRepository.findByUserIdAndIdLessThanOrderByIdDesc(userId, before, page)
+				.forEach(task -> entries.add(TaskHistoryEntry.of(task)));
+
+		// Each table returned its newest page, the merged page is the newest of both
+		entries.sort(Comparator.comparing(TaskHistoryEntry::getId).reversed());
+		return entries.size() > size ? new ArrayList<>(entries.subList(0, size)) : entries;
+	}
+}
@@ -0,0 +1,138 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.nobx.rocketdrive.entity.Task;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Leases of the tasks this worker runs. A claim stamps the task with the
+ * worker's id and an expiry that the heartbeat keeps pushing back; tasks of a
+ * worker that stopped renewing, because it died or lost the database, are put
+ * back to PENDING by the next heartbeat of any worker. Only a worker's own
+ * tasks are requeued when it starts, so starting a worker next to running
+ * ones never takes their tasks away. Each claim carries its own token, which
+ * fences the outcome writes: an attempt that outlived its lease, e.g. through a
+ * long pause, cannot overwrite the task once it was requeued or claimed again.
+ */
+@Service
+@Slf4j
+public class TaskLeaseService {
+
+	private static final String RENEW = "UPDATE backend_task SET lease_expires_at = ? WHERE lease_owner = ? "
+			+ "AND status = 'IN_PROGRESS'";
+
+	private static final String REQUEUE_OWNED = "UPDATE backend_task SET status = 'PENDING', lease_owner = NULL, "
+			+ "lease_expires_at = NULL, lease_token = NULL, updated_at = ? WHERE lease_owner = ? AND status = 'IN_PROGRESS'";
+
+	// Tasks claimed before leases existed have none, they count as expired once untouched for a lease period
+	private static final String REQUEUE_EXPIRED = "UPDATE backend_task SET status = 'PENDING', lease_owner = NULL, "
+			+ "lease_expires_at = NULL, lease_token = NULL, updated_at = ? WHERE status = 'IN_PROGRESS' AND (lease_expires_at < ? "
+			+ "OR (lease_expires_at IS NULL AND updated_at < ?))";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private SchedulingConfigService schedulingConfigService;
+
+	@Autowired
+	private TaskControlService taskControlService;
+
+	@Getter
+	private String workerId;
+
+	/**
+	 * Takes back the tasks a previous run of this worker left IN_PROGRESS,
+	 * before the first scheduled job run.
+	 */
+	@PostConstruct
+	public void init() {
+		workerId = schedulingConfigService.getWorkerId();
+		if (workerId == null || workerId.isBlank()) {
+			workerId = hostName() + "-" + ProcessHandle.current().pid();
+		}
+		int requeued = jdbcTemplate.update(REQUEUE_OWNED, Timestamp.valueOf(LocalDateTime.now()), workerId);
+		if (requeued > 0) {
+			log.info("Requeued {} tasks worker {} left running at its last shutdown", requeued, workerId);
+		}
+	}
+
+	/**
+	 * Leases a task being claimed to this worker.
+	 */
+	public void claim(Task task) {
+		task.setLeaseOwner(workerId);
+		task.setLeaseExpiresAt(LocalDateTime.now().plus(leaseDuration()));
+		task.setLeaseToken(UUID.randomUUID().toString());
+	}
+
+	/**
+	 * Drops the lease of a task whose attempt ended, before its outcome is saved.
+	 */
+	public static void release(Task task) {
+		task.setLeaseOwner(null);
+		task.setLeaseExpiresAt(null);
+		task.setLeaseToken(null);
+	}
+
+	/**
+	 * Whether the claim with this token still holds the task's lease. The row
+	 * stays locked until the caller's transaction ends, so the lease cannot be
+	 * taken over between the check and writing the outcome.
+	 */
+	public boolean holds(Long taskId, String leaseToken) {
+		if (leaseToken == null) {
+			return false;
+		}
+		return !jdbcTemplate.queryForList("SELECT id FROM backend_task WHERE id = ? AND lease_token = ? FOR UPDATE",
+				Long.class, taskId, leaseToken).isEmpty();
+	}
+
+	/**
+	 * Renews the leases of this worker's running tasks and applies the stop
+	 * requests stored for them, then requeues the tasks whose lease has run out.
+	 */
+	@Scheduled(fixedDelayString = "${scheduling.lease.heartbeat-ms:30000}")
+	public void heartbeat() {
+		LocalDateTime now = LocalDateTime.now();
+		LocalDateTime expiry = now.plus(leaseDuration());
+		LocalDateTime untouchedSince = now.minus(leaseDuration());
+		try {
+			jdbcTemplate.update(RENEW, Timestamp.valueOf(expiry), workerId);
+			taskControlService.deliverStopRequests(workerId);
+			int requeued = jdbcTemplate.update(REQUEUE_EXPIRED, Timestamp.valueOf(now), Timestamp.valueOf(now),
+					Timestamp.valueOf(untouchedSince));
+			if (requeued > 0) {
+				log.warn("Requeued {} running tasks whose worker stopped renewing their lease", requeued);
+			}
+		} catch (RuntimeException e) {
+			log.warn("Could not renew task leases of worker {}: {}", workerId, e.getMessage());
+		}
+	}
+
+	private Duration leaseDuration() {
+		return Duration.ofMillis(schedulingConfigService.getLeaseDurationMillis());
+	}
+
+	private static String hostName() {
+		try {
+			return InetAddress.getLocalHost().getHostName();
+		} catch (UnknownHostException e) {
+			return "worker";
+		}
+	}
+}
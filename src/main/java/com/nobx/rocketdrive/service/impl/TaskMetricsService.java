@@ -0,0 +1,117 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Records the task pipeline's metrics, exported through Actuator at
+ * {@code /actuator/prometheus}. Operation latency is a histogram per provider,
+ * operation and outcome; throughput is the rate of the bytes counter. The
+ * backlog gauges are read from the task table on a schedule rather than on
+ * every scrape.
+ */
+@Service
+@Slf4j
+public class TaskMetricsService {
+
+	// Runnable tasks only: tasks backing off until a later attempt are not waiting for a worker
+	private static final String SELECT_BACKLOG = "SELECT COUNT(*), MIN(created_at) FROM backend_task "
+			+ "WHERE status = 'PENDING' AND (next_attempt_at IS NULL OR next_attempt_at <= NOW())";
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final AtomicLong pendingTasks = new AtomicLong();
+
+	private final AtomicLong oldestPendingCreatedAt = new AtomicLong();
+
+	@PostConstruct
+	public void init() {
+		Gauge.builder("rocketdrive.tasks.pending", pendingTasks, AtomicLong::get)
+				.description("Tasks waiting for a worker").register(meterRegistry);
+		Gauge.builder("rocketdrive.tasks.pending.oldest.age", oldestPendingCreatedAt, TaskMetricsService::ageSeconds)
+				.description("Time the oldest waiting task has been queued").baseUnit("seconds")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Records an attempt of the task's operation that started at the given
+	 * {@link System#nanoTime()}, with the bytes it moved.
+	 */
+	public void operationFinished(Task task, long startNanos) {
+		long nanos = System.nanoTime() - startNanos;
+		String provider = String.valueOf(task.getCloudService());
+		String operation = String.valueOf(task.getCloudType());
+		Timer.builder("rocketdrive.task.duration").description("Time of one attempt of a task's operation")
+				.tag("provider", provider).tag("operation", operation).tag("outcome", String.valueOf(task.getStatus()))
+				.publishPercentileHistogram().register(meterRegistry).record(nanos, TimeUnit.NANOSECONDS);
+
+		long bytes = task.getBytesTransferred() != null ? task.getBytesTransferred() : 0;
+		if (bytes <= 0) {
+			return;
+		}
+		Counter.builder("rocketdrive.transfer.bytes").description("Bytes uploaded to providers").baseUnit("bytes")
+				.tag("provider", provider).tag("operation", operation).register(meterRegistry).increment(bytes);
+		if (nanos > 0) {
+			DistributionSummary.builder("rocketdrive.transfer.throughput")
+					.description("Throughput of single transfers").baseUnit("bytes.per.second")
+					.tag("provider", provider).publishPercentileHistogram().register(meterRegistry)
+					.record(bytes * 1e9 / nanos);
+		}
+	}
+
+	public void tokenRefreshed(CloudServiceEnum cloudService, boolean succeeded) {
+		Counter.builder("rocketdrive.token.refreshes").description("OAuth access token refreshes")
+				.tag("provider", cloudService.name()).tag("outcome", succeeded ? "success" : "failure")
+				.register(meterRegistry).increment();
+	}
+
+	/**
+	 * Records the time from a batch chunk's write to the end of its transaction.
+	 */
+	public void chunkCommitted(long startNanos, int size, boolean committed) {
+		Timer.builder("rocketdrive.batch.chunk.commit").description("Time to claim and commit a chunk of tasks")
+				.tag("outcome", committed ? "committed" : "rolled_back").publishPercentileHistogram()
+				.register(meterRegistry).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+		DistributionSummary.builder("rocketdrive.batch.chunk.size").description("Tasks claimed per chunk")
+				.register(meterRegistry).record(size);
+	}
+
+	@Scheduled(fixedDelayString = "${metrics.backlog.refresh-interval-ms:15000}")
+	public void refreshBacklog() {
+		try {
+			jdbcTemplate.query(SELECT_BACKLOG, rs -> {
+				pendingTasks.set(rs.getLong(1));
+				Timestamp oldest = rs.getTimestamp(2);
+				oldestPendingCreatedAt.set(oldest != null ? oldest.getTime() : 0);
+			});
+		} catch (RuntimeException e) {
+			log.warn("Could not read the task backlog: {}", e.getMessage());
+		}
+	}
+
+	private static double ageSeconds(AtomicLong createdAt) {
+		long millis = createdAt.get();
+		return millis == 0 ? 0 : Math.max(0, System.currentTimeMillis() - millis) / 1000.0;
+	}
+}
@@ -0,0 +1,425 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nobx.rocketdrive.dto.BulkSubmissionResult;
+import com.nobx.rocketdrive.dto.TaskSubmission;
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+import com.nobx.rocketdrive.enums.CloudTypeEnum;
+import com.nobx.rocketdrive.enums.TaskPriorityEnum;
+import com.nobx.rocketdrive.enums.TaskStatusEnum;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Enqueues tasks in bulk. The body is parsed one task at a time, either a JSON
+ * array or newline-delimited JSON, and valid tasks are inserted with batched
+ * JDBC statements, bypassing JPA, whose IDENTITY ids would force one insert per
+ * row. Memory use is bounded by one batch plus the ids of the tasks that
+ * declare a ref, which later tasks of the submission may depend on; their
+ * number is capped by {@code tasks.bulk.max-refs}.
+ */
+@Service
+@Slf4j
+public class TaskSubmissionService {
+
+	private static final String INSERT_TASK = "INSERT INTO backend_task (task_type, cloud_service, source_path, "
+			+ "destination_path, source_account_id, destination_account_id, source_email, destination_email, user_id, "
+			+ "priority, source_access_token, destination_access_token, idempotency_key, status, error_message, "
+			+ "pending_dependencies, attempt_count, batch_id, created_at, updated_at) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private static final String INSERT_DEPENDENCY = "INSERT INTO backend_task_dependency (task_id, depends_on_id) VALUES (?, ?)";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private SubmissionConfigService submissionConfigService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private TransactionTemplate transactionTemplate;
+
+	@PostConstruct
+	public void init() {
+		transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * Reads tasks from the stream and enqueues the valid ones, as PENDING or, if
+	 * they depend on tasks that have not completed, as BLOCKED. Each batch is
+	 * committed on its own, so tasks become runnable while the rest of the body
+	 * is still being read.
+	 *
+	 * A task names the tasks it depends on either by the {@code ref} of a task
+	 * earlier in the same submission or by the id of a queued task. Since parents
+	 * always exist before their children, the graph cannot have cycles. A task
+	 * depending on one that failed or was cancelled is enqueued as CANCELLED.
+	 *
+	 * @throws IOException if the body is not well-formed JSON; batches inserted
+	 *                     before the error stay, identified by the batch id and
+	 *                     counted in the result
+	 */
+	public BulkSubmissionResult submit(InputStream body, BulkSubmissionResult result) throws IOException {
+		int batchSize = submissionConfigService.getBatchSize();
+		List<Submitted> batch = new ArrayList<>(batchSize);
+		// Ids of inserted tasks by ref, only kept for tasks that declare one
+		Map<String, Long> refs = new HashMap<>();
+		Set<String> seenRefs = new HashSet<>();
+		Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+		long index = 0;
+
+		try (MappingIterator<TaskSubmission> tasks = objectMapper.readerFor(TaskSubmission.class).readValues(body)) {
+			while (tasks.hasNextValue()) {
+				TaskSubmission task = tasks.nextValue();
+				String error = validate(task);
+				if (error == null) {
+					error = checkRefs(task, seenRefs, submissionConfigService.getMaxRefs());
+				}
+				if (error != null) {
+					result.reject(index, error, submissionConfigService.getMaxErrors());
+				} else {
+					if (task.getRef() != null) {
+						seenRefs.add(task.getRef());
+					}
+					batch.add(new Submitted(index, task));
+					if (batch.size() >= batchSize) {
+						insert(batch, refs, result, now);
+					}
+				}
+				index++;
+			}
+		}
+		insert(batch, refs, result, now);
+		log.info("Bulk submission {}: {} tasks accepted, {} rejected", result.getBatchId(), result.getAccepted(),
+				result.getRejected());
+		return result;
+	}
+
+	public BulkSubmissionResult newBatch() {
+		return new BulkSubmissionResult(UUID.randomUUID().toString());
+	}
+
+	private void insert(List<Submitted> batch, Map<String, Long> refs, BulkSubmissionResult result, Timestamp now) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		List<Submitted> accepted = transactionTemplate.execute(status -> insertBatch(batch, refs, result, now));
+		result.accept(accepted.size());
+		for (Submitted submitted : batch) {
+			if (submitted.error != null) {
+				result.reject(submitted.index, submitted.error, submissionConfigService.getMaxErrors());
+			}
+		}
+		batch.clear();
+	}
+
+	/**
+	 * Inserts a batch with its dependency edges in one transaction. Parents
+	 * outside the batch are read with a shared lock, so none of them can finish
+	 * between reading its status and creating the edge its completion resolves.
+	 *
+	 * @return the tasks inserted
+	 */
+	private List<Submitted> insertBatch(List<Submitted> batch, Map<String, Long> refs, BulkSubmissionResult result,
+			Timestamp now) {
+		Set<Long> external = new HashSet<>();
+		for (Submitted submitted : batch) {
+			for (String ref : submitted.dependsOn()) {
+				Long id = refs.get(ref);
+				if (id != null) {
+					external.add(id);
+				}
+			}
+			external.addAll(submitted.dependsOnTaskIds());
+		}
+		Map<Long, TaskStatusEnum> parentStatus = lockParents(external);
+
+		List<Submitted> accepted = new ArrayList<>();
+		Map<String, Submitted> batchRefs = new HashMap<>();
+		for (Submitted submitted : batch) {
+			resolveParents(submitted, refs, batchRefs, parentStatus);
+			if (submitted.error == null) {
+				accepted.add(submitted);
+				if (submitted.task.getRef() != null) {
+					batchRefs.put(submitted.task.getRef(), submitted);
+				}
+			}
+		}
+		if (accepted.isEmpty()) {
+			return accepted;
+		}
+
+		KeyHolder keys = new GeneratedKeyHolder();
+		jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_TASK, Statement.RETURN_GENERATED_KEYS),
+				new BatchPreparedStatementSetter() {
+					@Override
+					public void setValues(PreparedStatement statement, int i) throws SQLException {
+						new ArgumentPreparedStatementSetter(row(accepted.get(i), result.getBatchId(), now))
+								.setValues(statement);
+					}
+
+					@Override
+					public int getBatchSize() {
+						return accepted.size();
+					}
+				}, keys);
+		List<Map<String, Object>> keyList = keys.getKeyList();
+		List<Object[]> edges = new ArrayList<>();
+		for (int i = 0; i < accepted.size(); i++) {
+			Submitted submitted = accepted.get(i);
+			submitted.id = ((Number) keyList.get(i).values().iterator().next()).longValue();
+			if (submitted.task.getRef() != null) {
+				refs.put(submitted.task.getRef(), submitted.id);
+			}
+		}
+		for (Submitted submitted : accepted) {
+			for (Object parent : submitted.parents) {
+				Long parentId = parent instanceof Submitted ? ((Submitted) parent).id : (Long) parent;
+				edges.add(new Object[] { submitted.id, parentId });
+			}
+		}
+		if (!edges.isEmpty()) {
+			jdbcTemplate.batchUpdate(INSERT_DEPENDENCY, edges);
+		}
+		return accepted;
+	}
+
+	/**
+	 * Decides the task's initial status from its parents' and collects the
+	 * parents it has to wait for, or sets the task's error if a parent is unknown.
+	 */
+	private static void resolveParents(Submitted submitted, Map<String, Long> refs, Map<String, Submitted> batchRefs,
+			Map<Long, TaskStatusEnum> parentStatus) {
+		Set<Object> unresolved = new LinkedHashSet<>();
+		String cancelReason = null;
+		List<Long> parentIds = new ArrayList<>(submitted.dependsOnTaskIds());
+		for (String ref : submitted.dependsOn()) {
+			Long id = refs.get(ref);
+			if (id != null) {
+				parentIds.add(id);
+				continue;
+			}
+			Submitted parent = batchRefs.get(ref);
+			if (parent == null) {
+				submitted.error = "dependency " + ref + " was rejected";
+				return;
+			}
+			if (parent.status == TaskStatusEnum.CANCELLED) {
+				cancelReason = "Cancelled: depends on " + ref + " which is CANCELLED";
+			} else {
+				unresolved.add(parent);
+			}
+		}
+		for (Long id : parentIds) {
+			TaskStatusEnum status = parentStatus.get(id);
+			if (status == null) {
+				submitted.error = "unknown dependency task " + id;
+				return;
+			}
+			if (DependencyService.FAILED.contains(status)) {
+				cancelReason = "Cancelled: depends on task " + id + " which is " + status;
+			} else if (status != TaskStatusEnum.COMPLETED) {
+				unresolved.add(id);
+			}
+		}
+
+		if (cancelReason != null) {
+			submitted.status = TaskStatusEnum.CANCELLED;
+			submitted.errorMessage = cancelReason;
+		} else {
+			submitted.status = unresolved.isEmpty() ? TaskStatusEnum.PENDING : TaskStatusEnum.BLOCKED;
+			submitted.parents.addAll(unresolved);
+		}
+	}
+
+	// Status of existing tasks by id, archived ones included; queued ones stay locked until the batch commits
+	private Map<Long, TaskStatusEnum> lockParents(Set<Long> ids) {
+		Map<Long, TaskStatusEnum> statuses = new HashMap<>();
+		if (ids.isEmpty()) {
+			return statuses;
+		}
+		List<Long> pending = new ArrayList<>(ids);
+		int pageSize = submissionConfigService.getBatchSize();
+		for (int from = 0; from < pending.size(); from += pageSize) {
+			List<Long> page = pending.subList(from, Math.min(pending.size(), from + pageSize));
+			String in = String.join(", ", Collections.nCopies(page.size(), "?"));
+			jdbcTemplate.query("SELECT id, status FROM backend_task WHERE id IN (" + in + ") FOR SHARE",
+					rs -> {
+						statuses.put(rs.getLong(1), TaskStatusEnum.valueOf(rs.getString(2)));
+					}, page.toArray());
+			List<Long> missing = new ArrayList<>();
+			for (Long id : page) {
+				if (!statuses.containsKey(id)) {
+					missing.add(id);
+				}
+			}
+			if (!missing.isEmpty()) {
+				jdbcTemplate.query("SELECT id, status FROM backend_task_archive WHERE id IN ("
+						+ String.join(", ", Collections.nCopies(missing.size(), "?")) + ")", rs -> {
+							statuses.put(rs.getLong(1), TaskStatusEnum.valueOf(rs.getString(2)));
+						}, missing.toArray());
+			}
+		}
+		return statuses;
+	}
+
+	private static Object[] row(Submitted submitted, String batchId, Timestamp now) {
+		TaskSubmission task = submitted.task;
+		String priority = task.getPriority() != null ? task.getPriority() : TaskPriorityEnum.NORMAL.name();
+		return new Object[] { task.getCloudType(), task.getCloudService(), task.getSourcePath(),
+				task.getDestinationPath(), task.getSourceAccountId(), task.getDestinationAccountId(),
+				task.getSourceEmail(), task.getDestinationEmail(), task.getUserId(), priority,
+				task.getSourceAccessToken(), task.getDestinationAccessToken(), task.getIdempotencyKey(),
+				submitted.status.name(), submitted.errorMessage, submitted.parents.size(), 0,
+				batchId, now, now };
+	}
+
+	/**
+	 * @return why the task's refs are invalid, or {@code null} if they are valid
+	 */
+	private static String checkRefs(TaskSubmission task, Set<String> seenRefs, int maxRefs) {
+		if (task.getRef() != null) {
+			if (task.getRef().isBlank() || task.getRef().length() > 64) {
+				return "ref must be 1 to 64 characters";
+			}
+			if (seenRefs.contains(task.getRef())) {
+				return "duplicate ref: " + task.getRef();
+			}
+			if (seenRefs.size() >= maxRefs) {
+				return "a submission can declare at most " + maxRefs + " refs";
+			}
+		}
+		if (task.getDependsOn() != null) {
+			for (String ref : task.getDependsOn()) {
+				if (!seenRefs.contains(ref)) {
+					return "unknown dependency " + ref + ", tasks can only depend on tasks earlier in the submission";
+				}
+			}
+		}
+		if (task.getDependsOnTaskIds() != null && task.getDependsOnTaskIds().contains(null)) {
+			return "dependsOnTaskIds cannot contain null";
+		}
+		return null;
+	}
+
+	/**
+	 * A valid task waiting in the current batch.
+	 */
+	private static class Submitted {
+
+		private final long index;
+		private final TaskSubmission task;
+		private TaskStatusEnum status;
+		private String errorMessage;
+		private String error;
+		private Long id;
+
+		// Unfinished parents: ids of queued tasks, or tasks of the same batch
+		private final List<Object> parents = new ArrayList<>();
+
+		Submitted(long index, TaskSubmission task) {
+			this.index = index;
+			this.task = task;
+		}
+
+		List<String> dependsOn() {
+			return task.getDependsOn() != null ? task.getDependsOn() : List.of();
+		}
+
+		List<Long> dependsOnTaskIds() {
+			return task.getDependsOnTaskIds() != null ? task.getDependsOnTaskIds() : List.of();
+		}
+	}
+
+	/**
+	 * @return why the task cannot be enqueued, or {@code null} if it is valid
+	 */
+	private static String validate(TaskSubmission task) {
+		if (task == null) {
+			return "task is null";
+		}
+		String error = checkEnum(CloudTypeEnum.class, "cloudType", task.getCloudType(), true);
+		if (error == null) {
+			error = checkEnum(CloudServiceEnum.class, "cloudService", task.getCloudService(), true);
+		}
+		if (error == null) {
+			error = checkEnum(TaskPriorityEnum.class, "priority", task.getPriority(), false);
+		}
+		if (error != null) {
+			return error;
+		}
+		if (isBlank(task.getSourcePath())) {
+			return "sourcePath is required";
+		}
+		if (!CloudTypeEnum.DELETE.name().equals(task.getCloudType()) && isBlank(task.getDestinationPath())) {
+			return "destinationPath is required for " + task.getCloudType();
+		}
+		if (task.getSourceAccountId() == null || task.getDestinationAccountId() == null) {
+			return "sourceAccountId and destinationAccountId are required";
+		}
+		if (isBlank(task.getUserId())) {
+			return "userId is required";
+		}
+		if (task.getSourceEmail() == null || task.getDestinationEmail() == null) {
+			return "sourceEmail and destinationEmail are required";
+		}
+		if (task.getIdempotencyKey() != null && task.getIdempotencyKey().length() > 64) {
+			return "idempotencyKey is limited to 64 characters";
+		}
+		if (task.getSourcePath().length() > 255
+				|| (task.getDestinationPath() != null && task.getDestinationPath().length() > 255)) {
+			return "paths are limited to 255 characters";
+		}
+		return null;
+	}
+
+	private static <E extends Enum<E>> String checkEnum(Class<E> type, String field, String value, boolean required) {
+		if (value == null) {
+			return required ? field + " is required" : null;
+		}
+		try {
+			Enum.valueOf(type, value);
+			return null;
+		} catch (IllegalArgumentException e) {
+			return "unknown " + field + ": " + value;
+		}
+	}
+
+	private static boolean isBlank(String value) {
+		return value == null || value.isBlank();
+	}
+}
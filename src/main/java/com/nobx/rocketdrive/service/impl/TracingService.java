@@ -0,0 +1,245 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.transfer.ChunkSink;
+import com.nobx.rocketdrive.transfer.RangeFetcher;
+import com.nobx.rocketdrive.transfer.TransferChunk;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Opens the spans of a task's run: the chunk that claimed it, its operation,
+ * each provider request and the write-back of its outcome. Work for one task
+ * hops between executors and SDK threads, so its spans are parented explicitly
+ * on the task's running span rather than on the thread's current one.
+ *
+ * With tracing disabled the tracer is a no-op: no span is created and the
+ * wrappers return what they were given.
+ */
+@Service
+public class TracingService {
+
+	@Autowired
+	private ObjectProvider<Tracer> tracerProvider;
+
+	private Tracer tracer;
+
+	private boolean enabled;
+
+	// Innermost running span of each task, parent of the spans opened for it on other threads
+	private final Map<Long, Span> taskSpans = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void init() {
+		tracer = tracerProvider.getIfAvailable(() -> Tracer.NOOP);
+		enabled = tracer != Tracer.NOOP;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Starts a span for the task as a child of its running span, or of the
+	 * thread's current span, and makes it the task's running span until
+	 * {@link #endTask(Task, Span, Throwable)}.
+	 */
+	public Span startTask(String name, Task task) {
+		if (!enabled) {
+			return Span.NOOP;
+		}
+		Span span = start(name, task);
+		if (task.getId() != null) {
+			taskSpans.put(task.getId(), span);
+		}
+		return span;
+	}
+
+	public void endTask(Task task, Span span, Throwable error) {
+		if (!enabled) {
+			return;
+		}
+		if (task.getId() != null) {
+			taskSpans.remove(task.getId(), span);
+		}
+		if (task.getStatus() != null) {
+			span.tag("task.status", task.getStatus().name());
+		}
+		end(span, error);
+	}
+
+	/**
+	 * Starts a span for work on the task, as a child of the task's running span
+	 * or of the thread's current span.
+	 */
+	public Span start(String name, Task task) {
+		if (!enabled) {
+			return Span.NOOP;
+		}
+		Span parent = task.getId() != null ? taskSpans.get(task.getId()) : null;
+		if (parent == null) {
+			parent = tracer.currentSpan();
+		}
+		Span span = (parent != null ? tracer.nextSpan(parent) : tracer.nextSpan()).name(name);
+		tag(span, task);
+		return span.start();
+	}
+
+	/**
+	 * Starts a span as a child of the thread's current span.
+	 */
+	public Span start(String name) {
+		if (!enabled) {
+			return Span.NOOP;
+		}
+		return tracer.nextSpan().name(name).start();
+	}
+
+	public void end(Span span, Throwable error) {
+		if (error != null) {
+			span.error(error);
+		}
+		span.end();
+	}
+
+	/**
+	 * Runs an async call in a span that is the task's running span until the
+	 * call completes, so the transfer's requests nest under it. The span is also
+	 * current while the call starts, for synchronous work such as a token lookup.
+	 */
+	public <T> CompletableFuture<T> trace(String name, Task task, Supplier<CompletableFuture<T>> call) {
+		if (!enabled) {
+			return call.get();
+		}
+		Span parent = task.getId() != null ? taskSpans.get(task.getId()) : null;
+		Span span = startTask(name, task);
+		CompletableFuture<T> future;
+		try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
+			future = call.get();
+		} catch (RuntimeException e) {
+			finish(task, span, parent, e);
+			throw e;
+		}
+		return future.whenComplete((result, e) -> finish(task, span, parent, e));
+	}
+
+	private void finish(Task task, Span span, Span parent, Throwable error) {
+		if (task.getId() != null) {
+			if (parent != null) {
+				taskSpans.replace(task.getId(), span, parent);
+			} else {
+				taskSpans.remove(task.getId(), span);
+			}
+		}
+		end(span, error);
+	}
+
+	/**
+	 * Wraps a source so each range request is a span, lasting until its stream
+	 * is closed.
+	 */
+	public RangeFetcher tracing(Task task, RangeFetcher fetcher) {
+		if (!enabled) {
+			return fetcher;
+		}
+		return (offset, length) -> {
+			Span span = start("provider.download", task).tag("range.offset", offset).tag("range.length", length);
+			InputStream in;
+			try {
+				in = fetcher.open(offset, length);
+			} catch (IOException | RuntimeException e) {
+				end(span, e);
+				throw e;
+			}
+			return new FilterInputStream(in) {
+				private boolean ended;
+
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					} finally {
+						if (!ended) {
+							ended = true;
+							span.end();
+						}
+					}
+				}
+			};
+		};
+	}
+
+	/**
+	 * Wraps a destination so each chunk upload and the final commit are spans.
+	 */
+	public ChunkSink tracing(Task task, ChunkSink sink) {
+		if (!enabled) {
+			return sink;
+		}
+		return new ChunkSink() {
+			@Override
+			public void write(TransferChunk chunk) throws IOException {
+				Span span = start("provider.upload", task).tag("chunk.offset", chunk.getOffset())
+						.tag("chunk.length", chunk.getLength());
+				try {
+					sink.write(chunk);
+				} catch (IOException | RuntimeException e) {
+					span.error(e);
+					throw e;
+				} finally {
+					span.end();
+				}
+			}
+
+			@Override
+			public void complete(long totalSize) throws IOException {
+				Span span = start("provider.commit", task).tag("size", totalSize);
+				try {
+					sink.complete(totalSize);
+				} catch (IOException | RuntimeException e) {
+					span.error(e);
+					throw e;
+				} finally {
+					span.end();
+				}
+			}
+
+			@Override
+			public String getCommittedHash() {
+				return sink.getCommittedHash();
+			}
+		};
+	}
+
+	private static void tag(Span span, Task task) {
+		if (task.getId() != null) {
+			span.tag("task.id", task.getId());
+		}
+		if (task.getCloudService() != null) {
+			span.tag("provider", task.getCloudService().name());
+		}
+		if (task.getCloudType() != null) {
+			span.tag("task.operation", task.getCloudType().name());
+		}
+		if (task.getSourceAccountId() != null) {
+			span.tag("account.source", task.getSourceAccountId());
+		}
+		if (task.getDestinationAccountId() != null) {
+			span.tag("account.destination", task.getDestinationAccountId());
+		}
+	}
+}
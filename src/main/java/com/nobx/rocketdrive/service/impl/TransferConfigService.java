@@ -0,0 +1,116 @@
+package com.nobx.rocketdrive.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+
+import lombok.Getter;
+
+@Component
+@Getter
+public class TransferConfigService {
+
+	// Shared pool that fetches download ranges for all transfers
+	@Value("${transfer.range.pool-size:16}")
+	private int rangePoolSize;
+
+	// Shared pool for the byte transfers of Dropbox and OneDrive copies, which block on the transfer engine
+	@Value("${transfer.io.pool-size:32}")
+	private int ioPoolSize;
+
+	// Directory for data that does not fit in memory, e.g. fan-out destinations that fall behind
+	@Value("${transfer.spill-dir:${java.io.tmpdir}}")
+	private String spillDir;
+
+	// In-memory backlog allowed per fan-out destination before it spills to disk
+	@Value("${transfer.fanout.memory-per-destination:67108864}")
+	private long fanOutMemoryPerDestination;
+
+	// Global budget for direct buffers holding in-flight data, beyond it data is memory-mapped from spill-dir
+	@Value("${transfer.spool.memory-budget:268435456}")
+	private long spoolMemoryBudget;
+
+	// Failed upload requests are replayed from the spool, without downloading the source again
+	@Value("${transfer.upload.max-attempts:3}")
+	private int uploadMaxAttempts;
+
+	@Value("${transfer.upload.retry-backoff-ms:1000}")
+	private long uploadRetryBackoffMillis;
+
+	// Content-addressed cache of transferred files, disabled when no directory is set
+	@Value("${transfer.cache.dir:}")
+	private String cacheDir;
+
+	@Value("${transfer.cache.max-bytes:10737418240}")
+	private long cacheMaxBytes;
+
+	// Upload bandwidth in bytes per second, 0 means unlimited; adjustable at runtime via /api/transfer/bandwidth
+	@Value("${transfer.bandwidth.global-bytes-per-second:0}")
+	private long bandwidthGlobal;
+
+	@Value("${transfer.bandwidth.provider-bytes-per-second:0}")
+	private long bandwidthPerProvider;
+
+	@Value("${transfer.bandwidth.user-bytes-per-second:0}")
+	private long bandwidthPerUser;
+
+	// Bytes that may pass at once after a limit was idle
+	@Value("${transfer.bandwidth.burst-bytes:1048576}")
+	private long bandwidthBurstBytes;
+
+	// A user's default-rate limit is dropped after it was unused this long, explicit user rates are kept
+	@Value("${transfer.bandwidth.user-idle-ms:600000}")
+	private long bandwidthUserIdleMillis;
+
+	// Open progress event streams are closed after this long and reconnected by the client, 0 means never
+	@Value("${transfer.progress.stream-timeout-ms:1800000}")
+	private long progressStreamTimeoutMillis;
+
+	// Archive tasks: source files fetched ahead of the zip writer, and how much of each is buffered
+	@Value("${transfer.archive.prefetch-files:8}")
+	private int archivePrefetchFiles;
+
+	@Value("${transfer.archive.prefetch-bytes:4194304}")
+	private int archivePrefetchBytes;
+
+	// Deflate level 0-9, already compressed formats (images, video, archives) are always stored
+	@Value("${transfer.archive.compression-level:6}")
+	private int archiveCompressionLevel;
+
+	// Dropbox
+	@Value("${transfer.dropbox.range-size:8388608}")
+	private int dropboxRangeSize;
+
+	@Value("${transfer.dropbox.parallelism:4}")
+	private int dropboxParallelism;
+
+	// OneDrive (range size must be a multiple of 320 KiB for Graph upload sessions)
+	@Value("${transfer.onedrive.range-size:10485760}")
+	private int oneDriveRangeSize;
+
+	@Value("${transfer.onedrive.parallelism:4}")
+	private int oneDriveParallelism;
+
+	public int getRangeSize(CloudServiceEnum cloudService) {
+		switch (cloudService) {
+		case DROPBOX:
+			return dropboxRangeSize;
+		case ONEDRIVE:
+			return oneDriveRangeSize;
+		default:
+			throw new IllegalArgumentException("Ranged transfers are not supported for: " + cloudService);
+		}
+	}
+
+	public int getParallelism(CloudServiceEnum cloudService) {
+		switch (cloudService) {
+		case DROPBOX:
+			return dropboxParallelism;
+		case ONEDRIVE:
+			return oneDriveParallelism;
+		default:
+			throw new IllegalArgumentException("Ranged transfers are not supported for: " + cloudService);
+		}
+	}
+}
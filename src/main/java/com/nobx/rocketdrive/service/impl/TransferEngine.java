@@ -0,0 +1,372 @@
+package com.nobx.rocketdrive.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+import com.nobx.rocketdrive.jfr.TransferChunkEvent;
+import com.nobx.rocketdrive.transfer.ArchiveEntry;
+import com.nobx.rocketdrive.transfer.BandwidthThrottle;
+import com.nobx.rocketdrive.transfer.ChunkSink;
+import com.nobx.rocketdrive.transfer.ContentCache;
+import com.nobx.rocketdrive.transfer.ContentHasher;
+import com.nobx.rocketdrive.transfer.DigestContentHasher;
+import com.nobx.rocketdrive.transfer.DropboxContentHasher;
+import com.nobx.rocketdrive.transfer.FanOutSink;
+import com.nobx.rocketdrive.transfer.IntegrityVerifier;
+import com.nobx.rocketdrive.transfer.QuickXorHasher;
+import com.nobx.rocketdrive.transfer.RangeFetcher;
+import com.nobx.rocketdrive.transfer.RangedDownloader;
+import com.nobx.rocketdrive.transfer.ReplayingSink;
+import com.nobx.rocketdrive.transfer.SpoolArena;
+import com.nobx.rocketdrive.transfer.TransferChunk;
+import com.nobx.rocketdrive.transfer.TransferCheckpoint;
+import com.nobx.rocketdrive.transfer.TransferControl;
+import com.nobx.rocketdrive.transfer.TransferProgress;
+import com.nobx.rocketdrive.transfer.TransferSource;
+import com.nobx.rocketdrive.transfer.ZipStreamer;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves file bytes between providers that cannot copy server-side. The source is
+ * fetched as parallel HTTP ranges and written in order to the destination's
+ * chunked upload, or replayed from the local content cache when it was seen
+ * before. The bytes are hashed as they pass through and checked against the
+ * hashes reported by the source and the destination.
+ */
+@Service
+@Slf4j
+public class TransferEngine {
+
+	@Autowired
+	private TransferConfigService transferConfigService;
+
+	@Autowired
+	private BandwidthService bandwidthService;
+
+	@Autowired
+	private ProgressService progressService;
+
+	@Autowired
+	private TaskControlService taskControlService;
+
+	@Autowired
+	private TracingService tracingService;
+
+	@Autowired
+	private ConcurrencyLimitService concurrencyLimitService;
+
+	@Autowired
+	@Qualifier("rangeExecutorService")
+	private ExecutorService rangeExecutorService;
+
+	@Autowired
+	@Qualifier("uploadExecutorService")
+	private ExecutorService uploadExecutorService;
+
+	private ContentCache contentCache;
+
+	private SpoolArena spoolArena;
+
+	@PostConstruct
+	public void init() throws IOException {
+		spoolArena = new SpoolArena(transferConfigService.getSpoolMemoryBudget(),
+				Path.of(transferConfigService.getSpillDir()));
+
+		String cacheDir = transferConfigService.getCacheDir();
+		if (cacheDir != null && !cacheDir.isBlank()) {
+			contentCache = new ContentCache(Path.of(cacheDir), transferConfigService.getCacheMaxBytes());
+			log.info("Transfer cache enabled in {} ({} bytes in use)", cacheDir, contentCache.getTotalBytes());
+		}
+	}
+
+	/**
+	 * Transfers the source into the sink for a task, with the upload throttled by
+	 * the global, provider and user bandwidth limits and counted as the task's
+	 * progress. A paused task resumes after the last chunk its upload session
+	 * committed, with the sink continuing that session; the finished file is
+	 * then verified by the hash the destination reports against the source's.
+	 */
+	public void transfer(CloudServiceEnum cloudService, Task task, TransferSource source, ChunkSink sink)
+			throws IOException {
+		source = traced(task, source);
+		IntegrityVerifier verifier = verifier(cloudService, source);
+		BandwidthThrottle throttle = bandwidthService.throttle(cloudService, task.getUserId());
+		TransferControl control = taskControlService.control(task);
+		TransferProgress progress = progressService.track(task);
+		ChunkSink destination = progress.counting(
+				replaying(verifier.verifying(throttle.throttling(recorded(task, sink)))));
+
+		long resumeOffset = control.getCheckpoint().getCommittedBytes();
+		if (resumeOffset > 0) {
+			log.info("Resuming {} transfer at {} of {} bytes", cloudService, resumeOffset, source.getSize());
+			progress.add(resumeOffset);
+			// Only the remaining bytes pass through here, so the finished upload's hash is checked against the source's
+			if (source.getContentHash() == null) {
+				log.warn("Resumed {} transfer of task {} is not verified, the source reported no hash", cloudService,
+						task.getId());
+			}
+			rangedDownloader(cloudService).transfer(resumeOffset, source.getSize(), source.getFetcher(), destination,
+					control);
+			return;
+		}
+		download(cloudService, source, verifier, destination, control);
+	}
+
+	/**
+	 * Downloads the source once and uploads it to every sink concurrently. Each
+	 * destination's upload counts against the bandwidth limits on its own, while
+	 * the task's progress counts the bytes once all destinations have taken them.
+	 *
+	 * @return the outcome per sink, in order; {@code null} means that destination
+	 *         succeeded
+	 * @throws IOException if the source itself could not be read
+	 */
+	public List<IOException> transferToAll(CloudServiceEnum cloudService, Task task, TransferSource source,
+			List<? extends ChunkSink> sinks) throws IOException {
+		source = traced(task, source);
+		IntegrityVerifier verifier = verifier(cloudService, source);
+		BandwidthThrottle throttle = bandwidthService.throttle(cloudService, task.getUserId());
+		List<ChunkSink> destinations = new ArrayList<>();
+		for (ChunkSink sink : sinks) {
+			destinations.add(replaying(verifier.verifying(throttle.throttling(recorded(task, sink)))));
+		}
+		FanOutSink fanOut = new FanOutSink(destinations, uploadExecutorService, spoolArena,
+				transferConfigService.getFanOutMemoryPerDestination(), Path.of(transferConfigService.getSpillDir()));
+		try {
+			download(cloudService, source, verifier, progressService.track(task).counting(fanOut),
+					taskControlService.control(task));
+		} catch (IOException e) {
+			fanOut.abort();
+			if (!fanOut.allFailed()) {
+				throw e;
+			}
+		}
+		return fanOut.getFailures();
+	}
+
+	/**
+	 * Streams the entries into one ZIP archive uploaded through the sink, which
+	 * receives the archive in chunks of the provider's range size. Sources are
+	 * prefetched in parallel and nothing is written to local disk. The archive is
+	 * hashed as it is produced and checked against the hash the destination
+	 * reports. A paused archive starts over when resumed, since the compressor's
+	 * state cannot be restored.
+	 *
+	 * @return size of the archive in bytes
+	 */
+	public long archive(CloudServiceEnum cloudService, Task task, List<ArchiveEntry> entries, ChunkSink sink)
+			throws IOException {
+		IntegrityVerifier verifier = new IntegrityVerifier(newHasher(cloudService), null);
+		BandwidthThrottle throttle = bandwidthService.throttle(cloudService, task.getUserId());
+		ChunkSink destination = verifier.hashing(progressService.track(task)
+				.counting(replaying(verifier.verifying(throttle.throttling(recorded(task, sink))))));
+
+		log.info("Archiving {} files for {} into chunks of {} bytes", entries.size(), cloudService,
+				transferConfigService.getRangeSize(cloudService));
+		return new ZipStreamer(rangeExecutorService, uploadExecutorService, spoolArena,
+				transferConfigService.getRangeSize(cloudService), transferConfigService.getArchivePrefetchFiles(),
+				transferConfigService.getArchivePrefetchBytes(), transferConfigService.getArchiveCompressionLevel())
+				.stream(entries, destination, taskControlService.control(task));
+	}
+
+	private void download(CloudServiceEnum cloudService, TransferSource source, IntegrityVerifier verifier,
+			ChunkSink sink, TransferControl control) throws IOException {
+		int rangeSize = transferConfigService.getRangeSize(cloudService);
+		int parallelism = transferConfigService.getParallelism(cloudService);
+
+		String cacheKey = cacheKey(cloudService, source);
+		if (cacheKey != null && contentCache.replay(cacheKey, rangeSize, control.checking(verifier.hashing(sink)))) {
+			log.info("Served {} bytes for {} from the transfer cache", source.getSize(), cloudService);
+			return;
+		}
+
+		log.info("Transferring {} bytes for {} in ranges of {} bytes, {} in flight", source.getSize(), cloudService,
+				rangeSize, parallelism);
+		// Hashing sits before the cache so a corrupt download is neither committed nor cached
+		ChunkSink target = cacheKey != null ? contentCache.populating(cacheKey, source.getSize(), sink) : sink;
+		target = verifier.hashing(target);
+		new RangedDownloader(rangeExecutorService, spoolArena, rangeSize, parallelism).transfer(0, source.getSize(),
+				source.getFetcher(), target, control);
+	}
+
+	/**
+	 * Whether the source can be served from the transfer cache without downloading it.
+	 */
+	public boolean isCached(CloudServiceEnum cloudService, TransferSource source) {
+		String cacheKey = cacheKey(cloudService, source);
+		return cacheKey != null && contentCache.contains(cacheKey);
+	}
+
+	/**
+	 * Stores a file that was downloaded in one piece outside the engine.
+	 */
+	public void cache(CloudServiceEnum cloudService, TransferSource source, ByteBuffer content) {
+		String cacheKey = cacheKey(cloudService, source);
+		if (cacheKey == null) {
+			return;
+		}
+		try {
+			contentCache.put(cacheKey, content);
+		} catch (IOException e) {
+			log.warn("Could not store {} file in the transfer cache: {}", cloudService, e.getMessage());
+		}
+	}
+
+	/**
+	 * Creates a hasher for the provider's native content hash format.
+	 */
+	public ContentHasher newHasher(CloudServiceEnum cloudService) {
+		switch (cloudService) {
+		case DROPBOX:
+			return new DropboxContentHasher();
+		case ONEDRIVE:
+			return new QuickXorHasher();
+		case GOOGLE_DRIVE:
+			return new DigestContentHasher("MD5");
+		default:
+			throw new IllegalArgumentException("Content hashing is not supported for: " + cloudService);
+		}
+	}
+
+	/**
+	 * Resume point for the task's upload, to be passed to a sink that can
+	 * continue an upload session.
+	 */
+	public TransferCheckpoint checkpoint(Task task) {
+		return taskControlService.control(task).getCheckpoint();
+	}
+
+	/**
+	 * Wraps an upload stream that does not go through the engine, e.g. a small
+	 * file sent in one request, in the task's bandwidth limits and progress.
+	 */
+	public InputStream uploadStream(CloudServiceEnum cloudService, Task task, InputStream in) {
+		return bandwidthService.throttle(cloudService, task.getUserId())
+				.wrap(progressService.track(task).counting(in));
+	}
+
+	/**
+	 * Takes back progress counted for bytes that will be uploaded again, e.g. by
+	 * a request replayed after the attempt sending them failed.
+	 */
+	public void discardProgress(Task task, long bytes) {
+		progressService.track(task).add(-bytes);
+	}
+
+	/**
+	 * Buffers for in-flight transfer data, bounded by a global memory budget.
+	 */
+	public SpoolArena getSpoolArena() {
+		return spoolArena;
+	}
+
+	/**
+	 * Number of times a failed upload request is replayed from the spool before
+	 * the transfer gives up.
+	 */
+	public int getUploadMaxAttempts() {
+		return transferConfigService.getUploadMaxAttempts();
+	}
+
+	/**
+	 * The transfer cache, or {@code null} when it is disabled.
+	 */
+	public ContentCache getContentCache() {
+		return contentCache;
+	}
+
+	// Each range request of the source becomes a JFR event, and a span of the task when tracing is enabled
+	private TransferSource traced(Task task, TransferSource source) {
+		RangeFetcher fetcher = TransferChunkEvent.recording(chunkEvent(task), sampled(task, source.getFetcher()));
+		return new TransferSource(source.getSize(), source.getContentHash(), source.getVersion(),
+				tracingService.tracing(task, fetcher));
+	}
+
+	// Innermost around the provider's upload, so neither includes throttling or hashing
+	private ChunkSink recorded(Task task, ChunkSink sink) {
+		return TransferChunkEvent.recording(chunkEvent(task), tracingService.tracing(task, sampled(task, sink)));
+	}
+
+	// A range request is timed until its response starts, the body is read at the pace of the upload
+	private RangeFetcher sampled(Task task, RangeFetcher fetcher) {
+		return (offset, length) -> {
+			long start = System.nanoTime();
+			try {
+				return fetcher.open(offset, length);
+			} finally {
+				concurrencyLimitService.sample(task.getCloudService(), System.nanoTime() - start);
+			}
+		};
+	}
+
+	// Each chunk written is one upload request, as is the commit
+	private ChunkSink sampled(Task task, ChunkSink sink) {
+		return new ChunkSink() {
+			@Override
+			public void write(TransferChunk chunk) throws IOException {
+				long start = System.nanoTime();
+				try {
+					sink.write(chunk);
+				} finally {
+					concurrencyLimitService.sample(task.getCloudService(), System.nanoTime() - start);
+				}
+			}
+
+			@Override
+			public void complete(long totalSize) throws IOException {
+				long start = System.nanoTime();
+				try {
+					sink.complete(totalSize);
+				} finally {
+					concurrencyLimitService.sample(task.getCloudService(), System.nanoTime() - start);
+				}
+			}
+
+			@Override
+			public String getCommittedHash() {
+				return sink.getCommittedHash();
+			}
+		};
+	}
+
+	private static TransferChunkEvent chunkEvent(Task task) {
+		TransferChunkEvent context = new TransferChunkEvent();
+		context.describe(task.getId(), task.getCloudService(), task.getCloudType());
+		return context;
+	}
+
+	private ChunkSink replaying(ChunkSink sink) {
+		return new ReplayingSink(sink, transferConfigService.getUploadMaxAttempts(),
+				transferConfigService.getUploadRetryBackoffMillis());
+	}
+
+	private RangedDownloader rangedDownloader(CloudServiceEnum cloudService) {
+		return new RangedDownloader(rangeExecutorService, spoolArena, transferConfigService.getRangeSize(cloudService),
+				transferConfigService.getParallelism(cloudService));
+	}
+
+	private IntegrityVerifier verifier(CloudServiceEnum cloudService, TransferSource source) {
+		return new IntegrityVerifier(newHasher(cloudService), source.getContentHash());
+	}
+
+	private String cacheKey(CloudServiceEnum cloudService, TransferSource source) {
+		if (contentCache == null || source.getContentHash() == null) {
+			return null;
+		}
+		String version = source.getVersion() != null ? source.getVersion() : "";
+		return ContentCache.key(cloudService.name(), source.getContentHash(), version);
+	}
+}
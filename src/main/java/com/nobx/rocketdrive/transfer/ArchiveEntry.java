@@ -0,0 +1,39 @@
+package com.nobx.rocketdrive.transfer;
+
+/**
+ * A source file to be written into an archive: its path inside the archive,
+ * its size and how to fetch ranges of it.
+ */
+public class ArchiveEntry {
+
+    private final String name;
+    private final long size;
+    private final long lastModified;
+    private final RangeFetcher fetcher;
+
+    /**
+     * @param lastModified modification time in epoch milliseconds, or -1 if unknown
+     */
+    public ArchiveEntry(String name, long size, long lastModified, RangeFetcher fetcher) {
+        this.name = name;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.fetcher = fetcher;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public RangeFetcher getFetcher() {
+        return fetcher;
+    }
+}
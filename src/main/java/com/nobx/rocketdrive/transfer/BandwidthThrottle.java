@@ -0,0 +1,143 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import com.nobx.rocketdrive.jfr.ThrottleEvent;
+
+/**
+ * Applies several byte rate limits at once, e.g. global, per provider and per
+ * user. Bytes are reserved from every limiter and the caller waits for the
+ * slowest, so no limit is exceeded.
+ */
+public class BandwidthThrottle {
+
+    private static final BandwidthThrottle UNLIMITED = new BandwidthThrottle(List.of());
+
+    /**
+     * Blocks the calling thread for a number of nanoseconds.
+     */
+    interface Waiter {
+        void await(long nanos) throws InterruptedIOException;
+    }
+
+    private final List<ByteRateLimiter> limiters;
+
+    // Provider the limits apply to, recorded with the waits
+    private final String provider;
+
+    private final Waiter waiter;
+
+    public BandwidthThrottle(List<ByteRateLimiter> limiters) {
+        this(limiters, null);
+    }
+
+    public BandwidthThrottle(List<ByteRateLimiter> limiters, String provider) {
+        this(limiters, provider, BandwidthThrottle::park);
+    }
+
+    /**
+     * @param waiter waits for the time the limiters ask for; the limiters' clock
+     *               has to advance by that time
+     */
+    BandwidthThrottle(List<ByteRateLimiter> limiters, String provider, Waiter waiter) {
+        this.limiters = List.copyOf(limiters);
+        this.provider = provider;
+        this.waiter = waiter;
+    }
+
+    public static BandwidthThrottle unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * Blocks until {@code bytes} may be sent under every limit.
+     */
+    public void acquire(long bytes) throws InterruptedIOException {
+        long delay = reserve(bytes);
+        if (delay <= 0) {
+            return;
+        }
+        ThrottleEvent event = new ThrottleEvent();
+        event.begin();
+        try {
+            waiter.await(delay);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.provider = provider;
+                event.bytes = bytes;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Reserves {@code bytes} from every limiter and returns the wait of the
+     * slowest, in nanoseconds.
+     */
+    long reserve(long bytes) {
+        long delay = 0;
+        for (ByteRateLimiter limiter : limiters) {
+            delay = Math.max(delay, limiter.reserve(bytes));
+        }
+        return delay;
+    }
+
+    private static void park(long nanos) throws InterruptedIOException {
+        long deadline = System.nanoTime() + nanos;
+        long delay = nanos;
+        while (delay > 0) {
+            LockSupport.parkNanos(delay);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while throttling transfer");
+            }
+            delay = deadline - System.nanoTime();
+        }
+    }
+
+    public InputStream wrap(InputStream in) {
+        return limiters.isEmpty() ? in : new ThrottledInputStream(in, this);
+    }
+
+    /**
+     * Wraps a sink so the streams it opens over each chunk are throttled.
+     */
+    public ChunkSink throttling(ChunkSink delegate) {
+        if (limiters.isEmpty()) {
+            return delegate;
+        }
+        return new ChunkSink() {
+            @Override
+            public void write(TransferChunk chunk) throws IOException {
+                TransferChunk throttled = new TransferChunk(chunk.getOffset(), chunk.getData(), chunk::release) {
+                    @Override
+                    public InputStream openStream() {
+                        return wrap(super.openStream());
+                    }
+                };
+                // The view holds a reference to the original for as long as it is kept
+                chunk.retain();
+                try {
+                    delegate.write(throttled);
+                } finally {
+                    throttled.release();
+                }
+            }
+
+            @Override
+            public void complete(long totalSize) throws IOException {
+                delegate.complete(totalSize);
+            }
+
+            @Override
+            public String getCommittedHash() {
+                return delegate.getCommittedHash();
+            }
+        };
+    }
+}
@@ -0,0 +1,94 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free byte rate limiter using the generic cell rate algorithm: a single
+ * theoretical arrival time advances by the time each reservation is worth at
+ * the current rate, so reserving is one compare-and-set. The rate can be
+ * changed at any time and applies from the next reservation.
+ */
+public class ByteRateLimiter {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private volatile long bytesPerSecond;
+    private volatile long burstBytes;
+    private final LongSupplier nanoClock;
+    private final AtomicLong theoreticalArrival;
+    private volatile long lastUsed;
+
+    /**
+     * @param bytesPerSecond the rate, or 0 for no limit
+     * @param burstBytes     bytes that may pass at once after an idle period
+     */
+    public ByteRateLimiter(long bytesPerSecond, long burstBytes) {
+        this(bytesPerSecond, burstBytes, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock source of the current time in nanoseconds, as
+     *                  {@link System#nanoTime()}
+     */
+    public ByteRateLimiter(long bytesPerSecond, long burstBytes, LongSupplier nanoClock) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.burstBytes = burstBytes;
+        this.nanoClock = nanoClock;
+        this.theoreticalArrival = new AtomicLong(nanoClock.getAsLong());
+        this.lastUsed = theoreticalArrival.get();
+    }
+
+    /**
+     * Accounts for {@code bytes} and returns how long the caller must wait
+     * before sending them, in nanoseconds.
+     */
+    public long reserve(long bytes) {
+        touch();
+        long rate = bytesPerSecond;
+        if (rate <= 0) {
+            return 0;
+        }
+        long cost = bytes * NANOS_PER_SECOND / rate;
+        long burst = burstBytes * NANOS_PER_SECOND / rate;
+        for (;;) {
+            long now = nanoClock.getAsLong();
+            long arrival = theoreticalArrival.get();
+            // Idle time earns credit, up to the burst
+            long next = Math.max(arrival, now - burst) + cost;
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return Math.max(0, next - now);
+            }
+        }
+    }
+
+    /**
+     * Marks the limiter as in use without reserving anything.
+     */
+    public void touch() {
+        lastUsed = nanoClock.getAsLong();
+    }
+
+    /**
+     * Nanoseconds since the limiter was last used.
+     */
+    public long getIdleNanos() {
+        return nanoClock.getAsLong() - lastUsed;
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public void setBytesPerSecond(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    public long getBurstBytes() {
+        return burstBytes;
+    }
+
+    public void setBurstBytes(long burstBytes) {
+        this.burstBytes = burstBytes;
+    }
+}
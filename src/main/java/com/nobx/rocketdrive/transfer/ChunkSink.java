@@ -0,0 +1,25 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.io.IOException;
+
+/**
+ * Destination side of a transfer. Chunks are always delivered in offset order,
+ * so implementations can append them to a chunked or resumable upload session.
+ */
+public interface ChunkSink {
+
+    void write(TransferChunk chunk) throws IOException;
+
+    /**
+     * Called once after the last chunk has been written, to commit the upload.
+     */
+    void complete(long totalSize) throws IOException;
+
+    /**
+     * Content hash the destination reported for the committed file, in the
+     * provider's native format, or {@code null} if it reports none.
+     */
+    default String getCommittedHash() {
+        return null;
+    }
+}
@@ -0,0 +1,158 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Cuts a stream of unknown length into fixed size chunks for a sink, e.g. to
+ * upload generated content through a chunked upload session. The sink writes
+ * a full chunk on the executor while the next one is being filled, so at most
+ * two chunk buffers are held at a time.
+ */
+public class ChunkingOutputStream extends OutputStream {
+
+    private final ChunkSink sink;
+    private final SpoolArena arena;
+    private final ExecutorService executor;
+    private final int chunkSize;
+
+    private SpoolBuffer current;
+    private long offset;
+    private Future<?> inFlight;
+    private boolean finished;
+
+    public ChunkingOutputStream(ChunkSink sink, SpoolArena arena, ExecutorService executor, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.sink = sink;
+        this.arena = arena;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        buffer().put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            ByteBuffer buffer = buffer();
+            int n = Math.min(len, buffer.remaining());
+            buffer.put(b, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Hands the last, possibly partial chunk to the sink, waits for all chunks
+     * to be written and completes the sink.
+     *
+     * @return total number of bytes written
+     */
+    public long finish() throws IOException {
+        if (finished) {
+            return offset;
+        }
+        if (current != null && current.buffer().position() > 0) {
+            emit();
+        }
+        awaitInFlight();
+        finished = true;
+        sink.complete(offset);
+        return offset;
+    }
+
+    /**
+     * Releases the chunk being filled and waits for the one in flight, without
+     * completing the sink. Used when the content cannot be produced after all.
+     */
+    public void abort() {
+        finished = true;
+        if (current != null) {
+            current.release();
+            current = null;
+        }
+        if (inFlight != null) {
+            try {
+                awaitInFlight();
+            } catch (IOException e) {
+                // The content is being abandoned anyway
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    // Buffer with room for at least one byte, handing the full one to the sink first
+    private ByteBuffer buffer() throws IOException {
+        if (finished) {
+            throw new IOException("Stream already finished");
+        }
+        if (current != null && !current.buffer().hasRemaining()) {
+            emit();
+        }
+        if (current == null) {
+            current = arena.allocate(chunkSize);
+            current.buffer().limit(chunkSize);
+        }
+        return current.buffer();
+    }
+
+    private void emit() throws IOException {
+        SpoolBuffer spool = current;
+        current = null;
+        ByteBuffer data = spool.buffer();
+        data.flip();
+        TransferChunk chunk = new TransferChunk(offset, data, spool::release);
+        offset += chunk.getLength();
+
+        // Keeps chunks in offset order: the next write starts only after the previous one is done
+        try {
+            awaitInFlight();
+        } catch (IOException e) {
+            chunk.release();
+            throw e;
+        }
+        inFlight = executor.submit(() -> {
+            try {
+                sink.write(chunk);
+            } finally {
+                chunk.release();
+            }
+            return null;
+        });
+    }
+
+    private void awaitInFlight() throws IOException {
+        if (inFlight == null) {
+            return;
+        }
+        Future<?> pending = inFlight;
+        inFlight = null;
+        try {
+            pending.get();
+        } catch (InterruptedException e) {
+            pending.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for chunk upload");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Chunk upload failed: " + cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * On-disk cache of transferred files, addressed by provider content hash and
+ * version, so repeated copies of the same file skip the source download.
+ *
+ * Entries are evicted least recently used first once the total size exceeds
+ * {@code maxBytes}. Hits are served from memory-mapped regions of the cache file,
+ * so the bytes go from the page cache to the upload without a heap copy.
+ */
+public class ContentCache {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxBytes;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ContentCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        load();
+    }
+
+    /**
+     * Builds a cache key from the parts that identify a file's content, e.g.
+     * provider, content hash and version.
+     */
+    public static String key(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public synchronized boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Writes a cached file to the sink in chunks of {@code chunkSize}.
+     *
+     * @return false if the file is not cached, in which case nothing was written
+     */
+    public boolean replay(String key, int chunkSize, ChunkSink sink) throws IOException {
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                return false;
+            }
+        }
+
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(path(key), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            // Evicted between the lookup and the open
+            remove(key);
+            return false;
+        }
+
+        try (channel) {
+            long size = channel.size();
+            for (long offset = 0; offset < size; offset += chunkSize) {
+                int length = (int) Math.min(chunkSize, size - offset);
+                sink.write(new TransferChunk(offset, channel.map(FileChannel.MapMode.READ_ONLY, offset, length)));
+            }
+            sink.complete(size);
+            hits.incrementAndGet();
+            bytesSaved.addAndGet(size);
+            return true;
+        } catch (IntegrityException e) {
+            // Do not trust the cached copy again, the next transfer downloads from the source
+            remove(key);
+            Files.deleteIfExists(path(key));
+            throw e;
+        }
+    }
+
+    /**
+     * Wraps a sink so the chunks passing through it are also written to the cache.
+     * The entry becomes visible only once the transfer completes.
+     */
+    public ChunkSink populating(String key, long size, ChunkSink delegate) throws IOException {
+        misses.incrementAndGet();
+        if (size > maxBytes) {
+            return delegate;
+        }
+        return new PopulatingSink(key, delegate);
+    }
+
+    /**
+     * Stores a file that was transferred in one piece.
+     */
+    public void put(String key, ByteBuffer data) throws IOException {
+        misses.incrementAndGet();
+        if (data.remaining() > maxBytes) {
+            return;
+        }
+        Path temp = Files.createTempFile(directory, key + "-", TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            ByteBuffer source = data.duplicate();
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        }
+        commit(key, temp);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private void commit(String key, Path temp) throws IOException {
+        Path target = path(key);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        register(key, Files.size(target));
+    }
+
+    private synchronized void register(String key, long size) {
+        Long previous = entries.put(key, size);
+        totalBytes += size - (previous == null ? 0 : previous);
+        evict();
+    }
+
+    private synchronized void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+        }
+    }
+
+    private synchronized void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue();
+            evictions.incrementAndGet();
+            try {
+                // Readers that already opened the file keep their mapping
+                Files.deleteIfExists(path(eldest.getKey()));
+            } catch (IOException e) {
+                // Left for the next startup scan
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        files.sort(Comparator.comparingLong(file -> file.toFile().lastModified()));
+        for (Path file : files) {
+            register(file.getFileName().toString(), Files.size(file));
+        }
+    }
+
+    private Path path(String key) {
+        return directory.resolve(key);
+    }
+
+    private class PopulatingSink implements ChunkSink {
+
+        private final String key;
+        private final ChunkSink delegate;
+        private final Path temp;
+        private final FileChannel channel;
+
+        PopulatingSink(String key, ChunkSink delegate) throws IOException {
+            this.key = key;
+            this.delegate = delegate;
+            this.temp = Files.createTempFile(directory, key + "-", TEMP_SUFFIX);
+            this.channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+        }
+
+        @Override
+        public void write(TransferChunk chunk) throws IOException {
+            try {
+                ByteBuffer data = chunk.getData();
+                long position = chunk.getOffset();
+                while (data.hasRemaining()) {
+                    position += channel.write(data, position);
+                }
+                delegate.write(chunk);
+            } catch (IOException | RuntimeException e) {
+                discard();
+                throw e;
+            }
+        }
+
+        @Override
+        public void complete(long totalSize) throws IOException {
+            try {
+                channel.close();
+                commit(key, temp);
+            } catch (IOException e) {
+                discard();
+            }
+            delegate.complete(totalSize);
+        }
+
+        private void discard() {
+            try {
+                channel.close();
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                // Temp files are cleaned up by the next startup scan
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Incremental content hash in a provider's native format, fed with the bytes of
+ * a transfer in order as they stream through.
+ */
+public interface ContentHasher {
+
+    void update(ByteBuffer data);
+
+    /**
+     * Finishes the hash. The hasher must not be updated afterwards.
+     */
+    String digest();
+
+    /**
+     * Compares a finished digest with one reported by a provider.
+     */
+    default boolean matches(String digest, String reported) {
+        return digest.equalsIgnoreCase(reported);
+    }
+}
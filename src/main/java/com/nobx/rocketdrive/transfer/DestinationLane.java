@@ -0,0 +1,196 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Per-destination queue of a fan-out transfer, drained by its own upload thread.
+ *
+ * Chunks are kept in memory up to {@code memoryLimit} bytes. Beyond that they are
+ * appended to a spill file, so a slow destination falls behind on disk instead of
+ * holding back the download for everyone else. Once spilling starts, every later
+ * chunk goes to disk until the spill is drained, which keeps delivery in order.
+ */
+class DestinationLane implements Runnable {
+
+    private final ChunkSink sink;
+    private final SpoolArena arena;
+    private final long memoryLimit;
+    private final Path spillDirectory;
+
+    private final Deque<TransferChunk> memory = new ArrayDeque<>();
+    private final Deque<long[]> spilled = new ArrayDeque<>();
+    private long memoryBytes;
+    private FileChannel spill;
+    private Path spillFile;
+    private long spillPosition;
+
+    private boolean finished;
+    private boolean aborted;
+    private boolean done;
+    private long totalSize;
+    private volatile IOException failure;
+
+    DestinationLane(ChunkSink sink, SpoolArena arena, long memoryLimit, Path spillDirectory) {
+        this.sink = sink;
+        this.arena = arena;
+        this.memoryLimit = memoryLimit;
+        this.spillDirectory = spillDirectory;
+    }
+
+    synchronized void offer(TransferChunk chunk) {
+        if (failure != null || aborted) {
+            return;
+        }
+        if (spilled.isEmpty() && (memory.isEmpty() || memoryBytes + chunk.getLength() <= memoryLimit)) {
+            memory.addLast(chunk.retain());
+            memoryBytes += chunk.getLength();
+        } else {
+            try {
+                spillChunk(chunk);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        notifyAll();
+    }
+
+    synchronized void finish(long totalSize) {
+        this.totalSize = totalSize;
+        this.finished = true;
+        notifyAll();
+    }
+
+    synchronized void abort() {
+        aborted = true;
+        notifyAll();
+    }
+
+    synchronized void awaitDone() throws InterruptedException {
+        while (!done) {
+            wait();
+        }
+    }
+
+    boolean hasFailed() {
+        return failure != null;
+    }
+
+    IOException getFailure() {
+        return failure;
+    }
+
+    @Override
+    public void run() {
+        try {
+            TransferChunk chunk;
+            while ((chunk = take()) != null) {
+                try {
+                    sink.write(chunk);
+                } finally {
+                    chunk.release();
+                }
+            }
+            if (failure == null && !isAborted()) {
+                sink.complete(totalSize);
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            failure = new IOException("Upload interrupted", e);
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            failure = new IOException(e.getMessage(), e);
+        } finally {
+            synchronized (this) {
+                memory.forEach(TransferChunk::release);
+                memory.clear();
+                spilled.clear();
+                done = true;
+                notifyAll();
+            }
+            deleteSpill();
+        }
+    }
+
+    private TransferChunk take() throws IOException, InterruptedException {
+        long[] region;
+        synchronized (this) {
+            while (memory.isEmpty() && spilled.isEmpty() && !finished && !aborted && failure == null) {
+                wait();
+            }
+            if (aborted || failure != null) {
+                return null;
+            }
+            if (!memory.isEmpty()) {
+                TransferChunk chunk = memory.pollFirst();
+                memoryBytes -= chunk.getLength();
+                return chunk;
+            }
+            if (spilled.isEmpty()) {
+                return null;
+            }
+            region = spilled.pollFirst();
+        }
+        // Spilled regions are never rewritten, so they can be read without the lock
+        return readSpilled(region[0], region[1], (int) region[2]);
+    }
+
+    private synchronized boolean isAborted() {
+        return aborted;
+    }
+
+    private void spillChunk(TransferChunk chunk) throws IOException {
+        if (spill == null) {
+            spillFile = Files.createTempFile(spillDirectory, "fanout-", ".spill");
+            spill = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        ByteBuffer data = chunk.getData();
+        long position = spillPosition;
+        while (data.hasRemaining()) {
+            position += spill.write(data, position);
+        }
+        spilled.addLast(new long[] { spillPosition, chunk.getOffset(), chunk.getLength() });
+        spillPosition = position;
+    }
+
+    private TransferChunk readSpilled(long filePosition, long chunkOffset, int length) throws IOException {
+        SpoolBuffer spool = arena.allocate(length);
+        ByteBuffer data = spool.buffer();
+        data.limit(length);
+        long position = filePosition;
+        try {
+            while (data.hasRemaining()) {
+                int read = spill.read(data, position);
+                if (read < 0) {
+                    throw new IOException("Spill file truncated at " + position);
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            spool.release();
+            throw e;
+        }
+        data.flip();
+        return new TransferChunk(chunkOffset, data, spool::release);
+    }
+
+    private void deleteSpill() {
+        try {
+            if (spill != null) {
+                spill.close();
+            }
+            if (spillFile != null) {
+                Files.deleteIfExists(spillFile);
+            }
+        } catch (IOException e) {
+            // Best effort, the file lives in a temp directory
+        }
+    }
+}
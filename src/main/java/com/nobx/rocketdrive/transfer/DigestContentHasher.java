@@ -0,0 +1,33 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Plain {@link MessageDigest} hash as lowercase hex, e.g. the MD5 or SHA-256
+ * checksums Google Drive reports.
+ */
+public class DigestContentHasher implements ContentHasher {
+
+    private final MessageDigest digest;
+
+    public DigestContentHasher(String algorithm) {
+        try {
+            this.digest = MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Unsupported digest algorithm: " + algorithm, e);
+        }
+    }
+
+    @Override
+    public void update(ByteBuffer data) {
+        digest.update(data.duplicate());
+    }
+
+    @Override
+    public String digest() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,57 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Dropbox {@code content_hash}: the file is split into 4 MiB blocks, each block
+ * is hashed with SHA-256, and the hex result is the SHA-256 of the concatenated
+ * block hashes.
+ */
+public class DropboxContentHasher implements ContentHasher {
+
+    private static final int BLOCK_SIZE = 4 * 1024 * 1024;
+
+    private final MessageDigest overall = sha256();
+    private final MessageDigest block = sha256();
+    private int blockFill;
+
+    @Override
+    public void update(ByteBuffer data) {
+        ByteBuffer remaining = data.duplicate();
+        while (remaining.hasRemaining()) {
+            int take = Math.min(BLOCK_SIZE - blockFill, remaining.remaining());
+            ByteBuffer slice = remaining.slice();
+            slice.limit(take);
+            block.update(slice);
+            remaining.position(remaining.position() + take);
+            blockFill += take;
+            if (blockFill == BLOCK_SIZE) {
+                finishBlock();
+            }
+        }
+    }
+
+    @Override
+    public String digest() {
+        if (blockFill > 0) {
+            finishBlock();
+        }
+        return HexFormat.of().formatHex(overall.digest());
+    }
+
+    private void finishBlock() {
+        overall.update(block.digest());
+        blockFill = 0;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Tees one download into several destination sinks. Each destination is drained
+ * by its own thread with its own bounded memory, spilling to disk when it falls
+ * behind, so the slowest upload never throttles the download or its siblings.
+ *
+ * Destination failures are isolated: {@link #getFailures()} reports the outcome
+ * of each sink in the order they were given.
+ */
+public class FanOutSink implements ChunkSink {
+
+    private final List<DestinationLane> lanes = new ArrayList<>();
+
+    public FanOutSink(List<? extends ChunkSink> sinks, ExecutorService executor, SpoolArena arena,
+            long memoryPerDestination, Path spillDirectory) {
+        for (ChunkSink sink : sinks) {
+            DestinationLane lane = new DestinationLane(sink, arena, memoryPerDestination, spillDirectory);
+            lanes.add(lane);
+            executor.execute(lane);
+        }
+    }
+
+    @Override
+    public void write(TransferChunk chunk) throws IOException {
+        if (allFailed()) {
+            throw new IOException("All destinations failed, aborting download");
+        }
+        for (DestinationLane lane : lanes) {
+            lane.offer(chunk);
+        }
+    }
+
+    @Override
+    public void complete(long totalSize) throws IOException {
+        for (DestinationLane lane : lanes) {
+            lane.finish(totalSize);
+        }
+        awaitLanes();
+    }
+
+    /**
+     * Stops all destinations after the source side failed.
+     */
+    public void abort() throws IOException {
+        for (DestinationLane lane : lanes) {
+            lane.abort();
+        }
+        awaitLanes();
+    }
+
+    public boolean allFailed() {
+        return lanes.stream().allMatch(DestinationLane::hasFailed);
+    }
+
+    /**
+     * Per-destination outcome, {@code null} for a destination that succeeded.
+     */
+    public List<IOException> getFailures() {
+        List<IOException> failures = new ArrayList<>();
+        for (DestinationLane lane : lanes) {
+            failures.add(lane.getFailure());
+        }
+        return failures;
+    }
+
+    private void awaitLanes() throws IOException {
+        try {
+            for (DestinationLane lane : lanes) {
+                lane.awaitDone();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for uploads to finish");
+        }
+    }
+}
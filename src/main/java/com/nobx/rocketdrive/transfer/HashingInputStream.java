@@ -0,0 +1,49 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Input stream that feeds every byte read through it to a {@link ContentHasher},
+ * for uploads that take a stream rather than chunks.
+ */
+public class HashingInputStream extends FilterInputStream {
+
+    private final ContentHasher hasher;
+
+    public HashingInputStream(InputStream in, ContentHasher hasher) {
+        super(in);
+        this.hasher = hasher;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            hasher.update(ByteBuffer.wrap(new byte[] { (byte) b }));
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int n = in.read(buffer, offset, length);
+        if (n > 0) {
+            hasher.update(ByteBuffer.wrap(buffer, offset, n));
+        }
+        return n;
+    }
+
+    // Skipped bytes would be missing from the hash
+    @Override
+    public long skip(long n) throws IOException {
+        throw new IOException("Cannot skip a hashed stream");
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
@@ -0,0 +1,15 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.io.IOException;
+
+/**
+ * The bytes of a transfer did not hash to what the source or destination reported.
+ */
+public class IntegrityException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public IntegrityException(String message) {
+        super(message);
+    }
+}
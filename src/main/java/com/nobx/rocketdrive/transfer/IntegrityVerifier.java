@@ -0,0 +1,84 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.io.IOException;
+
+/**
+ * Verifies a transfer inline, without a second read pass. The bytes are hashed
+ * as they flow from the source, the result is checked against the source's hash
+ * before the upload is committed, and each destination's reported hash is then
+ * checked against it.
+ */
+public class IntegrityVerifier {
+
+    private final ContentHasher hasher;
+    private final String sourceHash;
+    private volatile String transferredHash;
+
+    /**
+     * @param sourceHash hash reported by the source, or {@code null} if unknown
+     */
+    public IntegrityVerifier(ContentHasher hasher, String sourceHash) {
+        this.hasher = hasher;
+        this.sourceHash = sourceHash;
+    }
+
+    /**
+     * Wraps the sink receiving the source bytes, which must see every chunk in order.
+     */
+    public ChunkSink hashing(ChunkSink downstream) {
+        return new ChunkSink() {
+            @Override
+            public void write(TransferChunk chunk) throws IOException {
+                hasher.update(chunk.getData());
+                downstream.write(chunk);
+            }
+
+            @Override
+            public void complete(long totalSize) throws IOException {
+                String digest = hasher.digest();
+                if (sourceHash != null && !hasher.matches(digest, sourceHash)) {
+                    throw new IntegrityException("Integrity check failed: source reported hash " + sourceHash
+                            + " but the transferred bytes hash to " + digest);
+                }
+                transferredHash = digest;
+                downstream.complete(totalSize);
+            }
+        };
+    }
+
+    /**
+     * Wraps a destination sink, checking the hash it reports after committing.
+     * When the bytes were not hashed here, as for an upload resumed part way,
+     * the destination is checked against the source's hash instead.
+     */
+    public ChunkSink verifying(ChunkSink destination) {
+        return new ChunkSink() {
+            @Override
+            public void write(TransferChunk chunk) throws IOException {
+                destination.write(chunk);
+            }
+
+            @Override
+            public void complete(long totalSize) throws IOException {
+                destination.complete(totalSize);
+                String reported = destination.getCommittedHash();
+                if (reported == null) {
+                    return;
+                }
+                if (transferredHash != null) {
+                    if (!hasher.matches(transferredHash, reported)) {
+                        throw new IntegrityException("Integrity check failed: destination reported hash " + reported
+                                + " but the transferred bytes hash to " + transferredHash);
+                    }
+                } else if (sourceHash != null && !hasher.matches(sourceHash, reported)) {
+                    throw new IntegrityException("Integrity check failed: destination reported hash " + reported
+                            + " but the source reported " + sourceHash);
+                }
+            }
+        };
+    }
+
+    public String getTransferredHash() {
+        return transferredHash;
+    }
+}
@@ -0,0 +1,100 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * OneDrive / SharePoint QuickXorHash: bytes are XORed into a 160 bit register,
+ * each one shifted 11 bits further than the previous, and the file length is
+ * XORed into the last 64 bits. The result is reported base64 encoded.
+ *
+ * Port of Microsoft's reference implementation.
+ */
+public class QuickXorHasher implements ContentHasher {
+
+    private static final int WIDTH_IN_BITS = 160;
+    private static final int SHIFT = 11;
+    private static final int BITS_IN_LAST_CELL = WIDTH_IN_BITS % 64;
+
+    private final long[] data = new long[(WIDTH_IN_BITS - 1) / 64 + 1];
+    private final byte[] scratch = new byte[64 * 1024];
+    private int shiftSoFar;
+    private long lengthSoFar;
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        ByteBuffer input = buffer.duplicate();
+        while (input.hasRemaining()) {
+            int length = Math.min(scratch.length, input.remaining());
+            input.get(scratch, 0, length);
+            update(scratch, length);
+        }
+    }
+
+    private void update(byte[] array, int size) {
+        int currentShift = shiftSoFar;
+        int vectorArrayIndex = currentShift / 64;
+        int vectorOffset = currentShift % 64;
+        int iterations = Math.min(size, WIDTH_IN_BITS);
+
+        for (int i = 0; i < iterations; i++) {
+            boolean isLastCell = vectorArrayIndex == data.length - 1;
+            int bitsInVectorCell = isLastCell ? BITS_IN_LAST_CELL : 64;
+
+            if (vectorOffset <= bitsInVectorCell - 8) {
+                for (int j = i; j < size; j += WIDTH_IN_BITS) {
+                    data[vectorArrayIndex] ^= (long) (array[j] & 0xFF) << vectorOffset;
+                }
+            } else {
+                int index1 = vectorArrayIndex;
+                int index2 = isLastCell ? 0 : vectorArrayIndex + 1;
+                int low = bitsInVectorCell - vectorOffset;
+
+                int xoredByte = 0;
+                for (int j = i; j < size; j += WIDTH_IN_BITS) {
+                    xoredByte ^= array[j] & 0xFF;
+                }
+                data[index1] ^= (long) xoredByte << vectorOffset;
+                data[index2] ^= (long) xoredByte >>> low;
+            }
+
+            vectorOffset += SHIFT;
+            while (vectorOffset >= bitsInVectorCell) {
+                vectorArrayIndex = isLastCell ? 0 : vectorArrayIndex + 1;
+                vectorOffset -= bitsInVectorCell;
+            }
+        }
+
+        shiftSoFar = (int) ((shiftSoFar + (long) SHIFT * (size % WIDTH_IN_BITS)) % WIDTH_IN_BITS);
+        lengthSoFar += size;
+    }
+
+    @Override
+    public String digest() {
+        byte[] result = new byte[(WIDTH_IN_BITS - 1) / 8 + 1];
+        for (int i = 0; i < data.length - 1; i++) {
+            putLittleEndian(data[i], result, i * 8, 8);
+        }
+        int last = data.length - 1;
+        putLittleEndian(data[last], result, last * 8, result.length - last * 8);
+
+        byte[] length = new byte[8];
+        putLittleEndian(lengthSoFar, length, 0, 8);
+        for (int i = 0; i < length.length; i++) {
+            result[WIDTH_IN_BITS / 8 - length.length + i] ^= length[i];
+        }
+        return Base64.getEncoder().encodeToString(result);
+    }
+
+    @Override
+    public boolean matches(String digest, String reported) {
+        // Base64 is case sensitive
+        return digest.equals(reported);
+    }
+
+    private static void putLittleEndian(long value, byte[] target, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            target[offset + i] = (byte) (value >>> (8 * i));
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Opens a byte range of a source file, typically through an HTTP
+ * {@code Range: bytes=offset-(offset+length-1)} request.
+ */
+@FunctionalInterface
+public interface RangeFetcher {
+
+    InputStream open(long offset, long length) throws IOException;
+}
@@ -0,0 +1,157 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Splits a file into fixed size ranges and fetches up to {@code parallelism}
+ * of them concurrently, handing them to the sink strictly in offset order.
+ *
+ * At most {@code parallelism} ranges are buffered at any time, so memory use is
+ * bounded by {@code rangeSize * parallelism} regardless of the file size. Range
+ * buffers come from the {@link SpoolArena} rather than the heap.
+ */
+public class RangedDownloader {
+
+    private final ExecutorService executor;
+    private final SpoolArena arena;
+    private final int rangeSize;
+    private final int parallelism;
+
+    // Chunks fetched but not yet handed to the sink, released if the transfer aborts
+    private final Set<TransferChunk> unclaimed = new HashSet<>();
+    private boolean aborted;
+
+    public RangedDownloader(ExecutorService executor, SpoolArena arena, int rangeSize, int parallelism) {
+        if (rangeSize <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("Range size and parallelism must be positive");
+        }
+        this.executor = executor;
+        this.arena = arena;
+        this.rangeSize = rangeSize;
+        this.parallelism = parallelism;
+    }
+
+    public void transfer(long totalSize, RangeFetcher fetcher, ChunkSink sink) throws IOException {
+        transfer(0, totalSize, fetcher, sink, new TransferControl(new TransferCheckpoint()));
+    }
+
+    /**
+     * Transfers the file from {@code startOffset} on, e.g. to resume an upload
+     * after its last committed chunk. The control is checked before each chunk
+     * is handed to the sink, and stopping it aborts the range downloads in flight.
+     */
+    public void transfer(long startOffset, long totalSize, RangeFetcher fetcher, ChunkSink sink,
+            TransferControl control) throws IOException {
+        Deque<Future<TransferChunk>> window = new ArrayDeque<>();
+        long nextOffset = startOffset;
+        try {
+            while (nextOffset < totalSize || !window.isEmpty()) {
+                control.checkpoint();
+                while (window.size() < parallelism && nextOffset < totalSize) {
+                    long offset = nextOffset;
+                    int length = (int) Math.min(rangeSize, totalSize - offset);
+                    window.addLast(executor.submit(() -> fetchRange(fetcher, offset, length, control)));
+                    nextOffset += length;
+                }
+                TransferChunk chunk = claim(awaitRange(window.pollFirst(), control));
+                try {
+                    sink.write(chunk);
+                } finally {
+                    chunk.release();
+                }
+            }
+            sink.complete(totalSize);
+        } finally {
+            abort(window);
+        }
+    }
+
+    private TransferChunk fetchRange(RangeFetcher fetcher, long offset, int length, TransferControl control)
+            throws IOException {
+        SpoolBuffer spool = arena.allocate(length);
+        try (InputStream in = control.track(fetcher.open(offset, length));
+                ReadableByteChannel channel = Channels.newChannel(in)) {
+            ByteBuffer buffer = spool.buffer();
+            buffer.limit(length);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the range is complete or the stream ends
+            }
+            if (buffer.hasRemaining()) {
+                throw new IOException("Short read for range at offset " + offset + ": expected " + length
+                        + " bytes, got " + buffer.position());
+            }
+            buffer.flip();
+        } catch (IOException | RuntimeException e) {
+            spool.release();
+            throw e;
+        }
+
+        TransferChunk chunk = new TransferChunk(offset, spool.buffer(), spool::release);
+        synchronized (unclaimed) {
+            if (aborted) {
+                chunk.release();
+                return null;
+            }
+            unclaimed.add(chunk);
+        }
+        return chunk;
+    }
+
+    private TransferChunk claim(TransferChunk chunk) {
+        synchronized (unclaimed) {
+            unclaimed.remove(chunk);
+        }
+        return chunk;
+    }
+
+    private void abort(Deque<Future<TransferChunk>> window) {
+        synchronized (unclaimed) {
+            aborted = true;
+            for (TransferChunk chunk : unclaimed) {
+                chunk.release();
+            }
+            unclaimed.clear();
+        }
+        for (Future<TransferChunk> pending : window) {
+            pending.cancel(true);
+        }
+    }
+
+    private static TransferChunk awaitRange(Future<TransferChunk> future, TransferControl control)
+            throws IOException {
+        try {
+            return await(future);
+        } catch (IOException e) {
+            // A range failing because its stream was closed by a stop is reported as the stop
+            control.checkpoint();
+            throw e;
+        }
+    }
+
+    private static TransferChunk await(Future<TransferChunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for range download");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Range download failed: " + cause.getMessage(), cause);
+        }
+    }
+}
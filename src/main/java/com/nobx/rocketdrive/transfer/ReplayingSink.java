@@ -0,0 +1,55 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * Retries failed chunk uploads by replaying the chunk from its spooled buffer,
+ * so a destination hiccup does not mean downloading the source again.
+ */
+public class ReplayingSink implements ChunkSink {
+
+    private final ChunkSink delegate;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    public ReplayingSink(ChunkSink delegate, int maxAttempts, long backoffMillis) {
+        this.delegate = delegate;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+    }
+
+    @Override
+    public void write(TransferChunk chunk) throws IOException {
+        for (int attempt = 1;; attempt++) {
+            try {
+                delegate.write(chunk);
+                return;
+            } catch (IOException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                pause(attempt);
+            }
+        }
+    }
+
+    @Override
+    public void complete(long totalSize) throws IOException {
+        delegate.complete(totalSize);
+    }
+
+    @Override
+    public String getCommittedHash() {
+        return delegate.getCommittedHash();
+    }
+
+    private void pause(int attempt) throws InterruptedIOException {
+        try {
+            Thread.sleep(backoffMillis * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while retrying upload");
+        }
+    }
+}
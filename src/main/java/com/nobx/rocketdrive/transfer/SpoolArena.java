@@ -0,0 +1,121 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of direct buffers for in-flight transfer data, bounded by a global memory
+ * budget. Buffers are pooled by capacity since each provider transfers in fixed
+ * range sizes.
+ *
+ * When the budget is used up, buffers are carved from memory-mapped temp files
+ * instead, so a burst of transfers pages to disk rather than failing or filling
+ * the heap with large arrays.
+ */
+public class SpoolArena {
+
+    private final long memoryBudget;
+    private final Path spillDirectory;
+
+    private final Map<Integer, Queue<ByteBuffer>> free = new ConcurrentHashMap<>();
+    private final AtomicLong reserved = new AtomicLong();
+    private final AtomicLong inUse = new AtomicLong();
+    private final AtomicLong spilledAllocations = new AtomicLong();
+
+    public SpoolArena(long memoryBudget, Path spillDirectory) {
+        this.memoryBudget = memoryBudget;
+        this.spillDirectory = spillDirectory;
+    }
+
+    public SpoolBuffer allocate(int size) throws IOException {
+        ByteBuffer buffer = poll(size);
+        if (buffer == null && (reserve(size) || (trim(size) && reserve(size)))) {
+            buffer = ByteBuffer.allocateDirect(size);
+        }
+        if (buffer == null) {
+            spilledAllocations.incrementAndGet();
+            return new SpoolBuffer(this, map(size), false);
+        }
+        inUse.addAndGet(size);
+        buffer.clear();
+        return new SpoolBuffer(this, buffer, true);
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Direct memory held by the arena, in use or pooled.
+     */
+    public long getReservedBytes() {
+        return reserved.get();
+    }
+
+    public long getInUseBytes() {
+        return inUse.get();
+    }
+
+    public long getSpilledAllocations() {
+        return spilledAllocations.get();
+    }
+
+    void recycle(ByteBuffer buffer) {
+        inUse.addAndGet(-buffer.capacity());
+        free.computeIfAbsent(buffer.capacity(), capacity -> new ConcurrentLinkedQueue<>()).add(buffer);
+    }
+
+    private ByteBuffer poll(int size) {
+        Queue<ByteBuffer> pool = free.get(size);
+        return pool != null ? pool.poll() : null;
+    }
+
+    private boolean reserve(int size) {
+        long current;
+        do {
+            current = reserved.get();
+            if (current + size > memoryBudget) {
+                return false;
+            }
+        } while (!reserved.compareAndSet(current, current + size));
+        return true;
+    }
+
+    /**
+     * Drops idle buffers of other sizes so their budget can be reused.
+     */
+    private boolean trim(int needed) {
+        long freed = 0;
+        for (Map.Entry<Integer, Queue<ByteBuffer>> entry : free.entrySet()) {
+            ByteBuffer idle;
+            while (freed < needed && (idle = entry.getValue().poll()) != null) {
+                reserved.addAndGet(-idle.capacity());
+                freed += idle.capacity();
+            }
+        }
+        return freed > 0;
+    }
+
+    private ByteBuffer map(int size) throws IOException {
+        Path file = Files.createTempFile(spillDirectory, "spool-", ".tmp");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed and the file unlinked
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } finally {
+            try {
+                Files.delete(file);
+            } catch (IOException e) {
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+}
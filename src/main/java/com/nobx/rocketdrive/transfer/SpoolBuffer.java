@@ -0,0 +1,45 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A buffer handed out by {@link SpoolArena}. Either a pooled direct buffer or,
+ * once the memory budget is used up, a memory-mapped temp file region.
+ */
+public class SpoolBuffer {
+
+    private final SpoolArena arena;
+    private final ByteBuffer buffer;
+    private final boolean pooled;
+    private boolean released;
+
+    SpoolBuffer(SpoolArena arena, ByteBuffer buffer, boolean pooled) {
+        this.arena = arena;
+        this.buffer = buffer;
+        this.pooled = pooled;
+    }
+
+    /**
+     * The buffer, positioned at zero with its limit set to the requested size.
+     */
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    public boolean isSpilled() {
+        return !pooled;
+    }
+
+    /**
+     * Returns the buffer to the arena. Calling it more than once has no effect.
+     */
+    public synchronized void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        if (pooled) {
+            arena.recycle(buffer);
+        }
+    }
+}
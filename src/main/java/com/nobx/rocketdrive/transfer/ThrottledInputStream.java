@@ -0,0 +1,44 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that paces reads through a {@link BandwidthThrottle}.
+ */
+public class ThrottledInputStream extends FilterInputStream {
+
+    // Reads are split so a single large read does not turn into one long stall
+    private static final int MAX_READ = 64 * 1024;
+
+    private final BandwidthThrottle throttle;
+
+    public ThrottledInputStream(InputStream in, BandwidthThrottle throttle) {
+        super(in);
+        this.throttle = throttle;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            throttle.acquire(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int n = in.read(buffer, offset, Math.min(length, MAX_READ));
+        if (n > 0) {
+            throttle.acquire(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        return in.skip(n);
+    }
+}
@@ -0,0 +1,39 @@
+package com.nobx.rocketdrive.transfer;
+
+/**
+ * Resume point of a chunked upload: the destination's upload session and how
+ * many bytes it has acknowledged. Sinks update it after each chunk, so a paused
+ * transfer can continue from the last committed chunk.
+ */
+public class TransferCheckpoint {
+
+    private volatile String sessionId;
+    private volatile long committedBytes;
+
+    public TransferCheckpoint() {
+    }
+
+    public TransferCheckpoint(String sessionId, long committedBytes) {
+        this.sessionId = sessionId;
+        this.committedBytes = sessionId != null ? committedBytes : 0;
+    }
+
+    /**
+     * Records that the destination acknowledged everything before {@code committedBytes}.
+     */
+    public void commit(String sessionId, long committedBytes) {
+        this.sessionId = sessionId;
+        this.committedBytes = committedBytes;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Offset the transfer resumes from, 0 when there is no session to resume.
+     */
+    public long getCommittedBytes() {
+        return sessionId != null ? committedBytes : 0;
+    }
+}
@@ -0,0 +1,66 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A contiguous slice of a file in transit, identified by its offset in the
+ * source file. The bytes are read-only once the chunk is handed to a sink.
+ *
+ * Chunks backed by a {@link SpoolArena} buffer are reference counted: whoever
+ * keeps a chunk beyond the {@link ChunkSink#write} call must {@link #retain()} it
+ * and {@link #release()} it when done, so the buffer goes back to the pool.
+ */
+public class TransferChunk {
+
+    private final long offset;
+    private final ByteBuffer data;
+    private final Runnable onRelease;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    public TransferChunk(long offset, ByteBuffer data) {
+        this(offset, data, null);
+    }
+
+    public TransferChunk(long offset, ByteBuffer data, Runnable onRelease) {
+        this.offset = offset;
+        this.data = data.asReadOnlyBuffer();
+        this.onRelease = onRelease;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return data.remaining();
+    }
+
+    /**
+     * Returns an independent view of the chunk bytes, so several consumers can
+     * read the same chunk without affecting each other's position.
+     */
+    public ByteBuffer getData() {
+        return data.duplicate();
+    }
+
+    /**
+     * Opens a fresh stream over the chunk bytes. Can be called again to replay
+     * the chunk, e.g. when an upload request has to be retried.
+     */
+    public InputStream openStream() {
+        return new ByteBufferInputStream(data.duplicate());
+    }
+
+    public TransferChunk retain() {
+        references.incrementAndGet();
+        return this;
+    }
+
+    public void release() {
+        if (references.decrementAndGet() == 0 && onRelease != null) {
+            onRelease.run();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lets a running transfer be cancelled or paused from another thread. The
+ * transfer polls {@link #checkpoint()} between chunks; stopping also closes
+ * the source streams it registered, so reads blocked on the network fail at
+ * once instead of finishing their range.
+ */
+public class TransferControl {
+
+    public enum Signal {
+        CANCEL, PAUSE
+    }
+
+    private final TransferCheckpoint checkpoint;
+    private final Set<InputStream> streams = ConcurrentHashMap.newKeySet();
+    private volatile Signal signal;
+
+    public TransferControl(TransferCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Asks the transfer to stop. The first signal wins.
+     */
+    public void stop(Signal requested) {
+        synchronized (this) {
+            if (signal != null) {
+                return;
+            }
+            signal = requested;
+        }
+        for (InputStream stream : streams) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                // The reader fails on its own
+            }
+        }
+    }
+
+    /**
+     * Throws if the transfer was asked to stop.
+     */
+    public void checkpoint() throws TransferStoppedException {
+        Signal current = signal;
+        if (current != null) {
+            throw new TransferStoppedException(current);
+        }
+    }
+
+    /**
+     * Registers a source stream to be closed when the transfer is stopped.
+     */
+    public InputStream track(InputStream in) throws IOException {
+        InputStream tracked = new FilterInputStream(in) {
+            @Override
+            public void close() throws IOException {
+                streams.remove(this);
+                super.close();
+            }
+        };
+        streams.add(tracked);
+        // Stopped while the stream was being opened
+        if (signal != null) {
+            tracked.close();
+            checkpoint();
+        }
+        return tracked;
+    }
+
+    /**
+     * Wraps a sink so the control is checked before each chunk is written, for
+     * transfers that are not driven by a {@link RangedDownloader}.
+     */
+    public ChunkSink checking(ChunkSink delegate) {
+        return new ChunkSink() {
+            @Override
+            public void write(TransferChunk chunk) throws IOException {
+                checkpoint();
+                delegate.write(chunk);
+            }
+
+            @Override
+            public void complete(long totalSize) throws IOException {
+                delegate.complete(totalSize);
+            }
+
+            @Override
+            public String getCommittedHash() {
+                return delegate.getCommittedHash();
+            }
+        };
+    }
+
+    public Signal getSignal() {
+        return signal;
+    }
+
+    public TransferCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+}
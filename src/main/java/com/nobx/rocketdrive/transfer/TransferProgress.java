@@ -0,0 +1,71 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Byte counter for one transfer. Updated by the transfer threads with a single
+ * atomic add per chunk or read, and sampled by whoever reports progress.
+ */
+public class TransferProgress {
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    public void add(long count) {
+        bytes.addAndGet(count);
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * Wraps a sink so each chunk is counted once the sink has accepted it.
+     */
+    public ChunkSink counting(ChunkSink delegate) {
+        return new ChunkSink() {
+            @Override
+            public void write(TransferChunk chunk) throws IOException {
+                delegate.write(chunk);
+                add(chunk.getLength());
+            }
+
+            @Override
+            public void complete(long totalSize) throws IOException {
+                delegate.complete(totalSize);
+            }
+
+            @Override
+            public String getCommittedHash() {
+                return delegate.getCommittedHash();
+            }
+        };
+    }
+
+    /**
+     * Wraps a stream so the bytes read from it are counted.
+     */
+    public InputStream counting(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = in.read();
+                if (b >= 0) {
+                    add(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = in.read(buffer, offset, length);
+                if (n > 0) {
+                    add(n);
+                }
+                return n;
+            }
+        };
+    }
+}
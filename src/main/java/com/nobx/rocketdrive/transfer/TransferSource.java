@@ -0,0 +1,37 @@
+package com.nobx.rocketdrive.transfer;
+
+/**
+ * The source side of a transfer: its size, how to fetch ranges of it, and the
+ * provider's content hash and version when known, which identify the bytes for
+ * caching and verification.
+ */
+public class TransferSource {
+
+    private final long size;
+    private final String contentHash;
+    private final String version;
+    private final RangeFetcher fetcher;
+
+    public TransferSource(long size, String contentHash, String version, RangeFetcher fetcher) {
+        this.size = size;
+        this.contentHash = contentHash;
+        this.version = version;
+        this.fetcher = fetcher;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public RangeFetcher getFetcher() {
+        return fetcher;
+    }
+}
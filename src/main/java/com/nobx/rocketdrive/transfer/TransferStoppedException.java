@@ -0,0 +1,20 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.io.IOException;
+
+/**
+ * Thrown at a transfer checkpoint after the transfer was cancelled or paused.
+ */
+public class TransferStoppedException extends IOException {
+
+    private final TransferControl.Signal signal;
+
+    public TransferStoppedException(TransferControl.Signal signal) {
+        super("Transfer " + (signal == TransferControl.Signal.PAUSE ? "paused" : "cancelled"));
+        this.signal = signal;
+    }
+
+    public TransferControl.Signal getSignal() {
+        return signal;
+    }
+}
@@ -0,0 +1,243 @@
+package com.nobx.rocketdrive.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams source files into a ZIP archive that is written, as it is produced,
+ * to a chunked upload. Nothing touches the local disk and memory is bounded
+ * regardless of the number or size of the files: the next
+ * {@code prefetchFiles} entries are fetched ahead in parallel, up to
+ * {@code prefetchBytes} each, so the writer does not wait on per-file request
+ * latency, and the rest of a larger file is streamed once the writer gets to it.
+ * The archive itself is cut into chunks of {@code chunkSize}, one being
+ * uploaded while the next is filled.
+ */
+public class ZipStreamer {
+
+    // Formats that are compressed already, stored without spending CPU on deflating them again
+    private static final Set<String> COMPRESSED = Set.of("zip", "gz", "tgz", "bz2", "xz", "7z", "rar", "jpg", "jpeg",
+            "png", "gif", "webp", "heic", "mp3", "aac", "ogg", "mp4", "m4v", "mov", "mkv", "webm", "docx", "xlsx",
+            "pptx", "odt", "ods", "jar", "apk");
+
+    private final ExecutorService fetchExecutor;
+    private final ExecutorService uploadExecutor;
+    private final SpoolArena arena;
+    private final int chunkSize;
+    private final int prefetchFiles;
+    private final int prefetchBytes;
+    private final int compressionLevel;
+
+    // Entries fetched but not yet written, released if the archive aborts
+    private final Set<Prefetched> unclaimed = new HashSet<>();
+    private boolean aborted;
+
+    public ZipStreamer(ExecutorService fetchExecutor, ExecutorService uploadExecutor, SpoolArena arena, int chunkSize,
+            int prefetchFiles, int prefetchBytes, int compressionLevel) {
+        if (chunkSize <= 0 || prefetchFiles <= 0 || prefetchBytes <= 0) {
+            throw new IllegalArgumentException("Chunk size and prefetch limits must be positive");
+        }
+        this.fetchExecutor = fetchExecutor;
+        this.uploadExecutor = uploadExecutor;
+        this.arena = arena;
+        this.chunkSize = chunkSize;
+        this.prefetchFiles = prefetchFiles;
+        this.prefetchBytes = prefetchBytes;
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Writes the entries, in order, as one archive to the sink and completes it.
+     * The control is checked before each entry, and stopping it aborts the
+     * fetches in flight.
+     *
+     * @return size of the archive in bytes
+     */
+    public long stream(List<ArchiveEntry> entries, ChunkSink sink, TransferControl control) throws IOException {
+        ChunkingOutputStream out = new ChunkingOutputStream(sink, arena, uploadExecutor, chunkSize);
+        ZipOutputStream zip = new ZipOutputStream(out);
+        Deque<Future<Prefetched>> window = new ArrayDeque<>();
+        Iterator<ArchiveEntry> pending = entries.iterator();
+        try {
+            while (pending.hasNext() || !window.isEmpty()) {
+                control.checkpoint();
+                while (window.size() < prefetchFiles && pending.hasNext()) {
+                    ArchiveEntry entry = pending.next();
+                    window.addLast(fetchExecutor.submit(() -> prefetch(entry, control)));
+                }
+                Prefetched next = claim(awaitEntry(window.pollFirst(), control));
+                try {
+                    write(zip, next, control);
+                } finally {
+                    next.release();
+                }
+            }
+            // Writes the central directory, then hands the last chunk to the sink and completes it
+            zip.finish();
+            return out.finish();
+        } catch (IOException | RuntimeException e) {
+            out.abort();
+            throw e;
+        } finally {
+            abort(window);
+            close(zip);
+        }
+    }
+
+    // Frees the deflater; the chunking stream is finished or aborted by now, so this writes nothing
+    private static void close(ZipOutputStream zip) {
+        try {
+            zip.close();
+        } catch (IOException e) {
+            // Only fails for an archive that was aborted with an entry open
+        }
+    }
+
+    private void write(ZipOutputStream zip, Prefetched prefetched, TransferControl control) throws IOException {
+        ArchiveEntry entry = prefetched.entry;
+        ZipEntry zipEntry = new ZipEntry(entry.getName());
+        if (entry.getLastModified() >= 0) {
+            zipEntry.setTime(entry.getLastModified());
+        }
+        zip.setLevel(isCompressed(entry.getName()) ? Deflater.NO_COMPRESSION : compressionLevel);
+        zip.putNextEntry(zipEntry);
+
+        long written = 0;
+        if (prefetched.head != null) {
+            ByteBuffer head = prefetched.head.buffer().duplicate();
+            byte[] copy = new byte[8192];
+            while (head.hasRemaining()) {
+                int n = Math.min(copy.length, head.remaining());
+                head.get(copy, 0, n);
+                zip.write(copy, 0, n);
+            }
+            written = prefetched.head.buffer().remaining();
+        }
+        if (written < entry.getSize()) {
+            try (InputStream in = control.track(entry.getFetcher().open(written, entry.getSize() - written))) {
+                written += in.transferTo(zip);
+            } catch (IOException e) {
+                // A fetch failing because its stream was closed by a stop is reported as the stop
+                control.checkpoint();
+                throw e;
+            }
+        }
+        if (written != entry.getSize()) {
+            throw new IOException("Short read for " + entry.getName() + ": expected " + entry.getSize() + " bytes, got "
+                    + written);
+        }
+        zip.closeEntry();
+    }
+
+    private Prefetched prefetch(ArchiveEntry entry, TransferControl control) throws IOException {
+        int length = (int) Math.min(prefetchBytes, entry.getSize());
+        SpoolBuffer spool = null;
+        if (length > 0) {
+            spool = arena.allocate(length);
+            try (InputStream in = control.track(entry.getFetcher().open(0, length));
+                    ReadableByteChannel channel = Channels.newChannel(in)) {
+                ByteBuffer buffer = spool.buffer();
+                buffer.limit(length);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // keep reading until the head is complete or the stream ends
+                }
+                if (buffer.hasRemaining()) {
+                    throw new IOException("Short read for " + entry.getName() + ": expected " + length
+                            + " bytes, got " + buffer.position());
+                }
+                buffer.flip();
+            } catch (IOException | RuntimeException e) {
+                spool.release();
+                throw e;
+            }
+        }
+
+        Prefetched prefetched = new Prefetched(entry, spool);
+        synchronized (unclaimed) {
+            if (aborted) {
+                prefetched.release();
+                return null;
+            }
+            unclaimed.add(prefetched);
+        }
+        return prefetched;
+    }
+
+    private Prefetched claim(Prefetched prefetched) {
+        synchronized (unclaimed) {
+            unclaimed.remove(prefetched);
+        }
+        return prefetched;
+    }
+
+    private void abort(Deque<Future<Prefetched>> window) {
+        synchronized (unclaimed) {
+            aborted = true;
+            for (Prefetched prefetched : unclaimed) {
+                prefetched.release();
+            }
+            unclaimed.clear();
+        }
+        for (Future<Prefetched> pending : window) {
+            pending.cancel(true);
+        }
+    }
+
+    static boolean isCompressed(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && COMPRESSED.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private static Prefetched awaitEntry(Future<Prefetched> future, TransferControl control) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for archive entry");
+        } catch (ExecutionException e) {
+            control.checkpoint();
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Archive entry fetch failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * An entry with the first bytes of its content, or all of it for small files.
+     */
+    private static class Prefetched {
+
+        private final ArchiveEntry entry;
+        private final SpoolBuffer head;
+
+        Prefetched(ArchiveEntry entry, SpoolBuffer head) {
+            this.entry = entry;
+            this.head = head;
+        }
+
+        void release() {
+            if (head != null) {
+                head.release();
+            }
+        }
+    }
+}
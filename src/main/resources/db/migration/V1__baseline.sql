@@ -0,0 +1,129 @@
+-- Schema as ddl-auto=update and the Spring Batch initializer created it before migrations.
+-- Databases that already have it are baselined at this version, see application-production.properties.
+
+create table backend_clouddriveconnection (
+    id bigint not null auto_increment,
+    access_token LONGTEXT,
+    created_at datetime(6) not null,
+    email varchar(254) not null,
+    expiry_time bigint,
+    provider varchar(50) not null,
+    refresh_token varchar(2550),
+    tenant_id varchar(255),
+    user_id integer not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table backend_task (
+    id bigint not null auto_increment,
+    cloud_service enum ('GOOGLE_DRIVE','DROPBOX','ONEDRIVE') not null,
+    created_at datetime(6) not null,
+    destination_access_token varchar(2000),
+    destination_account_id integer not null,
+    destination_email varchar(255) not null,
+    destination_path varchar(255),
+    error_message varchar(255),
+    source_access_token varchar(2000),
+    source_account_id integer not null,
+    source_email varchar(255) not null,
+    source_path varchar(255) not null,
+    status enum ('PENDING','IN_PROGRESS','COMPLETED','FAILED') not null,
+    task_type enum ('COPY','CUT','DELETE') not null,
+    updated_at datetime(6) not null,
+    user_id varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+-- Spring Batch 5 job repository (schema-mysql.sql)
+
+create table BATCH_JOB_INSTANCE (
+    JOB_INSTANCE_ID bigint not null primary key,
+    VERSION bigint,
+    JOB_NAME varchar(100) not null,
+    JOB_KEY varchar(32) not null,
+    constraint JOB_INST_UN unique (JOB_NAME, JOB_KEY)
+) engine=InnoDB;
+
+create table BATCH_JOB_EXECUTION (
+    JOB_EXECUTION_ID bigint not null primary key,
+    VERSION bigint,
+    JOB_INSTANCE_ID bigint not null,
+    CREATE_TIME datetime(6) not null,
+    START_TIME datetime(6) default null,
+    END_TIME datetime(6) default null,
+    STATUS varchar(10),
+    EXIT_CODE varchar(2500),
+    EXIT_MESSAGE varchar(2500),
+    LAST_UPDATED datetime(6),
+    constraint JOB_INST_EXEC_FK foreign key (JOB_INSTANCE_ID) references BATCH_JOB_INSTANCE (JOB_INSTANCE_ID)
+) engine=InnoDB;
+
+create table BATCH_JOB_EXECUTION_PARAMS (
+    JOB_EXECUTION_ID bigint not null,
+    PARAMETER_NAME varchar(100) not null,
+    PARAMETER_TYPE varchar(100) not null,
+    PARAMETER_VALUE varchar(2500),
+    IDENTIFYING char(1) not null,
+    constraint JOB_EXEC_PARAMS_FK foreign key (JOB_EXECUTION_ID) references BATCH_JOB_EXECUTION (JOB_EXECUTION_ID)
+) engine=InnoDB;
+
+create table BATCH_STEP_EXECUTION (
+    STEP_EXECUTION_ID bigint not null primary key,
+    VERSION bigint not null,
+    STEP_NAME varchar(100) not null,
+    JOB_EXECUTION_ID bigint not null,
+    CREATE_TIME datetime(6) not null,
+    START_TIME datetime(6) default null,
+    END_TIME datetime(6) default null,
+    STATUS varchar(10),
+    COMMIT_COUNT bigint,
+    READ_COUNT bigint,
+    FILTER_COUNT bigint,
+    WRITE_COUNT bigint,
+    READ_SKIP_COUNT bigint,
+    WRITE_SKIP_COUNT bigint,
+    PROCESS_SKIP_COUNT bigint,
+    ROLLBACK_COUNT bigint,
+    EXIT_CODE varchar(2500),
+    EXIT_MESSAGE varchar(2500),
+    LAST_UPDATED datetime(6),
+    constraint JOB_EXEC_STEP_FK foreign key (JOB_EXECUTION_ID) references BATCH_JOB_EXECUTION (JOB_EXECUTION_ID)
+) engine=InnoDB;
+
+create table BATCH_STEP_EXECUTION_CONTEXT (
+    STEP_EXECUTION_ID bigint not null primary key,
+    SHORT_CONTEXT varchar(2500) not null,
+    SERIALIZED_CONTEXT text,
+    constraint STEP_EXEC_CTX_FK foreign key (STEP_EXECUTION_ID) references BATCH_STEP_EXECUTION (STEP_EXECUTION_ID)
+) engine=InnoDB;
+
+create table BATCH_JOB_EXECUTION_CONTEXT (
+    JOB_EXECUTION_ID bigint not null primary key,
+    SHORT_CONTEXT varchar(2500) not null,
+    SERIALIZED_CONTEXT text,
+    constraint JOB_EXEC_CTX_FK foreign key (JOB_EXECUTION_ID) references BATCH_JOB_EXECUTION (JOB_EXECUTION_ID)
+) engine=InnoDB;
+
+create table BATCH_STEP_EXECUTION_SEQ (
+    ID bigint not null,
+    UNIQUE_KEY char(1) not null,
+    constraint UNIQUE_KEY_UN unique (UNIQUE_KEY)
+) engine=InnoDB;
+
+insert into BATCH_STEP_EXECUTION_SEQ (ID, UNIQUE_KEY) values (0, '0');
+
+create table BATCH_JOB_EXECUTION_SEQ (
+    ID bigint not null,
+    UNIQUE_KEY char(1) not null,
+    constraint JOB_EXECUTION_SEQ_UNIQUE_KEY_UN unique (UNIQUE_KEY)
+) engine=InnoDB;
+
+insert into BATCH_JOB_EXECUTION_SEQ (ID, UNIQUE_KEY) values (0, '0');
+
+create table BATCH_JOB_SEQ (
+    ID bigint not null,
+    UNIQUE_KEY char(1) not null,
+    constraint JOB_SEQ_UNIQUE_KEY_UN unique (UNIQUE_KEY)
+) engine=InnoDB;
+
+insert into BATCH_JOB_SEQ (ID, UNIQUE_KEY) values (0, '0');
@@ -0,0 +1,107 @@
+-- Scheduling, resilience, fan-out, progress, control, idempotency, archival and dependency
+-- columns and tables of the task pipeline.
+
+alter table backend_task modify column task_type enum ('COPY','CUT','DELETE','ARCHIVE') not null;
+alter table backend_task modify column status
+    enum ('PENDING','IN_PROGRESS','COMPLETED','FAILED','DEAD_LETTER','CANCELLED','PAUSED','BLOCKED') not null;
+
+alter table backend_task add column priority enum ('BULK','NORMAL','INTERACTIVE');
+alter table backend_task add column next_attempt_at datetime(6);
+alter table backend_task add column size_bytes bigint;
+alter table backend_task add column bytes_transferred bigint;
+alter table backend_task add column upload_session varchar(2000);
+alter table backend_task add column committed_bytes bigint;
+alter table backend_task add column attempt_count integer default 0;
+alter table backend_task add column idempotency_key varchar(64);
+alter table backend_task add column duplicate_of bigint;
+alter table backend_task add column pending_dependencies integer default 0;
+alter table backend_task add column batch_id varchar(36);
+
+create index idx_task_ready on backend_task (status, user_id, priority, id);
+create index idx_task_finished on backend_task (status, updated_at);
+create index idx_task_user on backend_task (user_id, id);
+create index idx_task_batch on backend_task (batch_id);
+create index idx_task_idempotency on backend_task (idempotency_key);
+
+create table backend_task_destination (
+    id bigint not null auto_increment,
+    destination_account_id integer not null,
+    destination_email varchar(255),
+    destination_path varchar(255),
+    error_message varchar(255),
+    status enum ('PENDING','IN_PROGRESS','COMPLETED','FAILED','DEAD_LETTER','CANCELLED','PAUSED','BLOCKED') not null,
+    updated_at datetime(6),
+    task_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table backend_task_destination add constraint fk_task_destination_task
+    foreign key (task_id) references backend_task (id);
+
+create table backend_task_archive (
+    id bigint not null,
+    archived_at datetime(6) not null,
+    attempt_count integer,
+    batch_id varchar(36),
+    bytes_transferred bigint,
+    cloud_service enum ('GOOGLE_DRIVE','DROPBOX','ONEDRIVE') not null,
+    created_at datetime(6) not null,
+    destination_account_id integer not null,
+    destination_email varchar(255) not null,
+    destination_path varchar(255),
+    duplicate_of bigint,
+    error_message varchar(255),
+    idempotency_key varchar(64),
+    priority enum ('BULK','NORMAL','INTERACTIVE'),
+    size_bytes bigint,
+    source_account_id integer not null,
+    source_email varchar(255) not null,
+    source_path varchar(255) not null,
+    status enum ('PENDING','IN_PROGRESS','COMPLETED','FAILED','DEAD_LETTER','CANCELLED','PAUSED','BLOCKED') not null,
+    task_type enum ('COPY','CUT','DELETE','ARCHIVE') not null,
+    updated_at datetime(6) not null,
+    user_id varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_task_archive_user on backend_task_archive (user_id, id);
+create index idx_task_archive_batch on backend_task_archive (batch_id);
+create index idx_task_archive_archived on backend_task_archive (archived_at);
+
+create table backend_task_destination_archive (
+    id bigint not null,
+    destination_account_id integer not null,
+    destination_email varchar(255),
+    destination_path varchar(255),
+    error_message varchar(255),
+    status enum ('PENDING','IN_PROGRESS','COMPLETED','FAILED','DEAD_LETTER','CANCELLED','PAUSED','BLOCKED') not null,
+    updated_at datetime(6),
+    task_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_task_destination_archive_task on backend_task_destination_archive (task_id);
+
+alter table backend_task_destination_archive add constraint fk_task_destination_archive_task
+    foreign key (task_id) references backend_task_archive (id);
+
+create table backend_completed_operation (
+    id bigint not null auto_increment,
+    completed_at datetime(6) not null,
+    idempotency_key varchar(64) not null,
+    task_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table backend_completed_operation add constraint uk_completed_operation_key unique (idempotency_key);
+create index idx_completed_operation_at on backend_completed_operation (completed_at);
+
+create table backend_task_dependency (
+    id bigint not null auto_increment,
+    depends_on_id bigint not null,
+    task_id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table backend_task_dependency add constraint uk_task_dependency unique (task_id, depends_on_id);
+create index idx_task_dependency_parent on backend_task_dependency (depends_on_id, task_id);
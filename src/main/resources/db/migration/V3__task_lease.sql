@@ -0,0 +1,6 @@
+-- Worker leases of running tasks, see TaskLeaseService
+
+alter table backend_task add column lease_owner varchar(64);
+alter table backend_task add column lease_expires_at datetime(6);
+
+create index idx_task_lease on backend_task (status, lease_expires_at);
@@ -0,0 +1,4 @@
+-- Operation a task runs as after the coalescer merged another task into it
+
+alter table backend_task add column run_as enum ('COPY','CUT','DELETE','ARCHIVE');
+alter table backend_task_archive add column run_as enum ('COPY','CUT','DELETE','ARCHIVE');
@@ -0,0 +1,3 @@
+-- Cancel or pause requested for a running task, delivered to its worker by the lease heartbeat
+
+alter table backend_task add column stop_requested enum ('CANCEL','PAUSE');
@@ -0,0 +1,3 @@
+-- Token of the claim holding a running task's lease, outcomes of earlier claims are dropped
+
+alter table backend_task add column lease_token varchar(36);
@@ -0,0 +1,238 @@
+package com.nobx.rocketdrive.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.nobx.rocketdrive.entity.Task;
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+import com.nobx.rocketdrive.enums.CloudTypeEnum;
+import com.nobx.rocketdrive.enums.TaskStatusEnum;
+import com.nobx.rocketdrive.repository.TaskRepository;
+import com.nobx.rocketdrive.service.impl.IdempotencyService;
+import com.nobx.rocketdrive.service.impl.SchedulingConfigService;
+
+/**
+ * Plans for claimed chunks, with the ledger and the stored tasks kept in maps.
+ */
+class TaskCoalescerTests {
+
+    private static final long DEFER_MILLIS = 5_000;
+
+    // Ledger of completed submitted keys, and the task that completed each
+    private final Map<String, Long> ledger = new HashMap<>();
+
+    private final Map<Long, Task> stored = new HashMap<>();
+
+    private final TaskCoalescer coalescer = new TaskCoalescer();
+
+    private static class StubIdempotencyService extends IdempotencyService {
+        private final Map<String, Long> ledger;
+
+        StubIdempotencyService(Map<String, Long> ledger) {
+            this.ledger = ledger;
+        }
+
+        @Override
+        public Map<String, Long> findCompleted(Collection<String> keys) {
+            Map<String, Long> completed = new HashMap<>();
+            for (String key : keys) {
+                if (ledger.containsKey(key)) {
+                    completed.put(key, ledger.get(key));
+                }
+            }
+            return completed;
+        }
+
+        @Override
+        public void record(Task task) {
+            if (hasSubmittedKey(task)) {
+                ledger.put(task.getIdempotencyKey(), task.getId());
+            }
+        }
+    }
+
+    // Only the lookup of primaries is used by the coalescer
+    private TaskRepository taskRepository() {
+        return (TaskRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { TaskRepository.class }, (proxy, method, args) -> {
+                    if (!method.getName().equals("findAllById")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    List<Task> found = new ArrayList<>();
+                    for (Object id : (Iterable<?>) args[0]) {
+                        if (stored.containsKey(id)) {
+                            found.add(stored.get(id));
+                        }
+                    }
+                    return found;
+                });
+    }
+
+    @BeforeEach
+    void setUp() {
+        SchedulingConfigService schedulingConfigService = new SchedulingConfigService();
+        ReflectionTestUtils.setField(schedulingConfigService, "deferMillis", DEFER_MILLIS);
+        ReflectionTestUtils.setField(coalescer, "idempotencyService", new StubIdempotencyService(ledger));
+        ReflectionTestUtils.setField(coalescer, "taskRepository", taskRepository());
+        ReflectionTestUtils.setField(coalescer, "schedulingConfigService", schedulingConfigService);
+    }
+
+    private static Task task(long id, CloudTypeEnum type, String sourcePath) {
+        Task task = new Task();
+        task.setId(id);
+        task.setCloudType(type);
+        task.setCloudService(CloudServiceEnum.DROPBOX);
+        task.setSourceAccountId(1);
+        task.setSourcePath(sourcePath);
+        task.setDestinationAccountId(2);
+        task.setDestinationPath(type == CloudTypeEnum.DELETE ? null : "/backup");
+        task.setStatus(TaskStatusEnum.IN_PROGRESS);
+        return task;
+    }
+
+    private static Task completed(Task task) {
+        task.setStatus(TaskStatusEnum.COMPLETED);
+        return task;
+    }
+
+    @Test
+    void copyThenDeleteOfSameSourceRunsAsOneMove() {
+        Task copy = task(1, CloudTypeEnum.COPY, "/a.txt");
+        Task delete = task(2, CloudTypeEnum.DELETE, "/a.txt");
+
+        // Claimed out of order, the copy is still seen first
+        TaskCoalescer.Plan plan = coalescer.plan(List.of(delete, copy));
+
+        assertEquals(List.of(copy), plan.getDispatch());
+        assertEquals(CloudTypeEnum.CUT, copy.getRunAs());
+        CompletableFuture<Task> outcome = plan.getFollowers().get(delete);
+        assertFalse(outcome.isDone());
+
+        coalescer.finished(completed(copy));
+        assertSame(copy, outcome.join());
+    }
+
+    @Test
+    void identicalTaskFollowsTheRunningOne() {
+        Task first = task(1, CloudTypeEnum.COPY, "/a.txt");
+        Task inChunk = task(2, CloudTypeEnum.COPY, "/a.txt");
+        TaskCoalescer.Plan plan = coalescer.plan(List.of(first, inChunk));
+        Task later = task(3, CloudTypeEnum.COPY, "/a.txt");
+        TaskCoalescer.Plan laterPlan = coalescer.plan(List.of(later));
+
+        assertEquals(List.of(first), plan.getDispatch());
+        assertTrue(laterPlan.getDispatch().isEmpty());
+
+        coalescer.finished(completed(first));
+        assertSame(first, plan.getFollowers().get(inChunk).join());
+        assertSame(first, laterPlan.getFollowers().get(later).join());
+
+        TaskCoalescer.takeOutcome(later, first);
+        assertEquals(TaskStatusEnum.COMPLETED, later.getStatus());
+        assertEquals(Long.valueOf(1), later.getDuplicateOf());
+    }
+
+    @Test
+    void keyCompletedInLedgerIsSettledWithoutRunning() {
+        ledger.put("upload-42", 7L);
+        Task repeated = task(9, CloudTypeEnum.COPY, "/a.txt");
+        repeated.setIdempotencyKey("upload-42");
+
+        TaskCoalescer.Plan plan = coalescer.plan(List.of(repeated));
+
+        assertTrue(plan.getDispatch().isEmpty());
+        assertEquals(List.of(repeated), plan.getSettled());
+        assertEquals(TaskStatusEnum.COMPLETED, repeated.getStatus());
+        assertEquals(Long.valueOf(7), repeated.getDuplicateOf());
+    }
+
+    @Test
+    void taskThatCompletedTheKeyRunsAgainIfClaimedAgain() {
+        ledger.put("upload-42", 9L);
+        Task requeued = task(9, CloudTypeEnum.COPY, "/a.txt");
+        requeued.setIdempotencyKey("upload-42");
+
+        assertEquals(List.of(requeued), coalescer.plan(List.of(requeued)).getDispatch());
+    }
+
+    @Test
+    void completedTaskGoesIntoTheLedger() {
+        Task task = task(4, CloudTypeEnum.COPY, "/a.txt");
+        task.setIdempotencyKey("upload-43");
+        coalescer.plan(List.of(task));
+
+        coalescer.finished(completed(task));
+
+        assertEquals(Long.valueOf(4), ledger.get("upload-43"));
+    }
+
+    @Test
+    void deleteWaitsForRunningCopyOfItsSource() {
+        Task copy = task(1, CloudTypeEnum.COPY, "/a.txt");
+        coalescer.plan(List.of(copy));
+        Task delete = task(2, CloudTypeEnum.DELETE, "/a.txt");
+
+        LocalDateTime before = LocalDateTime.now();
+        TaskCoalescer.Plan plan = coalescer.plan(List.of(delete));
+
+        assertTrue(plan.getDispatch().isEmpty());
+        assertEquals(List.of(delete), plan.getSettled());
+        assertEquals(TaskStatusEnum.PENDING, delete.getStatus());
+        assertFalse(delete.getNextAttemptAt().isBefore(before.plusNanos(DEFER_MILLIS * 1_000_000)));
+
+        coalescer.finished(completed(copy));
+        Task retried = task(2, CloudTypeEnum.DELETE, "/a.txt");
+        assertEquals(List.of(retried), coalescer.plan(List.of(retried)).getDispatch());
+    }
+
+    @Test
+    void deleteOfAnotherSourceIsNotHeldBack() {
+        coalescer.plan(List.of(task(1, CloudTypeEnum.COPY, "/a.txt")));
+        Task delete = task(2, CloudTypeEnum.DELETE, "/b.txt");
+
+        assertEquals(List.of(delete), coalescer.plan(List.of(delete)).getDispatch());
+        assertNull(delete.getRunAs());
+    }
+
+    @Test
+    void followerOfEarlierRunTakesStoredOutcome() {
+        Task primary = completed(task(1, CloudTypeEnum.COPY, "/a.txt"));
+        stored.put(1L, primary);
+        Task follower = task(2, CloudTypeEnum.COPY, "/a.txt");
+        follower.setDuplicateOf(1L);
+
+        TaskCoalescer.Plan plan = coalescer.plan(List.of(follower));
+
+        assertEquals(List.of(follower), plan.getSettled());
+        assertEquals(TaskStatusEnum.COMPLETED, follower.getStatus());
+    }
+
+    @Test
+    void abandonedTaskSendsItsFollowersBack() {
+        Task first = task(1, CloudTypeEnum.COPY, "/a.txt");
+        Task identical = task(2, CloudTypeEnum.COPY, "/a.txt");
+        TaskCoalescer.Plan plan = coalescer.plan(List.of(first, identical));
+
+        coalescer.abandoned(first);
+
+        assertTrue(plan.getFollowers().get(identical).isCompletedExceptionally());
+        Task retried = task(1, CloudTypeEnum.COPY, "/a.txt");
+        assertEquals(List.of(retried), coalescer.plan(List.of(retried)).getDispatch());
+    }
+}
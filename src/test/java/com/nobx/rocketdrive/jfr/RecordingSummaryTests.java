@@ -0,0 +1,96 @@
+package com.nobx.rocketdrive.jfr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+import com.nobx.rocketdrive.transfer.RangeFetcher;
+
+import jdk.jfr.Recording;
+
+/**
+ * Emits events into a recording, dumps it and checks the summary tables.
+ */
+class RecordingSummaryTests {
+
+    @Test
+    void summarizesTaskAttemptsAndChunksPerProvider() throws Exception {
+        Path file = Files.createTempFile("rocketdrive", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(TaskFinishedEvent.class);
+            recording.enable(TransferChunkEvent.class);
+            recording.start();
+
+            for (int i = 0; i < 3; i++) {
+                TaskFinishedEvent event = new TaskFinishedEvent();
+                event.begin();
+                event.describe((long) i, Provider.DROPBOX, Operation.COPY);
+                event.status = "COMPLETED";
+                event.bytes = 1024 * 1024;
+                event.commit();
+            }
+            TaskFinishedEvent failed = new TaskFinishedEvent();
+            failed.describe(9L, Provider.ONEDRIVE, Operation.DELETE);
+            failed.status = "FAILED";
+            failed.commit();
+
+            TaskFinishedEvent context = new TaskFinishedEvent();
+            context.describe(1L, Provider.DROPBOX, Operation.COPY);
+            RangeFetcher source = TransferChunkEvent.recording(context,
+                (offset, length) -> new ByteArrayInputStream(new byte[(int) length]));
+            for (int i = 0; i < 2; i++) {
+                try (InputStream in = source.open(i * 4096L, 4096)) {
+                    in.readAllBytes();
+                }
+            }
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        String summary = RecordingSummary.summarize(file);
+        Files.delete(file);
+        System.out.print(summary);
+
+        assertTrue(summary.contains("Task attempts"));
+        assertEquals(3, count(summary, "DROPBOX / COPY / COMPLETED"));
+        assertEquals(1, count(summary, "ONEDRIVE / DELETE / FAILED"));
+        assertEquals(2, count(summary, "DROPBOX / download"));
+    }
+
+    @Test
+    void recordingSourceClosesOnceAndPassesBytesThrough() throws IOException {
+        TaskFinishedEvent context = new TaskFinishedEvent();
+        RangeFetcher source = TransferChunkEvent.recording(context,
+            (offset, length) -> new ByteArrayInputStream(new byte[] { 1, 2, 3 }));
+        InputStream in = source.open(0, 3);
+        assertEquals(3, in.readAllBytes().length);
+        in.close();
+        in.close();
+    }
+
+    // Count column of the row with the given key
+    private static int count(String summary, String key) {
+        for (String line : summary.split("\n")) {
+            if (line.startsWith(key + " ")) {
+                return Integer.parseInt(line.substring(40).trim().split("\\s+")[0]);
+            }
+        }
+        return 0;
+    }
+
+    private enum Provider {
+        DROPBOX, ONEDRIVE
+    }
+
+    private enum Operation {
+        COPY, DELETE
+    }
+}
@@ -0,0 +1,150 @@
+package com.nobx.rocketdrive.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Simulates stub providers in discrete rounds: each round starts as many
+ * operations as the limiter allows, and they all finish with the latency the
+ * provider has at that concurrency.
+ */
+class AdaptiveLimiterTests {
+
+    private static final long MILLIS = 1_000_000L;
+
+    /**
+     * Latency is flat up to the provider's capacity and grows with the queue beyond it.
+     */
+    private static class StubProvider {
+        long baseLatency;
+        int capacity;
+        int quota = Integer.MAX_VALUE;
+
+        StubProvider(long baseLatency, int capacity) {
+            this.baseLatency = baseLatency;
+            this.capacity = capacity;
+        }
+
+        long latency(int concurrency) {
+            return baseLatency * Math.max(capacity, concurrency) / capacity;
+        }
+    }
+
+    private static AdaptiveLimiter newLimiter() {
+        return new AdaptiveLimiter(4, 1, 200, 20, 1.3, 0.75, e -> false);
+    }
+
+    /**
+     * Runs the given number of rounds and returns the average limit over them.
+     */
+    private static double simulate(AdaptiveLimiter limiter, StubProvider provider, int rounds) {
+        long limitSum = 0;
+        for (int round = 0; round < rounds; round++) {
+            int started = 0;
+            while (limiter.tryAcquire()) {
+                started++;
+            }
+            long latency = provider.latency(started);
+            for (int i = 0; i < started; i++) {
+                limiter.release(latency, i >= provider.quota);
+            }
+            limitSum += limiter.getLimit();
+        }
+        return (double) limitSum / rounds;
+    }
+
+    @Test
+    void convergesToProviderCapacity() {
+        AdaptiveLimiter limiter = newLimiter();
+        StubProvider provider = new StubProvider(100 * MILLIS, 40);
+
+        simulate(limiter, provider, 2000);
+        double average = simulate(limiter, provider, 500);
+
+        assertTrue(average > 35 && average < 55, "average limit " + average);
+        assertFalse(limiter.getHistory().isEmpty());
+    }
+
+    @Test
+    void backsOffWhenProviderDegradesAndRecoversWhenItHeals() {
+        AdaptiveLimiter limiter = newLimiter();
+        StubProvider provider = new StubProvider(100 * MILLIS, 40);
+        simulate(limiter, provider, 2000);
+
+        // Slower and able to serve far fewer requests at once
+        provider.baseLatency = 200 * MILLIS;
+        provider.capacity = 10;
+        simulate(limiter, provider, 5000);
+        double degraded = simulate(limiter, provider, 500);
+        assertTrue(degraded > 7 && degraded < 15, "degraded average limit " + degraded);
+
+        provider.baseLatency = 100 * MILLIS;
+        provider.capacity = 40;
+        simulate(limiter, provider, 3000);
+        double healed = simulate(limiter, provider, 500);
+        assertTrue(healed > 35 && healed < 55, "healed average limit " + healed);
+    }
+
+    @Test
+    void staysBelowThrottlingQuota() {
+        AdaptiveLimiter limiter = newLimiter();
+        StubProvider provider = new StubProvider(100 * MILLIS, 1000);
+        provider.quota = 25;
+
+        simulate(limiter, provider, 2000);
+        double average = simulate(limiter, provider, 500);
+
+        assertTrue(average > 15 && average <= 26, "average limit " + average);
+        assertTrue(limiter.getHistory().stream().anyMatch(change -> change.getReason().equals("throttled")));
+    }
+
+    @Test
+    void adaptsToRequestLatencyRatherThanTimeSpentWaitingForAThread() {
+        int poolSize = 8;
+        AdaptiveLimiter perRequest = new AdaptiveLimiter(4, 1, 32, 20, 1.3, 0.75, e -> false);
+        AdaptiveLimiter perOperation = new AdaptiveLimiter(4, 1, 32, 20, 1.3, 0.75, e -> false);
+        long latency = 100 * MILLIS;
+
+        for (int round = 0; round < 2000; round++) {
+            while (perRequest.tryAcquire()) {
+                perRequest.sample(latency);
+            }
+            for (int i = perRequest.getInFlight(); i > 0; i--) {
+                perRequest.release(false);
+            }
+            // Operations beyond the pool size wait for a thread before their request is sent
+            int started = 0;
+            while (perOperation.tryAcquire()) {
+                started++;
+            }
+            for (int i = 0; i < started; i++) {
+                perOperation.release(latency * (1 + i / poolSize), false);
+            }
+        }
+
+        assertEquals(32, perRequest.getLimit());
+        assertTrue(perOperation.getLimit() <= poolSize + 1, "limit " + perOperation.getLimit());
+    }
+
+    @Test
+    void queuedOperationsStartWhenPermitsFree() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 20, 1.3, 0.75, e -> false);
+        CompletableFuture<String> first = new CompletableFuture<>();
+
+        CompletableFuture<String> running = limiter.submit(() -> first);
+        CompletableFuture<String> queued = limiter.submit(() -> CompletableFuture.completedFuture("second"));
+
+        assertEquals(1, limiter.getWaiting());
+        assertFalse(queued.isDone());
+
+        first.complete("first");
+        assertEquals("first", running.join());
+        assertEquals("second", queued.join());
+        assertEquals(0, limiter.getInFlight());
+    }
+}
@@ -0,0 +1,111 @@
+package com.nobx.rocketdrive.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * State changes of the breaker, with the time of every call given explicitly.
+ */
+class CircuitBreakerTests {
+
+    private static final int THRESHOLD = 3;
+    private static final long OPEN_MILLIS = 1_000;
+    private static final long MAX_OPEN_MILLIS = 3_000;
+
+    private final CircuitBreaker breaker = new CircuitBreaker(THRESHOLD, OPEN_MILLIS, MAX_OPEN_MILLIS, 2);
+
+    private void failCalls(int calls, long now) {
+        for (int i = 0; i < calls; i++) {
+            assertTrue(breaker.allowRequest(now));
+            breaker.onFailure(true, now);
+        }
+    }
+
+    @Test
+    void opensAfterThresholdConsecutiveOutages() {
+        failCalls(THRESHOLD - 1, 0);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        failCalls(1, 100);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(100 + OPEN_MILLIS, breaker.getRetryAt());
+        assertFalse(breaker.allowRequest(100 + OPEN_MILLIS - 1));
+    }
+
+    @Test
+    void answeredCallsResetTheFailureCount() {
+        failCalls(THRESHOLD - 1, 0);
+        breaker.onSuccess();
+        failCalls(THRESHOLD - 1, 0);
+        // A request the provider rejected still shows it is up
+        breaker.onFailure(false, 0);
+        failCalls(THRESHOLD - 1, 0);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void lateFailuresWhileOpenDoNotExtendIt() {
+        failCalls(THRESHOLD, 0);
+        breaker.onFailure(true, 500);
+
+        assertEquals(OPEN_MILLIS, breaker.getRetryAt());
+    }
+
+    @Test
+    void halfOpenLetsOnlyTheProbesThrough() {
+        failCalls(THRESHOLD, 0);
+
+        assertTrue(breaker.allowRequest(OPEN_MILLIS));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.allowRequest(OPEN_MILLIS));
+        assertFalse(breaker.allowRequest(OPEN_MILLIS));
+        assertFalse(breaker.allowRequest(OPEN_MILLIS + 10_000));
+    }
+
+    @Test
+    void failedProbeDoublesTheOpenPeriodUpToTheMax() {
+        failCalls(THRESHOLD, 0);
+        long now = OPEN_MILLIS;
+
+        long[] expected = { 2_000, 3_000, 3_000 };
+        for (long openMillis : expected) {
+            assertTrue(breaker.allowRequest(now));
+            breaker.onFailure(true, now);
+            assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+            assertEquals(now + openMillis, breaker.getRetryAt());
+            now = breaker.getRetryAt();
+        }
+    }
+
+    @Test
+    void successfulProbeClosesAndResetsTheOpenPeriod() {
+        failCalls(THRESHOLD, 0);
+        assertTrue(breaker.allowRequest(OPEN_MILLIS));
+        breaker.onFailure(true, OPEN_MILLIS);
+
+        assertTrue(breaker.allowRequest(breaker.getRetryAt()));
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        failCalls(THRESHOLD, 10_000);
+        assertEquals(10_000 + OPEN_MILLIS, breaker.getRetryAt());
+    }
+
+    @Test
+    void abandonedProbeFreesItsSlot() {
+        failCalls(THRESHOLD, 0);
+        assertTrue(breaker.allowRequest(OPEN_MILLIS));
+        assertTrue(breaker.allowRequest(OPEN_MILLIS));
+        assertFalse(breaker.allowRequest(OPEN_MILLIS));
+
+        breaker.onAbandoned();
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.allowRequest(OPEN_MILLIS));
+        assertFalse(breaker.allowRequest(OPEN_MILLIS));
+    }
+}
@@ -0,0 +1,139 @@
+package com.nobx.rocketdrive.scheduling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the fair queue against plain FIFO order on a mixed workload: one user
+ * bulk-submits a large backlog while others keep submitting small interactive
+ * and normal tasks. The tail wait time per user on a larger run of the same
+ * workload is reported by the benchmarks module's FairQueueBenchmark.
+ */
+class FairQueueTests {
+
+    private static final int WORKERS = 10;
+    private static final int BULK_TASKS = 2000;
+    private static final int TICKS = 400;
+
+    private static class Job {
+        final String user;
+        final int weight;
+        final int arrival;
+
+        Job(String user, int weight, int arrival) {
+            this.user = user;
+            this.weight = weight;
+            this.arrival = arrival;
+        }
+    }
+
+    /**
+     * Runs the workload with each task taking one tick and returns the wait
+     * times per user, in ticks.
+     */
+    private static Map<String, List<Integer>> simulate(boolean fair) {
+        FairQueue<Job> queue = new FairQueue<>(fair ? 5 : Integer.MAX_VALUE);
+        Map<String, List<Integer>> waits = new TreeMap<>();
+        List<Job> running = new ArrayList<>();
+
+        for (int i = 0; i < BULK_TASKS; i++) {
+            submit(queue, fair, new Job("bulk", 1, 0));
+        }
+        for (int tick = 0; tick < TICKS || queue.size() > 0; tick++) {
+            for (Job job : running) {
+                queue.release(fair ? job.user : "all");
+            }
+            running.clear();
+
+            if (tick < TICKS) {
+                for (int user = 1; user <= 4; user++) {
+                    if (tick % 10 == user) {
+                        submit(queue, fair, new Job("interactive-" + user, 16, tick));
+                    }
+                }
+                if (tick % 5 == 0) {
+                    submit(queue, fair, new Job("normal", 4, tick));
+                }
+            }
+
+            while (running.size() < WORKERS) {
+                Job job = queue.poll();
+                if (job == null) {
+                    break;
+                }
+                running.add(job);
+                waits.computeIfAbsent(job.user, key -> new ArrayList<>()).add(tick - job.arrival);
+            }
+        }
+        return waits;
+    }
+
+    private static void submit(FairQueue<Job> queue, boolean fair, Job job) {
+        // FIFO baseline: a single flow with equal weights is served in arrival order
+        if (fair) {
+            queue.offer(job.user, job, job.weight, 1.0);
+        } else {
+            queue.offer("all", job, 1, 1.0);
+        }
+    }
+
+    private static int percentile(List<Integer> values, double percentile) {
+        List<Integer> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(Math.max(0, (int) Math.ceil(sorted.size() * percentile) - 1));
+    }
+
+    @Test
+    void interactiveTasksAreNotBlockedByBulkBacklog() {
+        Map<String, List<Integer>> fifo = simulate(false);
+        Map<String, List<Integer>> fair = simulate(true);
+
+        for (int user = 1; user <= 4; user++) {
+            String name = "interactive-" + user;
+            assertTrue(percentile(fifo.get(name), 0.99) > 100, "FIFO should make " + name + " wait behind the backlog");
+            assertTrue(percentile(fair.get(name), 0.99) <= 1, name + " p99 wait " + percentile(fair.get(name), 0.99));
+        }
+        assertTrue(percentile(fair.get("normal"), 0.99) <= 2);
+        // The bulk user still gets every task done
+        assertEquals(BULK_TASKS, fair.get("bulk").size());
+    }
+
+    @Test
+    void capHoldsBackUserEvenWhenAlone() {
+        FairQueue<String> queue = new FairQueue<>(1);
+        queue.offer("a", "a1", 1, 1.0);
+        queue.offer("a", "a2", 1, 1.0);
+        queue.offer("b", "b1", 1, 1.0);
+
+        String first = queue.poll();
+        String second = queue.poll();
+        assertTrue(!first.substring(0, 1).equals(second.substring(0, 1)), "users should alternate");
+        // Only the capped user is left, it waits for its item in flight
+        assertNull(queue.poll());
+        assertEquals(1, queue.size());
+        assertEquals(1, queue.getInFlight("a"));
+
+        assertTrue(queue.release("a"));
+        assertEquals("a2", queue.poll());
+        assertFalse(queue.release("c"));
+    }
+
+    @Test
+    void higherWeightGoesFirstWithinUser() {
+        FairQueue<String> queue = new FairQueue<>(10);
+        queue.offer("a", "bulk", 1, 1.0);
+        queue.offer("a", "interactive", 16, 1.0);
+        assertEquals("interactive", queue.poll());
+        assertEquals("bulk", queue.poll());
+    }
+}
@@ -0,0 +1,87 @@
+package com.nobx.rocketdrive.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.Test;
+
+import com.dropbox.core.DbxApiException;
+import com.dropbox.core.ServerException;
+import com.nobx.rocketdrive.enums.CloudServiceEnum;
+import com.nobx.rocketdrive.transfer.IntegrityException;
+
+/**
+ * Failures as the transfer code hands them over: provider errors wrapped in
+ * IOExceptions by the range readers and upload sinks, and those again in the
+ * exceptions of the futures that ran them.
+ */
+class FailureClassifierTests {
+
+    private final FailureClassifier classifier = new FailureClassifier();
+
+    private static DbxApiException pathNotFound() {
+        return new DbxApiException("request-1", null, "path/not_found/");
+    }
+
+    @Test
+    void providerApiErrorWrappedInIOExceptionIsPermanent() {
+        IOException rangeFailure = new IOException("Dropbox range download failed at offset 0", pathNotFound());
+
+        assertFalse(classifier.isRetryable(rangeFailure));
+        assertFalse(classifier.isRetryable(new CompletionException(rangeFailure)));
+        assertFalse(classifier.isRetryable(new UncheckedIOException(rangeFailure)));
+    }
+
+    @Test
+    void providerApiErrorDeepInTheChainIsPermanent() {
+        IOException commitFailure = new IOException("Dropbox upload session commit failed",
+            new RuntimeException(pathNotFound()));
+
+        assertFalse(classifier.isRetryable(new CompletionException(new IOException("upload failed", commitFailure))));
+    }
+
+    @Test
+    void wireFailuresAreRetryable() {
+        assertTrue(classifier.isRetryable(new IOException("Connection reset")));
+        assertTrue(classifier.isRetryable(new CompletionException(new SocketTimeoutException("Read timed out"))));
+        assertTrue(classifier.isRetryable(new IntegrityException("Content hash mismatch")));
+    }
+
+    @Test
+    void providerServerErrorsAreRetryable() {
+        IOException rangeFailure = new IOException("Dropbox range download failed at offset 0",
+            new ServerException("request-2", "Internal server error"));
+
+        assertTrue(classifier.isRetryable(rangeFailure));
+        assertTrue(classifier.isOutage(rangeFailure));
+    }
+
+    @Test
+    void restErrorResponsesAreClassifiedByStatus() {
+        ProviderHttpException notFound = new ProviderHttpException(CloudServiceEnum.DROPBOX, 409,
+            "path_lookup/not_found/", "DROPBOX request failed with HTTP 409: path_lookup/not_found/");
+        ProviderHttpException rateLimited = new ProviderHttpException(CloudServiceEnum.GOOGLE_DRIVE, 403,
+            "userRateLimitExceeded", "GOOGLE_DRIVE request failed with HTTP 403: User rate limit exceeded");
+        ProviderHttpException unavailable = new ProviderHttpException(CloudServiceEnum.DROPBOX, 503, null,
+            "DROPBOX request failed with HTTP 503");
+
+        assertFalse(classifier.isRetryable(new CompletionException(new RuntimeException(notFound))));
+        assertTrue(classifier.isThrottling(new CompletionException(rateLimited)));
+        assertTrue(classifier.isRetryable(rateLimited));
+        assertTrue(classifier.isOutage(unavailable));
+        assertTrue(classifier.isRetryable(new ProviderHttpException(CloudServiceEnum.GOOGLE_DRIVE, 408, null,
+            "GOOGLE_DRIVE request failed with HTTP 408")));
+    }
+
+    @Test
+    void invalidRequestsArePermanent() {
+        assertFalse(classifier.isRetryable(new IllegalArgumentException("Unsupported cloud service")));
+        assertFalse(classifier.isRetryable(new IOException("bad range", new IllegalArgumentException("offset"))));
+        assertFalse(classifier.isRetryable(new IllegalStateException("unexpected")));
+    }
+}
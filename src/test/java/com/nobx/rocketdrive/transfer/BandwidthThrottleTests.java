@@ -0,0 +1,160 @@
+package com.nobx.rocketdrive.transfer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the waits the limiters compute, and the throughput of streams read
+ * through a throttle, against a clock that only moves when the test advances
+ * it or the throttle waits.
+ */
+class BandwidthThrottleTests {
+
+    private static final int MIB = 1024 * 1024;
+    private static final long CHUNK = 64 * 1024;
+    private static final long BURST = 64 * 1024;
+    private static final double TOLERANCE = 0.05;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private ByteRateLimiter limiter(long bytesPerSecond) {
+        return new ByteRateLimiter(bytesPerSecond, BURST, clock::get);
+    }
+
+    private void advance(long micros) {
+        clock.addAndGet(TimeUnit.MICROSECONDS.toNanos(micros));
+    }
+
+    private static long micros(long micros) {
+        return TimeUnit.MICROSECONDS.toNanos(micros);
+    }
+
+    // Waiting moves the fake clock instead of blocking
+    private BandwidthThrottle throttle(ByteRateLimiter... limiters) {
+        return new BandwidthThrottle(List.of(limiters), null, clock::addAndGet);
+    }
+
+    @Test
+    void streamThroughputStaysWithinRate() throws IOException {
+        BandwidthThrottle throttle = throttle(limiter(2 * MIB));
+        InputStream in = throttle.wrap(new ByteArrayInputStream(new byte[4 * MIB]));
+
+        long start = clock.get();
+        readFully(in, 4 * MIB);
+
+        assertWithinTolerance(2 * MIB, 4.0 * MIB * 1e9 / (clock.get() - start));
+    }
+
+    @Test
+    void slowestLimitSetsStreamThroughput() throws IOException {
+        BandwidthThrottle throttle = throttle(limiter(4 * MIB), limiter(MIB));
+        InputStream in = throttle.wrap(new ByteArrayInputStream(new byte[2 * MIB]));
+
+        long start = clock.get();
+        readFully(in, 2 * MIB);
+
+        assertWithinTolerance(MIB, 2.0 * MIB * 1e9 / (clock.get() - start));
+    }
+
+    @Test
+    void rateChangeAppliesToRunningStream() throws IOException {
+        ByteRateLimiter limiter = limiter(MIB);
+        InputStream in = throttle(limiter).wrap(new ByteArrayInputStream(new byte[3 * MIB]));
+
+        readFully(in, MIB);
+        limiter.setBytesPerSecond(4 * MIB);
+        long start = clock.get();
+        readFully(in, 2 * MIB);
+
+        assertWithinTolerance(4 * MIB, 2.0 * MIB * 1e9 / (clock.get() - start));
+    }
+
+    @Test
+    void reservationsAreSpacedAtTheRate() {
+        ByteRateLimiter limiter = limiter(MIB);
+
+        assertEquals(micros(62_500), limiter.reserve(CHUNK));
+        assertEquals(micros(125_000), limiter.reserve(CHUNK));
+
+        advance(125_000);
+        assertEquals(micros(62_500), limiter.reserve(CHUNK));
+    }
+
+    @Test
+    void idleTimeEarnsCreditUpToTheBurst() {
+        ByteRateLimiter limiter = limiter(MIB);
+
+        advance(10_000_000);
+        assertEquals(0, limiter.reserve(BURST));
+        assertEquals(micros(62_500), limiter.reserve(CHUNK));
+    }
+
+    @Test
+    void userLimitAppliesWithinGlobalLimit() {
+        ByteRateLimiter global = limiter(4 * MIB);
+        BandwidthThrottle slow = new BandwidthThrottle(List.of(global, limiter(MIB)));
+        BandwidthThrottle fast = new BandwidthThrottle(List.of(global, limiter(0)));
+
+        // The slow user waits for its own limit, everyone's bytes count against the global one
+        assertEquals(micros(62_500), slow.reserve(CHUNK));
+        assertEquals(micros(62_500), fast.reserve(3 * CHUNK));
+        assertEquals(micros(125_000), slow.reserve(CHUNK));
+        assertEquals(micros(93_750), fast.reserve(CHUNK));
+    }
+
+    @Test
+    void rateChangeAppliesFromTheNextReservation() {
+        ByteRateLimiter limiter = limiter(MIB);
+
+        assertEquals(micros(62_500), limiter.reserve(CHUNK));
+        limiter.setBytesPerSecond(4 * MIB);
+        assertEquals(micros(78_125), limiter.reserve(CHUNK));
+
+        advance(78_125);
+        assertEquals(micros(15_625), limiter.reserve(CHUNK));
+    }
+
+    @Test
+    void idleTimeCountsFromTheLastUse() {
+        ByteRateLimiter limiter = limiter(0);
+
+        advance(1_000);
+        limiter.reserve(CHUNK);
+        advance(2_000);
+        assertEquals(micros(2_000), limiter.getIdleNanos());
+
+        limiter.touch();
+        assertEquals(0, limiter.getIdleNanos());
+    }
+
+    @Test
+    void unlimitedThrottleDoesNotWrap() {
+        InputStream in = new ByteArrayInputStream(new byte[1]);
+        assertEquals(in, BandwidthThrottle.unlimited().wrap(in));
+        assertEquals(0, new ByteRateLimiter(0, BURST).reserve(MIB));
+    }
+
+    private static void readFully(InputStream in, int bytes) throws IOException {
+        byte[] buffer = new byte[32 * 1024];
+        int remaining = bytes;
+        while (remaining > 0) {
+            int n = in.read(buffer, 0, Math.min(buffer.length, remaining));
+            assertTrue(n > 0);
+            remaining -= n;
+        }
+    }
+
+    private static void assertWithinTolerance(double expected, double actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * TOLERANCE,
+                String.format("expected %.0f B/s within %.0f%%, measured %.0f B/s", expected, TOLERANCE * 100, actual));
+    }
+}
@@ -0,0 +1,56 @@
+package com.nobx.rocketdrive.transfer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Known answers for the Dropbox {@code content_hash}, around the 4 MiB block
+ * boundaries. The expected values come from hashing each block with SHA-256 and
+ * the concatenated block hashes again, outside this code.
+ */
+class DropboxContentHasherTests {
+
+    private static final int BLOCK = 4 * 1024 * 1024;
+
+    @Test
+    void emptyFileHasNoBlocks() {
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", hash(new byte[0], 1));
+    }
+
+    @Test
+    void singleByteIsOnePartialBlock() {
+        assertEquals("b6d58dfa6547c1eb7f0d4ffd3e3bd6452213210ea51baa70b97c31f011187215",
+                hash(QuickXorHasherTests.content(1), 1));
+    }
+
+    @Test
+    void blockBoundaries() {
+        assertEquals("64e7ef76b3905f69503913692cd77845ff944be798a87813d193489c0321f205",
+                hash(QuickXorHasherTests.content(BLOCK - 1), 65_536));
+        assertEquals("bca3e93b94c12aa6c47bcc903e7083767d74b2e587671c3363a44c2b81264132",
+                hash(QuickXorHasherTests.content(BLOCK), 65_536));
+        assertEquals("0f58159d5fe331a084fa22edb858ab75855e20634735b15ff70b84a340b5f517",
+                hash(QuickXorHasherTests.content(BLOCK + 1), 65_536));
+    }
+
+    @Test
+    void hashDoesNotDependOnChunking() {
+        byte[] content = QuickXorHasherTests.content(9 * 1024 * 1024);
+        String expected = "c3018117b0a49d11132d8ae6606873c8ea0f77e784329a35cce6e3613d3b0e02";
+
+        assertEquals(expected, hash(content, content.length));
+        assertEquals(expected, hash(content, 12_345));
+        assertEquals(expected, hash(content, BLOCK + 3));
+    }
+
+    private static String hash(byte[] content, int chunkSize) {
+        DropboxContentHasher hasher = new DropboxContentHasher();
+        for (int offset = 0; offset < content.length; offset += chunkSize) {
+            hasher.update(ByteBuffer.wrap(content, offset, Math.min(chunkSize, content.length - offset)));
+        }
+        return hasher.digest();
+    }
+}
@@ -0,0 +1,72 @@
+package com.nobx.rocketdrive.transfer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Known answers for the QuickXorHash OneDrive reports. Besides the empty file
+ * and single byte samples, the expected values come from a bitwise reference:
+ * byte {@code i} XORed into the 160 bit register at bit {@code 11 * i mod 160},
+ * wrapping around, with the little endian length XORed into the last 8 bytes.
+ */
+class QuickXorHasherTests {
+
+    @Test
+    void emptyFileHashesToZeros() {
+        assertEquals("AAAAAAAAAAAAAAAAAAAAAAAAAAA=", hash(new byte[0], 1));
+    }
+
+    @Test
+    void singleByteIsFollowedByLength() {
+        assertEquals("SgAAAAAAAAAAAAAAAQAAAAAAAAA=", hash(new byte[] { 0x4a }, 1));
+    }
+
+    @Test
+    void bytesAreShiftedElevenBitsApart() {
+        assertEquals("BzBBEQAAAAAAAAAAAwAAAAAAAAA=", hash(content(3), 3));
+    }
+
+    @Test
+    void shiftWrapsAroundTheRegister() {
+        assertEquals("GD+KGCbnJ+lXCrS07BVjSpWmgvs=", hash(content(160), 160));
+        assertEquals("X4X7cC7/cVgPZMrjju+fOUsa7aY=", hash(content(1000), 1000));
+    }
+
+    @Test
+    void hashDoesNotDependOnChunking() {
+        byte[] content = content(4 * 1024 * 1024 + 1);
+        String expected = "/FQWHHjEZfVJcSLTbrWbJaVUih8=";
+
+        assertEquals(expected, hash(content, content.length));
+        assertEquals(expected, hash(content, 7));
+        assertEquals(expected, hash(content, 12_345));
+    }
+
+    @Test
+    void comparisonIsCaseSensitive() {
+        QuickXorHasher hasher = new QuickXorHasher();
+        assertTrue(hasher.matches("SgAAAAAAAAAAAAAAAQAAAAAAAAA=", "SgAAAAAAAAAAAAAAAQAAAAAAAAA="));
+        assertFalse(hasher.matches("SgAAAAAAAAAAAAAAAQAAAAAAAAA=", "sgaaaaaaaaaaaaaaaqaaaaaaaaa="));
+    }
+
+    static byte[] content(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * 31 + 7);
+        }
+        return content;
+    }
+
+    private static String hash(byte[] content, int chunkSize) {
+        QuickXorHasher hasher = new QuickXorHasher();
+        for (int offset = 0; offset < content.length; offset += chunkSize) {
+            hasher.update(ByteBuffer.wrap(content, offset, Math.min(chunkSize, content.length - offset)));
+        }
+        return hasher.digest();
+    }
+}
@@ -0,0 +1,236 @@
+package com.nobx.rocketdrive.transfer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Runs the ranged downloader against a stub HTTP server that honours
+ * {@code Range} headers the way the provider download endpoints do.
+ */
+class RangedDownloaderTests {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    private final byte[] content = new byte[5 * 1024 * 1024 + 123];
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private SpoolArena arena;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        new Random(42).nextBytes(content);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/file", this::serveRange);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        executor = Executors.newFixedThreadPool(8);
+        arena = new SpoolArena(2 * 1024 * 1024, Path.of(System.getProperty("java.io.tmpdir")));
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void reassemblesRangesInOrderWithinWindow() throws IOException {
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        long[] completedSize = { -1 };
+
+        ChunkSink sink = new ChunkSink() {
+            @Override
+            public void write(TransferChunk chunk) throws IOException {
+                assertEquals(received.size(), chunk.getOffset());
+                chunk.openStream().transferTo(received);
+            }
+
+            @Override
+            public void complete(long totalSize) {
+                completedSize[0] = totalSize;
+            }
+        };
+
+        new RangedDownloader(executor, arena, 512 * 1024, 3).transfer(content.length, this::openRange, sink);
+
+        assertArrayEquals(content, received.toByteArray());
+        assertEquals(content.length, completedSize[0]);
+        assertEquals(11, requests.get());
+        assertTrue(maxInFlight.get() > 1, "ranges should be fetched concurrently");
+        assertTrue(maxInFlight.get() <= 3, "no more than the window should be in flight");
+        assertEquals(0, arena.getInUseBytes(), "all range buffers should be back in the pool");
+    }
+
+    @Test
+    void failsWhenServerReturnsShortRange() throws InterruptedException {
+        ChunkSink sink = new ChunkSink() {
+            @Override
+            public void write(TransferChunk chunk) {
+            }
+
+            @Override
+            public void complete(long totalSize) {
+            }
+        };
+
+        assertThrows(IOException.class, () -> new RangedDownloader(executor, arena, 1024 * 1024, 2)
+                .transfer(content.length + 10L, this::openRange, sink));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, arena.getInUseBytes(), "aborted ranges should release their buffers");
+    }
+
+    @Test
+    void pausedTransferResumesAfterLastCommittedChunk() throws IOException {
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        TransferCheckpoint checkpoint = new TransferCheckpoint();
+        TransferControl control = new TransferControl(checkpoint);
+        int rangeSize = 512 * 1024;
+
+        ChunkSink sink = new ChunkSink() {
+            @Override
+            public void write(TransferChunk chunk) throws IOException {
+                assertEquals(received.size(), chunk.getOffset());
+                chunk.openStream().transferTo(received);
+                checkpoint.commit("session", chunk.getOffset() + chunk.getLength());
+                if (received.size() >= 2 * rangeSize) {
+                    control.stop(TransferControl.Signal.PAUSE);
+                }
+            }
+
+            @Override
+            public void complete(long totalSize) {
+            }
+        };
+
+        TransferStoppedException stopped = assertThrows(TransferStoppedException.class,
+                () -> new RangedDownloader(executor, arena, rangeSize, 3).transfer(0, content.length,
+                        this::openRange, sink, control));
+        assertEquals(TransferControl.Signal.PAUSE, stopped.getSignal());
+        assertEquals(2 * rangeSize, checkpoint.getCommittedBytes());
+
+        TransferControl resumed = new TransferControl(checkpoint);
+        new RangedDownloader(executor, arena, rangeSize, 3).transfer(checkpoint.getCommittedBytes(),
+                content.length, this::openRange, sink, resumed);
+
+        assertArrayEquals(content, received.toByteArray());
+    }
+
+    @Test
+    void cancelAbortsRangesInFlight() throws Exception {
+        TransferControl control = new TransferControl(new TransferCheckpoint());
+        ChunkSink sink = new ChunkSink() {
+            @Override
+            public void write(TransferChunk chunk) {
+            }
+
+            @Override
+            public void complete(long totalSize) {
+            }
+        };
+        // A source that never sends, as a stalled connection would
+        RangeFetcher stalled = (offset, length) -> new InputStream() {
+            private volatile boolean closed;
+
+            @Override
+            public int read() throws IOException {
+                while (!closed) {
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException(e);
+                    }
+                }
+                throw new IOException("Stream closed");
+            }
+
+            @Override
+            public void close() {
+                closed = true;
+            }
+        };
+
+        executor.execute(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            control.stop(TransferControl.Signal.CANCEL);
+        });
+        long start = System.nanoTime();
+        TransferStoppedException stopped = assertThrows(TransferStoppedException.class,
+                () -> new RangedDownloader(executor, arena, 1024 * 1024, 2).transfer(0, content.length, stalled, sink,
+                        control));
+
+        assertEquals(TransferControl.Signal.CANCEL, stopped.getSignal());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "stalled reads should be aborted");
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, arena.getInUseBytes(), "aborted ranges should release their buffers");
+    }
+
+    private InputStream openRange(long offset, long length) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/file").openConnection();
+        connection.setRequestProperty("Range", "bytes=" + offset + "-" + (offset + length - 1));
+        if (connection.getResponseCode() != 206) {
+            throw new IOException("Expected partial content, got HTTP " + connection.getResponseCode());
+        }
+        return connection.getInputStream();
+    }
+
+    private void serveRange(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(20);
+            Matcher matcher = RANGE.matcher(exchange.getRequestHeaders().getFirst("Range"));
+            if (!matcher.matches()) {
+                exchange.sendResponseHeaders(416, -1);
+                return;
+            }
+            int start = Integer.parseInt(matcher.group(1));
+            int end = Math.min(Integer.parseInt(matcher.group(2)), content.length - 1);
+            exchange.sendResponseHeaders(206, end - start + 1);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(content, start, end - start + 1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+}
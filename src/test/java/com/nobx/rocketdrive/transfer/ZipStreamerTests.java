@@ -0,0 +1,163 @@
+package com.nobx.rocketdrive.transfer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Streams in-memory source files through the zip streamer and reads the
+ * uploaded chunks back as an archive.
+ */
+class ZipStreamerTests {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int PREFETCH_FILES = 4;
+    private static final int PREFETCH_BYTES = 16 * 1024;
+
+    private final List<byte[]> files = new ArrayList<>();
+    private final AtomicInteger openFetches = new AtomicInteger();
+    private final AtomicInteger maxOpenFetches = new AtomicInteger();
+
+    private ExecutorService fetchExecutor;
+    private ExecutorService uploadExecutor;
+    private SpoolArena arena;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(42);
+        int[] sizes = { 0, 1, 100, PREFETCH_BYTES, PREFETCH_BYTES + 1, 3 * CHUNK_SIZE + 7, 5000, 12, 200000, 4096 };
+        for (int size : sizes) {
+            byte[] file = new byte[size];
+            random.nextBytes(file);
+            files.add(file);
+        }
+        fetchExecutor = Executors.newFixedThreadPool(8);
+        uploadExecutor = Executors.newSingleThreadExecutor();
+        arena = new SpoolArena(1024 * 1024, Path.of(System.getProperty("java.io.tmpdir")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fetchExecutor.shutdownNow();
+        uploadExecutor.shutdownNow();
+    }
+
+    @Test
+    void archiveHoldsEveryFileAndIsUploadedInOrder() throws IOException {
+        ByteArrayOutputStream uploaded = new ByteArrayOutputStream();
+        long[] completedSize = { -1 };
+        ChunkSink sink = new ChunkSink() {
+            @Override
+            public void write(TransferChunk chunk) throws IOException {
+                assertEquals(uploaded.size(), chunk.getOffset());
+                assertTrue(chunk.getLength() <= CHUNK_SIZE);
+                chunk.openStream().transferTo(uploaded);
+            }
+
+            @Override
+            public void complete(long totalSize) {
+                completedSize[0] = totalSize;
+            }
+        };
+
+        long size = streamer().stream(entries(null), sink, new TransferControl(new TransferCheckpoint()));
+
+        assertEquals(uploaded.size(), size);
+        assertEquals(size, completedSize[0]);
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(uploaded.toByteArray()))) {
+            for (int i = 0; i < files.size(); i++) {
+                ZipEntry entry = zip.getNextEntry();
+                assertEquals(name(i), entry.getName());
+                assertArrayEquals(files.get(i), zip.readAllBytes());
+            }
+            assertEquals(null, zip.getNextEntry());
+        }
+        assertTrue(maxOpenFetches.get() <= PREFETCH_FILES + 1, "max open fetches " + maxOpenFetches.get());
+        assertEquals(0, arena.getInUseBytes());
+    }
+
+    @Test
+    void alreadyCompressedFormatsAreStored() {
+        assertTrue(ZipStreamer.isCompressed("photos/IMG_0001.JPG"));
+        assertTrue(ZipStreamer.isCompressed("backup.tar.gz"));
+        assertFalse(ZipStreamer.isCompressed("notes.txt"));
+        assertFalse(ZipStreamer.isCompressed("Makefile"));
+    }
+
+    @Test
+    void cancelAbortsArchiveWithoutCompletingUpload() {
+        TransferControl control = new TransferControl(new TransferCheckpoint());
+        boolean[] completed = { false };
+        ChunkSink sink = new ChunkSink() {
+            @Override
+            public void write(TransferChunk chunk) {
+            }
+
+            @Override
+            public void complete(long totalSize) {
+                completed[0] = true;
+            }
+        };
+
+        TransferStoppedException stopped = assertThrows(TransferStoppedException.class,
+                () -> streamer().stream(entries(control), sink, control));
+        assertEquals(TransferControl.Signal.CANCEL, stopped.getSignal());
+        assertFalse(completed[0]);
+    }
+
+    private ZipStreamer streamer() {
+        return new ZipStreamer(fetchExecutor, uploadExecutor, arena, CHUNK_SIZE, PREFETCH_FILES, PREFETCH_BYTES, 6);
+    }
+
+    // Cancels the control when the sixth file is fetched, if one is given
+    private List<ArchiveEntry> entries(TransferControl cancelling) {
+        List<ArchiveEntry> entries = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            byte[] file = files.get(i);
+            int index = i;
+            entries.add(new ArchiveEntry(name(i), file.length, 0, (offset, length) -> {
+                if (cancelling != null && index == 5) {
+                    cancelling.stop(TransferControl.Signal.CANCEL);
+                }
+                return open(file, offset, length);
+            }));
+        }
+        return entries;
+    }
+
+    private InputStream open(byte[] file, long offset, long length) {
+        int open = openFetches.incrementAndGet();
+        maxOpenFetches.accumulateAndGet(open, Math::max);
+        return new ByteArrayInputStream(file, (int) offset, (int) length) {
+            @Override
+            public void close() throws IOException {
+                openFetches.decrementAndGet();
+                super.close();
+            }
+        };
+    }
+
+    private static String name(int i) {
+        return "folder/file-" + i + ".bin";
+    }
+}